@@ -0,0 +1,91 @@
+package com.projectfinal.spring.agrosmart.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compara dos resultados de JMH en formato JSON (-rf json): la referencia guardada y la ejecución actual.
+ *
+ * Imprime una fila por benchmark y combinación de parámetros con la puntuación de ambas y la variación, y
+ * termina con código 1 si alguna empeora más que el umbral. "Peor" depende del modo: más tiempo por operación
+ * en avgt/sample/ss, menos operaciones por unidad de tiempo en thrpt. Sin referencia solo imprime la actual.
+ *
+ * Uso: ComparacionResultados referencia.json actual.json [umbral %]
+ */
+public final class ComparacionResultados {
+
+    private ComparacionResultados() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Uso: ComparacionResultados referencia.json actual.json [umbral %]");
+            System.exit(2);
+        }
+        Path referencia = Paths.get(args[0]);
+        Map<String, Resultado> actuales = leer(Paths.get(args[1]));
+        double umbral = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+        Map<String, Resultado> anteriores = Files.isRegularFile(referencia) ? leer(referencia) : Map.of();
+        if (anteriores.isEmpty()) {
+            System.out.println("[benchmarks] Sin referencia en " + referencia + "; resultados actuales:");
+        }
+
+        int regresiones = 0;
+        System.out.printf("%-75s %14s %14s %9s%n", "benchmark", "referencia", "actual", "cambio");
+        for (Map.Entry<String, Resultado> entrada : new TreeMap<>(actuales).entrySet()) {
+            Resultado actual = entrada.getValue();
+            Resultado anterior = anteriores.get(entrada.getKey());
+            if (anterior == null) {
+                System.out.printf("%-75s %14s %14.3f %9s  %s%n", entrada.getKey(), "-", actual.puntuacion, "-", actual.unidad);
+                continue;
+            }
+            double cambio = 100 * (actual.puntuacion - anterior.puntuacion) / anterior.puntuacion;
+            // En throughput más es mejor: la regresión es una caída
+            double empeora = "thrpt".equals(actual.modo) ? -cambio : cambio;
+            boolean regresion = empeora > umbral;
+            if (regresion) {
+                regresiones++;
+            }
+            System.out.printf("%-75s %14.3f %14.3f %+8.1f%%  %s%s%n", entrada.getKey(), anterior.puntuacion,
+                    actual.puntuacion, cambio, actual.unidad, regresion ? "  REGRESIÓN" : "");
+        }
+        if (regresiones > 0) {
+            System.out.println("[benchmarks] " + regresiones + " benchmark(s) empeoran más de un " + umbral + "% respecto a " + referencia);
+            System.exit(1);
+        }
+    }
+
+    // Clave: nombre del benchmark más sus parámetros, p. ej. PlaneacionBenchmark.areaEnM2 unidadMedida=m2
+    private static Map<String, Resultado> leer(Path archivo) throws IOException {
+        Map<String, Resultado> resultados = new LinkedHashMap<>();
+        for (JsonNode nodo : new ObjectMapper().readTree(archivo.toFile())) {
+            String nombre = nodo.path("benchmark").asText();
+            StringBuilder clave = new StringBuilder(nombre.substring(nombre.lastIndexOf('.', nombre.lastIndexOf('.') - 1) + 1));
+            nodo.path("params").fields().forEachRemaining(p -> clave.append(' ').append(p.getKey()).append('=').append(p.getValue().asText()));
+            JsonNode metrica = nodo.path("primaryMetric");
+            resultados.put(clave.toString(), new Resultado(nodo.path("mode").asText(), metrica.path("score").asDouble(),
+                    metrica.path("scoreUnit").asText()));
+        }
+        return resultados;
+    }
+
+    private static final class Resultado {
+        private final String modo;
+        private final double puntuacion;
+        private final String unidad;
+
+        private Resultado(String modo, double puntuacion, String unidad) {
+            this.modo = modo;
+            this.puntuacion = puntuacion;
+            this.unidad = unidad;
+        }
+    }
+}
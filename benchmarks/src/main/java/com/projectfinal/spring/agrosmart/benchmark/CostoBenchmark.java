@@ -0,0 +1,89 @@
+package com.projectfinal.spring.agrosmart.benchmark;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.CalculoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.ConversionUnidades;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Costo de las líneas de insumo de saveInsumoPlaneacion: total de la línea (cantidad x precio redondeado a
+ * moneda), delta que se aplica al estimacionCosto de la planeación en una edición y cantidad en la unidad base
+ * del insumo (kilos, litros, unidades o empaques) para las sumas por unidad.
+ *
+ * Las cantidades se generan con la escala del parámetro (0: bultos o unidades, 3: kilos o litros con gramos
+ * o mililitros) y los precios con 2 decimales entre 0,50 y 2.500.000, como los insumos importados.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class CostoBenchmark {
+
+    private static final int LOTE = 1024;
+    private static final UnidadMedida[] UNIDADES_INSUMO = {UnidadMedida.KG, UnidadMedida.GR, UnidadMedida.L, UnidadMedida.ML, UnidadMedida.BULTO};
+
+    @Param({"0", "3"})
+    public int escalaCantidad;
+
+    private BigDecimal[] cantidades;
+    private BigDecimal[] precios;
+    private BigDecimal[] totalesAnteriores;
+    private UnidadMedida[] unidades;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        cantidades = new BigDecimal[LOTE];
+        precios = new BigDecimal[LOTE];
+        totalesAnteriores = new BigDecimal[LOTE];
+        unidades = new UnidadMedida[LOTE];
+        for (int i = 0; i < LOTE; i++) {
+            cantidades[i] = BigDecimal.valueOf(aleatorio.nextLong(1, 5_000 * (long) Math.pow(10, escalaCantidad)), escalaCantidad);
+            precios[i] = BigDecimal.valueOf(aleatorio.nextLong(50, 250_000_000), 2);
+            // La mitad de las líneas son nuevas (sin total anterior)
+            totalesAnteriores[i] = aleatorio.nextBoolean() ? null
+                    : CalculoPlaneacion.totalLinea(cantidades[i].add(BigDecimal.ONE), precios[i]);
+            unidades[i] = UNIDADES_INSUMO[aleatorio.nextInt(UNIDADES_INSUMO.length)];
+        }
+    }
+
+    private int indice() {
+        return siguiente++ & (LOTE - 1);
+    }
+
+    @Benchmark
+    public BigDecimal totalLinea() {
+        int i = indice();
+        return CalculoPlaneacion.totalLinea(cantidades[i], precios[i]);
+    }
+
+    @Benchmark
+    public BigDecimal cantidadBase() {
+        int i = indice();
+        return ConversionUnidades.aBase(cantidades[i], unidades[i]);
+    }
+
+    /** Total de la línea más su delta sobre la planeación, como al guardar una línea nueva o editada. */
+    @Benchmark
+    public BigDecimal lineaGuardada() {
+        int i = indice();
+        return CalculoPlaneacion.deltaCosto(CalculoPlaneacion.totalLinea(cantidades[i], precios[i]), totalesAnteriores[i]);
+    }
+}
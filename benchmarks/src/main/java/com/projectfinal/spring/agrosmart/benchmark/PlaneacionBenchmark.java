@@ -0,0 +1,98 @@
+package com.projectfinal.spring.agrosmart.benchmark;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.CalculoPlaneacion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Área de la parcela y número de semillas: el texto de la unidad se reconoce una vez al guardar la parcela
+ * (desdeTexto), la conversión a m2 es una búsqueda en la tabla de ConversionUnidades y savePlaneacionCultivo
+ * solo divide el área guardada por el marco de siembra del tipo de cultivo.
+ *
+ * Cada invocación toma la siguiente parcela de un lote fijo (tamaños entre media hectárea y 500 ha, con los
+ * decimales que admite el formulario) y el marco de uno de los tipos de cultivo por defecto (café, maíz,
+ * cacao), para que el JIT no pueda plegar constantes ni aprender un único camino.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PlaneacionBenchmark {
+
+    private static final int LOTE = 1024;
+    private static final String[][] MARCOS = {{"1.5", "1.0"}, {"0.8", "0.3"}, {"3.0", "3.0"}};
+
+    /** Unidad tal como llega del formulario o de un CSV (con mayúsculas y tildes). */
+    @Param({"hectareas", "m2", "Hectáreas"})
+    public String unidadMedida;
+
+    private UnidadMedida unidad;
+
+    private BigDecimal[] tamanos;
+    private BigDecimal[] areas;
+    private BigDecimal[] distanciasSurco;
+    private BigDecimal[] distanciasPlanta;
+    private int siguiente;
+
+    @Setup
+    public void preparar() {
+        SplittableRandom aleatorio = new SplittableRandom(42);
+        unidad = UnidadMedida.desdeTexto(unidadMedida);
+        tamanos = new BigDecimal[LOTE];
+        areas = new BigDecimal[LOTE];
+        distanciasSurco = new BigDecimal[LOTE];
+        distanciasPlanta = new BigDecimal[LOTE];
+        for (int i = 0; i < LOTE; i++) {
+            tamanos[i] = BigDecimal.valueOf(aleatorio.nextLong(50, 50_000), 2);
+            areas[i] = CalculoPlaneacion.areaEnM2(tamanos[i], unidad);
+            String[] marco = MARCOS[aleatorio.nextInt(MARCOS.length)];
+            distanciasSurco[i] = new BigDecimal(marco[0]);
+            distanciasPlanta[i] = new BigDecimal(marco[1]);
+        }
+    }
+
+    private int indice() {
+        return siguiente++ & (LOTE - 1);
+    }
+
+    /** Se paga una vez por escritura de la parcela (Parcela.normalizarArea). */
+    @Benchmark
+    public UnidadMedida desdeTexto() {
+        return UnidadMedida.desdeTexto(unidadMedida);
+    }
+
+    @Benchmark
+    public BigDecimal areaEnM2() {
+        return CalculoPlaneacion.areaEnM2(tamanos[indice()], unidad);
+    }
+
+    @Benchmark
+    public BigDecimal numeroSemillas() {
+        int i = indice();
+        return CalculoPlaneacion.numeroSemillas(areas[i], distanciasSurco[i], distanciasPlanta[i]);
+    }
+
+    /** Guardar la parcela (reconocer la unidad y normalizar el área) y después su planeación. */
+    @Benchmark
+    public BigDecimal parcelaYPlaneacion() {
+        int i = indice();
+        BigDecimal area = CalculoPlaneacion.areaEnM2(tamanos[i], UnidadMedida.desdeTexto(unidadMedida));
+        return CalculoPlaneacion.numeroSemillas(area, distanciasSurco[i], distanciasPlanta[i]);
+    }
+}
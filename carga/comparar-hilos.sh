@@ -0,0 +1,61 @@
+#!/usr/bin/env sh
+# Compara la aplicación con el pool de hilos de plataforma de Tomcat (Java 17, por defecto) y con hilos
+# virtuales (perfil Spring "virtual", build -Pjava21) bajo la misma carga de sesiones concurrentes.
+#
+# Requisitos: JDK 21 en el PATH, k6 y PostgreSQL accesible (docker compose up -d db publica el 5433).
+#
+#   carga/comparar-hilos.sh                 # 1200 sesiones concurrentes
+#   VUS=3000 DURACION=5m carga/comparar-hilos.sh
+#
+# Los resúmenes de k6 quedan en target/carga/{plataforma,virtual}.json y la tabla final muestra rendimiento,
+# latencias y errores de cada modo. Con -Djdk.tracePinnedThreads=short el log del modo virtual avisa si algún
+# hilo virtual queda anclado a su portador (synchronized alrededor de E/S bloqueante).
+set -eu
+
+cd "$(dirname "$0")/.."
+VUS="${VUS:-1200}"
+DURACION="${DURACION:-3m}"
+PUERTO="${PUERTO:-8080}"
+export SPRING_DATASOURCE_URL="${SPRING_DATASOURCE_URL:-jdbc:postgresql://localhost:5433/agrosmart_db?reWriteBatchedInserts=true}"
+# El modo por defecto usa el tamaño de pool de Hikari del modo virtual para que solo cambien los hilos
+export AGROSMART_POOL_MAX="${AGROSMART_POOL_MAX:-30}"
+SALIDA=target/carga
+mkdir -p "$SALIDA"
+
+mvn -B -q -Pjava21 -DskipTests package
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+
+ejecutar() {
+    modo="$1"; shift
+    echo ">> $modo: arrancando $JAR $*"
+    java -Djdk.tracePinnedThreads=short -jar "$JAR" --server.port="$PUERTO" \
+        --spring.jpa.show-sql=false \
+        --spring.datasource.hikari.maximum-pool-size="$AGROSMART_POOL_MAX" "$@" > "$SALIDA/$modo.log" 2>&1 &
+    pid=$!
+    until curl -fs -o /dev/null "http://localhost:$PUERTO/auth/login"; do
+        kill -0 "$pid" 2>/dev/null || { echo "La aplicación no arrancó, ver $SALIDA/$modo.log"; exit 1; }
+        sleep 1
+    done
+    k6 run --quiet -e BASE_URL="http://localhost:$PUERTO" -e VUS="$VUS" -e DURACION="$DURACION" \
+        --summary-export="$SALIDA/$modo.json" carga/sesiones.js || true
+    kill "$pid"; wait "$pid" 2>/dev/null || true
+}
+
+ejecutar plataforma
+ejecutar virtual --spring.profiles.active=virtual
+
+resumen() {
+    python3 - "$SALIDA/$1.json" "$1" <<'PY'
+import json, sys
+m = json.load(open(sys.argv[1]))["metrics"]
+d = m["http_req_duration"]
+print(f"{sys.argv[2]:<11}{m['http_reqs']['rate']:>10.1f}{d['med']:>10.1f}{d['p(95)']:>10.1f}{d['p(99)']:>10.1f}"
+      f"{100 * m['http_req_failed']['value']:>9.2f}%")
+PY
+}
+
+echo
+printf '%-11s%10s%10s%10s%10s%10s\n' modo 'req/s' 'p50 ms' 'p95 ms' 'p99 ms' errores
+resumen plataforma
+resumen virtual
+grep -h "Pinned\|onPinned" "$SALIDA/virtual.log" | sort | uniq -c | sort -rn | head -n 5 || true
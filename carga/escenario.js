@@ -0,0 +1,146 @@
+// Escenario de carga repetible sobre los datos de GeneradorDatosService (perfil Spring "generador"), k6 (https://k6.io).
+//
+// Cada usuario virtual inicia sesión con una cuenta generada (carga-N@agrosmart.test) y repite el flujo de trabajo
+// habitual: listar planeaciones, abrir los insumos de una, añadirle una línea de insumo y editar la planeación.
+// Cada paso se etiqueta (tag "paso") y el resumen da p50/p95/p99 por paso, peticiones por segundo y errores.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e CUENTAS=1000 -e VUS=50 -e DURACION=2m carga/escenario.js
+//
+// Con -e SALIDA=archivo.json el resumen compacto se guarda también en JSON; carga/escenario.sh lo usa para
+// comparar el commit actual con uno anterior.
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const CUENTAS = parseInt(__ENV.CUENTAS || '1000', 10);
+const PASSWORD = __ENV.PASSWORD || 'carga-secreta';
+const PASOS = ['login', 'listar_planeaciones', 'ver_insumos', 'form_linea', 'agregar_linea', 'form_planeacion', 'editar_planeacion'];
+
+const umbralesPorPaso = {};
+for (const paso of PASOS) {
+    // Umbral que siempre se cumple: solo hace que k6 calcule y exporte la métrica de cada paso
+    umbralesPorPaso[`http_req_duration{paso:${paso}}`] = ['max>=0'];
+}
+
+export const options = {
+    scenarios: {
+        flujo: {
+            executor: 'constant-vus',
+            vus: parseInt(__ENV.VUS || '50', 10),
+            duration: __ENV.DURACION || '2m',
+        },
+    },
+    // Sin redirecciones: cada POST correcto responde 302 y un 302 a /auth/login es una sesión perdida
+    maxRedirects: 0,
+    summaryTrendStats: ['avg', 'med', 'p(95)', 'p(99)', 'max', 'count'],
+    thresholds: Object.assign({ checks: ['rate>0.99'] }, umbralesPorPaso),
+};
+
+function pedir(metodo, ruta, cuerpo, paso) {
+    return http.request(metodo, `${BASE_URL}${ruta}`, cuerpo, { tags: { paso } });
+}
+
+function iniciarSesion() {
+    // Los VU se reparten las cuentas; varias sesiones por cuenta si hay más VU que cuentas
+    const email = `carga-${(__VU - 1) % CUENTAS}@agrosmart.test`;
+    const res = pedir('POST', '/auth/login', { username: email, password: PASSWORD }, 'login');
+    return check(res, {
+        'login redirige al dashboard': (r) => r.status === 302 && (r.headers['Location'] || '').endsWith('/dashboard'),
+    });
+}
+
+function elegir(valores) {
+    return valores[Math.floor(Math.random() * valores.length)];
+}
+
+function ids(cuerpo, patron) {
+    const encontrados = [];
+    let m;
+    while ((m = patron.exec(cuerpo)) !== null) {
+        encontrados.push(m[1]);
+    }
+    return encontrados;
+}
+
+export default function () {
+    if (__ITER === 0 && !iniciarSesion()) {
+        sleep(1);
+        return;
+    }
+
+    const listado = pedir('GET', '/planeaciones', null, 'listar_planeaciones');
+    if (!check(listado, { 'listado 200': (r) => r.status === 200 })) {
+        return;
+    }
+    const planeaciones = ids(listado.body, /\/planeaciones\/edit\/(\d+)/g);
+    if (planeaciones.length === 0) {
+        // Cuenta generada sin planeaciones (la distribución admite cero): solo cuenta el listado
+        sleep(1);
+        return;
+    }
+    const id = elegir(planeaciones);
+
+    check(pedir('GET', `/planeaciones/${id}/insumos`, null, 'ver_insumos'), { 'insumos 200': (r) => r.status === 200 });
+
+    const formLinea = pedir('GET', `/planeaciones/${id}/insumos/new`, null, 'form_linea');
+    const insumos = ids(formLinea.body || '', /<option value="(\d+)"/g);
+    if (check(formLinea, { 'formulario de línea 200': (r) => r.status === 200 }) && insumos.length > 0) {
+        const alta = pedir('POST', `/planeaciones/${id}/insumos`, {
+            'planeacion.id': id,
+            'insumo.id': elegir(insumos),
+            cantidad: (1 + Math.random() * 50).toFixed(3),
+            observaciones: 'Carga',
+        }, 'agregar_linea');
+        check(alta, { 'línea guardada': (r) => r.status === 302 && (r.headers['Location'] || '').endsWith(`/planeaciones/${id}/insumos`) });
+    }
+
+    const formPlaneacion = pedir('GET', `/planeaciones/edit/${id}`, null, 'form_planeacion');
+    if (check(formPlaneacion, { 'formulario de planeación 200': (r) => r.status === 200 })) {
+        const campos = formPlaneacion.html().find('form.auth-form').serializeObject();
+        campos.descripcion = `Editada por carga ${__VU}-${__ITER}`;
+        const edicion = pedir('POST', '/planeaciones', campos, 'editar_planeacion');
+        check(edicion, { 'planeación guardada': (r) => r.status === 302 && (r.headers['Location'] || '').endsWith('/planeaciones') });
+    }
+
+    sleep(0.2 + Math.random() * 0.3);
+}
+
+// Resumen compacto: latencias por paso en ms, rendimiento y errores (también en JSON si se indica SALIDA)
+export function handleSummary(data) {
+    const m = data.metrics;
+    const fila = (metrica) => ({
+        p50: metrica.values.med,
+        p95: metrica.values['p(95)'],
+        p99: metrica.values['p(99)'],
+        peticiones: metrica.values.count,
+    });
+    const resumen = {
+        etiqueta: __ENV.ETIQUETA || '',
+        peticionesPorSegundo: m.http_reqs.values.rate,
+        iteracionesPorSegundo: m.iterations ? m.iterations.values.rate : 0,
+        errores: m.http_req_failed.values.rate,
+        checks: m.checks ? m.checks.values.rate : 1,
+        total: fila(m.http_req_duration),
+        pasos: {},
+    };
+    for (const paso of PASOS) {
+        const metrica = m[`http_req_duration{paso:${paso}}`];
+        if (metrica && metrica.values.count > 0) {
+            resumen.pasos[paso] = fila(metrica);
+        }
+    }
+
+    const f = (v) => v.toFixed(1).padStart(10);
+    let texto = `\n${'paso'.padEnd(20)}${'p50 ms'.padStart(10)}${'p95 ms'.padStart(10)}${'p99 ms'.padStart(10)}${'peticiones'.padStart(12)}\n`;
+    for (const [paso, v] of Object.entries(Object.assign({}, resumen.pasos, { total: resumen.total }))) {
+        texto += `${paso.padEnd(20)}${f(v.p50)}${f(v.p95)}${f(v.p99)}${String(v.peticiones).padStart(12)}\n`;
+    }
+    texto += `\n${resumen.peticionesPorSegundo.toFixed(1)} req/s, ${resumen.iteracionesPorSegundo.toFixed(2)} flujos/s, `
+        + `${(100 * resumen.errores).toFixed(2)}% errores HTTP, ${(100 * resumen.checks).toFixed(2)}% checks correctos\n`;
+
+    const salida = { stdout: texto };
+    if (__ENV.SALIDA) {
+        salida[__ENV.SALIDA] = JSON.stringify(resumen, null, 2);
+    }
+    return salida;
+}
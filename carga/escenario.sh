@@ -0,0 +1,97 @@
+#!/usr/bin/env sh
+# Ejecuta carga/escenario.js contra el commit actual con datos sintéticos y lo compara con una ejecución anterior.
+#
+# Requisitos: JDK 17, k6 y PostgreSQL accesible (docker compose up -d db publica el 5433).
+#
+#   carga/escenario.sh                       # genera datos si faltan, mide y guarda target/carga/escenario-<commit>.json
+#   BASE=3f2a9c1 carga/escenario.sh          # además compara con target/carga/escenario-3f2a9c1.json
+#   USUARIOS=5000 VUS=100 DURACION=5m carga/escenario.sh
+#
+# Para comparar dos commits: ejecutar en el anterior, hacer checkout del nuevo y volver a ejecutar con BASE=<anterior>.
+# Al terminar se lee también el timer agrosmart.sesion del puerto de gestión: media y p99 de leer y guardar la sesión
+# JDBC por petición, que quedan en el mismo JSON (clave "sesion").
+# Los datos se generan en el primer arranque con el perfil "generador" y se reutilizan (misma semilla, mismos
+# datos), así que las dos mediciones parten de la misma base salvo por las líneas y ediciones de la propia carga.
+set -eu
+
+cd "$(dirname "$0")/.."
+USUARIOS="${USUARIOS:-1000}"
+VUS="${VUS:-50}"
+DURACION="${DURACION:-2m}"
+PUERTO="${PUERTO:-8080}"
+PUERTO_GESTION="${PUERTO_GESTION:-8081}"
+COMMIT=$(git rev-parse --short HEAD)
+export SPRING_DATASOURCE_URL="${SPRING_DATASOURCE_URL:-jdbc:postgresql://localhost:5433/agrosmart_db?reWriteBatchedInserts=true}"
+SALIDA=target/carga
+mkdir -p "$SALIDA"
+
+mvn -B -q -DskipTests package
+JAR=$(ls target/*.jar | grep -v original | head -n 1)
+
+echo ">> $COMMIT: arrancando $JAR con $USUARIOS usuarios sintéticos"
+java -jar "$JAR" --server.port="$PUERTO" --management.server.port="$PUERTO_GESTION" --spring.profiles.active=generador \
+    --agrosmart.generador.usuarios="$USUARIOS" > "$SALIDA/escenario-$COMMIT.log" 2>&1 &
+pid=$!
+trap 'kill "$pid" 2>/dev/null || true' EXIT
+# Tomcat responde antes de que termine la generación: se espera a la línea final del generador
+until grep -q "Datos sintéticos:" "$SALIDA/escenario-$COMMIT.log"; do
+    kill -0 "$pid" 2>/dev/null || { echo "La aplicación no arrancó, ver $SALIDA/escenario-$COMMIT.log"; exit 1; }
+    sleep 2
+done
+grep -h "Datos sintéticos:" "$SALIDA/escenario-$COMMIT.log"
+
+k6 run --quiet -e BASE_URL="http://localhost:$PUERTO" -e CUENTAS="$USUARIOS" -e VUS="$VUS" -e DURACION="$DURACION" \
+    -e ETIQUETA="$COMMIT" -e SALIDA="$SALIDA/escenario-$COMMIT.json" carga/escenario.js || true
+
+if curl -fs -o "$SALIDA/prometheus-$COMMIT.txt" "http://localhost:$PUERTO_GESTION/actuator/prometheus"; then
+    python3 - "$SALIDA/prometheus-$COMMIT.txt" "$SALIDA/escenario-$COMMIT.json" <<'PY'
+import json, re, sys
+muestras = {}
+for linea in open(sys.argv[1]):
+    m = re.match(r'agrosmart_sesion_seconds_(bucket|sum|count)\{([^}]*)\} (\S+)', linea)
+    if not m:
+        continue
+    etiquetas = dict(re.findall(r'(\w+)="([^"]*)"', m.group(2)))
+    op = muestras.setdefault(etiquetas["operacion"], {"buckets": []})
+    if m.group(1) == "bucket":
+        op["buckets"].append((float(etiquetas["le"]), float(m.group(3))))
+    else:
+        op[m.group(1)] = float(m.group(3))
+sesion = {}
+for nombre in ("leer", "guardar"):
+    op = muestras.get(nombre)
+    if not op or not op.get("count"):
+        continue
+    # p99: límite superior del primer bucket que acumula el 99% de las operaciones
+    p99 = next(le for le, acumuladas in sorted(op["buckets"]) if acumuladas >= 0.99 * op["count"])
+    sesion[nombre] = {"media": 1000 * op["sum"] / op["count"], "p99": 1000 * p99, "operaciones": int(op["count"])}
+    print(f"sesión {nombre:<8}media {sesion[nombre]['media']:.3f} ms, p99 <= {sesion[nombre]['p99']:.3f} ms, "
+          f"{sesion[nombre]['operaciones']} operaciones")
+resumen = json.load(open(sys.argv[2]))
+resumen["sesion"] = sesion
+json.dump(resumen, open(sys.argv[2], "w"), indent=2)
+PY
+fi
+
+if [ -n "${BASE:-}" ]; then
+    python3 - "$SALIDA/escenario-$BASE.json" "$SALIDA/escenario-$COMMIT.json" <<'PY'
+import json, sys
+base, actual = (json.load(open(p)) for p in sys.argv[1:3])
+print(f"\n{'paso':<20}{'p50 ' + base['etiqueta']:>16}{'p50 ' + actual['etiqueta']:>16}"
+      f"{'p95':>10}{'p95':>10}{'p99':>10}{'p99':>10}")
+pasos = list(actual["pasos"]) + ["total"]
+for paso in pasos:
+    b = base["total"] if paso == "total" else base["pasos"].get(paso)
+    a = actual["total"] if paso == "total" else actual["pasos"][paso]
+    if b is None:
+        continue
+    print(f"{paso:<20}{b['p50']:>16.1f}{a['p50']:>16.1f}{b['p95']:>10.1f}{a['p95']:>10.1f}{b['p99']:>10.1f}{a['p99']:>10.1f}")
+cambio = 100 * (actual["peticionesPorSegundo"] / base["peticionesPorSegundo"] - 1)
+print(f"\nreq/s: {base['peticionesPorSegundo']:.1f} -> {actual['peticionesPorSegundo']:.1f} ({cambio:+.1f}%)")
+sesiones = [(n, base["sesion"][n], a) for n, a in actual.get("sesion", {}).items() if n in base.get("sesion", {})]
+if sesiones:
+    print(f"\n{'sesión (ms)':<20}{'media ' + base['etiqueta']:>16}{'media ' + actual['etiqueta']:>16}{'p99':>10}{'p99':>10}")
+    for nombre, b, a in sesiones:
+        print(f"{nombre:<20}{b['media']:>16.3f}{a['media']:>16.3f}{b['p99']:>10.3f}{a['p99']:>10.3f}")
+PY
+fi
@@ -0,0 +1,85 @@
+// Carga de navegación con sesiones concurrentes (k6, https://k6.io).
+//
+// Cada usuario virtual inicia sesión una vez (una sesión HTTP propia por VU) y recorre las páginas que más
+// consultan la base de datos: dashboard, listados de parcelas y planeaciones y formulario de parcela.
+// Las cuentas de prueba (carga-N@agrosmart.test) se registran en setup() si no existen.
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e VUS=1200 carga/sesiones.js
+//
+// Lo lanza carga/comparar-hilos.sh contra el modo por defecto y el perfil "virtual".
+import http from 'k6/http';
+import { check, sleep } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const VUS = parseInt(__ENV.VUS || '1200', 10);
+const CUENTAS = parseInt(__ENV.CUENTAS || '200', 10);
+const PASSWORD = 'carga-secreta';
+
+export const options = {
+    setupTimeout: '5m',
+    scenarios: {
+        navegacion: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '1m', target: VUS },
+                { duration: __ENV.DURACION || '3m', target: VUS },
+                { duration: '30s', target: 0 },
+            ],
+            gracefulRampDown: '30s',
+        },
+    },
+    // Sin redirecciones: un 302 a /auth/login es una sesión perdida, no una página servida
+    maxRedirects: 0,
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        checks: ['rate>0.99'],
+    },
+};
+
+function email(n) {
+    return `carga-${n}@agrosmart.test`;
+}
+
+export function setup() {
+    for (let n = 0; n < CUENTAS; n++) {
+        // Si la cuenta ya existe el formulario se devuelve con error (200) y no se crea otra
+        http.post(`${BASE_URL}/auth/register`, {
+            nombre: `Carga ${n}`,
+            email: email(n),
+            password: PASSWORD,
+            confirmPassword: PASSWORD,
+        });
+        iniciarSesion(n);
+        http.post(`${BASE_URL}/parcelas`, {
+            nombre: `Parcela carga ${n}`,
+            ubicacion: 'Carga',
+            tamano: '12.5',
+            unidadMedida: 'Hectareas',
+        });
+        http.cookieJar().clear(BASE_URL);
+    }
+}
+
+function iniciarSesion(n) {
+    const res = http.post(`${BASE_URL}/auth/login`, { username: email(n), password: PASSWORD });
+    return check(res, {
+        'login redirige al dashboard': (r) => r.status === 302 && (r.headers['Location'] || '').endsWith('/dashboard'),
+    });
+}
+
+const PAGINAS = ['/dashboard', '/parcelas', '/planeaciones', '/parcelas/new'];
+
+export default function () {
+    // La cookie de sesión se conserva en el cookie jar del VU entre iteraciones
+    if (__ITER === 0 && !iniciarSesion((__VU - 1) % CUENTAS)) {
+        sleep(1);
+        return;
+    }
+    for (const pagina of PAGINAS) {
+        const res = http.get(`${BASE_URL}${pagina}`, { tags: { pagina } });
+        check(res, { 'página 200': (r) => r.status === 200 });
+        // Tiempo de lectura del usuario entre páginas
+        sleep(0.5 + Math.random());
+    }
+}
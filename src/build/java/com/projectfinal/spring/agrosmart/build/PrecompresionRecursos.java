@@ -0,0 +1,105 @@
+package com.projectfinal.spring.agrosmart.build;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Etapa de build de los recursos estáticos (exec-maven-plugin, fase process-classes): junto a cada css/js de
+ * target/classes/static escribe sus variantes .gz y .br con la máxima compresión. En ejecución las sirve
+ * EncodedResourceResolver (ver WebConfig) según Accept-Encoding, sin comprimir nada por petición.
+ *
+ * No forma parte de la aplicación: está en src/build/java, fuera de las fuentes que se compilan y empaquetan,
+ * y el pom lo ejecuta como programa de un solo archivo (java Archivo.java) con el classpath de compilación.
+ * brotli4j es opcional y no va en el jar. Si su librería nativa no está disponible para la plataforma del build
+ * se generan solo las variantes .gz.
+ */
+public final class PrecompresionRecursos {
+
+    private static final Logger log = LoggerFactory.getLogger(PrecompresionRecursos.class);
+
+    private static final Set<String> EXTENSIONES = Set.of("css", "js", "svg", "json", "txt");
+    // Por debajo de este tamaño la variante comprimida no ahorra lo suficiente como para servirla
+    private static final int TAMANO_MINIMO = 256;
+
+    private PrecompresionRecursos() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path raiz = Paths.get(args.length > 0 ? args[0] : "target/classes/static");
+        if (!Files.isDirectory(raiz)) {
+            log.info("No existe {}, no hay nada que precomprimir.", raiz);
+            return;
+        }
+        boolean brotli = brotliDisponible();
+        List<Path> recursos;
+        try (Stream<Path> archivos = Files.walk(raiz)) {
+            recursos = archivos.filter(Files::isRegularFile).filter(PrecompresionRecursos::comprimible).toList();
+        }
+        for (Path recurso : recursos) {
+            byte[] original = Files.readAllBytes(recurso);
+            escribirSiReduce(recurso, ".gz", original, gzip(original));
+            if (brotli) {
+                escribirSiReduce(recurso, ".br", original, Encoder.compress(original, new Encoder.Parameters().setQuality(11)));
+            }
+        }
+        log.info("{} recursos precomprimidos en {} ({})", recursos.size(), raiz, brotli ? "gzip y brotli" : "solo gzip");
+    }
+
+    private static boolean comprimible(Path archivo) {
+        String nombre = archivo.getFileName().toString().toLowerCase(Locale.ROOT);
+        int punto = nombre.lastIndexOf('.');
+        try {
+            return punto > 0 && EXTENSIONES.contains(nombre.substring(punto + 1)) && Files.size(archivo) >= TAMANO_MINIMO;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static boolean brotliDisponible() {
+        try {
+            Brotli4jLoader.ensureAvailability();
+            return true;
+        } catch (Throwable e) {
+            log.warn("Brotli no disponible en esta plataforma ({}); solo se genera gzip.", e.getMessage());
+            return false;
+        }
+    }
+
+    // GZIPOutputStream deja la fecha de la cabecera a cero: el mismo recurso produce siempre el mismo .gz
+    private static byte[] gzip(byte[] original) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream(original.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            gzip.write(original);
+        }
+        return salida.toByteArray();
+    }
+
+    // Una variante que no es más pequeña no se escribe (y se borra la de un build anterior)
+    private static void escribirSiReduce(Path recurso, String extension, byte[] original, byte[] comprimido) throws IOException {
+        Path variante = recurso.resolveSibling(recurso.getFileName() + extension);
+        if (comprimido.length < original.length) {
+            Files.write(variante, comprimido);
+        } else {
+            Files.deleteIfExists(variante);
+        }
+    }
+}
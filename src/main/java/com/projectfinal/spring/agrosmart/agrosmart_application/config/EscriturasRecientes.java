@@ -0,0 +1,47 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.time.Duration;
+
+/**
+ * Leer lo que uno acaba de escribir con réplicas asíncronas: al confirmarse una transacción de escritura hecha
+ * durante una petición se anota la hora en la sesión HTTP, y mientras no pase el retraso tolerado las lecturas de
+ * esa sesión van a la primaria. La marca vive en la sesión (no en memoria del proceso) para que valga en
+ * cualquier instancia que atienda la siguiente petición. Las tareas en segundo plano no tienen sesión y no
+ * marcan nada.
+ */
+public class EscriturasRecientes implements TransactionExecutionListener {
+
+    static final String ATRIBUTO = EscriturasRecientes.class.getName() + ".ultima";
+
+    private final long ventanaMillis;
+
+    public EscriturasRecientes(Duration ventana) {
+        this.ventanaMillis = ventana.toMillis();
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        if (commitFailure != null || transaction.isReadOnly() || !transaction.isNewTransaction()) {
+            return;
+        }
+        RequestAttributes peticion = RequestContextHolder.getRequestAttributes();
+        if (peticion != null) {
+            peticion.setAttribute(ATRIBUTO, System.currentTimeMillis(), RequestAttributes.SCOPE_SESSION);
+        }
+    }
+
+    /** Si la sesión de la petición actual escribió hace menos del retraso tolerado. */
+    public boolean enVentana() {
+        RequestAttributes peticion = RequestContextHolder.getRequestAttributes();
+        if (peticion == null) {
+            return false;
+        }
+        return peticion.getAttribute(ATRIBUTO, RequestAttributes.SCOPE_SESSION) instanceof Long ultima
+                && System.currentTimeMillis() - ultima < ventanaMillis;
+    }
+}
@@ -0,0 +1,29 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.EstadisticasCacheService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.EstadisticaCache;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Aciertos, fallos y escrituras de las regiones de la caché de catálogos en /actuator/cachecatalogos.
+ * Son contadores de todos los usuarios, así que solo se publican en el puerto de gestión, no en la aplicación.
+ */
+@Component
+@Endpoint(id = "cachecatalogos")
+public class EstadisticasCacheEndpoint {
+
+    private final EstadisticasCacheService estadisticasCacheService;
+
+    public EstadisticasCacheEndpoint(EstadisticasCacheService estadisticasCacheService) {
+        this.estadisticasCacheService = estadisticasCacheService;
+    }
+
+    @ReadOperation
+    public List<EstadisticaCache> estadisticas() {
+        return estadisticasCacheService.getEstadisticas();
+    }
+}
@@ -0,0 +1,36 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.GeneradorDatosService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ParametrosGeneracion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Perfil "generador": al arrancar llena la base con datos sintéticos (GeneradorDatosService) y la aplicación
+ * sigue sirviendo peticiones, lista para carga/escenario.js. Los volúmenes se leen de agrosmart.generador.*
+ * (application-generador.properties o la línea de comandos):
+ *
+ *   java -jar agrosmart.jar --spring.profiles.active=generador --agrosmart.generador.usuarios=5000
+ */
+@Configuration
+@Profile("generador")
+public class GeneradorDatosConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(GeneradorDatosConfig.class);
+
+    @Bean
+    @ConfigurationProperties("agrosmart.generador")
+    public ParametrosGeneracion parametrosGeneracion() {
+        return new ParametrosGeneracion();
+    }
+
+    @Bean
+    public ApplicationRunner generadorDatos(GeneradorDatosService generadorDatosService, ParametrosGeneracion parametros) {
+        return argumentos -> log.info("Datos sintéticos: {}", generadorDatosService.generar(parametros));
+    }
+}
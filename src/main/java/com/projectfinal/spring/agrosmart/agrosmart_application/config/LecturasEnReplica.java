@@ -0,0 +1,73 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * La caché de segundo nivel refleja la primaria: una réplica atrasada no debe llenarla. Al empezar cada transacción
+ * readOnly se fija su base (ReplicasLectura) y, si es una réplica, la sesión de Hibernate pasa a CacheMode.IGNORE:
+ * lo que lee no entra ni en las regiones de entidades ni en la de consultas. Sin esto, tras un UPDATE masivo de
+ * precios (que vacía la región de insumos) una lectura en la réplica volvería a guardar el precio viejo hasta que
+ * venza el TTL, y lo verían también las escrituras en la primaria.
+ *
+ * No basta con CacheMode.GET: Hibernate 6.6 guarda igualmente el resultado de una consulta cacheable que buscó en
+ * la caché y no encontró.
+ */
+public class LecturasEnReplica implements TransactionExecutionListener {
+
+    private final ReplicasLectura replicasLectura;
+    private final EntityManager entityManager;
+    // Cómo dejar la sesión al terminar cada transacción readOnly del hilo: con open-in-view la sesión es la de toda
+    // la petición y la siguiente transacción puede ser de escritura
+    private final ThreadLocal<Deque<Runnable>> restaurar = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public LecturasEnReplica(ReplicasLectura replicasLectura, EntityManager entityManager) {
+        this.replicasLectura = replicasLectura;
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null || !esLecturaNueva(transaction)) {
+            return;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        CacheMode anterior = session.getCacheMode();
+        if (replicasLectura.fijar()) {
+            session.setCacheMode(CacheMode.IGNORE);
+        }
+        restaurar.get().push(() -> {
+            if (session.isOpen()) {
+                session.setCacheMode(anterior);
+            }
+        });
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        terminar(transaction);
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        terminar(transaction);
+    }
+
+    private void terminar(TransactionExecution transaction) {
+        Runnable pendiente = esLecturaNueva(transaction) ? restaurar.get().poll() : null;
+        if (pendiente != null) {
+            replicasLectura.liberar();
+            pendiente.run();
+        }
+    }
+
+    private static boolean esLecturaNueva(TransactionExecution transaction) {
+        return transaction.isReadOnly() && transaction.isNewTransaction();
+    }
+}
@@ -0,0 +1,41 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.authentication.event.AbstractAuthenticationFailureEvent;
+import org.springframework.security.authentication.event.AuthenticationSuccessEvent;
+
+/**
+ * Métricas propias de la aplicación, además de las que registra Spring Boot Actuator:
+ * http.server.requests (un timer por ruta, método y estado), hikaricp.connections.* (saturación del pool),
+ * hibernate.* (consultas, entidades cargadas, caché de segundo nivel; requiere hibernate.generate_statistics)
+ * y tomcat.*. Los servicios que hacen trabajo pesado llevan @Timed("agrosmart.servicio"), con las etiquetas
+ * class y method; el hash de contraseñas se mide en PasswordEncoderMedido.
+ *
+ * Todo se publica en formato Prometheus en /actuator/prometheus, en el puerto de gestión (ver application.properties).
+ */
+@Configuration
+public class MetricasConfig {
+
+    private final Counter loginsCorrectos;
+    private final Counter loginsFallidos;
+
+    public MetricasConfig(MeterRegistry registry) {
+        this.loginsCorrectos = Counter.builder("agrosmart.login").description("Intentos de inicio de sesión")
+                .tag("resultado", "correcto").register(registry);
+        this.loginsFallidos = Counter.builder("agrosmart.login").description("Intentos de inicio de sesión")
+                .tag("resultado", "fallido").register(registry);
+    }
+
+    @EventListener
+    public void loginCorrecto(AuthenticationSuccessEvent evento) {
+        loginsCorrectos.increment();
+    }
+
+    @EventListener
+    public void loginFallido(AbstractAuthenticationFailureEvent evento) {
+        loginsFallidos.increment();
+    }
+}
@@ -0,0 +1,40 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+/**
+ * Mide el tiempo de cada hash de contraseña (registro, cambio de contraseña) y de cada verificación (login):
+ * con BCrypt es trabajo de CPU deliberadamente lento, y una subida del factor de coste o una ráfaga de logins
+ * se ve en agrosmart.password{operacion=encode|matches} antes que en la latencia de las páginas.
+ */
+public class PasswordEncoderMedido implements PasswordEncoder {
+
+    private final PasswordEncoder delegado;
+    private final Timer encode;
+    private final Timer matches;
+
+    public PasswordEncoderMedido(PasswordEncoder delegado, MeterRegistry registry) {
+        this.delegado = delegado;
+        this.encode = Timer.builder("agrosmart.password").description("Hash y verificación de contraseñas")
+                .tag("operacion", "encode").register(registry);
+        this.matches = Timer.builder("agrosmart.password").description("Hash y verificación de contraseñas")
+                .tag("operacion", "matches").register(registry);
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return encode.record(() -> delegado.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return matches.record(() -> delegado.matches(rawPassword, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegado.upgradeEncoding(encodedPassword);
+    }
+}
@@ -0,0 +1,29 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Máximo de sentencias SQL que puede ejecutar una petición atendida por el método de controlador (o por todos
+ * los de la clase). El presupuesto no depende del volumen de datos del usuario: un listado paginado, un
+ * formulario o un borrado ejecutan siempre las mismas consultas. Lo comprueba {@link PresupuestoSentenciasFilter};
+ * las rutas sin anotar usan agrosmart.sentencias.presupuesto-por-defecto.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface PresupuestoSentencias {
+
+    /** Sentencias permitidas por petición. */
+    int value();
+
+    /**
+     * Veces que puede repetirse una misma forma de sentencia antes de considerarla un N+1; -1 toma
+     * agrosmart.sentencias.repeticiones-maximas. Las rutas que procesan lotes (importaciones, ajustes de precios)
+     * lo suben porque repiten la misma sentencia por lote, no por fila.
+     */
+    int repeticiones() default -1;
+}
@@ -0,0 +1,91 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.ConteoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.RegistroSentencias;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cuenta las sentencias SQL de cada petición (seguridad, controlador y renderizado de la plantilla, que es donde
+ * aparecen las cargas perezosas) y las compara con el {@link PresupuestoSentencias} de la ruta. Si se pasa del
+ * presupuesto o repite una misma forma de sentencia más de lo permitido (un N+1), deja un aviso en el log o, en
+ * modo FALLAR (el de los tests), lanza IllegalStateException para que el test que hizo la petición falle.
+ *
+ * El conteo queda en el atributo {@link #ATRIBUTO} de la petición.
+ */
+public class PresupuestoSentenciasFilter extends OncePerRequestFilter {
+
+    public static final String ATRIBUTO = PresupuestoSentenciasFilter.class.getName() + ".conteo";
+
+    private static final Logger log = LoggerFactory.getLogger(PresupuestoSentenciasFilter.class);
+
+    public enum Modo {
+        AVISAR, FALLAR
+    }
+
+    private final int presupuestoPorDefecto;
+    private final int repeticionesMaximas;
+    private final Modo modo;
+
+    public PresupuestoSentenciasFilter(int presupuestoPorDefecto, int repeticionesMaximas, Modo modo) {
+        this.presupuestoPorDefecto = presupuestoPorDefecto;
+        this.repeticionesMaximas = repeticionesMaximas;
+        this.modo = modo;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        ConteoSentencias conteo = RegistroSentencias.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            RegistroSentencias.terminar();
+            request.setAttribute(ATRIBUTO, conteo);
+        }
+        revisar(request, conteo);
+    }
+
+    private void revisar(HttpServletRequest request, ConteoSentencias conteo) {
+        PresupuestoSentencias presupuesto = null;
+        if (request.getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE) instanceof HandlerMethod handler) {
+            presupuesto = AnnotatedElementUtils.findMergedAnnotation(handler.getMethod(), PresupuestoSentencias.class);
+            if (presupuesto == null) {
+                presupuesto = AnnotatedElementUtils.findMergedAnnotation(handler.getBeanType(), PresupuestoSentencias.class);
+            }
+        }
+        int maximo = presupuesto != null ? presupuesto.value() : presupuestoPorDefecto;
+        int repeticiones = presupuesto != null && presupuesto.repeticiones() >= 0 ? presupuesto.repeticiones() : repeticionesMaximas;
+
+        List<String> problemas = new ArrayList<>();
+        if (conteo.getTotal() > maximo) {
+            problemas.add(conteo.getTotal() + " sentencias, presupuesto " + maximo);
+        }
+        for (Map.Entry<String, Integer> repetida : conteo.repetidas(repeticiones).entrySet()) {
+            problemas.add("posible N+1, " + repetida.getValue() + " veces: " + repetida.getKey());
+        }
+        if (problemas.isEmpty()) {
+            return;
+        }
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String mensaje = request.getMethod() + " " + (patron != null ? patron : request.getRequestURI()) + ": "
+                + String.join("; ", problemas);
+        if (modo == Modo.FALLAR) {
+            throw new IllegalStateException("Presupuesto de sentencias excedido en " + mensaje);
+        }
+        log.warn("Presupuesto de sentencias excedido en {}", mensaje);
+    }
+}
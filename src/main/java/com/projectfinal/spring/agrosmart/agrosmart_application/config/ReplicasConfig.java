@@ -0,0 +1,95 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PropiedadesReplicas;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Separación de lecturas y escrituras, activa cuando hay agrosmart.replicas.urls:
+ *
+ *   agrosmart.replicas.urls=jdbc:postgresql://replica-1:5432/agrosmart_db,jdbc:postgresql://replica-2:5432/agrosmart_db
+ *   agrosmart.replicas.retraso-maximo=5s
+ *
+ * El DataSource de la aplicación es un LazyConnectionDataSourceProxy sobre la primaria: la conexión física se pide
+ * en la primera sentencia, cuando ya se sabe si la transacción es readOnly, y las de solo lectura
+ * (@Transactional(readOnly = true) en los servicios y los métodos de lectura de los repositorios) la toman de
+ * ReplicasLectura. Las escrituras, Flyway y la validación de Hibernate van siempre a la primaria. Lo leído de una
+ * réplica no se guarda en la caché de segundo nivel (LecturasEnReplica).
+ *
+ * Requiere spring.jpa.open-in-view=false: con la sesión abierta toda la petición, la conexión elegida por la primera
+ * transacción se retendría y una escritura después de una lectura readOnly iría a la réplica.
+ */
+@Configuration
+@ConditionalOnProperty("agrosmart.replicas.urls")
+public class ReplicasConfig {
+
+    @Bean
+    @ConfigurationProperties("agrosmart.replicas")
+    public PropiedadesReplicas propiedadesReplicas() {
+        return new PropiedadesReplicas();
+    }
+
+    @Bean
+    public EscriturasRecientes escriturasRecientes(PropiedadesReplicas propiedades) {
+        return new EscriturasRecientes(propiedades.getRetrasoMaximo());
+    }
+
+    @Bean
+    public ReplicasLectura replicasLectura(DataSourceProperties dataSourceProperties, PropiedadesReplicas propiedades,
+                                           EscriturasRecientes escriturasRecientes, Environment environment,
+                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        // La primaria se configura igual que sin réplicas: spring.datasource.* y spring.datasource.hikari.*
+        HikariDataSource primaria = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primaria));
+        if (!StringUtils.hasText(primaria.getPoolName())) {
+            primaria.setPoolName("agrosmart-primaria");
+        }
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : propiedades.getUrls()) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("agrosmart-replica-" + (replicas.size() + 1));
+            replica.setJdbcUrl(url);
+            replica.setDriverClassName(primaria.getDriverClassName());
+            replica.setUsername(propiedades.getUsername() != null ? propiedades.getUsername() : primaria.getUsername());
+            replica.setPassword(propiedades.getPassword() != null ? propiedades.getPassword() : primaria.getPassword());
+            replica.setMaximumPoolSize(propiedades.getTamanoPool());
+            replica.setReadOnly(true);
+            // hikaricp.connections.* por réplica (el pool de la primaria lo registra Spring Boot)
+            meterRegistry.ifAvailable(registry -> replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+            replicas.add(replica);
+        }
+        return new ReplicasLectura(primaria, replicas, escriturasRecientes, propiedades);
+    }
+
+    @Bean
+    public LecturasEnReplica lecturasEnReplica(ReplicasLectura replicasLectura, EntityManager entityManager) {
+        return new LecturasEnReplica(replicasLectura, entityManager);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicasLectura replicasLectura) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(replicasLectura.getPrimaria());
+        dataSource.setReadOnlyDataSource(replicasLectura.lecturas());
+        return dataSource;
+    }
+}
@@ -0,0 +1,153 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PropiedadesReplicas;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pools de la primaria y de las réplicas. Las transacciones readOnly toman conexión de {@link #lecturas()}, que
+ * reparte por turnos entre las réplicas al día y cae a la primaria si ninguna lo está o si la sesión escribió hace
+ * poco (EscriturasRecientes). El retraso de cada réplica se mide cada agrosmart.replicas.intervalo-verificacion;
+ * una réplica que no responde o va más atrasada que agrosmart.replicas.retraso-maximo sale del turno hasta la
+ * siguiente medición.
+ *
+ * LecturasEnReplica elige la base al empezar cada transacción readOnly ({@link #fijar()}), para saber antes de la
+ * primera sentencia si lo leído puede ir a la caché de segundo nivel.
+ */
+public class ReplicasLectura implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicasLectura.class);
+
+    private final HikariDataSource primaria;
+    private final List<HikariDataSource> replicas;
+    private final EscriturasRecientes escriturasRecientes;
+    private final double retrasoMaximoSegundos;
+    private final String consultaRetraso;
+    private final boolean[] alDia;
+    private final AtomicInteger turno = new AtomicInteger();
+    private volatile List<HikariDataSource> disponibles = List.of();
+    // Base elegida para cada transacción readOnly abierta en el hilo; la primera es la más interna
+    private final ThreadLocal<Deque<DataSource>> fijadas = ThreadLocal.withInitial(ArrayDeque::new);
+
+    public ReplicasLectura(HikariDataSource primaria, List<HikariDataSource> replicas,
+                           EscriturasRecientes escriturasRecientes, PropiedadesReplicas propiedades) {
+        this.primaria = primaria;
+        this.replicas = List.copyOf(replicas);
+        this.escriturasRecientes = escriturasRecientes;
+        this.retrasoMaximoSegundos = propiedades.getRetrasoMaximo().toMillis() / 1000.0;
+        this.consultaRetraso = propiedades.getConsultaRetraso();
+        this.alDia = new boolean[replicas.size()];
+    }
+
+    public DataSource getPrimaria() {
+        return primaria;
+    }
+
+    /** DataSource de las transacciones de solo lectura. */
+    public DataSource lecturas() {
+        return new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                return destino().getConnection();
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return destino().getConnection(username, password);
+            }
+        };
+    }
+
+    /** Réplicas que reciben lecturas ahora mismo (nombres de pool). */
+    public List<String> getDisponibles() {
+        return disponibles.stream().map(HikariDataSource::getPoolName).toList();
+    }
+
+    /**
+     * Elige la base de la transacción readOnly que empieza y la mantiene hasta {@link #liberar()}, aunque entre
+     * medias cambien las réplicas disponibles.
+     * @return true si la transacción leerá de una réplica.
+     */
+    public boolean fijar() {
+        DataSource destino = elegir();
+        fijadas.get().push(destino);
+        return destino != primaria;
+    }
+
+    /** Suelta la base fijada por la transacción readOnly más interna del hilo. */
+    public void liberar() {
+        fijadas.get().poll();
+    }
+
+    private DataSource destino() {
+        DataSource fijada = fijadas.get().peek();
+        return fijada != null ? fijada : elegir();
+    }
+
+    DataSource elegir() {
+        List<HikariDataSource> candidatas = disponibles;
+        if (candidatas.isEmpty() || escriturasRecientes.enVentana()) {
+            return primaria;
+        }
+        return candidatas.get(Math.floorMod(turno.getAndIncrement(), candidatas.size()));
+    }
+
+    /** Mide el retraso de cada réplica y rehace la lista de las que reciben lecturas. */
+    @Scheduled(fixedDelayString = "${agrosmart.replicas.intervalo-verificacion:10s}")
+    public synchronized void verificar() {
+        List<HikariDataSource> vigentes = new ArrayList<>(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            HikariDataSource replica = replicas.get(i);
+            boolean ok;
+            try {
+                double retraso = medirRetraso(replica);
+                ok = retraso <= retrasoMaximoSegundos;
+                if (!ok && alDia[i]) {
+                    log.warn("Réplica {} atrasada {} s; sus lecturas pasan a la primaria", replica.getPoolName(), retraso);
+                }
+            } catch (SQLException e) {
+                ok = false;
+                if (alDia[i]) {
+                    log.warn("Réplica {} sin respuesta; sus lecturas pasan a la primaria: {}", replica.getPoolName(), e.getMessage());
+                }
+            }
+            if (ok && !alDia[i]) {
+                log.info("Réplica {} al día; recibe lecturas", replica.getPoolName());
+            }
+            alDia[i] = ok;
+            if (ok) {
+                vigentes.add(replica);
+            }
+        }
+        disponibles = List.copyOf(vigentes);
+    }
+
+    private double medirRetraso(HikariDataSource replica) throws SQLException {
+        try (Connection conexion = replica.getConnection();
+             Statement statement = conexion.createStatement();
+             ResultSet rs = statement.executeQuery(consultaRetraso)) {
+            // Sin fila o NULL (una primaria, o una réplica que aún no reprodujo nada): se toma como al día
+            return rs.next() ? rs.getDouble(1) : 0;
+        }
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primaria.close();
+    }
+}
@@ -1,12 +1,26 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.config;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.DelegatingAuthenticationEntryPoint;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.LoginUrlAuthenticationEntryPoint;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+
+import java.util.LinkedHashMap;
 
 
 @Configuration
@@ -14,16 +28,25 @@ import org.springframework.security.web.SecurityFilterChain;
 public class SecurityConfig {
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry) {
+        return new PasswordEncoderMedido(new BCryptPasswordEncoder(), meterRegistry);
+    }
+
+    // Los recursos estáticos no pasan por la cadena de filtros: son públicos, no usan sesión y llevan sus
+    // propias cabeceras de caché (ver WebConfig.addResourceHandlers)
+    @Bean
+    public WebSecurityCustomizer recursosEstaticosSinFiltros() {
+        return web -> web.ignoring().requestMatchers(WebConfig.RUTAS_RECURSOS);
     }
 
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         http
             .authorizeHttpRequests(authorize -> authorize
-                // Permite acceso sin autenticación a la página de bienvenida, registro y archivos estáticos
-                .requestMatchers("/", "/index", "/auth/register", "/auth/login", "/css/**", "/js/**", "/img/**").permitAll()
+                // Permite acceso sin autenticación a la página de bienvenida y registro (los estáticos no llegan aquí)
+                .requestMatchers("/", "/index", "/auth/register", "/auth/login").permitAll()
+                // Salud y raspado de Prometheus sin sesión; solo se publican en el puerto de gestión
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
                 // Todas las demás solicitudes requieren autenticación
                 .anyRequest().authenticated()
             )
@@ -41,9 +64,19 @@ public class SecurityConfig {
             )
             .exceptionHandling(exception -> exception
                 .accessDeniedPage("/error/403")
+                .authenticationEntryPoint(puntoEntrada())
             )
             .csrf(csrf -> csrf.disable()); // TODO: Para desarrollo, deshabilitar CSRF. HABILITAR en producción.
 
         return http.build();
     }
+
+    // La API responde 401 sin sesión; la redirección al login es para el navegador
+    private static AuthenticationEntryPoint puntoEntrada() {
+        LinkedHashMap<RequestMatcher, AuthenticationEntryPoint> porRuta = new LinkedHashMap<>();
+        porRuta.put(PathPatternRequestMatcher.withDefaults().matcher("/api/**"), new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED));
+        DelegatingAuthenticationEntryPoint puntoEntrada = new DelegatingAuthenticationEntryPoint(porRuta);
+        puntoEntrada.setDefaultEntryPoint(new LoginUrlAuthenticationEntryPoint("/auth/login"));
+        return puntoEntrada;
+    }
 }
\ No newline at end of file
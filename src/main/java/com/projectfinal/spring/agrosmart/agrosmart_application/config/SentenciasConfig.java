@@ -0,0 +1,44 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.RegistroSentencias;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Presupuesto de sentencias SQL por petición: el DataSource se envuelve con datasource-proxy y
+ * PresupuestoSentenciasFilter, el primer filtro de la cadena, cuenta lo que ejecuta cada petición.
+ * Configuración (agrosmart.sentencias.*):
+ *   presupuesto-por-defecto  sentencias por petición para las rutas sin @PresupuestoSentencias
+ *   repeticiones-maximas     veces que puede repetirse una forma de sentencia antes de avisar de un N+1
+ *   modo                     AVISAR (log) o FALLAR (excepción; el perfil de tests)
+ */
+@Configuration
+public class SentenciasConfig {
+
+    @Bean
+    static BeanPostProcessor dataSourceConConteo() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource ? RegistroSentencias.envolver(dataSource) : bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<PresupuestoSentenciasFilter> presupuestoSentenciasFilter(
+            @Value("${agrosmart.sentencias.presupuesto-por-defecto:10}") int presupuestoPorDefecto,
+            @Value("${agrosmart.sentencias.repeticiones-maximas:2}") int repeticionesMaximas,
+            @Value("${agrosmart.sentencias.modo:AVISAR}") PresupuestoSentenciasFilter.Modo modo) {
+        FilterRegistrationBean<PresupuestoSentenciasFilter> registro = new FilterRegistrationBean<>(
+                new PresupuestoSentenciasFilter(presupuestoPorDefecto, repeticionesMaximas, modo));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registro;
+    }
+}
@@ -0,0 +1,140 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import org.springframework.core.ConfigurableObjectInputStream;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Formato de los atributos de sesión en spring_session_attributes. El contexto de seguridad, que toda sesión
+ * autenticada lleva y que se lee en cada petición, se guarda con un formato propio: id, email y nombre del
+ * UsuarioAutenticado y los datos de WebAuthenticationDetails, ~65 bytes frente a ~1,3 KB en serialización Java,
+ * y se lee sin resolver descriptores de clase. El resto de atributos va en serialización Java, comprimida con zlib
+ * cuando pasa del umbral (la petición guardada antes del login, por ejemplo); los pequeños se guardan tal cual.
+ *
+ * Al leer, el primer byte dice cuál es cuál: 0x01 el contexto propio, 0x78 la cabecera zlib y 0xAC la de
+ * serialización Java.
+ */
+public class SerializacionSesion {
+
+    private static final int CONTEXTO_USUARIO = 0x01;
+    private static final int CABECERA_ZLIB = 0x78;
+
+    private final int umbral;
+    private final ClassLoader classLoader;
+
+    public SerializacionSesion(int umbral, ClassLoader classLoader) {
+        this.umbral = umbral;
+        this.classLoader = classLoader;
+    }
+
+    public byte[] serializar(Object valor) {
+        if (esContextoDeUsuario(valor)) {
+            return escribirContexto((UsernamePasswordAuthenticationToken) ((SecurityContextImpl) valor).getAuthentication());
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(valor);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo serializar el atributo de sesión " + valor.getClass().getName(), e);
+        }
+        if (bytes.size() <= umbral) {
+            return bytes.toByteArray();
+        }
+        ByteArrayOutputStream comprimido = new ByteArrayOutputStream(bytes.size() / 2);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (DeflaterOutputStream salida = new DeflaterOutputStream(comprimido, deflater)) {
+            bytes.writeTo(salida);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            deflater.end();
+        }
+        return comprimido.toByteArray();
+    }
+
+    public Object deserializar(byte[] datos) {
+        int formato = datos.length > 0 ? datos[0] & 0xFF : -1;
+        if (formato == CONTEXTO_USUARIO) {
+            return leerContexto(datos);
+        }
+        InputStream entrada = new ByteArrayInputStream(datos);
+        if (formato == CABECERA_ZLIB) {
+            entrada = new InflaterInputStream(entrada);
+        }
+        try (ObjectInputStream objetos = new ConfigurableObjectInputStream(entrada, classLoader)) {
+            return objetos.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            throw new IllegalStateException("No se pudo leer un atributo de sesión", e);
+        }
+    }
+
+    // Solo el contexto que deja el login por formulario; cualquier otro (o con credenciales) va en serialización Java
+    private static boolean esContextoDeUsuario(Object valor) {
+        return valor != null && valor.getClass() == SecurityContextImpl.class
+                && ((SecurityContextImpl) valor).getAuthentication() instanceof UsernamePasswordAuthenticationToken token
+                && token.getClass() == UsernamePasswordAuthenticationToken.class
+                && token.isAuthenticated()
+                && token.getPrincipal() instanceof UsuarioAutenticado
+                && token.getCredentials() == null
+                && (token.getDetails() == null || token.getDetails().getClass() == WebAuthenticationDetails.class);
+    }
+
+    private static byte[] escribirContexto(UsernamePasswordAuthenticationToken token) {
+        UsuarioAutenticado usuario = (UsuarioAutenticado) token.getPrincipal();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream salida = new DataOutputStream(bytes)) {
+            salida.writeByte(CONTEXTO_USUARIO);
+            salida.writeLong(usuario.getId());
+            salida.writeUTF(usuario.getEmail());
+            escribirOpcional(salida, usuario.getNombre());
+            WebAuthenticationDetails detalles = (WebAuthenticationDetails) token.getDetails();
+            salida.writeBoolean(detalles != null);
+            if (detalles != null) {
+                escribirOpcional(salida, detalles.getRemoteAddress());
+                escribirOpcional(salida, detalles.getSessionId());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SecurityContextImpl leerContexto(byte[] datos) {
+        try (DataInputStream entrada = new DataInputStream(new ByteArrayInputStream(datos, 1, datos.length - 1))) {
+            UsuarioAutenticado usuario = new UsuarioAutenticado(entrada.readLong(), entrada.readUTF(), leerOpcional(entrada));
+            UsernamePasswordAuthenticationToken token =
+                    UsernamePasswordAuthenticationToken.authenticated(usuario, null, usuario.getAuthorities());
+            if (entrada.readBoolean()) {
+                token.setDetails(new WebAuthenticationDetails(leerOpcional(entrada), leerOpcional(entrada)));
+            }
+            return new SecurityContextImpl(token);
+        } catch (IOException e) {
+            throw new IllegalStateException("No se pudo leer el contexto de seguridad de la sesión", e);
+        }
+    }
+
+    private static void escribirOpcional(DataOutputStream salida, String valor) throws IOException {
+        salida.writeBoolean(valor != null);
+        if (valor != null) {
+            salida.writeUTF(valor);
+        }
+    }
+
+    private static String leerOpcional(DataInputStream entrada) throws IOException {
+        return entrada.readBoolean() ? entrada.readUTF() : null;
+    }
+}
@@ -0,0 +1,115 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.ConteoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.RegistroSentencias;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.GenericConversionService;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sesiones HTTP en PostgreSQL (Spring Session JDBC, tablas spring_session* de la migración V9) en lugar de la
+ * memoria de cada Tomcat: cualquier instancia detrás del balanceador atiende cualquier petición, sin afinidad de
+ * sesión, y un reinicio no cierra la sesión de nadie. Lo configura Spring Boot (spring.session.*); aquí se ajusta:
+ *
+ *   - los atributos se guardan con SerializacionSesion (el contexto de seguridad en un formato propio, el resto
+ *     en serialización Java comprimida) en vez de la serialización Java sin más;
+ *   - las sentencias de sesión van en su propia transacción JDBC, sin pasar por el EntityManager de Hibernate ni
+ *     por los listeners del gestor de transacciones JPA (EscriturasRecientes no debe tomar el guardado de la sesión
+ *     por una escritura del usuario);
+ *   - cada operación del repositorio de sesiones se mide en agrosmart.sesion{operacion} y no suma al presupuesto
+ *     de sentencias de la petición, que es de la ruta y no del mecanismo de sesión.
+ *
+ * Una petición con sesión cuesta un SELECT (leer) y, al terminar, un UPDATE de last_access_time más los atributos
+ * que hayan cambiado (guardar); si la respuesta ya se había enviado, SessionRepositoryFilter guarda en ese momento y
+ * vuelve a leer por id al salir del filtro. Las sesiones vencidas las borra una tarea cada minuto por el índice de
+ * expiry_time.
+ */
+@Configuration
+public class SesionesConfig {
+
+    // defaultCandidate = false: Spring Session los pide por nombre y nadie más debe recibirlos por tipo (con
+    // una TransactionOperations visible, Spring Boot dejaría de crear su TransactionTemplate sobre JPA)
+    @Bean(defaultCandidate = false)
+    public ConversionService springSessionConversionService(
+            @Value("${agrosmart.sesiones.umbral-compresion:128}") int umbralCompresion) {
+        SerializacionSesion serializacion = new SerializacionSesion(umbralCompresion, SesionesConfig.class.getClassLoader());
+        GenericConversionService conversionService = new GenericConversionService();
+        conversionService.addConverter(Object.class, byte[].class, serializacion::serializar);
+        conversionService.addConverter(byte[].class, Object.class, serializacion::deserializar);
+        return conversionService;
+    }
+
+    @Bean(defaultCandidate = false)
+    public TransactionOperations springSessionTransactionOperations(DataSource dataSource) {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return transactionTemplate;
+    }
+
+    @Bean
+    static BeanPostProcessor sesionesMedidas(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof JdbcIndexedSessionRepository)) {
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice(medicion(meterRegistry.getIfAvailable()));
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+
+    private static final Map<String, String> OPERACIONES = Map.of(
+            "findById", "leer",
+            "save", "guardar",
+            "deleteById", "borrar",
+            "findByIndexNameAndIndexValue", "buscar",
+            "findByPrincipalName", "buscar",
+            "cleanUpExpiredSessions", "limpiar");
+
+    private static MethodInterceptor medicion(MeterRegistry registry) {
+        Map<String, Timer> timers = new ConcurrentHashMap<>();
+        return invocacion -> {
+            String operacion = OPERACIONES.get(invocacion.getMethod().getName());
+            if (operacion == null) {
+                return invocacion.proceed();
+            }
+            ConteoSentencias conteo = RegistroSentencias.terminar();
+            long inicio = System.nanoTime();
+            try {
+                return invocacion.proceed();
+            } finally {
+                if (registry != null) {
+                    timers.computeIfAbsent(operacion, o -> Timer.builder("agrosmart.sesion")
+                                    .description("Lecturas y escrituras del almacén de sesiones")
+                                    .tag("operacion", o).register(registry))
+                            .record(System.nanoTime() - inicio, TimeUnit.NANOSECONDS);
+                }
+                if (conteo != null) {
+                    RegistroSentencias.reanudar(conteo);
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,17 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Activa @Async y @Scheduled con los ejecutores que autoconfigura Spring Boot (applicationTaskExecutor y
+ * taskScheduler). Con el perfil "virtual" sobre Java 21 (spring.threads.virtual.enabled) ambos pasan a lanzar
+ * un hilo virtual por tarea, igual que las peticiones de Tomcat; en Java 17 siguen siendo pools de hilos de
+ * plataforma (spring.task.execution.* y spring.task.scheduling.*).
+ */
+@Configuration
+@EnableAsync
+@EnableScheduling
+public class TareasConfig {
+}
@@ -0,0 +1,19 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un parámetro de un método de controlador para recibir el usuario autenticado.
+ * Admite {@link com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario}
+ * (una referencia por id, sin consulta) o {@link UsuarioAutenticado} (el principal de la sesión).
+ * Ver {@link UsuarioActualArgumentResolver}.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface UsuarioActual {
+}
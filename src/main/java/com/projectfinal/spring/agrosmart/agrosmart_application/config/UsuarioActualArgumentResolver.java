@@ -0,0 +1,60 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.UsuarioRepository;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+/**
+ * Resuelve los parámetros {@link UsuarioActual} a partir del principal de la sesión.
+ *
+ * Para parámetros de tipo Usuario devuelve una referencia JPA (getReferenceById) con el id del
+ * principal: sirve para filtrar consultas, comparar ids y asignar el dueño de una entidad nueva
+ * sin ninguna consulta. Solo si se lee otro atributo (nombre, colecciones...) Hibernate carga la fila.
+ */
+@Component
+public class UsuarioActualArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private final UsuarioRepository usuarioRepository;
+
+    public UsuarioActualArgumentResolver(UsuarioRepository usuarioRepository) {
+        this.usuarioRepository = usuarioRepository;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(UsuarioActual.class)
+                && (Usuario.class.equals(parameter.getParameterType())
+                    || UsuarioAutenticado.class.equals(parameter.getParameterType()));
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        UsuarioAutenticado principal = principalActual();
+        if (UsuarioAutenticado.class.equals(parameter.getParameterType())) {
+            return principal;
+        }
+        return usuarioRepository.getReferenceById(principal.getId());
+    }
+
+    private UsuarioAutenticado principalActual() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            throw new IllegalStateException("No hay un usuario autenticado.");
+        }
+        if (authentication.getPrincipal() instanceof UsuarioAutenticado principal) {
+            return principal;
+        }
+        // Autenticaciones que no pasan por CustomUserDetailsService (p. ej. usuarios simulados en pruebas)
+        return usuarioRepository.findByEmail(authentication.getName())
+                .map(UsuarioAutenticado::new)
+                .orElseThrow(() -> new IllegalStateException("Usuario autenticado no encontrado en la base de datos."));
+    }
+}
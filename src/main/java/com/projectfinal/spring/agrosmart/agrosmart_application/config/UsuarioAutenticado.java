@@ -0,0 +1,59 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import lombok.Getter;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Principal de Spring Security con los datos básicos del usuario, resueltos una sola vez al iniciar
+ * sesión y guardados en la sesión HTTP. Los controladores lo reciben mediante {@link UsuarioActual}
+ * sin volver a consultar la tabla de usuarios en cada petición.
+ */
+@Getter
+public class UsuarioAutenticado implements UserDetails, CredentialsContainer {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Long id;
+    private final String email;
+    private final String nombre;
+    private String password;
+    // por ahora un rol básico. Más adelante se pueden implementar roles dinámicos.
+    private final List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    public UsuarioAutenticado(Usuario usuario) {
+        this.id = usuario.getId();
+        this.email = usuario.getEmail();
+        this.nombre = usuario.getNombre();
+        this.password = usuario.getPassword();
+    }
+
+    // Lo reconstruye SerializacionSesion al leer la sesión; la contraseña ya no está
+    UsuarioAutenticado(Long id, String email, String nombre) {
+        this.id = id;
+        this.email = email;
+        this.nombre = nombre;
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return authorities;
+    }
+
+    // Spring Security lo llama tras autenticar para no conservar el hash de la contraseña en la sesión
+    @Override
+    public void eraseCredentials() {
+        this.password = null;
+    }
+}
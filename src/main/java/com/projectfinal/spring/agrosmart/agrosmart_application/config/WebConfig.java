@@ -0,0 +1,49 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    /** Carpetas de static/ servidas con nombre versionado por contenido; SecurityConfig las deja fuera de la cadena de filtros. */
+    public static final String[] RUTAS_RECURSOS = {"/css/**", "/js/**", "/img/**"};
+
+    private final UsuarioActualArgumentResolver usuarioActualArgumentResolver;
+
+    public WebConfig(UsuarioActualArgumentResolver usuarioActualArgumentResolver) {
+        this.usuarioActualArgumentResolver = usuarioActualArgumentResolver;
+    }
+
+    @Override
+    public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+        resolvers.add(usuarioActualArgumentResolver);
+    }
+
+    /**
+     * Recursos estáticos con huella de contenido: /css/style.css se publica como /css/style-{md5}.css (las
+     * plantillas reescriben @{...} solas con ResourceUrlEncodingFilter), así que un cambio de contenido es otra
+     * URL y la respuesta puede guardarse un año como inmutable. Las variantes .br/.gz que deja la etapa de
+     * build (PrecompresionRecursos) se sirven según Accept-Encoding, con Vary: Accept-Encoding.
+     */
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        for (String ruta : RUTAS_RECURSOS) {
+            String carpeta = ruta.substring(0, ruta.length() - "**".length());
+            registry.addResourceHandler(ruta)
+                    .addResourceLocations("classpath:/static" + carpeta)
+                    .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                    .resourceChain(true)
+                    .addResolver(new EncodedResourceResolver())
+                    .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.BusquedaInsumosService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ConsultaApiService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.api.RecursoApi;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PaginaApiDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API JSON de solo lectura para la aplicación móvil, con los mismos datos que las páginas web:
+ *
+ *   GET /api/v1/parcelas?fields=nombre,areaM2&q=norte&tamano=50
+ *   GET /api/v1/parcelas?despues=<siguiente de la página anterior>
+ *   GET /api/v1/planeaciones/{id}?fields=nombre,estado
+ *   GET /api/v1/insumos/buscar?q=fertilisante&tipo=FERTILIZANTES
+ *
+ * Los listados devuelven {"datos": [...], "siguiente": cursor o null}. fields= limita las columnas que se leen de
+ * la base y las que viajan en la respuesta; el id va siempre. Las respuestas salen comprimidas con gzip si el
+ * cliente lo acepta (server.compression.*). Sin sesión la respuesta es 401, no la redirección al login.
+ */
+@RestController
+@RequestMapping("/api/v1")
+public class ApiV1Controller {
+
+    private final ConsultaApiService consultaApiService;
+    private final BusquedaInsumosService busquedaInsumosService;
+
+    public ApiV1Controller(ConsultaApiService consultaApiService, BusquedaInsumosService busquedaInsumosService) {
+        this.consultaApiService = consultaApiService;
+        this.busquedaInsumosService = busquedaInsumosService;
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/parcelas")
+    public PaginaApiDto listParcelas(@RequestParam(required = false) List<String> fields,
+                                     @RequestParam(value = "q", required = false) String filtro,
+                                     @RequestParam(required = false) String despues,
+                                     @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                     @UsuarioActual Usuario currentUser) {
+        return consultaApiService.listar(RecursoApi.PARCELAS, currentUser.getId(), fields, filtro, despues, tamano);
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/parcelas/{id}")
+    public ResponseEntity<Map<String, Object>> getParcela(@PathVariable Long id,
+                                                          @RequestParam(required = false) List<String> fields,
+                                                          @UsuarioActual Usuario currentUser) {
+        return detalle(RecursoApi.PARCELAS, currentUser.getId(), id, fields, "Parcela no encontrada.");
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/insumos")
+    public PaginaApiDto listInsumos(@RequestParam(required = false) List<String> fields,
+                                    @RequestParam(value = "q", required = false) String filtro,
+                                    @RequestParam(required = false) String despues,
+                                    @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                    @UsuarioActual Usuario currentUser) {
+        return consultaApiService.listar(RecursoApi.INSUMOS, currentUser.getId(), fields, filtro, despues, tamano);
+    }
+
+    // Búsqueda por nombre, proveedor y descripción, con los más parecidos primero; sin cursor, los mejores tamano
+    @PresupuestoSentencias(1)
+    @GetMapping("/insumos/buscar")
+    public PaginaApiDto buscarInsumos(@RequestParam(value = "q", required = false) String texto,
+                                      @RequestParam(required = false) TipoInsumo tipo,
+                                      @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                      @UsuarioActual Usuario currentUser) {
+        return new PaginaApiDto(busquedaInsumosService.buscar(currentUser.getId(), texto, tipo, tamano), null);
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/insumos/{id}")
+    public ResponseEntity<Map<String, Object>> getInsumo(@PathVariable Long id,
+                                                         @RequestParam(required = false) List<String> fields,
+                                                         @UsuarioActual Usuario currentUser) {
+        return detalle(RecursoApi.INSUMOS, currentUser.getId(), id, fields, "Insumo no encontrado.");
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/tipos-cultivo")
+    public PaginaApiDto listTiposCultivo(@RequestParam(required = false) List<String> fields,
+                                         @RequestParam(value = "q", required = false) String filtro,
+                                         @RequestParam(required = false) String despues,
+                                         @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                         @UsuarioActual Usuario currentUser) {
+        return consultaApiService.listar(RecursoApi.TIPOS_CULTIVO, currentUser.getId(), fields, filtro, despues, tamano);
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/tipos-cultivo/{id}")
+    public ResponseEntity<Map<String, Object>> getTipoCultivo(@PathVariable Long id,
+                                                              @RequestParam(required = false) List<String> fields,
+                                                              @UsuarioActual Usuario currentUser) {
+        return detalle(RecursoApi.TIPOS_CULTIVO, currentUser.getId(), id, fields, "Tipo de cultivo no encontrado.");
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/etapas")
+    public PaginaApiDto listEtapas(@RequestParam(required = false) List<String> fields,
+                                   @RequestParam(value = "q", required = false) String filtro,
+                                   @RequestParam(required = false) String despues,
+                                   @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                   @UsuarioActual Usuario currentUser) {
+        return consultaApiService.listar(RecursoApi.ETAPAS, currentUser.getId(), fields, filtro, despues, tamano);
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/etapas/{id}")
+    public ResponseEntity<Map<String, Object>> getEtapa(@PathVariable Long id,
+                                                        @RequestParam(required = false) List<String> fields,
+                                                        @UsuarioActual Usuario currentUser) {
+        return detalle(RecursoApi.ETAPAS, currentUser.getId(), id, fields, "Etapa no encontrada.");
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/planeaciones")
+    public PaginaApiDto listPlaneaciones(@RequestParam(required = false) List<String> fields,
+                                         @RequestParam(value = "q", required = false) String filtro,
+                                         @RequestParam(required = false) String despues,
+                                         @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                         @UsuarioActual Usuario currentUser) {
+        return consultaApiService.listar(RecursoApi.PLANEACIONES, currentUser.getId(), fields, filtro, despues, tamano);
+    }
+
+    @PresupuestoSentencias(1)
+    @GetMapping("/planeaciones/{id}")
+    public ResponseEntity<Map<String, Object>> getPlaneacion(@PathVariable Long id,
+                                                             @RequestParam(required = false) List<String> fields,
+                                                             @UsuarioActual Usuario currentUser) {
+        return detalle(RecursoApi.PLANEACIONES, currentUser.getId(), id, fields, "Planeación no encontrada.");
+    }
+
+    // Líneas de insumo de una planeación; q= filtra por el nombre del insumo
+    @PresupuestoSentencias(2)
+    @GetMapping("/planeaciones/{planeacionId}/insumos")
+    public ResponseEntity<?> listInsumosPlaneacion(@PathVariable Long planeacionId,
+                                                   @RequestParam(required = false) List<String> fields,
+                                                   @RequestParam(value = "q", required = false) String filtro,
+                                                   @RequestParam(required = false) String despues,
+                                                   @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                                   @UsuarioActual Usuario currentUser) {
+        if (!consultaApiService.esPlaneacionDelUsuario(planeacionId, currentUser.getId())) {
+            return noEncontrado("Planeación no encontrada.");
+        }
+        return ResponseEntity.ok(consultaApiService.listar(RecursoApi.INSUMOS_PLANEACION, planeacionId, fields, filtro,
+                despues, tamano));
+    }
+
+    @PresupuestoSentencias(2)
+    @GetMapping("/planeaciones/{planeacionId}/insumos/{id}")
+    public ResponseEntity<Map<String, Object>> getInsumoPlaneacion(@PathVariable Long planeacionId, @PathVariable Long id,
+                                                                   @RequestParam(required = false) List<String> fields,
+                                                                   @UsuarioActual Usuario currentUser) {
+        if (!consultaApiService.esPlaneacionDelUsuario(planeacionId, currentUser.getId())) {
+            return noEncontrado("Planeación no encontrada.");
+        }
+        return detalle(RecursoApi.INSUMOS_PLANEACION, planeacionId, id, fields, "Insumo de la planeación no encontrado.");
+    }
+
+    // Campo desconocido en fields=, cursor alterado o búsqueda demasiado corta
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+    }
+
+    // Un registro de otro usuario responde igual que uno que no existe
+    private ResponseEntity<Map<String, Object>> detalle(RecursoApi recurso, Long propietario, Long id,
+                                                        List<String> fields, String mensaje) {
+        return consultaApiService.buscar(recurso, propietario, id, fields)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> noEncontrado(mensaje));
+    }
+
+    private static ResponseEntity<Map<String, Object>> noEncontrado(String mensaje) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", mensaje));
+    }
+}
@@ -1,5 +1,6 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.RegistroUsuarioDto;
@@ -25,6 +26,7 @@ public class AuthWebController {
     }
 
     // Muestra el formulario de registro
+    @PresupuestoSentencias(0)
     @GetMapping("/register")
     public String showRegistrationForm(Model model) {
         model.addAttribute("usuario", new RegistroUsuarioDto()); // Añade un objeto vacío para el formulario
@@ -32,6 +34,7 @@ public class AuthWebController {
     }
 
     // Procesa el envío del formulario de registro
+    @PresupuestoSentencias(6)
     @PostMapping("/register")
     public String registerUser(@Valid @ModelAttribute("usuario") RegistroUsuarioDto registroDto,
                                BindingResult result,
@@ -70,6 +73,7 @@ public class AuthWebController {
     }
 
     // Muestra el formulario de inicio de sesión
+    @PresupuestoSentencias(0)
     @GetMapping("/login")
     public String showLoginForm() {
         return "auth/login"; // Resuelve a src/main/resources/templates/auth/login.html
@@ -1,47 +1,40 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
-import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.RecalculoSemillasService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ResumenUsuarioService;
 
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 
-import java.util.Optional;
-
 @Controller
 @RequestMapping("/dashboard")
 public class DashboardController {
 
-    private final UsuarioService usuarioService;
+    private final ResumenUsuarioService resumenUsuarioService;
+    private final RecalculoSemillasService recalculoSemillasService;
 
-    public DashboardController(UsuarioService usuarioService) {
-        this.usuarioService = usuarioService;
+    public DashboardController(ResumenUsuarioService resumenUsuarioService, RecalculoSemillasService recalculoSemillasService) {
+        this.resumenUsuarioService = resumenUsuarioService;
+        this.recalculoSemillasService = recalculoSemillasService;
     }
 
+    @PresupuestoSentencias(5)
     @GetMapping
-    public String showDashboard(Model model) {
-        // Obtener el usuario autenticado de Spring Security
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String username = authentication.getName(); // El nombre de usuario (email)
-
-        // Buscar el usuario completo en tu base de datos
-        Optional<Usuario> usuarioOptional = usuarioService.findByEmail(username);
-
-        if (usuarioOptional.isPresent()) {
-            model.addAttribute("usuario", usuarioOptional.get());
-            // TODO: Aquí se pueden añadir más datos al modelo para el dashboard:
-            // - Listado de parcelas del usuario: model.addAttribute("parcelas", parcelaService.getParcelasByUsuarioId(usuario.getId()));
-            // - Listado de planeaciones del usuario: model.addAttribute("planeaciones", planeacionCultivoService.getPlaneacionesByUsuarioId(usuario.getId()));
-        } else {
-            // Esto no debería pasar si el usuario está autenticado, pero es un fallback
-            model.addAttribute("usuario", new Usuario()); // Objeto vacío para evitar NullPointerException en Thymeleaf
-            model.addAttribute("errorMessage", "No se pudo cargar la información del usuario autenticado.");
-        }
+    public String showDashboard(@UsuarioActual Usuario usuario, @UsuarioActual UsuarioAutenticado principal, Model model) {
+        // El nombre sale de la sesión y los totales del resumen mantenido por los servicios de escritura:
+        // una búsqueda por clave primaria y una consulta acotada de próximas cosechas, sin recorrer colecciones
+        model.addAttribute("usuario", principal);
+        model.addAttribute("resumen", resumenUsuarioService.getResumen(principal.getId()));
+        model.addAttribute("proximasCosechas", resumenUsuarioService.getProximasCosechas(usuario));
+        // Avance de los recálculos de semillas lanzados por las últimas ediciones de parcelas y tipos de cultivo
+        model.addAttribute("recalculos", recalculoSemillasService.getRecientes(principal.getId()));
 
         return "dashboard"; // Resuelve a src/main/resources/templates/dashboard.html
     }
-}
\ No newline at end of file
+}
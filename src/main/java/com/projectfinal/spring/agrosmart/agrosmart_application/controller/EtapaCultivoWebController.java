@@ -1,19 +1,18 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.EtapaCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.EtapaCultivoService;
-import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
 import jakarta.validation.Valid;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
 import java.util.Optional;
 
 @Controller
@@ -21,33 +20,38 @@ import java.util.Optional;
 public class EtapaCultivoWebController {
 
     private final EtapaCultivoService etapaCultivoService;
-    private final UsuarioService usuarioService;
 
-    public EtapaCultivoWebController(EtapaCultivoService etapaCultivoService, UsuarioService usuarioService) {
+    public EtapaCultivoWebController(EtapaCultivoService etapaCultivoService) {
         this.etapaCultivoService = etapaCultivoService;
-        this.usuarioService = usuarioService;
     }
 
-    private Usuario getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        return usuarioService.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario autenticado no encontrado en la base de datos."));
-    }
-
-    // --- LISTAR ETAPAS DE CULTIVO DEL USUARIO ---
+    // --- LISTAR ETAPAS DE CULTIVO DEL USUARIO (paginadas por cursor, con filtro por nombre) ---
+    @PresupuestoSentencias(3)
     @GetMapping
-    public String listEtapas(Model model) {
-        Usuario currentUser = getAuthenticatedUser();
-        List<EtapaCultivo> etapas = etapaCultivoService.findByUsuario(currentUser);
-        model.addAttribute("etapas", etapas);
+    public String listEtapas(@RequestParam(value = "q", required = false) String filtro,
+                             @RequestParam(required = false) String despues,
+                             @RequestParam(required = false) String antes,
+                             @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                             Model model,
+                             RedirectAttributes redirectAttributes,
+                             @UsuarioActual Usuario currentUser) {
+        PaginaKeyset<EtapaCultivo> pagina;
+        try {
+            pagina = etapaCultivoService.findPaginaByUsuario(currentUser, filtro, despues, antes, tamano);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/etapas";
+        }
+        model.addAttribute("etapas", pagina.getContenido());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("filtro", filtro);
         return "etapas_cultivo/list-etapas"; // Vista para listar etapas
     }
 
     // --- MOSTRAR FORMULARIO DE CREACIÓN/EDICIÓN DE ETAPA ---
+    @PresupuestoSentencias(2)
     @GetMapping({"/new", "/edit/{id}"})
-    public String showForm(@PathVariable(required = false) Long id, Model model, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String showForm(@PathVariable(required = false) Long id, Model model, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         if (id != null) {
             Optional<EtapaCultivo> etapaOptional = etapaCultivoService.getEtapaCultivoByIdAndUsuario(id, currentUser);
             if (etapaOptional.isEmpty()) {
@@ -62,12 +66,13 @@ public class EtapaCultivoWebController {
     }
 
     // --- PROCESAR FORMULARIO (GUARDAR/ACTUALIZAR ETAPA) ---
+    @PresupuestoSentencias(4)
     @PostMapping
     public String saveEtapa(@Valid @ModelAttribute("etapaCultivo") EtapaCultivo etapaCultivo,
                             BindingResult result,
                             RedirectAttributes redirectAttributes,
-                            Model model) {
-        Usuario currentUser = getAuthenticatedUser();
+                            Model model,
+                            @UsuarioActual Usuario currentUser) {
         etapaCultivo.setUsuario(currentUser); // Asegura que la etapa se asocie al usuario actual
 
         if (result.hasErrors()) {
@@ -85,9 +90,9 @@ public class EtapaCultivoWebController {
     }
 
     // --- ELIMINAR ETAPA DE CULTIVO ---
+    @PresupuestoSentencias(8)
     @PostMapping("/delete/{id}")
-    public String deleteEtapa(@PathVariable Long id, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String deleteEtapa(@PathVariable Long id, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         try {
             etapaCultivoService.deleteEtapaCultivo(id, currentUser);
             redirectAttributes.addFlashAttribute("successMessage", "Etapa de cultivo eliminada exitosamente!");
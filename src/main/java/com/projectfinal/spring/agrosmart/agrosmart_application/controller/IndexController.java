@@ -1,11 +1,13 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
 
 @Controller
 public class IndexController {
 
+    @PresupuestoSentencias(0)
     @GetMapping({"/", "/index"})
     public String showWelcomePage() {
         return "index"; 
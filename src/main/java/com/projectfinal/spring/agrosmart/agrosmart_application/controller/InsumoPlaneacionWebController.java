@@ -1,5 +1,7 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
@@ -7,14 +9,13 @@ import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
-import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.InsumoPlaneacionListadoDto;
 import jakarta.validation.Valid;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.List;
@@ -28,53 +29,48 @@ public class InsumoPlaneacionWebController {
     private final InsumoPlaneacionService insumoPlaneacionService;
     private final PlaneacionCultivoService planeacionCultivoService;
     private final InsumoService insumoService;
-    private final UsuarioService usuarioService;
 
     public InsumoPlaneacionWebController(InsumoPlaneacionService insumoPlaneacionService,
                                         PlaneacionCultivoService planeacionCultivoService,
-                                        InsumoService insumoService,
-                                        UsuarioService usuarioService) {
+                                        InsumoService insumoService) {
         this.insumoPlaneacionService = insumoPlaneacionService;
         this.planeacionCultivoService = planeacionCultivoService;
         this.insumoService = insumoService;
-        this.usuarioService = usuarioService;
-    }
-
-    // Método de ayuda para obtener el usuario autenticado
-    private Usuario getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName(); // El nombre de usuario (email)
-        return usuarioService.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario autenticado no encontrado en la base de datos."));
     }
 
     // Método de ayuda para obtener una PlaneacionCultivo y verificar si pertenece al usuario autenticado
-    private PlaneacionCultivo getPlaneacionIfAuthorized(Long planeacionId) {
-        Usuario currentUser = getAuthenticatedUser();
-        return planeacionCultivoService.getPlaneacionCultivoById(planeacionId)
-                // Filtra para asegurar que la planeación pertenece al usuario actual
-                .filter(p -> p.getUsuario().getId().equals(currentUser.getId()))
+    private PlaneacionCultivo getPlaneacionIfAuthorized(Long planeacionId, Usuario currentUser) {
+        // El predicado del usuario va en la consulta: la planeación no se carga si no le pertenece
+        return planeacionCultivoService.getPlaneacionCultivoByIdAndUsuario(planeacionId, currentUser)
                 .orElseThrow(() -> new IllegalArgumentException("Planeación no encontrada o no autorizado para acceder."));
     }
 
+    // GET condicional de las páginas de la planeación; una planeación ajena no tiene versión y se procesa como siempre
+    private boolean noModificada(Long planeacionId, NativeWebRequest webRequest, Usuario currentUser) {
+        return RespuestaCondicional.noModificada(webRequest, currentUser.getId(),
+                insumoPlaneacionService.findVersionByPlaneacion(planeacionId, currentUser).orElse(null));
+    }
+
     // --- LISTAR INSUMOS ASOCIADOS A UNA PLANEACIÓN ESPECÍFICA ---
     // GET /planeaciones/{planeacionId}/insumos
+    @PresupuestoSentencias(6)
     @GetMapping
-    public String listInsumosByPlaneacion(@PathVariable Long planeacionId, Model model, RedirectAttributes redirectAttributes) {
+    public String listInsumosByPlaneacion(@PathVariable Long planeacionId, Model model, RedirectAttributes redirectAttributes,
+                                          NativeWebRequest webRequest, @UsuarioActual Usuario currentUser) {
+        // Sin cambios desde la última visita: 304 sin consultar la página ni renderizarla
+        if (noModificada(planeacionId, webRequest, currentUser)) {
+            return null;
+        }
         try {
             // Se valida y obtiene la planeación para asegurar que pertenece al usuario
-            PlaneacionCultivo planeacion = getPlaneacionIfAuthorized(planeacionId);
-            
-            // Se obtienen los insumos de planeación asociados a esta planeación y al usuario
-            List<InsumoPlaneacion> insumosPlaneacion = insumoPlaneacionService.getInsumosByPlaneacionIdAndUser(planeacionId, getAuthenticatedUser());
+            PlaneacionCultivo planeacion = getPlaneacionIfAuthorized(planeacionId, currentUser);
             
-            // Se vuelve a cargar la planeación para obtener el estimacionCosto más reciente
-            planeacion = planeacionCultivoService.getPlaneacionCultivoByIdAndUsuario(planeacionId, getAuthenticatedUser())
-                                                .orElseThrow(() -> new IllegalStateException("Error al cargar planeación para mostrar costo después de operación."));
+            // Se obtienen las filas de insumos de la planeación (insumo resuelto en el mismo join)
+            List<InsumoPlaneacionListadoDto> insumosPlaneacion = insumoPlaneacionService.getListadoByPlaneacion(planeacion);
 
-
-            model.addAttribute("planeacion", planeacion); // Pasar la planeación (ahora actualizada con el costo)
+            model.addAttribute("planeacion", planeacion); // Pasar la planeación (incluye el costo estimado vigente)
             model.addAttribute("insumosPlaneacion", insumosPlaneacion);
+            model.addAttribute("cantidadesBase", insumoPlaneacionService.getCantidadesBaseByPlaneacion(planeacion));
             model.addAttribute("estimacionCostoPlaneacion", planeacion.getEstimacionCosto()); // Pasar el costo total estimado de la planeación
             return "insumos_planeacion/list-insumos-planeacion"; // Ruta de la vista
         } catch (IllegalArgumentException | SecurityException | IllegalStateException e) { // Añadido IllegalStateException
@@ -85,17 +81,22 @@ public class InsumoPlaneacionWebController {
 
     // --- MOSTRAR FORMULARIO PARA AÑADIR UN INSUMO A UNA PLANEACIÓN ---
     // GET /planeaciones/{planeacionId}/insumos/new
+    @PresupuestoSentencias(4)
     @GetMapping("/new")
-    public String showAddInsumoForm(@PathVariable Long planeacionId, Model model, RedirectAttributes redirectAttributes) {
+    public String showAddInsumoForm(@PathVariable Long planeacionId, Model model, RedirectAttributes redirectAttributes,
+                                    NativeWebRequest webRequest, @UsuarioActual Usuario currentUser) {
+        if (noModificada(planeacionId, webRequest, currentUser)) {
+            return null;
+        }
         try {
-            PlaneacionCultivo planeacion = getPlaneacionIfAuthorized(planeacionId);
+            PlaneacionCultivo planeacion = getPlaneacionIfAuthorized(planeacionId, currentUser);
             InsumoPlaneacion insumoPlaneacion = new InsumoPlaneacion();
             insumoPlaneacion.setPlaneacion(planeacion); // Pre-seleccionar la planeación en el formulario
             
             model.addAttribute("planeacion", planeacion);
             model.addAttribute("insumoPlaneacion", insumoPlaneacion);
             // Solo mostrar insumos que pertenecen al usuario autenticado para la selección
-            model.addAttribute("allInsumos", insumoService.findByUsuario(getAuthenticatedUser()));
+            model.addAttribute("allInsumos", insumoService.findByUsuario(currentUser));
             return "insumos_planeacion/insumo-planeacion-form"; // Ruta de la vista del formulario
         } catch (IllegalArgumentException | SecurityException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
@@ -107,18 +108,19 @@ public class InsumoPlaneacionWebController {
     // POST /planeaciones/{planeacionId}/insumos (Para creación)
     // POST /planeaciones/{planeacionId}/insumos/edit/{insumoPlaneacionId} (Para actualización)
     // Este método maneja tanto la creación como la actualización, basándose en si insumoPlaneacion.getId() es nulo o no.
+    @PresupuestoSentencias(9)
     @PostMapping({"", "/edit/{insumoPlaneacionId}"}) // Mapping para ambos casos
     public String saveOrUpdateInsumoPlaneacion(@PathVariable Long planeacionId,
                                                @PathVariable(required = false) Long insumoPlaneacionId, // Puede ser nulo para creación
                                                @Valid @ModelAttribute("insumoPlaneacion") InsumoPlaneacion insumoPlaneacion,
                                                BindingResult result,
                                                Model model,
-                                               RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+                                               RedirectAttributes redirectAttributes,
+                                               @UsuarioActual Usuario currentUser) {
         PlaneacionCultivo planeacion = null;
 
         try {
-            planeacion = getPlaneacionIfAuthorized(planeacionId);
+            planeacion = getPlaneacionIfAuthorized(planeacionId, currentUser);
             
             // Si es una actualización, asignar el ID del path variable al objeto.
             // Si es creación, insumoPlaneacion.getId() será nulo.
@@ -133,8 +135,8 @@ public class InsumoPlaneacionWebController {
             if (insumoPlaneacion.getInsumo() == null || insumoPlaneacion.getInsumo().getId() == null) {
                 result.rejectValue("insumo", "null.insumo", "Debe seleccionar un insumo.");
             } else {
-                Optional<Insumo> selectedInsumoOpt = insumoService.getInsumoById(insumoPlaneacion.getInsumo().getId());
-                if (selectedInsumoOpt.isEmpty() || !selectedInsumoOpt.get().getUsuario().getId().equals(currentUser.getId())) {
+                Optional<Insumo> selectedInsumoOpt = insumoService.findByIdAndUsuario(insumoPlaneacion.getInsumo().getId(), currentUser);
+                if (selectedInsumoOpt.isEmpty()) {
                     result.rejectValue("insumo", "invalid.insumo", "El insumo seleccionado no es válido o no le pertenece.");
                 } else {
                     insumoPlaneacion.setInsumo(selectedInsumoOpt.get()); // Asignar el objeto Insumo completo
@@ -153,12 +155,7 @@ public class InsumoPlaneacionWebController {
                 insumoPlaneacionService.saveInsumoPlaneacion(insumoPlaneacion, currentUser);
                 message = "Insumo añadido a la planeación exitosamente!";
             } else { // Caso de actualización
-                // Antes de actualizar, verificar que el InsumoPlaneacion existente es del usuario y de la planeación correcta
-                Optional<InsumoPlaneacion> existingIp = insumoPlaneacionService.findByIdAndPlaneacionOwnedByUser(insumoPlaneacion.getId(), currentUser);
-                if (existingIp.isEmpty()) {
-                     redirectAttributes.addFlashAttribute("errorMessage", "Asignación de insumo no encontrada o no autorizada para actualizar.");
-                     return "redirect:/planeaciones/" + planeacionId + "/insumos";
-                }
+                // El servicio lee el total anterior con el predicado del usuario y rechaza una asignación ajena
                 insumoPlaneacionService.saveInsumoPlaneacion(insumoPlaneacion, currentUser); // El método save maneja la actualización si el ID está presente
                 message = "Insumo en planeación actualizado exitosamente!";
             }
@@ -181,14 +178,19 @@ public class InsumoPlaneacionWebController {
     
     // --- MOSTRAR FORMULARIO PARA EDITAR UN INSUMO EN UNA PLANEACIÓN ESPECÍFICA ---
     // GET /planeaciones/{planeacionId}/insumos/edit/{insumoPlaneacionId}
+    @PresupuestoSentencias(7)
     @GetMapping("/edit/{insumoPlaneacionId}")
     public String showEditInsumoPlaneacionForm(@PathVariable Long planeacionId,
                                                @PathVariable Long insumoPlaneacionId,
                                                Model model,
-                                               RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+                                               RedirectAttributes redirectAttributes,
+                                               NativeWebRequest webRequest,
+                                               @UsuarioActual Usuario currentUser) {
+        if (noModificada(planeacionId, webRequest, currentUser)) {
+            return null;
+        }
         try {
-            PlaneacionCultivo planeacion = getPlaneacionIfAuthorized(planeacionId); // Validar la planeación
+            PlaneacionCultivo planeacion = getPlaneacionIfAuthorized(planeacionId, currentUser); // Validar la planeación
             // Buscar el InsumoPlaneacion, asegurando que pertenece al usuario
             Optional<InsumoPlaneacion> insumoPlaneacionOptional = insumoPlaneacionService.findByIdAndPlaneacionOwnedByUser(insumoPlaneacionId, currentUser);
 
@@ -209,11 +211,12 @@ public class InsumoPlaneacionWebController {
 
     // --- ELIMINAR UN INSUMO DE UNA PLANEACIÓN ESPECÍFICA ---
     // POST /planeaciones/{planeacionId}/insumos/delete/{insumoPlaneacionId}
+    @PresupuestoSentencias(5)
     @PostMapping("/delete/{insumoPlaneacionId}")
     public String deleteInsumoPlaneacion(@PathVariable Long planeacionId,
                                          @PathVariable Long insumoPlaneacionId,
-                                         RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+                                         RedirectAttributes redirectAttributes,
+                                         @UsuarioActual Usuario currentUser) {
         try {
             // La validación de permisos se hace dentro del servicio
             insumoPlaneacionService.deleteInsumoPlaneacion(insumoPlaneacionId, currentUser);
@@ -1,21 +1,28 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ActualizacionPreciosService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
-import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ImportacionService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida; 
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoActualizacionPrecios;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoImportacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
 import jakarta.validation.Valid;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.util.Arrays; 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -24,30 +31,42 @@ import java.util.stream.Collectors;
 public class InsumoWebController {
 
     private final InsumoService insumoService;
-    private final UsuarioService usuarioService;
+    private final ImportacionService importacionService;
+    private final ActualizacionPreciosService actualizacionPreciosService;
 
-    public InsumoWebController(InsumoService insumoService, UsuarioService usuarioService) {
+    public InsumoWebController(InsumoService insumoService,
+                               ImportacionService importacionService,
+                               ActualizacionPreciosService actualizacionPreciosService) {
         this.insumoService = insumoService;
-        this.usuarioService = usuarioService;
+        this.importacionService = importacionService;
+        this.actualizacionPreciosService = actualizacionPreciosService;
     }
 
-    private Usuario getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        return usuarioService.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario autenticado no encontrado en la base de datos."));
-    }
-
-    // Listar todos los insumos del usuario autenticado
+    // Listar los insumos del usuario autenticado, paginados por cursor y con filtro por nombre
+    @PresupuestoSentencias(3)
     @GetMapping
-    public String listInsumos(Model model) {
-        Usuario currentUser = getAuthenticatedUser();
-        List<Insumo> insumos = insumoService.findByUsuario(currentUser); // Obtiene solo los insumos del usuario
-        model.addAttribute("insumos", insumos);
+    public String listInsumos(@RequestParam(value = "q", required = false) String filtro,
+                              @RequestParam(required = false) String despues,
+                              @RequestParam(required = false) String antes,
+                              @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                              Model model,
+                              RedirectAttributes redirectAttributes,
+                              @UsuarioActual Usuario currentUser) {
+        PaginaKeyset<Insumo> pagina;
+        try {
+            pagina = insumoService.findPaginaByUsuario(currentUser, filtro, despues, antes, tamano); // Solo los insumos del usuario
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/insumos";
+        }
+        model.addAttribute("insumos", pagina.getContenido());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("filtro", filtro);
         return "insumos/list-insumos";
     }
 
     // Mostrar formulario para añadir un nuevo insumo
+    @PresupuestoSentencias(0)
     @GetMapping("/new")
     public String showAddInsumoForm(Model model) {
         model.addAttribute("insumo", new Insumo());
@@ -56,10 +75,80 @@ public class InsumoWebController {
         return "insumos/insumo-form";
     }
 
+    // Mostrar formulario para importar insumos desde un archivo CSV
+    @PresupuestoSentencias(0)
+    @GetMapping("/importar")
+    public String showImportarInsumosForm() {
+        return "insumos/importar-insumos";
+    }
+
+    // Importar insumos desde CSV: el archivo se procesa en streaming y se muestra el reporte por fila
+    @PresupuestoSentencias(value = 50, repeticiones = 20)
+    @PostMapping("/importar")
+    public String importarInsumos(@RequestParam("archivo") MultipartFile archivo,
+                                  Model model,
+                                  RedirectAttributes redirectAttributes,
+                                  @UsuarioActual Usuario currentUser) {
+        if (archivo.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Selecciona un archivo CSV para importar.");
+            return "redirect:/insumos/importar";
+        }
+        try (InputStream contenido = archivo.getInputStream()) {
+            ResultadoImportacion resultado = importacionService.importarInsumos(contenido, currentUser);
+            model.addAttribute("resultado", resultado);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/insumos/importar";
+        } catch (IOException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error al leer el archivo: " + e.getMessage());
+            return "redirect:/insumos/importar";
+        }
+        return "insumos/importar-insumos";
+    }
+
+    // Mostrar formulario para ajustar en bloque los precios de un proveedor
+    @PresupuestoSentencias(3)
+    @GetMapping("/precios")
+    public String showActualizarPreciosForm(Model model, @UsuarioActual Usuario currentUser) {
+        model.addAttribute("proveedores", actualizacionPreciosService.findProveedoresByUsuario(currentUser));
+        return "insumos/actualizar-precios";
+    }
+
+    // Ajustar +N% / -N% los precios de un proveedor y propagarlos a líneas y planeaciones
+    @PresupuestoSentencias(value = 50, repeticiones = 20)
+    @PostMapping("/precios")
+    public String actualizarPrecios(@RequestParam String proveedor,
+                                    @RequestParam BigDecimal porcentaje,
+                                    Model model,
+                                    RedirectAttributes redirectAttributes,
+                                    @UsuarioActual Usuario currentUser) {
+        try {
+            ResultadoActualizacionPrecios resultado =
+                    actualizacionPreciosService.ajustarPreciosPorProveedor(currentUser, proveedor, porcentaje);
+            model.addAttribute("resultado", resultado);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/insumos/precios";
+        }
+        model.addAttribute("proveedores", actualizacionPreciosService.findProveedoresByUsuario(currentUser));
+        model.addAttribute("proveedor", proveedor);
+        model.addAttribute("porcentaje", porcentaje);
+        return "insumos/actualizar-precios";
+    }
+
+    // Recalcular los totales de todas las líneas y planeaciones con los precios vigentes
+    @PresupuestoSentencias(value = 50, repeticiones = 20)
+    @PostMapping("/precios/recalcular")
+    public String recalcularTotales(Model model, @UsuarioActual Usuario currentUser) {
+        model.addAttribute("resultado", actualizacionPreciosService.recalcularTotales(currentUser));
+        model.addAttribute("proveedores", actualizacionPreciosService.findProveedoresByUsuario(currentUser));
+        return "insumos/actualizar-precios";
+    }
+
     // Mostrar formulario para editar un insumo existente
+    @PresupuestoSentencias(2)
     @GetMapping("/edit/{id}")
-    public String showEditInsumoForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String showEditInsumoForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         // Buscar el insumo y asegurarse de que pertenece al usuario
         Optional<Insumo> insumoOptional = insumoService.getInsumoByIdAndUsuario(id, currentUser);
 
@@ -74,15 +163,16 @@ public class InsumoWebController {
     }
 
     // Procesar el formulario de guardado (creación o actualización)
+    @PresupuestoSentencias(4)
     @PostMapping
     public String saveInsumo(@Valid @ModelAttribute("insumo") Insumo insumo,
                          BindingResult result,
                          @RequestParam(value = "unidadMedidaSelect", required = false) String unidadMedidaSelect,
                          @RequestParam(value = "unidadMedidaCustom", required = false) String unidadMedidaCustom,
                          Model model,
-                         RedirectAttributes redirectAttributes) {
+                         RedirectAttributes redirectAttributes,
+                         @UsuarioActual Usuario currentUser) {
 
-        Usuario currentUser = getAuthenticatedUser();
         insumo.setUsuario(currentUser);
 
         boolean unidadMedidaSet = false; // Bandera para saber si se asignó la unidad de medida
@@ -126,9 +216,9 @@ public class InsumoWebController {
     }
 
     // Eliminar un insumo
+    @PresupuestoSentencias(9)
     @PostMapping("/delete/{id}")
-    public String deleteInsumo(@PathVariable Long id, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String deleteInsumo(@PathVariable Long id, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         try {
             // Eliminar el insumo solo si pertenece al usuario autenticado
             insumoService.deleteInsumoByIdAndUsuario(id, currentUser);
@@ -1,19 +1,25 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
-import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ImportacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoImportacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
 import jakarta.validation.Valid;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.Optional;
 
 @Controller
@@ -21,35 +27,52 @@ import java.util.Optional;
 public class ParcelaWebController {
 
     private final ParcelaService parcelaService;
-    private final UsuarioService usuarioService;
+    private final ImportacionService importacionService;
 
-    public ParcelaWebController(ParcelaService parcelaService, UsuarioService usuarioService) {
+    public ParcelaWebController(ParcelaService parcelaService,
+                                ImportacionService importacionService) {
         this.parcelaService = parcelaService;
-        this.usuarioService = usuarioService;
+        this.importacionService = importacionService;
     }
 
-    // Obtener el usuario autenticado para asociar la parcela y para verificaciones de seguridad
-    private Usuario getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName(); 
-        return usuarioService.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario autenticado no encontrado en la base de datos.")); // Cambiado a IllegalStateException
-    }
-
-    // Mostrar todas las parcelas del usuario autenticado
+    // Mostrar las parcelas del usuario autenticado, paginadas por cursor y con filtro por nombre
+    @PresupuestoSentencias(4)
     @GetMapping
-    public String listParcelas(Model model) {
-        Usuario currentUser = getAuthenticatedUser();
-        List<Parcela> parcelas = parcelaService.findByUsuario(currentUser);
-        model.addAttribute("parcelas", parcelas);
-        model.addAttribute("currentUser", currentUser);
+    public String listParcelas(@RequestParam(value = "q", required = false) String filtro,
+                               @RequestParam(required = false) String despues,
+                               @RequestParam(required = false) String antes,
+                               @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                               Model model,
+                               RedirectAttributes redirectAttributes,
+                               NativeWebRequest webRequest,
+                               @UsuarioActual Usuario currentUser,
+                               @UsuarioActual UsuarioAutenticado principal) {
+        // Sin cambios desde la última visita: 304 sin consultar la página ni renderizarla
+        if (RespuestaCondicional.noModificada(webRequest, currentUser.getId(), parcelaService.findVersionListado(currentUser))) {
+            return null;
+        }
+        PaginaKeyset<Parcela> pagina;
+        try {
+            pagina = parcelaService.findPaginaByUsuario(currentUser, filtro, despues, antes, tamano);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/parcelas";
+        }
+        model.addAttribute("parcelas", pagina.getContenido());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("filtro", filtro);
+        model.addAttribute("currentUser", principal); // Nombre tomado de la sesión, sin cargar el usuario
         return "parcelas/list-parcelas";
     }
 
     // Mostrar formulario para crear una nueva parcela o editar una existente
+    @PresupuestoSentencias(4)
     @GetMapping({"/new", "/edit/{id}"}) // Fusionamos los métodos de creación y edición
-    public String showForm(@PathVariable(required = false) Long id, Model model, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String showForm(@PathVariable(required = false) Long id, Model model, RedirectAttributes redirectAttributes,
+                           NativeWebRequest webRequest, @UsuarioActual Usuario currentUser) {
+        if (RespuestaCondicional.noModificada(webRequest, currentUser.getId(), parcelaService.findVersionListado(currentUser))) {
+            return null;
+        }
         Parcela parcela;
 
         if (id != null) {
@@ -69,10 +92,43 @@ public class ParcelaWebController {
     // Procesar el formulario (guardar o actualizar parcela)
     // El método saveParcela en el servicio es capaz de manejar tanto la creación (id nulo)
     // como la actualización (id presente en el objeto Parcela).
+    // Mostrar formulario para importar parcelas desde un archivo CSV
+    @PresupuestoSentencias(0)
+    @GetMapping("/importar")
+    public String showImportarParcelasForm() {
+        return "parcelas/importar-parcelas";
+    }
+
+    // Importar parcelas desde CSV: el archivo se procesa en streaming y se muestra el reporte por fila
+    @PresupuestoSentencias(value = 50, repeticiones = 20)
+    @PostMapping("/importar")
+    public String importarParcelas(@RequestParam("archivo") MultipartFile archivo,
+                                  Model model,
+                                  RedirectAttributes redirectAttributes,
+                                  @UsuarioActual Usuario currentUser) {
+        if (archivo.isEmpty()) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Selecciona un archivo CSV para importar.");
+            return "redirect:/parcelas/importar";
+        }
+        try (InputStream contenido = archivo.getInputStream()) {
+            ResultadoImportacion resultado = importacionService.importarParcelas(contenido, currentUser);
+            model.addAttribute("resultado", resultado);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/parcelas/importar";
+        } catch (IOException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", "Error al leer el archivo: " + e.getMessage());
+            return "redirect:/parcelas/importar";
+        }
+        return "parcelas/importar-parcelas";
+    }
+
+    @PresupuestoSentencias(4)
     @PostMapping
     public String saveParcela(@Valid @ModelAttribute("parcela") Parcela parcela,
                               BindingResult result,
-                              RedirectAttributes redirectAttributes) {
+                              RedirectAttributes redirectAttributes,
+                              @UsuarioActual Usuario currentUser) {
 
         if (result.hasErrors()) {
             // Si hay errores, volvemos al formulario.
@@ -80,15 +136,13 @@ public class ParcelaWebController {
             return "parcelas/parcela-form";
         }
 
-        Usuario currentUser = getAuthenticatedUser();
         parcela.setUsuario(currentUser); // Asignar el usuario autenticado a la parcela
 
         try {
             // Antes de guardar, si la parcela tiene un ID, verificamos que pertenezca al usuario.
             // Si es una nueva parcela (ID nulo), no hay verificación de propiedad previa.
-            if (parcela.getId() != null) {
-                parcelaService.getParcelaByIdAndUsuario(parcela.getId(), currentUser)
-                        .orElseThrow(() -> new SecurityException("No tienes permiso para actualizar esta parcela."));
+            if (parcela.getId() != null && !parcelaService.existsByIdAndUsuario(parcela.getId(), currentUser)) {
+                throw new SecurityException("No tienes permiso para actualizar esta parcela.");
             }
 
             parcelaService.saveParcela(parcela); // Este método ahora maneja tanto crear como actualizar
@@ -108,9 +162,9 @@ public class ParcelaWebController {
     }
 
     // ELIMINAR una parcela
+    @PresupuestoSentencias(8)
     @PostMapping("/delete/{id}")
-    public String deleteParcela(@PathVariable Long id, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String deleteParcela(@PathVariable Long id, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         try {
             parcelaService.deleteParcela(id, currentUser);
             redirectAttributes.addFlashAttribute("successMessage", "Parcela eliminada exitosamente!");
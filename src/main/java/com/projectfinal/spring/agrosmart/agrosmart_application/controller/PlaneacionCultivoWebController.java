@@ -1,25 +1,34 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.EtapaCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.EtapaCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ExportacionService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.TipoCultivoService;
-import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
 import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion; 
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionCultivoListadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion.FormatoExportacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.io.IOException;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.Arrays;
@@ -31,46 +40,77 @@ public class PlaneacionCultivoWebController {
     private final PlaneacionCultivoService planeacionCultivoService;
     private final ParcelaService parcelaService;
     private final TipoCultivoService tipoCultivoService;
-    private final UsuarioService usuarioService;
     private final EtapaCultivoService etapaCultivoService; 
+    private final ExportacionService exportacionService;
 
     public PlaneacionCultivoWebController(PlaneacionCultivoService planeacionCultivoService,
                                           ParcelaService parcelaService,
                                           TipoCultivoService tipoCultivoService,
-                                          UsuarioService usuarioService,
-                                          EtapaCultivoService etapaCultivoService) { 
+                                          EtapaCultivoService etapaCultivoService,
+                                          ExportacionService exportacionService) { 
         this.planeacionCultivoService = planeacionCultivoService;
         this.parcelaService = parcelaService;
         this.tipoCultivoService = tipoCultivoService;
-        this.usuarioService = usuarioService;
         this.etapaCultivoService = etapaCultivoService; 
+        this.exportacionService = exportacionService;
     }
 
-    private Usuario getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        return usuarioService.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario autenticado no encontrado en la base de datos."));
-    }
-
-    // --- LISTAR PLANEACIONES DE CULTIVO ---
+    // --- LISTAR PLANEACIONES DE CULTIVO (paginadas por cursor, con filtro por nombre) ---
+    @PresupuestoSentencias(4)
     @GetMapping
-    public String listPlaneaciones(Model model) {
-        Usuario currentUser = getAuthenticatedUser();
-        List<PlaneacionCultivo> planeaciones = planeacionCultivoService.findByUsuario(currentUser);
-        model.addAttribute("planeaciones", planeaciones);
+    public String listPlaneaciones(@RequestParam(value = "q", required = false) String filtro,
+                                   @RequestParam(required = false) String despues,
+                                   @RequestParam(required = false) String antes,
+                                   @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                   Model model,
+                                   RedirectAttributes redirectAttributes,
+                                   NativeWebRequest webRequest,
+                                   @UsuarioActual Usuario currentUser) {
+        // Sin cambios desde la última visita: 304 sin consultar la página ni renderizarla
+        if (RespuestaCondicional.noModificada(webRequest, currentUser.getId(), planeacionCultivoService.findVersionListado(currentUser))) {
+            return null;
+        }
+        // Filas planas: una sola consulta con los nombres de parcela, tipo y etapa
+        PaginaKeyset<PlaneacionCultivoListadoDto> pagina;
+        try {
+            pagina = planeacionCultivoService.findListadoPaginaByUsuario(currentUser, filtro, despues, antes, tamano);
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/planeaciones";
+        }
+        model.addAttribute("planeaciones", pagina.getContenido());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("filtro", filtro);
         return "planeaciones/list-planeaciones";
     }
 
+    // --- EXPORTAR PLANEACIONES CON SUS INSUMOS (CSV o XLSX) ---
+    // Se escribe directamente en la respuesta mientras se recorren las filas, sin cargarlas en memoria
+    @PresupuestoSentencias(3)
+    @GetMapping("/exportar")
+    public void exportarPlaneaciones(@RequestParam(defaultValue = "CSV") FormatoExportacion formato,
+                                     HttpServletResponse response,
+                                     @UsuarioActual Usuario currentUser) throws IOException {
+        String archivo = "planeaciones-" + LocalDate.now() + "." + formato.getExtension();
+        response.setContentType(formato.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(archivo).build().toString());
+        exportacionService.exportarPlaneaciones(currentUser, formato, response.getOutputStream());
+    }
+
     // --- MOSTRAR FORMULARIO DE CREACIÓN/EDICIÓN ---
+    @PresupuestoSentencias(5)
     @GetMapping({"/new", "/edit/{id}"})
-    public String showForm(@PathVariable(required = false) Long id, Model model, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String showForm(@PathVariable(required = false) Long id, Model model, RedirectAttributes redirectAttributes,
+                           NativeWebRequest webRequest, @UsuarioActual Usuario currentUser) {
+        // La versión del listado cubre la planeación y las parcelas, tipos y etapas de las listas del formulario
+        if (RespuestaCondicional.noModificada(webRequest, currentUser.getId(), planeacionCultivoService.findVersionListado(currentUser))) {
+            return null;
+        }
 
         // Cargar las parcelas del usuario actual
         List<Parcela> parcelas = parcelaService.findByUsuario(currentUser);
-        // Cargar los tipos de cultivo disponibles (asumo que son globales o que también tienes un findByUsuario para ellos)
-        List<TipoCultivo> tiposCultivo = tipoCultivoService.getAllTiposCultivo();
+        // Cargar los tipos de cultivo del usuario actual
+        List<TipoCultivo> tiposCultivo = tipoCultivoService.findByUsuario(currentUser);
         // Cargar las etapas de cultivo disponibles para el usuario actual
         List<EtapaCultivo> etapasCultivo = etapaCultivoService.findByUsuario(currentUser);
 
@@ -113,34 +153,27 @@ public class PlaneacionCultivoWebController {
     }
 
     // --- PROCESAR FORMULARIO (GUARDAR/ACTUALIZAR PLANEACIÓN) ---
+    @PresupuestoSentencias(6)
     @PostMapping
     public String savePlaneacion(@Valid @ModelAttribute("planeacionCultivo") PlaneacionCultivo planeacionCultivo,
                                  BindingResult result,
                                  RedirectAttributes redirectAttributes,
-                                 Model model) {
-        Usuario currentUser = getAuthenticatedUser();
+                                 Model model,
+                                 @UsuarioActual Usuario currentUser) {
         planeacionCultivo.setUsuario(currentUser); // Asociar la planeación al usuario actual
 
-        // Recargar las listas para el formulario en caso de error de validación
-        List<Parcela> parcelas = parcelaService.findByUsuario(currentUser);
-        List<TipoCultivo> tiposCultivo = tipoCultivoService.getAllTiposCultivo();
-        List<EtapaCultivo> etapasCultivo = etapaCultivoService.findByUsuario(currentUser); // Recargar etapas
-
         if (!result.hasErrors()) {
-            // Asegurarse de que la parcela seleccionada pertenece al usuario
-            Optional<Parcela> selectedParcela = parcelas.stream()
-                    .filter(p -> p.getId().equals(planeacionCultivo.getParcela().getId()))
-                    .findFirst();
+            // Cada selección se busca por ID con el predicado del usuario (una consulta por selección,
+            // sin cargar las listas completas para filtrarlas en memoria)
+            Optional<Parcela> selectedParcela = parcelaService.getParcelaByIdAndUsuario(planeacionCultivo.getParcela().getId(), currentUser);
             if (selectedParcela.isEmpty()) {
                 result.rejectValue("parcela", "invalid.parcela", "La parcela seleccionada no es válida o no le pertenece.");
             } else {
                 planeacionCultivo.setParcela(selectedParcela.get());
             }
 
-            // Asegurarse de que el tipo de cultivo seleccionado es válido
-            Optional<TipoCultivo> selectedTipoCultivo = tiposCultivo.stream()
-                    .filter(tc -> tc.getId().equals(planeacionCultivo.getTipoCultivo().getId()))
-                    .findFirst();
+            // Asegurarse de que el tipo de cultivo seleccionado es válido y pertenece al usuario
+            Optional<TipoCultivo> selectedTipoCultivo = tipoCultivoService.getTipoCultivoByIdAndUsuario(planeacionCultivo.getTipoCultivo().getId(), currentUser);
             if (selectedTipoCultivo.isEmpty()) {
                 result.rejectValue("tipoCultivo", "invalid.tipoCultivo", "El tipo de cultivo seleccionado no es válido.");
             } else {
@@ -148,9 +181,7 @@ public class PlaneacionCultivoWebController {
             }
 
             // Asegurarse de que la etapa de cultivo seleccionada es válida y pertenece al usuario
-            Optional<EtapaCultivo> selectedEtapa = etapasCultivo.stream() // Usar las etapas del usuario
-                    .filter(ec -> ec.getId().equals(planeacionCultivo.getEtapaCultivo().getId()))
-                    .findFirst();
+            Optional<EtapaCultivo> selectedEtapa = etapaCultivoService.getEtapaCultivoByIdAndUsuario(planeacionCultivo.getEtapaCultivo().getId(), currentUser);
             if (selectedEtapa.isEmpty()) {
                 result.rejectValue("etapaCultivo", "invalid.etapaCultivo", "La etapa de cultivo seleccionada no es válida o no le pertenece.");
             } else {
@@ -161,10 +192,7 @@ public class PlaneacionCultivoWebController {
 
         if (result.hasErrors()) {
             // pasar todos los atributos necesarios para renderizar el formulario correctamente
-            model.addAttribute("parcelas", parcelas);
-            model.addAttribute("tiposCultivo", tiposCultivo);
-            model.addAttribute("etapasCultivo", etapasCultivo); // Añadir etapas al modelo en caso de error
-            model.addAttribute("estadosPlaneacion", EstadoPlaneacion.values()); // <--- ¡NUEVO! Re-pasar los valores del Enum
+            addListasFormulario(model, currentUser);
             return "planeaciones/planeacion-form";
         }
 
@@ -174,19 +202,24 @@ public class PlaneacionCultivoWebController {
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error al guardar la planeación de cultivo: " + e.getMessage());
             // Recargar las listas si hay un error de servicio y se vuelve al formulario
-            model.addAttribute("parcelas", parcelas);
-            model.addAttribute("tiposCultivo", tiposCultivo);
-            model.addAttribute("etapasCultivo", etapasCultivo);
-            model.addAttribute("estadosPlaneacion", EstadoPlaneacion.values()); // <--- ¡NUEVO! Re-pasar los valores del Enum
+            addListasFormulario(model, currentUser);
             return "planeaciones/planeacion-form";
         }
         return "redirect:/planeaciones";
     }
 
+    // Listas de selección del formulario; solo se cargan cuando hay que volver a mostrarlo
+    private void addListasFormulario(Model model, Usuario currentUser) {
+        model.addAttribute("parcelas", parcelaService.findByUsuario(currentUser));
+        model.addAttribute("tiposCultivo", tipoCultivoService.findByUsuario(currentUser));
+        model.addAttribute("etapasCultivo", etapaCultivoService.findByUsuario(currentUser));
+        model.addAttribute("estadosPlaneacion", EstadoPlaneacion.values());
+    }
+
     // --- ELIMINAR PLANEACIÓN DE CULTIVO ---
+    @PresupuestoSentencias(5)
     @PostMapping("/delete/{id}")
-    public String deletePlaneacion(@PathVariable Long id, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser();
+    public String deletePlaneacion(@PathVariable Long id, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         try {
             planeacionCultivoService.deletePlaneacionCultivo(id, currentUser);
             redirectAttributes.addFlashAttribute("successMessage", "Planeación de cultivo eliminada exitosamente!");
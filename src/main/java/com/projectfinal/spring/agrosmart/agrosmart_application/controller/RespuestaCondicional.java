@@ -0,0 +1,50 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.support.RequestContextUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Map;
+
+/**
+ * GET condicional (ETag / Last-Modified) para las páginas de listado y formulario.
+ *
+ * La ETag resume la versión de los datos de la página (una consulta, ver VersionRecursoDto), el usuario,
+ * la sesión (las páginas llevan su token CSRF) y el arranque de la aplicación (plantillas de otro despliegue).
+ * Si el navegador la envía en If-None-Match se responde 304 antes de ejecutar las consultas del listado y
+ * sin renderizar la plantilla. "private, no-cache" deja guardar la página solo al navegador y obliga a
+ * revalidarla en cada visita.
+ */
+final class RespuestaCondicional {
+
+    private static final String ARRANQUE = Long.toString(System.currentTimeMillis(), 36);
+
+    private RespuestaCondicional() {
+    }
+
+    /**
+     * @return true si la página no cambió; la respuesta ya es un 304 y el controlador debe devolver null.
+     */
+    static boolean noModificada(NativeWebRequest request, Long usuarioId, VersionRecursoDto version) {
+        HttpServletRequest peticion = request.getNativeRequest(HttpServletRequest.class);
+        HttpServletResponse respuesta = request.getNativeResponse(HttpServletResponse.class);
+        // Tras un redirect con mensaje la página es distinta de la guardada: se renderiza y no se etiqueta
+        Map<String, ?> flash = RequestContextUtils.getInputFlashMap(peticion);
+        if (version == null || respuesta == null || (flash != null && !flash.isEmpty())) {
+            return false;
+        }
+        String contenido = usuarioId + "|" + request.getSessionId() + "|" + ARRANQUE + "|" + version.getEtiqueta();
+        String etag = "W/\"" + DigestUtils.md5DigestAsHex(contenido.getBytes(StandardCharsets.UTF_8)) + "\"";
+        long ultimaModificacion = version.getUltimaModificacionPagina() == null ? -1
+                : version.getUltimaModificacionPagina().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+        respuesta.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return request.checkNotModified(etag, ultimaModificacion);
+    }
+}
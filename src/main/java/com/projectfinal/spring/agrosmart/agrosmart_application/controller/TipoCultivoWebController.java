@@ -1,20 +1,19 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.controller;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioActual;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario; 
 import com.projectfinal.spring.agrosmart.agrosmart_application.service.TipoCultivoService;
-import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService; 
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
 
 import jakarta.validation.Valid;
-import org.springframework.security.core.Authentication; 
-import org.springframework.security.core.context.SecurityContextHolder; 
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
 import java.util.Optional;
 import java.math.BigDecimal; 
 
@@ -23,31 +22,36 @@ import java.math.BigDecimal;
 public class TipoCultivoWebController {
 
     private final TipoCultivoService tipoCultivoService;
-    private final UsuarioService usuarioService; 
 
-    public TipoCultivoWebController(TipoCultivoService tipoCultivoService, UsuarioService usuarioService) { // Modificar constructor
+    public TipoCultivoWebController(TipoCultivoService tipoCultivoService) { // Modificar constructor
         this.tipoCultivoService = tipoCultivoService;
-        this.usuarioService = usuarioService;
     }
 
-    // Método auxiliar para obtener el usuario autenticado 
-    private Usuario getAuthenticatedUser() {
-        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
-        String userEmail = authentication.getName();
-        return usuarioService.findByEmail(userEmail)
-                .orElseThrow(() -> new IllegalStateException("Usuario autenticado no encontrado en la base de datos."));
-    }
-
-    // Mostrar tipos de cultivo DEL USUARIO AUTENTICADO
+    // Mostrar tipos de cultivo DEL USUARIO AUTENTICADO, paginados por cursor y con filtro por nombre
+    @PresupuestoSentencias(3)
     @GetMapping
-    public String listTiposCultivo(Model model) {
-        Usuario currentUser = getAuthenticatedUser();
-        List<TipoCultivo> tiposCultivo = tipoCultivoService.findByUsuario(currentUser); // Obtener solo los del usuario
-        model.addAttribute("tiposCultivo", tiposCultivo);
+    public String listTiposCultivo(@RequestParam(value = "q", required = false) String filtro,
+                                   @RequestParam(required = false) String despues,
+                                   @RequestParam(required = false) String antes,
+                                   @RequestParam(defaultValue = "" + PaginaKeyset.TAMANO_POR_DEFECTO) int tamano,
+                                   Model model,
+                                   RedirectAttributes redirectAttributes,
+                                   @UsuarioActual Usuario currentUser) {
+        PaginaKeyset<TipoCultivo> pagina;
+        try {
+            pagina = tipoCultivoService.findPaginaByUsuario(currentUser, filtro, despues, antes, tamano); // Obtener solo los del usuario
+        } catch (IllegalArgumentException e) {
+            redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
+            return "redirect:/tipos-cultivo";
+        }
+        model.addAttribute("tiposCultivo", pagina.getContenido());
+        model.addAttribute("pagina", pagina);
+        model.addAttribute("filtro", filtro);
         return "tipos_cultivo/list-tipos";
     }
 
     // Mostrar formulario para crear un nuevo tipo de cultivo
+    @PresupuestoSentencias(0)
     @GetMapping("/new")
     public String showCreateForm(Model model) {
         model.addAttribute("tipoCultivo", new TipoCultivo());
@@ -55,11 +59,12 @@ public class TipoCultivoWebController {
     }
 
     // Procesar el formulario de creación de tipo de cultivo
+    @PresupuestoSentencias(5)
     @PostMapping
     public String saveTipoCultivo(@Valid @ModelAttribute("tipoCultivo") TipoCultivo tipoCultivo,
                                   BindingResult result,
-                                  RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser(); // Obtener el usuario autenticado
+                                  RedirectAttributes redirectAttributes,
+                                  @UsuarioActual Usuario currentUser) {
         tipoCultivo.setUsuario(currentUser); // ASOCIAR EL TIPO DE CULTIVO AL USUARIO ACTUAL
 
         if (result.hasErrors()) {
@@ -81,9 +86,9 @@ public class TipoCultivoWebController {
     }
 
     // Mostrar formulario para editar un tipo de cultivo existente
+    @PresupuestoSentencias(2)
     @GetMapping("/edit/{id}")
-    public String showEditForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser(); // Obtener el usuario autenticado
+    public String showEditForm(@PathVariable Long id, Model model, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         Optional<TipoCultivo> tipoCultivoOptional = tipoCultivoService.getTipoCultivoByIdAndUsuario(id, currentUser); // Buscar por ID y usuario
         if (tipoCultivoOptional.isEmpty()) {
             redirectAttributes.addFlashAttribute("errorMessage", "Tipo de cultivo no encontrado o no autorizado.");
@@ -94,12 +99,13 @@ public class TipoCultivoWebController {
     }
 
     // Procesar el formulario de actualización de tipo de cultivo
+    @PresupuestoSentencias(6)
     @PostMapping("/update/{id}")
     public String updateTipoCultivo(@PathVariable Long id,
                                     @Valid @ModelAttribute("tipoCultivo") TipoCultivo tipoCultivoDetails,
                                     BindingResult result,
-                                    RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser(); // Obtener el usuario autenticado
+                                    RedirectAttributes redirectAttributes,
+                                    @UsuarioActual Usuario currentUser) {
 
         if (result.hasErrors()) {
             tipoCultivoDetails.setId(id); // Asegura que el ID se mantenga para la vista del formulario
@@ -139,18 +145,14 @@ public class TipoCultivoWebController {
     }
 
     // Eliminar un tipo de cultivo
+    @PresupuestoSentencias(8)
     @PostMapping("/delete/{id}")
-    public String deleteTipoCultivo(@PathVariable Long id, RedirectAttributes redirectAttributes) {
-        Usuario currentUser = getAuthenticatedUser(); // Obtener el usuario autenticado
+    public String deleteTipoCultivo(@PathVariable Long id, RedirectAttributes redirectAttributes, @UsuarioActual Usuario currentUser) {
         try {
-            // Verificar que el tipo de cultivo a eliminar pertenece al usuario
-            Optional<TipoCultivo> tipoCultivoOptional = tipoCultivoService.getTipoCultivoByIdAndUsuario(id, currentUser);
-            if (tipoCultivoOptional.isEmpty()) {
-                throw new SecurityException("No autorizado para eliminar este tipo de cultivo.");
-            }
-            tipoCultivoService.deleteTipoCultivo(id);
+            // El servicio borra con el predicado del usuario en la misma sentencia
+            tipoCultivoService.deleteTipoCultivo(id, currentUser);
             redirectAttributes.addFlashAttribute("successMessage", "Tipo de cultivo eliminado exitosamente!");
-        } catch (SecurityException e) {
+        } catch (IllegalArgumentException | SecurityException e) {
             redirectAttributes.addFlashAttribute("errorMessage", e.getMessage());
         } catch (Exception e) {
             redirectAttributes.addFlashAttribute("errorMessage", "Error al eliminar el tipo de cultivo: " + e.getMessage());
@@ -1,12 +1,17 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogoCache.ETAPAS_CULTIVO)
 @Table(name = "etapas_cultivo")
 @Getter
 @Setter
@@ -15,7 +20,8 @@ import lombok.AllArgsConstructor;
 public class EtapaCultivo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "etapas_cultivo_seq")
+    @SequenceGenerator(name = "etapas_cultivo_seq", sequenceName = "etapas_cultivo_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
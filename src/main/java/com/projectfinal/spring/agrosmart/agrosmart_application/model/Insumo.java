@@ -1,25 +1,35 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.model; 
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.util.ArrayList;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
 import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
 
+import lombok.AccessLevel;
 import lombok.Data; 
+import lombok.Setter;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogoCache.INSUMOS)
 @Table(name = "insumos")
 @Data 
 public class Insumo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insumos_seq")
+    @SequenceGenerator(name = "insumos_seq", sequenceName = "insumos_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "El nombre del insumo es requerido")
@@ -35,9 +45,16 @@ public class Insumo {
     @Column(name = "proveedor", length = 255) 
     private String proveedor;
 
+    @Size(max = 50, message = "La unidad de medida no puede exceder los 50 caracteres")
     @Column(name = "unidad_medida", length = 50)
     private String unidadMedida; 
 
+    // unidadMedida reconocida al escribir (ver normalizarUnidad); null si es una unidad libre ("Otro")
+    @Enumerated(EnumType.STRING)
+    @Column(name = "unidad_codigo", length = 16)
+    @Setter(AccessLevel.NONE)
+    private UnidadMedida unidadCodigo;
+
     @NotNull(message = "El precio unitario es obligatorio")
     @DecimalMin(value = "0.0", inclusive = false, message = "El precio unitario debe ser mayor que cero")
     @Column(name = "precio_unitario", nullable = false, precision = 10, scale = 2)
@@ -47,14 +64,28 @@ public class Insumo {
     private String descripcion; 
 
     
+    // Fuera de toString: las vistas convierten el insumo a texto sin sesión abierta
+    @ToString.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "usuario_id", nullable = false) 
     private Usuario usuario; 
 
     // Relaciones: Un Insumo puede estar en muchas InsumosPlaneacion
+    @ToString.Exclude
     @OneToMany(mappedBy = "insumo", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     private java.util.List<InsumoPlaneacion> insumosPlaneacion = new ArrayList<>();
 
+    @PrePersist
+    @PreUpdate
+    protected void onWrite() {
+        normalizarUnidad();
+    }
+
+    /** Tipa unidadMedida como UnidadMedida. Los servicios lo llaman antes si necesitan el código en la misma transacción. */
+    public void normalizarUnidad() {
+        this.unidadCodigo = UnidadMedida.desdeTexto(unidadMedida);
+    }
+
     public void addInsumoPlaneacion(InsumoPlaneacion insumoPlaneacion) {
         insumosPlaneacion.add(insumoPlaneacion);
         insumoPlaneacion.setInsumo(this);
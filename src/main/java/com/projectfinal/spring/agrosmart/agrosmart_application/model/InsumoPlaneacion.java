@@ -1,6 +1,9 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.model;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
 import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -17,20 +20,32 @@ import java.time.LocalDate;
 public class InsumoPlaneacion {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "insumos_planeacion_seq")
+    @SequenceGenerator(name = "insumos_planeacion_seq", sequenceName = "insumos_planeacion_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "planeacion_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE) // ON DELETE CASCADE en la base (V4)
     private PlaneacionCultivo planeacion;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "insumo_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Insumo insumo;
 
     @Column(name = "cantidad", nullable = false, precision = 10, scale = 3)
     private BigDecimal cantidad;
 
+    // Cantidad expresada en la unidad base de la magnitud del insumo (KG, L, M2, UNIDAD o el propio empaque),
+    // para sumar líneas de insumos distintos; ambas null si el insumo tiene una unidad libre
+    @Column(name = "cantidad_base", precision = 19, scale = 6)
+    private BigDecimal cantidadBase;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "unidad_base", length = 16)
+    private UnidadMedida unidadBase;
+
     @Column(name = "total_insumo", nullable = false, precision = 10, scale = 2) // 2 decimales para dinero
     private BigDecimal totalInsumo;
 
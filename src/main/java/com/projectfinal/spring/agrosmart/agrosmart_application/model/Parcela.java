@@ -1,6 +1,13 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.model;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.CalculoPlaneacion;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -17,25 +24,37 @@ import java.time.LocalDateTime;
 public class Parcela {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parcelas_seq")
+    @SequenceGenerator(name = "parcelas_seq", sequenceName = "parcelas_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY) 
     @JoinColumn(name = "usuario_id", nullable = false) 
     private Usuario usuario; 
 
+    @NotBlank(message = "El nombre de la parcela es requerido")
+    @Size(max = 255, message = "El nombre no puede exceder los 255 caracteres")
     @Column(nullable = false, length = 255)
     private String nombre;
 
+    @Size(max = 255, message = "La ubicación no puede exceder los 255 caracteres")
     @Column(length = 255)
     private String ubicacion;
 
+    @NotNull(message = "El tamaño es obligatorio")
+    @DecimalMin(value = "0.0", inclusive = false, message = "El tamaño debe ser mayor que cero")
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal tamano;
 
+    @Size(max = 50, message = "La unidad de medida no puede exceder los 50 caracteres")
     @Column(name = "unidad_medida", length = 50)
     private String unidadMedida;
 
+    // Tamaño convertido a m² al escribir (ver normalizarArea); null si unidadMedida no es una unidad de área
+    @Column(name = "area_m2", precision = 16, scale = 2)
+    @Setter(AccessLevel.NONE)
+    private BigDecimal areaM2;
+
     @Column(columnDefinition = "TEXT") 
     private String descripcion;
 
@@ -53,10 +72,23 @@ public class Parcela {
         if (this.createdAt == null) {
             this.createdAt = LocalDateTime.now();
         }
+        normalizarArea();
     }
 
     @PreUpdate
     protected void onUpdate() {
         this.updatedAt = LocalDateTime.now();
+        normalizarArea();
+    }
+
+    /**
+     * Recalcula areaM2 desde tamano y unidadMedida. Se ejecuta al insertar y actualizar; los servicios lo llaman
+     * antes si necesitan el área nueva en la misma transacción.
+     */
+    public void normalizarArea() {
+        UnidadMedida unidad = UnidadMedida.desdeTexto(unidadMedida);
+        this.areaM2 = tamano != null && unidad != null && unidad.getMagnitud() == UnidadMedida.Magnitud.AREA
+                ? CalculoPlaneacion.areaEnM2(tamano, unidad)
+                : null;
     }
 }
\ No newline at end of file
@@ -2,6 +2,8 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.model;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
 import jakarta.persistence.*;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -20,7 +22,8 @@ import java.time.LocalDateTime;
 public class PlaneacionCultivo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "planeaciones_cultivo_seq")
+    @SequenceGenerator(name = "planeaciones_cultivo_seq", sequenceName = "planeaciones_cultivo_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -29,10 +32,12 @@ public class PlaneacionCultivo {
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parcela_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE) // ON DELETE CASCADE en la base (V4)
     private Parcela parcela;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tipo_cultivo_id", nullable = false)
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private TipoCultivo tipoCultivo;
 
     
@@ -0,0 +1,97 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Recálculo en segundo plano del número de semillas de las planeaciones que dependen de una parcela o de un
+ * tipo de cultivo editados (ver RecalculoSemillasService). Guarda el avance por lotes para mostrarlo en el dashboard.
+ */
+@Entity
+@Table(name = "recalculos_semillas")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RecalculoSemillas {
+
+    public enum Origen {
+        PARCELA, TIPO_CULTIVO
+    }
+
+    public enum Estado {
+        PENDIENTE("Pendiente"),
+        EN_CURSO("En Curso"),
+        COMPLETADO("Completado"),
+        FALLIDO("Fallido");
+
+        private final String displayValue;
+
+        Estado(String displayValue) {
+            this.displayValue = displayValue;
+        }
+
+        public String getDisplayValue() {
+            return displayValue;
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recalculos_semillas_seq")
+    @SequenceGenerator(name = "recalculos_semillas_seq", sequenceName = "recalculos_semillas_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "usuario_id", nullable = false)
+    private Long usuarioId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Origen origen;
+
+    @Column(name = "origen_id", nullable = false)
+    private Long origenId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Estado estado = Estado.PENDIENTE;
+
+    // Planeaciones afectadas, contadas al empezar, y cuántas se han recalculado ya
+    @Column(nullable = false)
+    private long total;
+
+    @Column(nullable = false)
+    private long procesadas;
+
+    private String error;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    public RecalculoSemillas(Long usuarioId, Origen origen, Long origenId) {
+        this.usuarioId = usuarioId;
+        this.origen = origen;
+        this.origenId = origenId;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+
+    public boolean isTerminado() {
+        return estado == Estado.COMPLETADO || estado == Estado.FALLIDO;
+    }
+
+    // Porcentaje de avance para mostrar; un recálculo sin planeaciones afectadas termina al 100%
+    public int getPorcentaje() {
+        if (total == 0) {
+            return isTerminado() ? 100 : 0;
+        }
+        return (int) (procesadas * 100 / total);
+    }
+}
@@ -0,0 +1,63 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+
+/**
+ * Totales del dashboard de un usuario. Los servicios de escritura aplican los cambios como deltas
+ * (ver ResumenUsuarioService), así que leerlo no depende de cuántas parcelas o planeaciones tenga.
+ */
+@Entity
+@Table(name = "resumen_usuario")
+@Getter
+@Setter
+@NoArgsConstructor
+public class ResumenUsuario {
+
+    @Id
+    @Column(name = "usuario_id")
+    private Long usuarioId;
+
+    @Column(nullable = false)
+    private long numeroParcelas;
+
+    @Column(name = "area_total_m2", nullable = false, precision = 19, scale = 2)
+    private BigDecimal areaTotalM2 = BigDecimal.ZERO;
+
+    @Column(nullable = false)
+    private long planeacionesPendientes;
+
+    @Column(nullable = false)
+    private long planeacionesEnCurso;
+
+    @Column(nullable = false)
+    private long planeacionesCompletadas;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal costoTotal = BigDecimal.ZERO;
+
+    // Aumenta con cada cambio de los datos del usuario; forma parte de las ETag de sus páginas
+    @Column(nullable = false)
+    private long versionDatos;
+
+    private LocalDateTime updatedAt;
+
+    public ResumenUsuario(Long usuarioId) {
+        this.usuarioId = usuarioId;
+    }
+
+    public long getTotalPlaneaciones() {
+        return planeacionesPendientes + planeacionesEnCurso + planeacionesCompletadas;
+    }
+
+    // Área total en hectáreas para mostrar (se guarda en m² para sumar parcelas de distinta unidad)
+    public BigDecimal getAreaTotalHectareas() {
+        return areaTotalM2.divide(new BigDecimal("10000"), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -1,6 +1,9 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.NoArgsConstructor;
@@ -9,6 +12,8 @@ import java.math.BigDecimal;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CatalogoCache.TIPOS_CULTIVO)
 @Table(name = "tipos_cultivo",
        uniqueConstraints = {
            @UniqueConstraint(columnNames = {"nombre", "usuario_id"})
@@ -20,7 +25,8 @@ import java.util.List;
 public class TipoCultivo {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tipos_cultivo_seq")
+    @SequenceGenerator(name = "tipos_cultivo_seq", sequenceName = "tipos_cultivo_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
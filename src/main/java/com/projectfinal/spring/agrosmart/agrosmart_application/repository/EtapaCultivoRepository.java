@@ -2,7 +2,16 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.EtapaCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,9 +20,36 @@ import java.util.Optional;
 @Repository
 public interface EtapaCultivoRepository extends JpaRepository<EtapaCultivo, Long> {
     // Buscar etapas por usuario (incluirá las predefinidas y las personalizadas)
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogoCache.CONSULTAS)})
     List<EtapaCultivo> findByUsuario(Usuario usuario);
     // Para asegurar que una etapa específica pertenece al usuario al editar/eliminar
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogoCache.CONSULTAS)})
     Optional<EtapaCultivo> findByIdAndUsuario(Long id, Usuario usuario);
     // Para encontrar etapas predefinidas por nombre, si el usuario aún no las tiene
     Optional<EtapaCultivo> findByNombreAndUsuario(String nombre, Usuario usuario);
+
+    // Borra la etapa solo si pertenece al usuario; devuelve 0 si no existe o es de otro usuario.
+    // Una etapa usada por alguna planeación no se borra (la clave foránea no tiene cascada)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM EtapaCultivo ec WHERE ec.id = :id AND ec.usuario.id = :usuarioId")
+    int deleteByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // --- Paginación keyset por (nombre, id) con filtro por nombre ---
+    @Query("SELECT ec FROM EtapaCultivo ec WHERE ec.usuario = :usuario AND LOWER(ec.nombre) LIKE :patron ESCAPE '!' " +
+           "ORDER BY ec.nombre ASC, ec.id ASC")
+    Slice<EtapaCultivo> findPrimeraPagina(@Param("usuario") Usuario usuario, @Param("patron") String patron, Pageable pageable);
+
+    @Query("SELECT ec FROM EtapaCultivo ec WHERE ec.usuario = :usuario AND LOWER(ec.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (ec.nombre > :nombre OR (ec.nombre = :nombre AND ec.id > :id)) " +
+           "ORDER BY ec.nombre ASC, ec.id ASC")
+    Slice<EtapaCultivo> findPaginaDespues(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                          @Param("nombre") String nombre, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT ec FROM EtapaCultivo ec WHERE ec.usuario = :usuario AND LOWER(ec.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (ec.nombre < :nombre OR (ec.nombre = :nombre AND ec.id < :id)) " +
+           "ORDER BY ec.nombre DESC, ec.id DESC")
+    Slice<EtapaCultivo> findPaginaAntes(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                        @Param("nombre") String nombre, @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
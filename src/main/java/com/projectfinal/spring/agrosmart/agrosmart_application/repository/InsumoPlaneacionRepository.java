@@ -2,9 +2,19 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo; // Importar PlaneacionCultivo
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.CantidadUnidadDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.InsumoPlaneacionListadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.TotalLineaDto;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,4 +24,59 @@ public interface InsumoPlaneacionRepository extends JpaRepository<InsumoPlaneaci
     List<InsumoPlaneacion> findByPlaneacion(PlaneacionCultivo planeacion);
     
     List<InsumoPlaneacion> findByPlaneacionId(Long planeacionId);
-}
\ No newline at end of file
+
+    // Filas del listado de insumos de una planeación, con el insumo resuelto en el mismo join
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.InsumoPlaneacionListadoDto(" +
+           "ip.id, i.id, i.nombre, i.unidadMedida, i.precioUnitario, ip.cantidad, ip.totalInsumo, " +
+           "ip.fechaRegistro, ip.observaciones) " +
+           "FROM InsumoPlaneacion ip JOIN ip.insumo i " +
+           "WHERE ip.planeacion = :planeacion ORDER BY ip.id")
+    List<InsumoPlaneacionListadoDto> findListadoByPlaneacion(@Param("planeacion") PlaneacionCultivo planeacion);
+
+    // Cantidades de la planeación sumadas por unidad base, desde el índice (planeacion_id, unidad_base, cantidad_base)
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.CantidadUnidadDto(" +
+           "ip.unidadBase, SUM(ip.cantidadBase)) " +
+           "FROM InsumoPlaneacion ip WHERE ip.planeacion.id = :planeacionId AND ip.unidadBase IS NOT NULL " +
+           "GROUP BY ip.unidadBase ORDER BY ip.unidadBase")
+    List<CantidadUnidadDto> sumarCantidadesBaseByPlaneacionId(@Param("planeacionId") Long planeacionId);
+
+    // --- Consultas con el predicado de propiedad (la línea pertenece al usuario dueño de su planeación) ---
+    boolean existsByIdAndPlaneacionUsuarioId(Long id, Long usuarioId);
+
+    // Con el insumo cargado: el formulario de edición lo muestra después de cerrar la sesión
+    @Query("SELECT ip FROM InsumoPlaneacion ip JOIN FETCH ip.insumo WHERE ip.id = :id AND ip.planeacion.usuario.id = :usuarioId")
+    Optional<InsumoPlaneacion> findByIdAndPlaneacionUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Planeación y total actuales de una línea del usuario, leídos antes de modificarla o borrarla para calcular el
+    // delta del costo. La fila queda bloqueada hasta el fin de la transacción: dos ediciones (o una edición y un
+    // borrado) simultáneos de la misma línea se aplican uno detrás de otro sobre el total que dejó el primero
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.TotalLineaDto(ip.planeacion.id, ip.totalInsumo) " +
+           "FROM InsumoPlaneacion ip WHERE ip.id = :id AND ip.planeacion.usuario.id = :usuarioId")
+    Optional<TotalLineaDto> findTotalLineaByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Borra la línea solo si su planeación pertenece al usuario; devuelve 0 si no existe o es de otro usuario
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM InsumoPlaneacion ip WHERE ip.id = :id " +
+           "AND ip.planeacion.id IN (SELECT p.id FROM PlaneacionCultivo p WHERE p.usuario.id = :usuarioId)")
+    int deleteByIdAndPlaneacionUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Vuelve a expresar las cantidades de las líneas de un insumo cuya unidad cambió (factor de ConversionUnidades)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InsumoPlaneacion ip SET ip.cantidadBase = ip.cantidad * :factor, ip.unidadBase = :unidadBase " +
+           "WHERE ip.insumo.id = :insumoId")
+    int normalizarCantidadesByInsumoId(@Param("insumoId") Long insumoId, @Param("factor") BigDecimal factor,
+                                       @Param("unidadBase") UnidadMedida unidadBase);
+
+    // El insumo pasó a una unidad libre: sus líneas dejan de contar en las sumas por unidad
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InsumoPlaneacion ip SET ip.cantidadBase = NULL, ip.unidadBase = NULL WHERE ip.insumo.id = :insumoId")
+    int limpiarCantidadesByInsumoId(@Param("insumoId") Long insumoId);
+
+    // Recalcula totalInsumo = cantidad * precio vigente en todas las líneas de los insumos indicados
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE InsumoPlaneacion ip SET ip.totalInsumo = " +
+           "ROUND(ip.cantidad * (SELECT i.precioUnitario FROM Insumo i WHERE i.id = ip.insumo.id), 2) " +
+           "WHERE ip.insumo.id IN :insumoIds")
+    int recalcularTotalesByInsumoIds(@Param("insumoIds") List<Long> insumoIds);
+}
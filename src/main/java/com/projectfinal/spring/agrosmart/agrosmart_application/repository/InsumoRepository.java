@@ -2,8 +2,19 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,13 +22,56 @@ public interface InsumoRepository extends JpaRepository<Insumo, Long> {
     // Encontrar insumos por nombre (puede haber nombres duplicados, si necesitas exacto usa Optional)
     Optional<Insumo> findByNombre(String nombre);
 
-    // Encontrar insumos por tipo
-    List<Insumo> findByTipo(String tipo);
+    // Insumos del usuario de un tipo (la columna guarda el nombre del enum)
+    List<Insumo> findByUsuarioAndTipo(Usuario usuario, TipoInsumo tipo);
 
-    // Encontrar insumos por nombre que contenga una cadena (ignorando mayúsculas/minúsculas)
-    List<Insumo> findByNombreContainingIgnoreCase(String nombre);
+    // La búsqueda por texto (subcadena y parecido, con índice de trigramas) está en BusquedaInsumosService
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogoCache.CONSULTAS)})
     List<Insumo> findByUsuario(Usuario usuario);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogoCache.CONSULTAS)})
     Optional<Insumo> findByIdAndUsuario(Long id, Usuario usuario);
-}
\ No newline at end of file
+
+    // Borra el insumo solo si pertenece al usuario; devuelve 0 si no existe o es de otro usuario.
+    // Sus líneas en planeaciones se borran en la base por ON DELETE CASCADE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Insumo i WHERE i.id = :id AND i.usuario.id = :usuarioId")
+    int deleteByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // --- Paginación keyset por (nombre, id) con filtro por nombre ---
+    @Query("SELECT i FROM Insumo i WHERE i.usuario = :usuario AND LOWER(i.nombre) LIKE :patron ESCAPE '!' " +
+           "ORDER BY i.nombre ASC, i.id ASC")
+    Slice<Insumo> findPrimeraPagina(@Param("usuario") Usuario usuario, @Param("patron") String patron, Pageable pageable);
+
+    @Query("SELECT i FROM Insumo i WHERE i.usuario = :usuario AND LOWER(i.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (i.nombre > :nombre OR (i.nombre = :nombre AND i.id > :id)) " +
+           "ORDER BY i.nombre ASC, i.id ASC")
+    Slice<Insumo> findPaginaDespues(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                    @Param("nombre") String nombre, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT i FROM Insumo i WHERE i.usuario = :usuario AND LOWER(i.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (i.nombre < :nombre OR (i.nombre = :nombre AND i.id < :id)) " +
+           "ORDER BY i.nombre DESC, i.id DESC")
+    Slice<Insumo> findPaginaAntes(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                  @Param("nombre") String nombre, @Param("id") Long id, Pageable pageable);
+
+    // --- Actualización masiva de precios ---
+    @Query("SELECT DISTINCT i.proveedor FROM Insumo i WHERE i.usuario = :usuario AND i.proveedor IS NOT NULL " +
+           "AND i.proveedor <> '' ORDER BY i.proveedor")
+    List<String> findProveedoresByUsuario(@Param("usuario") Usuario usuario);
+
+    @Query("SELECT i.id FROM Insumo i WHERE i.usuario = :usuario AND i.proveedor = :proveedor ORDER BY i.id")
+    List<Long> findIdsByUsuarioAndProveedor(@Param("usuario") Usuario usuario, @Param("proveedor") String proveedor);
+
+    @Query("SELECT i.id FROM Insumo i WHERE i.usuario = :usuario ORDER BY i.id")
+    List<Long> findIdsByUsuario(@Param("usuario") Usuario usuario);
+
+    // Multiplica el precio por :factor redondeando a centavos; nunca baja de :minimo para respetar precio > 0
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Insumo i SET i.precioUnitario = CASE WHEN ROUND(i.precioUnitario * :factor, 2) < :minimo " +
+           "THEN :minimo ELSE ROUND(i.precioUnitario * :factor, 2) END WHERE i.id IN :ids")
+    int ajustarPrecios(@Param("ids") List<Long> ids, @Param("factor") BigDecimal factor, @Param("minimo") BigDecimal minimo);
+}
@@ -2,9 +2,16 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela; // Importa tu entidad Parcela
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import java.util.List; // Necesario si usas métodos que retornan listas
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface ParcelaRepository extends JpaRepository<Parcela, Long> {
@@ -13,4 +20,37 @@ public interface ParcelaRepository extends JpaRepository<Parcela, Long> {
 
     // Encuentra una parcela por su ID y el usuario al que pertenece
     Optional<Parcela> findByIdAndUsuario(Long id, Usuario usuario);
-}
\ No newline at end of file
+
+    // Comprueba la propiedad sin cargar la parcela (un único SELECT con el predicado del usuario)
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+
+    // Borra la parcela solo si pertenece al usuario; devuelve 0 si no existe o es de otro usuario.
+    // Sus planeaciones (y las líneas de insumo de estas) se borran en la base por ON DELETE CASCADE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Parcela p WHERE p.id = :id AND p.usuario.id = :usuarioId")
+    int deleteByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // --- Paginación keyset por (createdAt, id), más recientes primero, con filtro por nombre ---
+    @Query("SELECT p FROM Parcela p WHERE p.usuario = :usuario AND LOWER(p.nombre) LIKE :patron ESCAPE '!' " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<Parcela> findPrimeraPagina(@Param("usuario") Usuario usuario, @Param("patron") String patron, Pageable pageable);
+
+    @Query("SELECT p FROM Parcela p WHERE p.usuario = :usuario AND LOWER(p.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<Parcela> findPaginaDespues(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                     @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT p FROM Parcela p WHERE p.usuario = :usuario AND LOWER(p.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id)) " +
+           "ORDER BY p.createdAt ASC, p.id ASC")
+    Slice<Parcela> findPaginaAntes(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
+
+    // Versión del listado de parcelas (ETag): cantidad y última modificación, sin leer las filas
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto(" +
+           "COUNT(p), MAX(COALESCE(p.updatedAt, p.createdAt)), 0L, " +
+           "(SELECT r.updatedAt FROM ResumenUsuario r WHERE r.usuarioId = :usuarioId)) " +
+           "FROM Parcela p WHERE p.usuario.id = :usuarioId")
+    VersionRecursoDto findVersionListado(@Param("usuarioId") Long usuarioId);
+}
@@ -2,19 +2,194 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ConteoEstadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionCultivoListadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionExportacionFila;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ProximaCosechaDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
 
 public interface PlaneacionCultivoRepository extends JpaRepository<PlaneacionCultivo, Long> {// Encuentra planeaciones por usuario
+
+    int FETCH_SIZE_EXPORTACION = 500;
+
     // Encuentra planeaciones por usuario
     List<PlaneacionCultivo> findByUsuario(Usuario usuario); // Cambiado de findByUsuarioId a findByUsuario
 
+    // Próximas cosechas estimadas del dashboard; recorre solo las primeras filas del índice (usuario_id, fecha_fin_estimada)
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ProximaCosechaDto(" +
+           "p.id, p.nombre, pa.nombre, p.fechaFinEstimada, p.estado) " +
+           "FROM PlaneacionCultivo p JOIN p.parcela pa " +
+           "WHERE p.usuario = :usuario AND p.fechaFinEstimada >= :desde AND p.estado <> :excluido " +
+           "ORDER BY p.fechaFinEstimada ASC, p.id ASC")
+    List<ProximaCosechaDto> findProximasCosechas(@Param("usuario") Usuario usuario, @Param("desde") LocalDate desde,
+                                                 @Param("excluido") EstadoPlaneacion excluido, Pageable pageable);
+
+    // Estado y costo de una planeación del usuario, leídos antes de borrarla para descontarlos del resumen
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ConteoEstadoDto(" +
+           "p.estado, 1L, p.estimacionCosto) FROM PlaneacionCultivo p WHERE p.id = :id AND p.usuario.id = :usuarioId")
+    Optional<ConteoEstadoDto> findEstadoYCostoByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Versión del listado de planeaciones (ETag): sus filas y la versión de datos del usuario, que cubre los
+    // nombres de parcela, tipo y etapa que muestra cada fila
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto(" +
+           "COUNT(p), MAX(COALESCE(p.updatedAt, p.createdAt)), " +
+           "(SELECT r.versionDatos FROM ResumenUsuario r WHERE r.usuarioId = :usuarioId), " +
+           "(SELECT r.updatedAt FROM ResumenUsuario r WHERE r.usuarioId = :usuarioId)) " +
+           "FROM PlaneacionCultivo p WHERE p.usuario.id = :usuarioId")
+    VersionRecursoDto findVersionListado(@Param("usuarioId") Long usuarioId);
+
+    // Versión de las páginas de insumos de una planeación del usuario (ETag): la planeación y la versión de
+    // datos, que cambia con cada línea o insumo guardado. Vacío si la planeación no es del usuario.
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto(" +
+           "1L, COALESCE(p.updatedAt, p.createdAt), " +
+           "(SELECT r.versionDatos FROM ResumenUsuario r WHERE r.usuarioId = :usuarioId), " +
+           "(SELECT r.updatedAt FROM ResumenUsuario r WHERE r.usuarioId = :usuarioId)) " +
+           "FROM PlaneacionCultivo p WHERE p.id = :id AND p.usuario.id = :usuarioId")
+    Optional<VersionRecursoDto> findVersionInsumosByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // Exportación: planeaciones con sus líneas de insumo como Stream de solo avance, leído por bloques
+    // de FETCH_SIZE_EXPORTACION filas (debe consumirse dentro de una transacción y cerrarse)
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionExportacionFila(" +
+           "p.id, p.nombre, pa.nombre, tc.nombre, ec.nombre, p.fechaInicio, p.fechaFinEstimada, p.estado, " +
+           "p.estimacionCosto, i.nombre, i.unidadMedida, i.precioUnitario, ip.cantidad, ip.totalInsumo, " +
+           "ip.fechaRegistro, ip.observaciones) " +
+           "FROM PlaneacionCultivo p JOIN p.parcela pa JOIN p.tipoCultivo tc LEFT JOIN p.etapaCultivo ec " +
+           "LEFT JOIN p.insumosPlaneacion ip LEFT JOIN ip.insumo i " +
+           "WHERE p.usuario = :usuario ORDER BY p.id, ip.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + FETCH_SIZE_EXPORTACION))
+    Stream<PlaneacionExportacionFila> streamExportacionByUsuario(@Param("usuario") Usuario usuario);
+
+    // --- Mantenimiento de estimacionCosto con UPDATE directos (sin cargar la planeación ni sus líneas) ---
+    // Los UPDATE masivos no pasan por @PreUpdate, por eso se asigna updatedAt explícitamente; se vacía el contexto
+    // de persistencia para que ninguna PlaneacionCultivo cargada conserve (y vuelva a escribir) el costo anterior.
+
+    // Suma (o resta, si delta es negativo) el total de una línea de insumo al costo estimado
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PlaneacionCultivo p SET p.estimacionCosto = COALESCE(p.estimacionCosto, 0) + :delta, " +
+           "p.updatedAt = :ahora WHERE p.id = :id")
+    int sumarEstimacionCosto(@Param("id") Long id, @Param("delta") BigDecimal delta, @Param("ahora") LocalDateTime ahora);
+
+    // Recalcula el costo estimado con un único SUM en la base (para corregir o tras cambios masivos de precios)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PlaneacionCultivo p SET p.estimacionCosto = " +
+           "(SELECT COALESCE(SUM(ip.totalInsumo), 0) FROM InsumoPlaneacion ip WHERE ip.planeacion.id = p.id), " +
+           "p.updatedAt = :ahora WHERE p.id = :id")
+    int recalcularEstimacionCosto(@Param("id") Long id, @Param("ahora") LocalDateTime ahora);
+
+    // Igual que recalcularEstimacionCosto, para todas las planeaciones que usan alguno de los insumos indicados
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PlaneacionCultivo p SET p.estimacionCosto = " +
+           "(SELECT COALESCE(SUM(ip.totalInsumo), 0) FROM InsumoPlaneacion ip WHERE ip.planeacion.id = p.id), " +
+           "p.updatedAt = :ahora " +
+           "WHERE p.id IN (SELECT l.planeacion.id FROM InsumoPlaneacion l WHERE l.insumo.id IN :insumoIds)")
+    int recalcularEstimacionCostoByInsumoIds(@Param("insumoIds") List<Long> insumoIds, @Param("ahora") LocalDateTime ahora);
+
+    // Recalcula, sin contar las líneas del insumo indicado, el costo de las planeaciones del usuario que lo usan
+    // (se ejecuta antes de borrar el insumo, cuyas líneas desaparecen por ON DELETE CASCADE)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PlaneacionCultivo p SET p.estimacionCosto = " +
+           "(SELECT COALESCE(SUM(ip.totalInsumo), 0) FROM InsumoPlaneacion ip WHERE ip.planeacion.id = p.id " +
+           "AND ip.insumo.id <> :insumoId), p.updatedAt = :ahora " +
+           "WHERE p.usuario.id = :usuarioId " +
+           "AND p.id IN (SELECT l.planeacion.id FROM InsumoPlaneacion l WHERE l.insumo.id = :insumoId)")
+    int recalcularEstimacionCostoSinInsumo(@Param("insumoId") Long insumoId, @Param("usuarioId") Long usuarioId,
+                                           @Param("ahora") LocalDateTime ahora);
+
+    // --- Recálculo de numeroSemillas por lotes cuando cambian el área de la parcela o las distancias del tipo ---
+
+    long countByParcelaId(Long parcelaId);
+
+    long countByTipoCultivoId(Long tipoCultivoId);
+
+    // Siguiente lote de ids de las planeaciones de una parcela (o de un tipo) recorridas por id
+    @Query("SELECT p.id FROM PlaneacionCultivo p WHERE p.parcela.id = :parcelaId AND p.id > :despuesDe ORDER BY p.id")
+    List<Long> findIdsByParcelaIdDespuesDe(@Param("parcelaId") Long parcelaId, @Param("despuesDe") Long despuesDe,
+                                           Pageable pageable);
+
+    @Query("SELECT p.id FROM PlaneacionCultivo p WHERE p.tipoCultivo.id = :tipoCultivoId AND p.id > :despuesDe ORDER BY p.id")
+    List<Long> findIdsByTipoCultivoIdDespuesDe(@Param("tipoCultivoId") Long tipoCultivoId, @Param("despuesDe") Long despuesDe,
+                                               Pageable pageable);
+
+    // Misma fórmula que CalculoPlaneacion.numeroSemillas (área / (surco x planta), redondeo a entero) evaluada en la
+    // sentencia con los valores vigentes de la parcela y el tipo, así un lote nunca escribe valores leídos antes de
+    // otra edición. Las planeaciones sin área normalizada o sin distancias válidas se dejan como están.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE PlaneacionCultivo p SET p.numeroSemillas = ROUND(" +
+           "(SELECT pa.areaM2 FROM Parcela pa WHERE pa.id = p.parcela.id) / " +
+           "(SELECT t.distanciaSurco * t.distanciaPlanta FROM TipoCultivo t WHERE t.id = p.tipoCultivo.id), 0), " +
+           "p.updatedAt = :ahora " +
+           "WHERE p.id IN :ids " +
+           "AND EXISTS (SELECT 1 FROM Parcela pa WHERE pa.id = p.parcela.id AND pa.areaM2 IS NOT NULL) " +
+           "AND EXISTS (SELECT 1 FROM TipoCultivo t WHERE t.id = p.tipoCultivo.id " +
+           "AND t.distanciaSurco > 0 AND t.distanciaPlanta > 0)")
+    int recalcularNumeroSemillas(@Param("ids") List<Long> ids, @Param("ahora") LocalDateTime ahora);
+
+    // --- Paginación keyset del listado por (createdAt, id), más recientes primero, con filtro por nombre ---
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionCultivoListadoDto(" +
+           "p.id, p.nombre, pa.nombre, tc.nombre, ec.nombre, p.fechaInicio, p.fechaFinEstimada, " +
+           "p.numeroSemillas, p.estimacionCosto, p.estado, p.createdAt) " +
+           "FROM PlaneacionCultivo p JOIN p.parcela pa JOIN p.tipoCultivo tc LEFT JOIN p.etapaCultivo ec " +
+           "WHERE p.usuario = :usuario AND LOWER(p.nombre) LIKE :patron ESCAPE '!' " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<PlaneacionCultivoListadoDto> findListadoPrimeraPagina(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                                                Pageable pageable);
+
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionCultivoListadoDto(" +
+           "p.id, p.nombre, pa.nombre, tc.nombre, ec.nombre, p.fechaInicio, p.fechaFinEstimada, " +
+           "p.numeroSemillas, p.estimacionCosto, p.estado, p.createdAt) " +
+           "FROM PlaneacionCultivo p JOIN p.parcela pa JOIN p.tipoCultivo tc LEFT JOIN p.etapaCultivo ec " +
+           "WHERE p.usuario = :usuario AND LOWER(p.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (p.createdAt < :createdAt OR (p.createdAt = :createdAt AND p.id < :id)) " +
+           "ORDER BY p.createdAt DESC, p.id DESC")
+    Slice<PlaneacionCultivoListadoDto> findListadoPaginaDespues(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                                                @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                                Pageable pageable);
+
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionCultivoListadoDto(" +
+           "p.id, p.nombre, pa.nombre, tc.nombre, ec.nombre, p.fechaInicio, p.fechaFinEstimada, " +
+           "p.numeroSemillas, p.estimacionCosto, p.estado, p.createdAt) " +
+           "FROM PlaneacionCultivo p JOIN p.parcela pa JOIN p.tipoCultivo tc LEFT JOIN p.etapaCultivo ec " +
+           "WHERE p.usuario = :usuario AND LOWER(p.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (p.createdAt > :createdAt OR (p.createdAt = :createdAt AND p.id > :id)) " +
+           "ORDER BY p.createdAt ASC, p.id ASC")
+    Slice<PlaneacionCultivoListadoDto> findListadoPaginaAntes(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                                              @Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                                              Pageable pageable);
+
     // Encuentra una planeación por su ID y el usuario al que pertenece
     Optional<PlaneacionCultivo> findByIdAndUsuario(Long id, Usuario usuario);
 
+    // Igual, con parcela, tipo y etapa cargados: el formulario de edición los muestra después de cerrar la sesión
+    @Query("SELECT p FROM PlaneacionCultivo p JOIN FETCH p.parcela JOIN FETCH p.tipoCultivo JOIN FETCH p.etapaCultivo " +
+           "WHERE p.id = :id AND p.usuario = :usuario")
+    Optional<PlaneacionCultivo> findConRelacionesByIdAndUsuario(@Param("id") Long id, @Param("usuario") Usuario usuario);
+
+    // Comprueba la propiedad sin cargar la planeación (un único SELECT con el predicado del usuario)
+    boolean existsByIdAndUsuarioId(Long id, Long usuarioId);
+
+    // Borra la planeación solo si pertenece al usuario; devuelve 0 si no existe o es de otro usuario.
+    // Sus líneas de insumo se borran en la base por ON DELETE CASCADE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM PlaneacionCultivo p WHERE p.id = :id AND p.usuario.id = :usuarioId")
+    int deleteByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
     // Encontrar planeaciones por parcela
     List<PlaneacionCultivo> findByParcelaId(Long parcelaId);
 
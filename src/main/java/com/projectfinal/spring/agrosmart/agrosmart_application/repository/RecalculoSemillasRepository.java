@@ -0,0 +1,39 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.RecalculoSemillas;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface RecalculoSemillasRepository extends JpaRepository<RecalculoSemillas, Long> {
+
+    // Últimos recálculos del usuario para el dashboard (índice usuario_id, id)
+    List<RecalculoSemillas> findTop5ByUsuarioIdOrderByIdDesc(Long usuarioId);
+
+    // Recálculos sin terminar (la aplicación se detuvo a medias), candidatos a reanudarse
+    List<RecalculoSemillas> findByEstadoIn(List<RecalculoSemillas.Estado> estados);
+
+    // El avance se escribe con UPDATE directos en la transacción de cada lote, sin cargar la fila.
+    // iniciar reclama el recálculo: solo uno pendiente o uno en curso cuyo último avance es anterior a :vencido
+    // (su nodo se detuvo). Si otro nodo lo reclamó antes devuelve 0 y no hay que ejecutarlo.
+    @Modifying
+    @Query("UPDATE RecalculoSemillas r SET r.estado = :enCurso, r.total = :total, r.procesadas = 0, r.error = NULL, "
+            + "r.updatedAt = :ahora WHERE r.id = :id AND (r.estado = :pendiente "
+            + "OR (r.estado = :enCurso AND (r.updatedAt IS NULL OR r.updatedAt < :vencido)))")
+    int iniciar(@Param("id") Long id, @Param("pendiente") RecalculoSemillas.Estado pendiente,
+                @Param("enCurso") RecalculoSemillas.Estado enCurso, @Param("total") long total,
+                @Param("ahora") LocalDateTime ahora, @Param("vencido") LocalDateTime vencido);
+
+    @Modifying
+    @Query("UPDATE RecalculoSemillas r SET r.procesadas = r.procesadas + :procesadas, r.updatedAt = :ahora WHERE r.id = :id")
+    int sumarProcesadas(@Param("id") Long id, @Param("procesadas") long procesadas, @Param("ahora") LocalDateTime ahora);
+
+    @Modifying
+    @Query("UPDATE RecalculoSemillas r SET r.estado = :estado, r.error = :error, r.updatedAt = :ahora WHERE r.id = :id")
+    int finalizar(@Param("id") Long id, @Param("estado") RecalculoSemillas.Estado estado, @Param("error") String error,
+                  @Param("ahora") LocalDateTime ahora);
+}
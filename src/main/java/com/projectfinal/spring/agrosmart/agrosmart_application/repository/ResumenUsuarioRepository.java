@@ -0,0 +1,53 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.ResumenUsuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ConteoEstadoDto;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface ResumenUsuarioRepository extends JpaRepository<ResumenUsuario, Long> {
+
+    // Suma los deltas a los contadores del usuario y aumenta su versión en un único UPDATE (sin leer la fila:
+    // dos escrituras concurrentes no se pisan). Devuelve 0 si el usuario aún no tiene resumen.
+    // No vacía el contexto de persistencia: se llama en medio de otras escrituras cuyas entidades siguen en uso.
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ResumenUsuario r SET r.numeroParcelas = r.numeroParcelas + :parcelas, " +
+           "r.areaTotalM2 = r.areaTotalM2 + :areaM2, " +
+           "r.planeacionesPendientes = r.planeacionesPendientes + :pendientes, " +
+           "r.planeacionesEnCurso = r.planeacionesEnCurso + :enCurso, " +
+           "r.planeacionesCompletadas = r.planeacionesCompletadas + :completadas, " +
+           "r.costoTotal = r.costoTotal + :costo, r.versionDatos = r.versionDatos + 1, r.updatedAt = :ahora " +
+           "WHERE r.usuarioId = :usuarioId")
+    int sumarDeltas(@Param("usuarioId") Long usuarioId, @Param("parcelas") long parcelas, @Param("areaM2") BigDecimal areaM2,
+                    @Param("pendientes") long pendientes, @Param("enCurso") long enCurso, @Param("completadas") long completadas,
+                    @Param("costo") BigDecimal costo, @Param("ahora") LocalDateTime ahora);
+
+    // Antes de recalcular el costo de una planeación desde sus líneas: aplica al total del dueño la diferencia
+    // entre la suma de las líneas y el costo guardado, leyendo ambos en la misma sentencia
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ResumenUsuario r SET r.costoTotal = r.costoTotal " +
+           "+ (SELECT COALESCE(SUM(ip.totalInsumo), 0) FROM InsumoPlaneacion ip WHERE ip.planeacion.id = :planeacionId) " +
+           "- (SELECT COALESCE(p.estimacionCosto, 0) FROM PlaneacionCultivo p WHERE p.id = :planeacionId), " +
+           "r.updatedAt = :ahora " +
+           "WHERE r.usuarioId = (SELECT p.usuario.id FROM PlaneacionCultivo p WHERE p.id = :planeacionId)")
+    int ajustarCostoAntesDeRecalcular(@Param("planeacionId") Long planeacionId, @Param("ahora") LocalDateTime ahora);
+
+    // --- Agregados completos, solo para recalcular (cambios masivos o borrados en cascada) ---
+    @Query("SELECT COUNT(p) FROM Parcela p WHERE p.usuario.id = :usuarioId")
+    long contarParcelas(@Param("usuarioId") Long usuarioId);
+
+    // area_m2 ya está en m² (se normaliza al escribir): una suma desde el índice (usuario_id, area_m2)
+    @Query("SELECT COALESCE(SUM(p.areaM2), 0) FROM Parcela p WHERE p.usuario.id = :usuarioId")
+    BigDecimal sumarAreaM2(@Param("usuarioId") Long usuarioId);
+
+    @Query("SELECT new com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ConteoEstadoDto(" +
+           "p.estado, COUNT(p), COALESCE(SUM(p.estimacionCosto), 0)) " +
+           "FROM PlaneacionCultivo p WHERE p.usuario.id = :usuarioId GROUP BY p.estado")
+    List<ConteoEstadoDto> contarPlaneacionesPorEstado(@Param("usuarioId") Long usuarioId);
+}
@@ -1,17 +1,53 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
-import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario; 
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints; 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import java.util.List; 
 import java.util.Optional;
 
 public interface TipoCultivoRepository extends JpaRepository<TipoCultivo, Long> {
     Optional<TipoCultivo> findByNombre(String nombre);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogoCache.CONSULTAS)})
     List<TipoCultivo> findByUsuario(Usuario usuario);
 
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = CatalogoCache.CONSULTAS)})
     Optional<TipoCultivo> findByIdAndUsuario(Long id, Usuario usuario);
 
     Optional<TipoCultivo> findByNombreAndUsuario(String nombre, Usuario usuario);
+
+    // Borra el tipo solo si pertenece al usuario; devuelve 0 si no existe o es de otro usuario.
+    // Sus planeaciones se borran en la base por ON DELETE CASCADE
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM TipoCultivo tc WHERE tc.id = :id AND tc.usuario.id = :usuarioId")
+    int deleteByIdAndUsuarioId(@Param("id") Long id, @Param("usuarioId") Long usuarioId);
+
+    // --- Paginación keyset por (nombre, id) con filtro por nombre ---
+    @Query("SELECT tc FROM TipoCultivo tc WHERE tc.usuario = :usuario AND LOWER(tc.nombre) LIKE :patron ESCAPE '!' " +
+           "ORDER BY tc.nombre ASC, tc.id ASC")
+    Slice<TipoCultivo> findPrimeraPagina(@Param("usuario") Usuario usuario, @Param("patron") String patron, Pageable pageable);
+
+    @Query("SELECT tc FROM TipoCultivo tc WHERE tc.usuario = :usuario AND LOWER(tc.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (tc.nombre > :nombre OR (tc.nombre = :nombre AND tc.id > :id)) " +
+           "ORDER BY tc.nombre ASC, tc.id ASC")
+    Slice<TipoCultivo> findPaginaDespues(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                         @Param("nombre") String nombre, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT tc FROM TipoCultivo tc WHERE tc.usuario = :usuario AND LOWER(tc.nombre) LIKE :patron ESCAPE '!' " +
+           "AND (tc.nombre < :nombre OR (tc.nombre = :nombre AND tc.id < :id)) " +
+           "ORDER BY tc.nombre DESC, tc.id DESC")
+    Slice<TipoCultivo> findPaginaAntes(@Param("usuario") Usuario usuario, @Param("patron") String patron,
+                                       @Param("nombre") String nombre, @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
@@ -1,11 +1,35 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.repository;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario; // Importa tu entidad Usuario
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.Optional; // Necesario para findByEmail
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     
     Optional<Usuario> findByEmail(String email);
 
+    boolean existsByEmail(String email);
+
+    // --- Paginación keyset por (createdAt, id), más recientes primero, con filtro por nombre o email ---
+    @Query("SELECT u FROM Usuario u WHERE (LOWER(u.nombre) LIKE :patron ESCAPE '!' OR LOWER(u.email) LIKE :patron ESCAPE '!') " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    Slice<Usuario> findPrimeraPagina(@Param("patron") String patron, Pageable pageable);
+
+    @Query("SELECT u FROM Usuario u WHERE (LOWER(u.nombre) LIKE :patron ESCAPE '!' OR LOWER(u.email) LIKE :patron ESCAPE '!') " +
+           "AND (u.createdAt < :createdAt OR (u.createdAt = :createdAt AND u.id < :id)) " +
+           "ORDER BY u.createdAt DESC, u.id DESC")
+    Slice<Usuario> findPaginaDespues(@Param("patron") String patron, @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT u FROM Usuario u WHERE (LOWER(u.nombre) LIKE :patron ESCAPE '!' OR LOWER(u.email) LIKE :patron ESCAPE '!') " +
+           "AND (u.createdAt > :createdAt OR (u.createdAt = :createdAt AND u.id > :id)) " +
+           "ORDER BY u.createdAt ASC, u.id ASC")
+    Slice<Usuario> findPaginaAntes(@Param("patron") String patron, @Param("createdAt") LocalDateTime createdAt,
+                                   @Param("id") Long id, Pageable pageable);
 }
\ No newline at end of file
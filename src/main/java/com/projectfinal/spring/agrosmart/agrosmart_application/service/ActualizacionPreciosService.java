@@ -0,0 +1,155 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoPlaneacionRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoActualizacionPrecios;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Propaga los cambios de Insumo.precioUnitario a los totales guardados de las líneas
+ * (InsumoPlaneacion.totalInsumo) y de las planeaciones (PlaneacionCultivo.estimacionCosto).
+ *
+ * Todo se hace con UPDATE por conjuntos, sin cargar entidades. El ajuste de precios va en una
+ * sola transacción (con listas IN de hasta {@link #TAMANO_LOTE} ids): o se aplica a todos los
+ * insumos o a ninguno, y repetirlo tras un fallo nunca multiplica dos veces el mismo precio.
+ * Después, por cada lote de insumos se recalculan sus líneas y el costo de las planeaciones que
+ * los usan, en una transacción propia para no bloquear todas las planeaciones del usuario a la
+ * vez; ese recálculo parte de los precios guardados y se puede repetir sin efectos acumulados.
+ * Por eso las operaciones masivas no son @Transactional como el resto de servicios.
+ */
+@Service
+public class ActualizacionPreciosService {
+
+    /** Insumos por transacción (y por lista IN de las sentencias). */
+    public static final int TAMANO_LOTE = 500;
+
+    /** Límites del porcentaje de ajuste: no se admiten precios nulos ni negativos. */
+    public static final BigDecimal PORCENTAJE_MINIMO = new BigDecimal("-99");
+    public static final BigDecimal PORCENTAJE_MAXIMO = new BigDecimal("1000");
+
+    private static final BigDecimal PRECIO_MINIMO = new BigDecimal("0.01");
+    private static final BigDecimal CIEN = new BigDecimal("100");
+
+    private final InsumoRepository insumoRepository;
+    private final InsumoPlaneacionRepository insumoPlaneacionRepository;
+    private final PlaneacionCultivoRepository planeacionCultivoRepository;
+    private final ResumenUsuarioService resumenUsuarioService;
+    private final TransactionTemplate transactionTemplate;
+
+    public ActualizacionPreciosService(InsumoRepository insumoRepository,
+                                       InsumoPlaneacionRepository insumoPlaneacionRepository,
+                                       PlaneacionCultivoRepository planeacionCultivoRepository,
+                                       ResumenUsuarioService resumenUsuarioService,
+                                       PlatformTransactionManager transactionManager) {
+        this.insumoRepository = insumoRepository;
+        this.insumoPlaneacionRepository = insumoPlaneacionRepository;
+        this.planeacionCultivoRepository = planeacionCultivoRepository;
+        this.resumenUsuarioService = resumenUsuarioService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> findProveedoresByUsuario(Usuario usuario) {
+        return insumoRepository.findProveedoresByUsuario(usuario);
+    }
+
+    /**
+     * Ajusta en un porcentaje el precio de todos los insumos de un proveedor del usuario
+     * y actualiza las líneas y planeaciones afectadas.
+     * @param porcentaje Variación en %, p. ej. 10 para +10% o -5 para -5%.
+     * @throws IllegalArgumentException si el proveedor está vacío o el porcentaje está fuera de rango.
+     */
+    @Timed("agrosmart.servicio")
+    public ResultadoActualizacionPrecios ajustarPreciosPorProveedor(Usuario usuario, String proveedor, BigDecimal porcentaje) {
+        if (proveedor == null || proveedor.isBlank()) {
+            throw new IllegalArgumentException("Selecciona un proveedor.");
+        }
+        if (porcentaje == null || porcentaje.compareTo(PORCENTAJE_MINIMO) < 0 || porcentaje.compareTo(PORCENTAJE_MAXIMO) > 0) {
+            throw new IllegalArgumentException("El porcentaje debe estar entre " + PORCENTAJE_MINIMO + " y " + PORCENTAJE_MAXIMO + ".");
+        }
+        BigDecimal factor = BigDecimal.ONE.add(porcentaje.divide(CIEN, 6, RoundingMode.HALF_UP));
+        // Los ids se leen en una transacción de escritura para que salgan de la primaria y no de una réplica atrasada
+        ResultadoActualizacionPrecios resultado = procesarPorLotes(
+                transactionTemplate.execute(status -> insumoRepository.findIdsByUsuarioAndProveedor(usuario, proveedor)),
+                factor);
+        resumenUsuarioService.recalcular(usuario.getId());
+        return resultado;
+    }
+
+    /**
+     * Recalcula todas las líneas y planeaciones del usuario con los precios vigentes, sin cambiar precios.
+     * Sirve para corregir totales guardados antes de que los cambios de precio se propagaran.
+     */
+    @Timed("agrosmart.servicio")
+    public ResultadoActualizacionPrecios recalcularTotales(Usuario usuario) {
+        ResultadoActualizacionPrecios resultado = procesarPorLotes(
+                transactionTemplate.execute(status -> insumoRepository.findIdsByUsuario(usuario)), null);
+        resumenUsuarioService.recalcular(usuario.getId());
+        return resultado;
+    }
+
+    /**
+     * Propaga el precio ya guardado de un insumo a sus líneas y planeaciones, dentro de la transacción
+     * de quien lo llama (p. ej. la edición de un insumo).
+     */
+    @Transactional
+    public void propagarPrecio(Long insumoId) {
+        List<Long> ids = List.of(insumoId);
+        insumoPlaneacionRepository.recalcularTotalesByInsumoIds(ids);
+        planeacionCultivoRepository.recalcularEstimacionCostoByInsumoIds(ids, LocalDateTime.now());
+    }
+
+    /**
+     * Ajusta los precios en una transacción y recalcula los totales en lotes de {@link #TAMANO_LOTE}.
+     * Un fallo no se propaga: queda en el resultado junto con lo que ya se había confirmado.
+     * @param factor Multiplicador del precio, o null para solo recalcular totales.
+     */
+    private ResultadoActualizacionPrecios procesarPorLotes(List<Long> insumoIds, BigDecimal factor) {
+        long inicio = System.nanoTime();
+        ResultadoActualizacionPrecios resultado = new ResultadoActualizacionPrecios();
+        try {
+            if (factor != null) {
+                resultado.preciosAjustados(transactionTemplate.execute(status -> {
+                    int insumos = 0;
+                    for (List<Long> lote : lotes(insumoIds)) {
+                        insumos += insumoRepository.ajustarPrecios(lote, factor, PRECIO_MINIMO);
+                    }
+                    return insumos;
+                }));
+            }
+            for (List<Long> lote : lotes(insumoIds)) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    int lineas = insumoPlaneacionRepository.recalcularTotalesByInsumoIds(lote);
+                    int planeaciones = lineas > 0
+                            ? planeacionCultivoRepository.recalcularEstimacionCostoByInsumoIds(lote, LocalDateTime.now())
+                            : 0;
+                    resultado.sumarLote(lineas, planeaciones);
+                });
+            }
+        } catch (RuntimeException e) {
+            resultado.error(e.getMessage());
+        }
+        resultado.finalizar((System.nanoTime() - inicio) / 1_000_000);
+        return resultado;
+    }
+
+    private static List<List<Long>> lotes(List<Long> ids) {
+        List<List<Long>> lotes = new ArrayList<>();
+        for (int desde = 0; desde < ids.size(); desde += TAMANO_LOTE) {
+            lotes.add(ids.subList(desde, Math.min(desde + TAMANO_LOTE, ids.size())));
+        }
+        return lotes;
+    }
+}
@@ -0,0 +1,96 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.Query;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Búsqueda de insumos del usuario por nombre, proveedor y descripción, con resultados ordenados por parecido.
+ *
+ * En PostgreSQL usa el índice de trigramas de V10 (pg_trgm): encuentra el texto como subcadena (LIKE) o con errores
+ * de escritura (operador <% de parecido por palabra), y ordena primero por el parecido con el nombre. El índice
+ * incluye usuario_id y tipo, así que el filtro por usuario y tipo sale del mismo recorrido. En otras bases (la H2 de
+ * los tests) no hay trigramas: solo se busca la subcadena, con las coincidencias en el nombre primero.
+ */
+@Service
+@Transactional(readOnly = true)
+public class BusquedaInsumosService {
+
+    /** Trigramas con menos letras no sirven al índice: el LIKE recorrería todos los insumos del usuario. */
+    public static final int LARGO_MINIMO = 3;
+
+    // Debe coincidir con la expresión del índice idx_insumos_busqueda_trgm (V10__busqueda_insumos)
+    private static final String TEXTO = "lower(i.nombre || ' ' || coalesce(i.proveedor, '') || ' ' || coalesce(i.descripcion, ''))";
+
+    private final EntityManager entityManager;
+    private final boolean trigramas;
+
+    public BusquedaInsumosService(EntityManager entityManager, EntityManagerFactory entityManagerFactory) {
+        this.entityManager = entityManager;
+        this.trigramas = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    /**
+     * Los insumos del usuario que más se parecen al texto, como mucho tamano; tipo null no filtra por tipo.
+     * @throws IllegalArgumentException si el texto tiene menos de LARGO_MINIMO caracteres.
+     */
+    @Timed("agrosmart.servicio")
+    public List<Map<String, Object>> buscar(Long usuarioId, String texto, TipoInsumo tipo, int tamano) {
+        String buscado = texto == null ? "" : texto.trim();
+        if (buscado.length() < LARGO_MINIMO) {
+            throw new IllegalArgumentException("La búsqueda necesita al menos " + LARGO_MINIMO + " caracteres.");
+        }
+        StringBuilder sql = new StringBuilder(
+                "SELECT i.id, i.nombre, i.tipo, i.proveedor, i.unidad_medida, i.precio_unitario FROM insumos i " +
+                "WHERE i.usuario_id = :usuarioId");
+        if (tipo != null) {
+            sql.append(" AND i.tipo = :tipo");
+        }
+        if (trigramas) {
+            sql.append(" AND (").append(TEXTO).append(" LIKE :patron ESCAPE '!' OR :texto <% ").append(TEXTO).append(")")
+               .append(" ORDER BY word_similarity(:texto, lower(i.nombre)) DESC, word_similarity(:texto, ").append(TEXTO)
+               .append(") DESC, i.nombre, i.id");
+        } else {
+            sql.append(" AND ").append(TEXTO).append(" LIKE :patron ESCAPE '!'")
+               .append(" ORDER BY CASE WHEN lower(i.nombre) LIKE :patron ESCAPE '!' THEN 0 ELSE 1 END, i.nombre, i.id");
+        }
+
+        Query query = entityManager.createNativeQuery(sql.toString())
+                .setParameter("usuarioId", usuarioId)
+                .setParameter("patron", PaginaKeyset.patronFiltro(buscado))
+                .setMaxResults(PaginaKeyset.limite(tamano).getPageSize());
+        if (tipo != null) {
+            query.setParameter("tipo", tipo.name());
+        }
+        if (trigramas) {
+            query.setParameter("texto", buscado.toLowerCase(Locale.ROOT));
+        }
+        @SuppressWarnings("unchecked")
+        List<Object[]> filas = query.getResultList();
+        return filas.stream().map(BusquedaInsumosService::aMapa).toList();
+    }
+
+    private static Map<String, Object> aMapa(Object[] fila) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("id", ((Number) fila[0]).longValue());
+        datos.put("nombre", fila[1]);
+        datos.put("tipo", fila[2]);
+        datos.put("proveedor", fila[3]);
+        datos.put("unidadMedida", fila[4]);
+        datos.put("precioUnitario", fila[5]);
+        return datos;
+    }
+}
@@ -0,0 +1,200 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.api.RecursoApi;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PaginaApiDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.CursorKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Consultas de /api/v1. Cada petición arma un SELECT con solo las columnas de los campos pedidos (fields=) y los
+ * joins que esas columnas necesitan; las filas se leen como valores escalares, nunca como entidades, así que no hay
+ * cargas perezosas ni objetos en el contexto de persistencia. Los listados se paginan por cursor con el mismo orden
+ * que las páginas web de cada recurso.
+ */
+@Service
+@Transactional(readOnly = true)
+public class ConsultaApiService {
+
+    private final EntityManager entityManager;
+    private final PlaneacionCultivoRepository planeacionCultivoRepository;
+
+    public ConsultaApiService(EntityManager entityManager, PlaneacionCultivoRepository planeacionCultivoRepository) {
+        this.entityManager = entityManager;
+        this.planeacionCultivoRepository = planeacionCultivoRepository;
+    }
+
+    /**
+     * Una página del recurso. Sin fields se devuelven todos los campos; el id va siempre.
+     * @throws IllegalArgumentException si se pide un campo que el recurso no tiene o el cursor no es válido.
+     */
+    @Timed("agrosmart.servicio")
+    public PaginaApiDto listar(RecursoApi recurso, Long propietario, List<String> fields, String filtro,
+                               String despues, int tamano) {
+        List<String> nombres = camposPedidos(recurso, fields);
+        Pageable limite = PaginaKeyset.limite(tamano);
+        Consulta consulta = new Consulta(recurso, nombres, propietario);
+        if (filtro != null && !filtro.isBlank()) {
+            consulta.filtrar(PaginaKeyset.patronFiltro(filtro));
+        }
+        boolean desdeCursor = despues != null && !despues.isBlank();
+        if (desdeCursor) {
+            consulta.despues(CursorKeyset.decodificar(despues));
+        }
+        List<Object[]> filas = consulta.crear(true).setMaxResults(limite.getPageSize() + 1).getResultList();
+        boolean haySiguiente = filas.size() > limite.getPageSize();
+        PaginaKeyset<Object[]> pagina = PaginaKeyset.haciaAdelante(
+                new SliceImpl<>(haySiguiente ? filas.subList(0, limite.getPageSize()) : filas, limite, haySiguiente),
+                desdeCursor ? despues : null, fila -> cursorDe(recurso, fila));
+        return new PaginaApiDto(pagina.getContenido().stream().map(fila -> aMapa(nombres, fila)).toList(),
+                pagina.getCursorSiguiente());
+    }
+
+    /**
+     * Un registro del recurso, vacío si no existe o no es del propietario.
+     * @throws IllegalArgumentException si se pide un campo que el recurso no tiene.
+     */
+    @Timed("agrosmart.servicio")
+    public Optional<Map<String, Object>> buscar(RecursoApi recurso, Long propietario, Long id, List<String> fields) {
+        List<String> nombres = camposPedidos(recurso, fields);
+        Consulta consulta = new Consulta(recurso, nombres, propietario);
+        consulta.conId(id);
+        return consulta.crear(false).getResultList().stream().findFirst().map(fila -> aMapa(nombres, fila));
+    }
+
+    // Las líneas de insumo tienen como propietario la planeación: antes de leerlas se comprueba que es del usuario
+    public boolean esPlaneacionDelUsuario(Long planeacionId, Long usuarioId) {
+        return planeacionCultivoRepository.existsByIdAndUsuarioId(planeacionId, usuarioId);
+    }
+
+    // Campos pedidos en el orden en que los declara el recurso, sin repetir; id y los vacíos se ignoran
+    private static List<String> camposPedidos(RecursoApi recurso, List<String> fields) {
+        if (fields == null || fields.isEmpty()) {
+            return new ArrayList<>(recurso.getCampos().keySet());
+        }
+        Set<String> pedidos = new LinkedHashSet<>();
+        for (String campo : fields) {
+            String nombre = campo.trim();
+            if (nombre.isEmpty() || nombre.equals("id")) {
+                continue;
+            }
+            if (!recurso.getCampos().containsKey(nombre)) {
+                throw new IllegalArgumentException("Campo no disponible: " + nombre + ".");
+            }
+            pedidos.add(nombre);
+        }
+        return recurso.getCampos().keySet().stream().filter(pedidos::contains).toList();
+    }
+
+    // Cada fila trae id y clave de orden en las dos primeras columnas y después los campos pedidos
+    private static Map<String, Object> aMapa(List<String> nombres, Object[] fila) {
+        Map<String, Object> datos = new LinkedHashMap<>();
+        datos.put("id", fila[0]);
+        for (int i = 0; i < nombres.size(); i++) {
+            datos.put(nombres.get(i), fila[i + 2]);
+        }
+        return datos;
+    }
+
+    private static CursorKeyset cursorDe(RecursoApi recurso, Object[] fila) {
+        Long id = (Long) fila[0];
+        return switch (recurso.getOrden()) {
+            case RECIENTES -> CursorKeyset.de((LocalDateTime) fila[1], id);
+            case NOMBRE -> CursorKeyset.de((String) fila[1], id);
+            case ID -> CursorKeyset.de(String.valueOf(id), id);
+        };
+    }
+
+    /** SELECT de una petición: columnas, joins y condiciones se van agregando según lo pedido. */
+    private class Consulta {
+
+        private final RecursoApi recurso;
+        private final List<String> columnas = new ArrayList<>();
+        private final Set<String> joins = new LinkedHashSet<>();
+        private final List<String> condiciones = new ArrayList<>();
+        private final Map<String, Object> parametros = new LinkedHashMap<>();
+
+        Consulta(RecursoApi recurso, List<String> nombres, Long propietario) {
+            this.recurso = recurso;
+            columnas.add("x.id");
+            columnas.add(switch (recurso.getOrden()) {
+                case RECIENTES -> "x.createdAt";
+                case NOMBRE -> "x.nombre";
+                case ID -> "x.id";
+            });
+            for (String nombre : nombres) {
+                RecursoApi.Campo campo = recurso.getCampos().get(nombre);
+                columnas.add(campo.getExpresion());
+                agregarJoin(campo);
+            }
+            condiciones.add(recurso.getPropiedad());
+            parametros.put("propietario", propietario);
+        }
+
+        void filtrar(String patron) {
+            RecursoApi.Campo filtro = recurso.getFiltro();
+            agregarJoin(filtro);
+            condiciones.add("LOWER(" + filtro.getExpresion() + ") LIKE :patron ESCAPE '!'");
+            parametros.put("patron", patron);
+        }
+
+        void despues(CursorKeyset cursor) {
+            parametros.put("id", cursor.getId());
+            switch (recurso.getOrden()) {
+                case RECIENTES -> {
+                    condiciones.add("(x.createdAt < :clave OR (x.createdAt = :clave AND x.id < :id))");
+                    parametros.put("clave", cursor.getClaveComoFecha());
+                }
+                case NOMBRE -> {
+                    condiciones.add("(x.nombre > :clave OR (x.nombre = :clave AND x.id > :id))");
+                    parametros.put("clave", cursor.getClave());
+                }
+                case ID -> condiciones.add("x.id > :id");
+            }
+        }
+
+        void conId(Long id) {
+            condiciones.add("x.id = :id");
+            parametros.put("id", id);
+        }
+
+        TypedQuery<Object[]> crear(boolean ordenada) {
+            StringBuilder jpql = new StringBuilder("SELECT ").append(String.join(", ", columnas))
+                    .append(" FROM ").append(recurso.getEntidad()).append(" x");
+            joins.forEach(join -> jpql.append(' ').append(join));
+            jpql.append(" WHERE ").append(String.join(" AND ", condiciones));
+            if (ordenada) {
+                jpql.append(switch (recurso.getOrden()) {
+                    case RECIENTES -> " ORDER BY x.createdAt DESC, x.id DESC";
+                    case NOMBRE -> " ORDER BY x.nombre ASC, x.id ASC";
+                    case ID -> " ORDER BY x.id ASC";
+                });
+            }
+            TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+            parametros.forEach(query::setParameter);
+            return query;
+        }
+
+        private void agregarJoin(RecursoApi.Campo campo) {
+            if (campo.getJoin() != null) {
+                joins.add(campo.getJoin());
+            }
+        }
+    }
+}
@@ -1,16 +1,14 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.service;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.UsuarioRepository;
 
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections; // Para roles, si no tienes roles definidos aún
-
 @Service // Marca esta clase como un servicio de Spring
 public class CustomUserDetailsService implements UserDetailsService {
 
@@ -31,12 +29,8 @@ public class CustomUserDetailsService implements UserDetailsService {
         Usuario usuario = usuarioRepository.findByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado con email: " + email));
 
-        // Construir el objeto UserDetails que Spring Security necesita.
-        // por ahora un  rol básico. Más adelante en un mayor avance del proyecto, se pueden implementar roles dinámicos.
-        return new org.springframework.security.core.userdetails.User(
-                usuario.getEmail(),
-                usuario.getPassword(),
-                Collections.singletonList(new SimpleGrantedAuthority("ROLE_USER")) // Asigna un rol por defecto
-        );
+        // Construir el objeto UserDetails que Spring Security necesita. Lleva el id y los datos básicos
+        // del usuario para que los controladores no tengan que buscarlo de nuevo en cada petición.
+        return new UsuarioAutenticado(usuario);
     }
 }
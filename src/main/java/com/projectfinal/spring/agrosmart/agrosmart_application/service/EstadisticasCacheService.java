@@ -0,0 +1,43 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.EstadisticaCache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lee de las estadísticas de Hibernate los aciertos, fallos y escrituras de las regiones de caché de los catálogos.
+ */
+@Service
+public class EstadisticasCacheService {
+
+    private final Statistics statistics;
+
+    public EstadisticasCacheService(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public List<EstadisticaCache> getEstadisticas() {
+        List<EstadisticaCache> estadisticas = new ArrayList<>();
+        for (String region : CatalogoCache.REGIONES_ENTIDAD) {
+            estadisticas.add(de(region, statistics.getDomainDataRegionStatistics(region)));
+        }
+        // La región de consultas se crea con la primera consulta cacheable; hasta entonces no hay estadísticas
+        estadisticas.add(de(CatalogoCache.CONSULTAS, statistics.getQueryRegionStatistics(CatalogoCache.CONSULTAS)));
+        return estadisticas;
+    }
+
+    private EstadisticaCache de(String region, CacheRegionStatistics regionStatistics) {
+        if (regionStatistics == null) {
+            return new EstadisticaCache(region, 0, 0, 0);
+        }
+        return new EstadisticaCache(region, regionStatistics.getHitCount(), regionStatistics.getMissCount(),
+                regionStatistics.getPutCount());
+    }
+}
@@ -3,6 +3,8 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.service;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.EtapaCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.CursorKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -13,14 +15,19 @@ import java.util.Optional;
 public class EtapaCultivoService {
 
     private final EtapaCultivoRepository etapaCultivoRepository;
+    private final ResumenUsuarioService resumenUsuarioService;
 
-    public EtapaCultivoService(EtapaCultivoRepository etapaCultivoRepository) {
+    public EtapaCultivoService(EtapaCultivoRepository etapaCultivoRepository, ResumenUsuarioService resumenUsuarioService) {
         this.etapaCultivoRepository = etapaCultivoRepository;
+        this.resumenUsuarioService = resumenUsuarioService;
     }
 
     @Transactional
     public EtapaCultivo saveEtapaCultivo(EtapaCultivo etapaCultivo) {
-        return etapaCultivoRepository.save(etapaCultivo);
+        EtapaCultivo guardada = etapaCultivoRepository.save(etapaCultivo);
+        // Las etapas no guardan updatedAt: su cambio se refleja en la versión de datos del usuario
+        resumenUsuarioService.datosCambiados(guardada.getUsuario().getId());
+        return guardada;
     }
 
     @Transactional(readOnly = true)
@@ -34,21 +41,44 @@ public class EtapaCultivoService {
         return etapaCultivoRepository.findByUsuario(usuario);
     }
 
+    /**
+     * Obtiene una página de etapas de cultivo del usuario ordenada por (nombre, id), usando paginación keyset.
+     * @param filtro Texto a buscar en el nombre (opcional).
+     * @param despues Cursor de la última fila de la página previa (opcional).
+     * @param antes Cursor de la primera fila de la página siguiente (opcional).
+     * @param tamano Número de filas por página.
+     */
+    @Transactional(readOnly = true)
+    public PaginaKeyset<EtapaCultivo> findPaginaByUsuario(Usuario usuario, String filtro, String despues, String antes, int tamano) {
+        String patron = PaginaKeyset.patronFiltro(filtro);
+        if (despues != null && !despues.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(despues);
+            return PaginaKeyset.haciaAdelante(etapaCultivoRepository.findPaginaDespues(usuario, patron, cursor.getClave(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), despues, ec -> CursorKeyset.de(ec.getNombre(), ec.getId()));
+        }
+        if (antes != null && !antes.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(antes);
+            return PaginaKeyset.haciaAtras(etapaCultivoRepository.findPaginaAntes(usuario, patron, cursor.getClave(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), antes, ec -> CursorKeyset.de(ec.getNombre(), ec.getId()));
+        }
+        return PaginaKeyset.haciaAdelante(etapaCultivoRepository.findPrimeraPagina(usuario, patron, PaginaKeyset.limite(tamano)),
+                null, ec -> CursorKeyset.de(ec.getNombre(), ec.getId()));
+    }
+
     // Método seguro para obtener una etapa por ID y usuario
     @Transactional(readOnly = true)
     public Optional<EtapaCultivo> getEtapaCultivoByIdAndUsuario(Long id, Usuario usuario) {
         return etapaCultivoRepository.findByIdAndUsuario(id, usuario);
     }
 
+    // Un único DELETE con el predicado del usuario; 0 filas significa que no existe o no es suya
     @Transactional
     public void deleteEtapaCultivo(Long id, Usuario currentUser) {
-        EtapaCultivo etapa = etapaCultivoRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Etapa de cultivo no encontrada con ID: " + id));
-
-        if (!etapa.getUsuario().getId().equals(currentUser.getId())) {
-            throw new SecurityException("No tiene permiso para eliminar esta etapa de cultivo.");
+        if (etapaCultivoRepository.deleteByIdAndUsuarioId(id, currentUser.getId()) == 0) {
+            throw new IllegalArgumentException("Etapa de cultivo no encontrada o no autorizada con ID: " + id);
         }
-        etapaCultivoRepository.deleteById(id);
+        // Sus planeaciones se borraron en cascada: se recalcula el resumen del usuario
+        resumenUsuarioService.recalcular(currentUser.getId());
     }
 
     // Método para encontrar una etapa por nombre y usuario
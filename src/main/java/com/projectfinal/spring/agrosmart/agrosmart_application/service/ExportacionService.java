@@ -0,0 +1,54 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionExportacionFila;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion.EscritorTabla;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion.FormatoExportacion;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Transactional(readOnly = true)
+public class ExportacionService {
+
+    private final PlaneacionCultivoRepository planeacionCultivoRepository;
+
+    public ExportacionService(PlaneacionCultivoRepository planeacionCultivoRepository) {
+        this.planeacionCultivoRepository = planeacionCultivoRepository;
+    }
+
+    /**
+     * Escribe las planeaciones del usuario con sus líneas de insumo directamente en la salida.
+     * Las filas se leen de la base por bloques (fetch size) y se escriben a medida que llegan,
+     * así que la memoria usada no depende del número de filas. La cabecera se envía antes de
+     * la primera consulta para que el cliente empiece a recibir datos de inmediato.
+     */
+    @Timed("agrosmart.servicio")
+    public void exportarPlaneaciones(Usuario usuario, FormatoExportacion formato, OutputStream salida) throws IOException {
+        try (EscritorTabla escritor = formato.crearEscritor(salida, "Planeaciones")) {
+            escritor.fila("ID planeación", "Planeación", "Parcela", "Tipo de cultivo", "Etapa", "Fecha inicio",
+                    "Fecha fin estimada", "Estado", "Estimación costo", "Insumo", "Unidad de medida",
+                    "Precio unitario", "Cantidad", "Total insumo", "Fecha registro", "Observaciones");
+            escritor.flush();
+
+            try (Stream<PlaneacionExportacionFila> filas = planeacionCultivoRepository.streamExportacionByUsuario(usuario)) {
+                Iterator<PlaneacionExportacionFila> it = filas.iterator();
+                while (it.hasNext()) {
+                    PlaneacionExportacionFila f = it.next();
+                    escritor.fila(f.getPlaneacionId(), f.getPlaneacionNombre(), f.getParcelaNombre(),
+                            f.getTipoCultivoNombre(), f.getEtapaCultivoNombre(), f.getFechaInicio(),
+                            f.getFechaFinEstimada(), f.getEstado(), f.getEstimacionCosto(), f.getInsumoNombre(),
+                            f.getInsumoUnidadMedida(), f.getInsumoPrecioUnitario(), f.getCantidad(),
+                            f.getTotalInsumo(), f.getFechaRegistro(), f.getObservaciones());
+                }
+            }
+        }
+    }
+}
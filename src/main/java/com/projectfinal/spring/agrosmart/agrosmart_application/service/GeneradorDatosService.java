@@ -0,0 +1,288 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.EtapaCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.UsuarioRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.CalculoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.ConversionUnidades;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ParametrosGeneracion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoGeneracion;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Llena la base con datos sintéticos para reproducir localmente el volumen de producción (ver carga/escenario.js).
+ *
+ * Cada usuario se crea con los mismos datos por defecto que el registro (UsuarioService) más parcelas, tipos de
+ * cultivo, insumos, planeaciones y líneas de insumo en cantidades log-normales: la mayoría de usuarios tiene pocas
+ * filas y unos pocos muchas. Las líneas eligen los insumos con sesgo hacia los primeros de cada usuario (unos
+ * insumos se usan mucho más que otros), y los costos, semillas y cantidades base se calculan con las mismas
+ * funciones que los servicios, así que los datos generados son indistinguibles de los creados desde la web.
+ *
+ * Los usuarios se guardan en lotes de {@link #USUARIOS_POR_LOTE}, cada uno en su transacción (persist + flush +
+ * clear con los lotes JDBC de Hibernate), como ImportacionService. El generador de cada usuario se deriva de la
+ * semilla y su número: volver a ejecutar con más usuarios solo añade los que faltan y da los mismos datos.
+ */
+@Service
+public class GeneradorDatosService {
+
+    public static final int USUARIOS_POR_LOTE = 20;
+    public static final String PREFIJO_EMAIL = "carga-";
+    public static final String DOMINIO_EMAIL = "@agrosmart.test";
+
+    // Dispersión de las cantidades log-normales: con 0.9 el percentil 99 es unas 8 veces la media
+    private static final double DISPERSION = 0.9;
+
+    private static final String[][] TIPOS_EXTRA = {
+            // nombre, días, distancia surco, distancia planta, densidad por ha
+            {"Fríjol", "90", "0.60", "0.20", "83333"},
+            {"Plátano", "365", "3.00", "3.00", "1111"},
+            {"Aguacate", "1095", "7.00", "7.00", "204"},
+            {"Arroz", "120", "0.25", "0.25", "160000"},
+            {"Papa", "150", "1.00", "0.30", "33333"},
+            {"Tomate", "110", "1.20", "0.50", "16667"},
+            {"Caña de azúcar", "365", "1.50", "0.50", "13333"},
+    };
+
+    private static final Object[][] INSUMOS = {
+            // nombre, tipo, unidad, precio de referencia, cantidad típica por línea
+            {"Semilla de maíz híbrido", TipoInsumo.SEMILLAS, "Kilogramos", "38000", "20"},
+            {"Semilla de fríjol", TipoInsumo.SEMILLAS, "Kilogramos", "12000", "40"},
+            {"Plántulas de café", TipoInsumo.SEMILLAS, "Unidades", "450", "2000"},
+            {"Colinos de plátano", TipoInsumo.SEMILLAS, "Unidades", "1800", "500"},
+            {"Urea", TipoInsumo.FERTILIZANTES, "Bultos", "145000", "6"},
+            {"DAP 18-46-0", TipoInsumo.FERTILIZANTES, "Bultos", "175000", "4"},
+            {"Cloruro de potasio", TipoInsumo.FERTILIZANTES, "Kilogramos", "3200", "150"},
+            {"Abono orgánico", TipoInsumo.FERTILIZANTES, "Bultos", "28000", "20"},
+            {"Fertilizante foliar", TipoInsumo.FERTILIZANTES, "Litros", "42000", "5"},
+            {"Micronutrientes", TipoInsumo.FERTILIZANTES, "Gramos", "95", "1500"},
+            {"Fungicida cúprico", TipoInsumo.PESTICIDAS, "Kilogramos", "36000", "3"},
+            {"Insecticida piretroide", TipoInsumo.PESTICIDAS, "Mililitros", "110", "750"},
+            {"Clorpirifos", TipoInsumo.PESTICIDAS, "Litros", "58000", "2"},
+            {"Glifosato", TipoInsumo.HERBICIDAS, "Litros", "32000", "4"},
+            {"Paraquat", TipoInsumo.HERBICIDAS, "Litros", "39000", "3"},
+            {"Herbicida preemergente", TipoInsumo.HERBICIDAS, "Litros", "61000", "2"},
+    };
+
+    private static final String[] PROVEEDORES = {"AgroInsumos del Valle", "Cooperativa Central", "Distribuidora El Campo",
+            "Almacén La Cosecha", "Agroquímicos S.A."};
+    private static final String[] UBICACIONES = {"Vereda El Retiro", "Vereda La Esperanza", "Vereda San José",
+            "Vereda Alto Bonito", "Vereda El Placer", "Vereda Las Palmas"};
+
+    private final UsuarioRepository usuarioRepository;
+    private final PasswordEncoder passwordEncoder;
+    private final ResumenUsuarioService resumenUsuarioService;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    public GeneradorDatosService(UsuarioRepository usuarioRepository,
+                                 PasswordEncoder passwordEncoder,
+                                 ResumenUsuarioService resumenUsuarioService,
+                                 EntityManager entityManager,
+                                 PlatformTransactionManager transactionManager) {
+        this.usuarioRepository = usuarioRepository;
+        this.passwordEncoder = passwordEncoder;
+        this.resumenUsuarioService = resumenUsuarioService;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public static String email(int numero) {
+        return PREFIJO_EMAIL + numero + DOMINIO_EMAIL;
+    }
+
+    @Timed("agrosmart.servicio")
+    public ResultadoGeneracion generar(ParametrosGeneracion parametros) {
+        long inicio = System.nanoTime();
+        ResultadoGeneracion resultado = new ResultadoGeneracion();
+        // Un solo hash para todas las cuentas: BCrypt por usuario dominaría el tiempo de generación
+        String password = passwordEncoder.encode(parametros.getPassword());
+        int existentes = 0;
+        for (int desde = 0; desde < parametros.getUsuarios(); desde += USUARIOS_POR_LOTE) {
+            int hasta = Math.min(desde + USUARIOS_POR_LOTE, parametros.getUsuarios());
+            int primero = desde;
+            existentes += transactionTemplate.execute(status -> {
+                int omitidos = 0;
+                for (int numero = primero; numero < hasta; numero++) {
+                    if (usuarioRepository.existsByEmail(email(numero))) {
+                        omitidos++;
+                    } else {
+                        generarUsuario(numero, password, parametros, resultado);
+                    }
+                }
+                entityManager.flush();
+                entityManager.clear();
+                return omitidos;
+            });
+        }
+        resultado.usuariosExistentes(existentes);
+        resultado.finalizar((System.nanoTime() - inicio) / 1_000_000);
+        return resultado;
+    }
+
+    private void generarUsuario(int numero, String password, ParametrosGeneracion parametros, ResultadoGeneracion resultado) {
+        SplittableRandom aleatorio = new SplittableRandom(parametros.getSemilla() * 1_000_003L + numero);
+
+        Usuario usuario = new Usuario();
+        usuario.setNombre("Productor " + numero);
+        usuario.setEmail(email(numero));
+        usuario.setPassword(password);
+        entityManager.persist(usuario);
+
+        List<EtapaCultivo> etapas = List.of(
+                new EtapaCultivo("Siembra", "Inicio del ciclo de cultivo, preparación del terreno y plantación.", 30, usuario),
+                new EtapaCultivo("Mantenimiento", "Cuidados continuos del cultivo: riego, fertilización, control de plagas.", 90, usuario),
+                new EtapaCultivo("Cosecha", "Recolección de la producción agrícola.", 15, usuario));
+        etapas.forEach(entityManager::persist);
+
+        List<TipoCultivo> tipos = new ArrayList<>(List.of(
+                new TipoCultivo("Café", "Cultivo de café, ideal para regiones tropicales.", new BigDecimal("10000.00"), 365,
+                        new BigDecimal("1.5"), new BigDecimal("1.0"), usuario),
+                new TipoCultivo("Maíz", "Cultivo de maíz, base alimenticia.", new BigDecimal("80000.00"), 120,
+                        new BigDecimal("0.8"), new BigDecimal("0.3"), usuario),
+                new TipoCultivo("Cacao", "cultivo de cacao, produccion de chocolate", new BigDecimal("1000.00"), 182,
+                        new BigDecimal("3.0"), new BigDecimal("3.0"), usuario)));
+        int tiposExtra = Math.min(cantidad(aleatorio, parametros.getTiposExtraPorUsuario(), 0), TIPOS_EXTRA.length);
+        int primerExtra = aleatorio.nextInt(TIPOS_EXTRA.length);
+        for (int i = 0; i < tiposExtra; i++) {
+            String[] datos = TIPOS_EXTRA[(primerExtra + i) % TIPOS_EXTRA.length];
+            tipos.add(new TipoCultivo(datos[0], "Cultivo de " + datos[0].toLowerCase(), new BigDecimal(datos[4]),
+                    Integer.valueOf(datos[1]), new BigDecimal(datos[2]), new BigDecimal(datos[3]), usuario));
+        }
+        tipos.forEach(entityManager::persist);
+
+        List<Insumo> insumos = new ArrayList<>();
+        int numeroInsumos = cantidad(aleatorio, parametros.getInsumosPorUsuario(), 1);
+        for (int i = 0; i < numeroInsumos; i++) {
+            Object[] datos = INSUMOS[i % INSUMOS.length];
+            Insumo insumo = new Insumo();
+            insumo.setNombre(i < INSUMOS.length ? (String) datos[0] : datos[0] + " " + (i / INSUMOS.length + 1));
+            insumo.setTipo((TipoInsumo) datos[1]);
+            insumo.setUnidadMedida((String) datos[2]);
+            insumo.setProveedor(PROVEEDORES[aleatorio.nextInt(PROVEEDORES.length)]);
+            insumo.setPrecioUnitario(variar(aleatorio, new BigDecimal((String) datos[3]), 0.25, 2));
+            insumo.setUsuario(usuario);
+            entityManager.persist(insumo);
+            insumos.add(insumo);
+        }
+
+        LocalDateTime ahora = LocalDateTime.now();
+        LocalDate hoy = ahora.toLocalDate();
+        int parcelas = 0;
+        int planeaciones = 0;
+        int lineas = 0;
+        int numeroParcelas = cantidad(aleatorio, parametros.getParcelasPorUsuario(), 1);
+        for (int p = 0; p < numeroParcelas; p++) {
+            Parcela parcela = new Parcela();
+            parcela.setNombre("Lote " + (p + 1));
+            parcela.setUbicacion(UBICACIONES[aleatorio.nextInt(UBICACIONES.length)]);
+            // Fincas pequeñas: mediana de unas 2 ha, algunas de decenas; una de cada cinco se registra en m²
+            BigDecimal hectareas = variar(aleatorio, new BigDecimal("2.5"), DISPERSION, 2).max(new BigDecimal("0.05"));
+            if (aleatorio.nextInt(5) == 0) {
+                parcela.setTamano(hectareas.multiply(new BigDecimal("10000")).setScale(2, RoundingMode.HALF_UP));
+                parcela.setUnidadMedida("Metros Cuadrados");
+            } else {
+                parcela.setTamano(hectareas);
+                parcela.setUnidadMedida("Hectáreas");
+            }
+            parcela.setUsuario(usuario);
+            parcela.normalizarArea();
+            entityManager.persist(parcela);
+            parcelas++;
+
+            int numeroPlaneaciones = cantidad(aleatorio, parametros.getPlaneacionesPorParcela(), 0);
+            for (int n = 0; n < numeroPlaneaciones; n++) {
+                TipoCultivo tipo = tipos.get(aleatorio.nextInt(tipos.size()));
+                PlaneacionCultivo planeacion = new PlaneacionCultivo();
+                planeacion.setUsuario(usuario);
+                planeacion.setParcela(parcela);
+                planeacion.setTipoCultivo(tipo);
+                planeacion.setEtapaCultivo(etapas.get(aleatorio.nextInt(etapas.size())));
+                planeacion.setNombre(tipo.getNombre() + " " + parcela.getNombre() + " #" + (n + 1));
+                // Inicios repartidos en los dos últimos años y los próximos seis meses
+                LocalDate fechaInicio = hoy.minusDays(730).plusDays(aleatorio.nextInt(910));
+                LocalDate fechaFin = fechaInicio.plusDays(tipo.getDuracionDiasEstimada());
+                planeacion.setFechaInicio(fechaInicio);
+                planeacion.setFechaFinEstimada(fechaFin);
+                planeacion.setEstado(fechaInicio.isAfter(hoy) ? EstadoPlaneacion.PENDIENTE
+                        : fechaFin.isBefore(hoy) ? EstadoPlaneacion.COMPLETADO : EstadoPlaneacion.EN_CURSO);
+                planeacion.setNumeroSemillas(CalculoPlaneacion.numeroSemillas(parcela.getAreaM2(), tipo.getDistanciaSurco(),
+                        tipo.getDistanciaPlanta()));
+                // Se registra hasta un mes antes de iniciar, nunca en el futuro
+                LocalDateTime registro = fechaInicio.atStartOfDay().minusDays(aleatorio.nextInt(30));
+                planeacion.setCreatedAt(registro.isAfter(ahora) ? ahora : registro);
+
+                BigDecimal costo = BigDecimal.ZERO;
+                List<InsumoPlaneacion> lineasPlaneacion = new ArrayList<>();
+                int numeroLineas = cantidad(aleatorio, parametros.getLineasPorPlaneacion(), 0);
+                for (int l = 0; l < numeroLineas; l++) {
+                    // u² concentra las elecciones en los primeros insumos del usuario
+                    double u = aleatorio.nextDouble();
+                    int indice = (int) (u * u * insumos.size());
+                    Insumo insumo = insumos.get(indice);
+                    Object[] datos = INSUMOS[indice % INSUMOS.length];
+                    InsumoPlaneacion linea = new InsumoPlaneacion();
+                    linea.setPlaneacion(planeacion);
+                    linea.setInsumo(insumo);
+                    linea.setCantidad(variar(aleatorio, new BigDecimal((String) datos[4]), DISPERSION, 3).max(new BigDecimal("0.001")));
+                    linea.setTotalInsumo(CalculoPlaneacion.totalLinea(linea.getCantidad(), insumo.getPrecioUnitario()));
+                    UnidadMedida unidad = UnidadMedida.desdeTexto(insumo.getUnidadMedida());
+                    if (unidad != null) {
+                        linea.setUnidadBase(ConversionUnidades.base(unidad));
+                        linea.setCantidadBase(ConversionUnidades.aBase(linea.getCantidad(), unidad));
+                    }
+                    linea.setFechaRegistro(fechaInicio.isAfter(hoy) ? hoy : fechaInicio);
+                    costo = costo.add(linea.getTotalInsumo());
+                    lineasPlaneacion.add(linea);
+                }
+                planeacion.setEstimacionCosto(costo);
+                entityManager.persist(planeacion);
+                lineasPlaneacion.forEach(entityManager::persist);
+                planeaciones++;
+                lineas += lineasPlaneacion.size();
+            }
+        }
+        // Con las filas en la base (flush automático de las consultas agregadas) el resumen sale de un recálculo
+        resumenUsuarioService.recalcular(usuario.getId());
+        resultado.sumarUsuario(parcelas, tipos.size(), etapas.size(), insumos.size(), planeaciones, lineas);
+    }
+
+    /** Cantidad log-normal con la media indicada, nunca menor que el mínimo. */
+    private static int cantidad(SplittableRandom aleatorio, double media, int minimo) {
+        if (media <= 0) {
+            return minimo;
+        }
+        return Math.max(minimo, (int) Math.round(logNormal(aleatorio, media, DISPERSION)));
+    }
+
+    /** Valor log-normal alrededor de la referencia (misma media), con la escala indicada. */
+    private static BigDecimal variar(SplittableRandom aleatorio, BigDecimal referencia, double dispersion, int escala) {
+        return referencia.multiply(BigDecimal.valueOf(logNormal(aleatorio, 1, dispersion))).setScale(escala, RoundingMode.HALF_UP);
+    }
+
+    private static double logNormal(SplittableRandom aleatorio, double media, double sigma) {
+        // Box-Muller: SplittableRandom no trae nextGaussian en Java 17
+        double normal = Math.sqrt(-2 * Math.log(1 - aleatorio.nextDouble())) * Math.cos(2 * Math.PI * aleatorio.nextDouble());
+        return media * Math.exp(sigma * normal - sigma * sigma / 2);
+    }
+}
@@ -0,0 +1,193 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.csv.FilaCsv;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.csv.LectorCsv;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoImportacion;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Importación masiva de insumos y parcelas desde CSV.
+ *
+ * El archivo se lee fila a fila y las filas válidas se guardan en lotes de {@link #TAMANO_LOTE},
+ * cada uno en su propia transacción (persist + flush + clear), de modo que la memoria usada no
+ * depende del tamaño del archivo y un lote fallido no deshace los anteriores.
+ * Por eso esta clase no es @Transactional como el resto de servicios.
+ */
+@Service
+public class ImportacionService {
+
+    /** Filas por transacción; múltiplo de hibernate.jdbc.batch_size para llenar los lotes JDBC. */
+    public static final int TAMANO_LOTE = 1000;
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Validator validator;
+    private final ResumenUsuarioService resumenUsuarioService;
+
+    public ImportacionService(EntityManager entityManager,
+                              PlatformTransactionManager transactionManager,
+                              Validator validator,
+                              ResumenUsuarioService resumenUsuarioService) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.validator = validator;
+        this.resumenUsuarioService = resumenUsuarioService;
+    }
+
+    /**
+     * Importa insumos. Columnas: nombre, tipo, proveedor, unidadMedida, precioUnitario, descripcion.
+     * @throws IllegalArgumentException si el archivo no tiene cabecera o faltan columnas obligatorias.
+     */
+    @Timed("agrosmart.servicio")
+    public ResultadoImportacion importarInsumos(InputStream archivo, Usuario usuario) throws IOException {
+        ResultadoImportacion resultado = importar(archivo, usuario,
+                new String[] {"nombre", "tipo", "unidadMedida", "precioUnitario"}, this::leerInsumo, Insumo::setUsuario);
+        if (resultado.getFilasImportadas() > 0) {
+            resumenUsuarioService.datosCambiados(usuario.getId());
+        }
+        return resultado;
+    }
+
+    /**
+     * Importa parcelas. Columnas: nombre, ubicacion, tamano, unidadMedida, descripcion.
+     * @throws IllegalArgumentException si el archivo no tiene cabecera o faltan columnas obligatorias.
+     */
+    @Timed("agrosmart.servicio")
+    public ResultadoImportacion importarParcelas(InputStream archivo, Usuario usuario) throws IOException {
+        ResultadoImportacion resultado = importar(archivo, usuario, new String[] {"nombre", "tamano"},
+                this::leerParcela, Parcela::setUsuario);
+        // Un solo recálculo del resumen al final en lugar de un delta por fila
+        if (resultado.getFilasImportadas() > 0) {
+            resumenUsuarioService.recalcular(usuario.getId());
+        }
+        return resultado;
+    }
+
+    private Insumo leerInsumo(FilaCsv fila) {
+        Insumo insumo = new Insumo();
+        insumo.setNombre(fila.texto("nombre"));
+        insumo.setTipo(tipoInsumo(fila.texto("tipo")));
+        insumo.setProveedor(fila.texto("proveedor"));
+        insumo.setUnidadMedida(unidadMedida(fila.texto("unidadMedida")));
+        insumo.setPrecioUnitario(fila.decimal("precioUnitario"));
+        insumo.setDescripcion(fila.texto("descripcion"));
+        return insumo;
+    }
+
+    private Parcela leerParcela(FilaCsv fila) {
+        Parcela parcela = new Parcela();
+        parcela.setNombre(fila.texto("nombre"));
+        parcela.setUbicacion(fila.texto("ubicacion"));
+        parcela.setTamano(fila.decimal("tamano"));
+        parcela.setUnidadMedida(fila.texto("unidadMedida"));
+        parcela.setDescripcion(fila.texto("descripcion"));
+        return parcela;
+    }
+
+    // Acepta el nombre del enum (FERTILIZANTES) o el texto que se muestra (Fertilizantes)
+    private TipoInsumo tipoInsumo(String valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El tipo de insumo es obligatorio.");
+        }
+        for (TipoInsumo tipo : TipoInsumo.values()) {
+            if (tipo.name().equalsIgnoreCase(valor) || tipo.getDisplayValue().equalsIgnoreCase(valor)) {
+                return tipo;
+            }
+        }
+        throw new IllegalArgumentException("El tipo de insumo '" + valor + "' no es válido.");
+    }
+
+    // Igual que el formulario: una UnidadMedida reconocida (L, lt, litros) se guarda como su descripción (Litros);
+    // cualquier otro texto se guarda tal cual, como la opción "Otro".
+    private String unidadMedida(String valor) {
+        if (valor == null) {
+            throw new IllegalArgumentException("La unidad de medida es obligatoria.");
+        }
+        UnidadMedida unidad = UnidadMedida.desdeTexto(valor);
+        return unidad != null ? unidad.getDescripcion() : valor;
+    }
+
+    private <T> ResultadoImportacion importar(InputStream archivo, Usuario usuario, String[] columnasObligatorias,
+                                              Function<FilaCsv, T> lectorFila,
+                                              BiConsumer<T, Usuario> asignarPropietario) throws IOException {
+        long inicio = System.currentTimeMillis();
+        ResultadoImportacion resultado = new ResultadoImportacion();
+        List<T> lote = new ArrayList<>(TAMANO_LOTE);
+        List<Integer> lineasLote = new ArrayList<>(TAMANO_LOTE);
+
+        try (LectorCsv lector = new LectorCsv(archivo)) {
+            lector.exigirColumnas(columnasObligatorias);
+            FilaCsv fila;
+            while ((fila = lector.siguienteFila()) != null) {
+                resultado.filaLeida();
+                T entidad;
+                try {
+                    entidad = lectorFila.apply(fila);
+                } catch (IllegalArgumentException e) {
+                    resultado.error(fila.getLinea(), e.getMessage());
+                    continue;
+                }
+                Set<ConstraintViolation<T>> violaciones = validator.validate(entidad);
+                if (!violaciones.isEmpty()) {
+                    resultado.error(fila.getLinea(), violaciones.stream()
+                            .map(ConstraintViolation::getMessage)
+                            .sorted()
+                            .collect(Collectors.joining("; ")));
+                    continue;
+                }
+                lote.add(entidad);
+                lineasLote.add(fila.getLinea());
+                if (lote.size() == TAMANO_LOTE) {
+                    guardarLote(lote, lineasLote, usuario, asignarPropietario, resultado);
+                }
+            }
+        }
+        if (!lote.isEmpty()) {
+            guardarLote(lote, lineasLote, usuario, asignarPropietario, resultado);
+        }
+        resultado.finalizar(System.currentTimeMillis() - inicio);
+        return resultado;
+    }
+
+    private <T> void guardarLote(List<T> lote, List<Integer> lineasLote, Usuario usuario,
+                                 BiConsumer<T, Usuario> asignarPropietario, ResultadoImportacion resultado) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                Usuario propietario = entityManager.getReference(Usuario.class, usuario.getId());
+                for (T entidad : lote) {
+                    asignarPropietario.accept(entidad, propietario);
+                    entityManager.persist(entidad);
+                }
+                entityManager.flush();
+                entityManager.clear();
+            });
+            resultado.filasImportadas(lote.size());
+        } catch (RuntimeException e) {
+            for (Integer linea : lineasLote) {
+                resultado.error(linea, "No se pudo guardar el lote de esta fila: " + e.getMessage());
+            }
+        }
+        lote.clear();
+        lineasLote.clear();
+    }
+}
@@ -7,12 +7,20 @@ import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario; //
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoPlaneacionRepository;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.CalculoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.ConversionUnidades;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.CantidadUnidadDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.InsumoPlaneacionListadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.TotalLineaDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 import java.math.BigDecimal;
-import java.math.RoundingMode; // Para redondear BigDecimal
+import java.time.LocalDateTime;
 
 @Service
 @Transactional // Asegura que las operaciones sean atómicas
@@ -21,13 +29,16 @@ public class InsumoPlaneacionService {
     private final InsumoPlaneacionRepository insumoPlaneacionRepository;
     private final PlaneacionCultivoRepository planeacionCultivoRepository;
     private final InsumoRepository insumoRepository;
+    private final ResumenUsuarioService resumenUsuarioService;
 
     public InsumoPlaneacionService(InsumoPlaneacionRepository insumoPlaneacionRepository,
                                    PlaneacionCultivoRepository planeacionCultivoRepository,
-                                   InsumoRepository insumoRepository) {
+                                   InsumoRepository insumoRepository,
+                                   ResumenUsuarioService resumenUsuarioService) {
         this.insumoPlaneacionRepository = insumoPlaneacionRepository;
         this.planeacionCultivoRepository = planeacionCultivoRepository;
         this.insumoRepository = insumoRepository;
+        this.resumenUsuarioService = resumenUsuarioService;
     }
 
     /**
@@ -38,24 +49,18 @@ public class InsumoPlaneacionService {
      * @param currentUser El usuario autenticado para verificaciones de seguridad.
      * @return El insumoPlaneacion guardado.
      */
+    @Timed("agrosmart.servicio")
     public InsumoPlaneacion saveInsumoPlaneacion(InsumoPlaneacion insumoPlaneacion, Usuario currentUser) {
-        // 1. Obtener y validar las relaciones completas (PlaneacionCultivo e Insumo)
-        // Se carga la planeación para asegurar que existe y está gestionada por JPA
-        PlaneacionCultivo planeacion = planeacionCultivoRepository.findById(insumoPlaneacion.getPlaneacion().getId())
-                .orElseThrow(() -> new IllegalArgumentException("La Planeación de Cultivo no fue encontrada."));
-        // Se carga el insumo para asegurar que existe y está gestionado por JPA
-        Insumo insumo = insumoRepository.findById(insumoPlaneacion.getInsumo().getId())
-                .orElseThrow(() -> new IllegalArgumentException("El Insumo no fue encontrado."));
-
-        // **Verificaciones de seguridad cruciales**:
-        // Asegurar que la planeación pertenece al usuario actual
-        if (!planeacion.getUsuario().getId().equals(currentUser.getId())) {
-            throw new SecurityException("No tiene permiso para modificar insumos en esta planeación.");
-        }
-        // Asegurar que el insumo pertenece al usuario actual
-        if (!insumo.getUsuario().getId().equals(currentUser.getId())) {
-            throw new SecurityException("No tiene permiso para usar este insumo.");
+        // 1. Validar las relaciones con el predicado del usuario en la misma consulta
+        // De la planeación solo se necesita su identidad: se comprueba la propiedad sin cargarla
+        Long planeacionId = insumoPlaneacion.getPlaneacion().getId();
+        if (!planeacionCultivoRepository.existsByIdAndUsuarioId(planeacionId, currentUser.getId())) {
+            throw new IllegalArgumentException("La Planeación de Cultivo no fue encontrada o no está autorizada.");
         }
+        PlaneacionCultivo planeacion = planeacionCultivoRepository.getReferenceById(planeacionId);
+        // Del insumo se necesita el precio, así que se carga filtrando por el usuario
+        Insumo insumo = insumoRepository.findByIdAndUsuario(insumoPlaneacion.getInsumo().getId(), currentUser)
+                .orElseThrow(() -> new IllegalArgumentException("El Insumo no fue encontrado o no está autorizado."));
 
         // Asignar los objetos completos de Planeacion e Insumo al InsumoPlaneacion
         insumoPlaneacion.setPlaneacion(planeacion);
@@ -74,15 +79,28 @@ public class InsumoPlaneacionService {
         }
 
         // Multiplicar y redondear a 2 decimales para el valor monetario
-        BigDecimal totalInsumoCalculado = cantidad.multiply(precioUnitario)
-                                                        .setScale(2, RoundingMode.HALF_UP); // Redondeo para moneda
+        BigDecimal totalInsumoCalculado = CalculoPlaneacion.totalLinea(cantidad, precioUnitario);
         insumoPlaneacion.setTotalInsumo(totalInsumoCalculado);
 
-        // 3. Guardar el InsumoPlaneacion en la base de datos
+        // Cantidad en la unidad base del insumo, para sumar líneas de insumos distintos (null si su unidad es libre)
+        UnidadMedida unidad = insumo.getUnidadCodigo();
+        insumoPlaneacion.setUnidadBase(unidad != null ? ConversionUnidades.base(unidad) : null);
+        insumoPlaneacion.setCantidadBase(unidad != null ? ConversionUnidades.aBase(cantidad, unidad) : null);
+
+        // 3. Si es una edición, leer el total guardado antes de sobrescribirlo para aplicar solo la diferencia
+        // (la consulta incluye el predicado del usuario: una línea ajena no se puede editar). La lectura bloquea la
+        // línea hasta el commit, así que otra edición simultánea espera y no aplica su delta sobre el mismo total
+        Optional<TotalLineaDto> totalAnterior = Optional.empty();
+        if (insumoPlaneacion.getId() != null) {
+            totalAnterior = Optional.of(insumoPlaneacionRepository.findTotalLineaByIdAndUsuarioId(insumoPlaneacion.getId(), currentUser.getId())
+                    .orElseThrow(() -> new IllegalArgumentException("Asignación de insumo no encontrada o no autorizada.")));
+        }
+
+        // 4. Guardar el InsumoPlaneacion en la base de datos
         InsumoPlaneacion savedInsumoPlaneacion = insumoPlaneacionRepository.save(insumoPlaneacion);
 
-        // 4. Recalcular y actualizar estimacionCosto en PlaneacionCultivo
-        recalculateEstimacionCosto(planeacion); // Llama al método de ayuda
+        // 5. Actualizar estimacionCosto en PlaneacionCultivo con el delta de esta línea
+        aplicarDeltaEstimacionCosto(totalAnterior, planeacionId, totalInsumoCalculado, currentUser.getId());
         
         return savedInsumoPlaneacion;
     }
@@ -98,20 +116,45 @@ public class InsumoPlaneacionService {
      * @param planeacionId El ID de la planeación.
      * @param currentUser El usuario autenticado.
      * @return Una lista de InsumoPlaneacion.
-     * @throws IllegalArgumentException si la planeación no se encuentra.
-     * @throws SecurityException si el usuario no tiene permiso.
+     * @throws IllegalArgumentException si la planeación no existe o no pertenece al usuario.
      */
     @Transactional(readOnly = true)
     public List<InsumoPlaneacion> getInsumosByPlaneacionIdAndUser(Long planeacionId, Usuario currentUser) {
-        PlaneacionCultivo planeacion = planeacionCultivoRepository.findById(planeacionId)
-                .orElseThrow(() -> new IllegalArgumentException("Planeación no encontrada."));
-        
-        // Verificación de seguridad
-        if (!planeacion.getUsuario().getId().equals(currentUser.getId())) {
-            throw new SecurityException("No tiene permiso para ver los insumos de esta planeación.");
+        // Verificación de seguridad sin cargar la planeación
+        if (!planeacionCultivoRepository.existsByIdAndUsuarioId(planeacionId, currentUser.getId())) {
+            throw new IllegalArgumentException("Planeación no encontrada o no autorizada.");
         }
-        // Utiliza el método del repositorio que busca por la entidad PlaneacionCultivo
-        return insumoPlaneacionRepository.findByPlaneacion(planeacion);
+        return insumoPlaneacionRepository.findByPlaneacionId(planeacionId);
+    }
+
+    /**
+     * Obtiene las filas del listado de insumos de una planeación ya autorizada,
+     * con los datos del insumo resueltos en la misma consulta.
+     * @param planeacion La planeación (previamente validada contra el usuario autenticado).
+     * @return Una lista de filas planas para la vista de listado.
+     */
+    @Transactional(readOnly = true)
+    public List<InsumoPlaneacionListadoDto> getListadoByPlaneacion(PlaneacionCultivo planeacion) {
+        return insumoPlaneacionRepository.findListadoByPlaneacion(planeacion);
+    }
+
+    /**
+     * Cantidades de la planeación sumadas por unidad base (p. ej. 1.5 KG de 1500 GR y 1 KG de otro insumo = 2.5 KG).
+     * Las líneas de insumos con una unidad libre no se suman.
+     * @param planeacion La planeación (previamente validada contra el usuario autenticado).
+     */
+    @Transactional(readOnly = true)
+    public List<CantidadUnidadDto> getCantidadesBaseByPlaneacion(PlaneacionCultivo planeacion) {
+        return insumoPlaneacionRepository.sumarCantidadesBaseByPlaneacionId(planeacion.getId());
+    }
+
+    /**
+     * Versión de las páginas de insumos de una planeación del usuario, para responder 304 sin consultarlas.
+     * @return Vacío si la planeación no existe o no es del usuario (la página se procesa y lo informa).
+     */
+    @Transactional(readOnly = true)
+    public Optional<VersionRecursoDto> findVersionByPlaneacion(Long planeacionId, Usuario currentUser) {
+        return planeacionCultivoRepository.findVersionInsumosByIdAndUsuarioId(planeacionId, currentUser.getId());
     }
 
     /**
@@ -123,9 +166,8 @@ public class InsumoPlaneacionService {
      */
     @Transactional(readOnly = true)
     public Optional<InsumoPlaneacion> findByIdAndPlaneacionOwnedByUser(Long insumoPlaneacionId, Usuario currentUser) {
-        return insumoPlaneacionRepository.findById(insumoPlaneacionId)
-                // Filtra el resultado para asegurar que la planeación asociada pertenece al usuario actual
-                .filter(ip -> ip.getPlaneacion().getUsuario().getId().equals(currentUser.getId()));
+        // El predicado de propiedad va en la consulta: no se cargan planeación ni usuario para comprobarlo
+        return insumoPlaneacionRepository.findByIdAndPlaneacionUsuarioId(insumoPlaneacionId, currentUser.getId());
     }
 
     /**
@@ -133,53 +175,57 @@ public class InsumoPlaneacionService {
      * y luego recalcula la estimación de costo de la PlaneacionCultivo asociada.
      * @param id El ID del InsumoPlaneacion a eliminar.
      * @param currentUser El usuario autenticado.
-     * @throws IllegalArgumentException si el InsumoPlaneacion no se encuentra.
-     * @throws SecurityException si el usuario no tiene permiso para eliminarlo.
+     * El total de la línea se lee con la misma lectura bloqueante que la edición (con el predicado del usuario):
+     * si hay una edición sin confirmar, el borrado espera y descuenta el total que esta dejó, no el anterior.
+     * @throws IllegalArgumentException si el InsumoPlaneacion no existe o no pertenece al usuario.
      */
+    @Timed("agrosmart.servicio")
     public void deleteInsumoPlaneacion(Long id, Usuario currentUser) {
-        InsumoPlaneacion insumoPlaneacion = insumoPlaneacionRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("InsumoPlaneacion no encontrada."));
-
-        // Verificación de seguridad: Asegurar que el insumo planeado pertenece a una planeación del usuario actual
-        if (!insumoPlaneacion.getPlaneacion().getUsuario().getId().equals(currentUser.getId())) {
-            throw new SecurityException("No tiene permiso para eliminar este insumo de la planeación.");
+        TotalLineaDto linea = insumoPlaneacionRepository.findTotalLineaByIdAndUsuarioId(id, currentUser.getId())
+                .orElseThrow(() -> new IllegalArgumentException("InsumoPlaneacion no encontrada o no autorizada."));
+        BigDecimal delta = CalculoPlaneacion.deltaCosto(BigDecimal.ZERO, linea.getTotalInsumo());
+        if (delta.signum() != 0) {
+            planeacionCultivoRepository.sumarEstimacionCosto(linea.getPlaneacionId(), delta, LocalDateTime.now());
         }
+        insumoPlaneacionRepository.deleteByIdAndPlaneacionUsuarioId(id, currentUser.getId());
+        // Después del borrado: si el resumen aún no existe, se crea con los agregados ya sin la línea
+        resumenUsuarioService.lineaEliminada(currentUser.getId(), delta);
+    }
 
-        // Obtener la referencia a la PlaneacionCultivo antes de eliminar el InsumoPlaneacion.
-        // Esto es crucial porque después de la eliminación, 'insumoPlaneacion.getPlaneacion()' podría ser nulo o un objeto desasociado.
-        PlaneacionCultivo associatedPlaneacion = insumoPlaneacion.getPlaneacion();
-
-        insumoPlaneacionRepository.deleteById(id);
-
-        // Recalcular estimacionCosto para la PlaneacionCultivo asociada después de la eliminación
-        recalculateEstimacionCosto(associatedPlaneacion);
+    /**
+     * Recalcula el estimacionCosto de una planeación desde cero con un único SUM en la base de datos.
+     * El mantenimiento normal es incremental (ver aplicarDeltaEstimacionCosto); esto sirve para corregir
+     * valores antiguos o tras cambios masivos de precios.
+     * @param planeacionId El ID de la planeación.
+     */
+    @Timed("agrosmart.servicio")
+    public void recalcularEstimacionCosto(Long planeacionId) {
+        resumenUsuarioService.antesDeRecalcularCosto(planeacionId);
+        planeacionCultivoRepository.recalcularEstimacionCosto(planeacionId, LocalDateTime.now());
     }
 
     /**
-     * Método privado de ayuda para recalcular el estimacionCosto de una PlaneacionCultivo.
-     * Suma todos los 'totalInsumo' de sus InsumoPlaneacion asociados.
-     * @param planeacion La PlaneacionCultivo para la que se recalculará el costo.
+     * Método privado de ayuda que mantiene el estimacionCosto de forma incremental: suma a la planeación
+     * la diferencia entre el total nuevo de la línea y el que tenía, con un solo UPDATE y sin cargar
+     * las demás líneas (el costo no depende del número de líneas de la planeación).
+     * @param totalAnterior Planeación y total guardados de la línea si es una edición, vacío si es nueva.
+     * @param planeacionId La planeación a la que pertenece ahora la línea.
+     * @param totalNuevo El total recalculado de la línea.
+     * @param usuarioId El dueño de las planeaciones, cuyo resumen del dashboard recibe el mismo delta.
      */
-    private void recalculateEstimacionCosto(PlaneacionCultivo planeacion) {
-        // Volver a cargar la planeación desde la DB para asegurar que esté actualizada y gestionada
-        // Esto es importante si el 'planeacion' que se pasa no está en el contexto de persistencia actual
-        PlaneacionCultivo updatedPlaneacion = planeacionCultivoRepository.findById(planeacion.getId())
-                                            .orElseThrow(() -> new IllegalStateException("La Planeación no fue encontrada al intentar recalcular su costo."));
-
-        // Obtener todos los InsumoPlaneacion actualmente asociados a esta planeación.
-        // Se usa findByPlaneacion para asegurarse de obtener la lista más reciente.
-        List<InsumoPlaneacion> insumosAsociados = insumoPlaneacionRepository.findByPlaneacion(updatedPlaneacion);
-
-        // Sumar los valores de 'totalInsumo'
-        BigDecimal totalEstimacionCosto = BigDecimal.ZERO;
-        for (InsumoPlaneacion ip : insumosAsociados) {
-            if (ip.getTotalInsumo() != null) { // Asegurarse de que el campo no sea nulo antes de sumar
-                totalEstimacionCosto = totalEstimacionCosto.add(ip.getTotalInsumo());
-            }
+    private void aplicarDeltaEstimacionCosto(Optional<TotalLineaDto> totalAnterior, Long planeacionId, BigDecimal totalNuevo,
+                                             Long usuarioId) {
+        LocalDateTime ahora = LocalDateTime.now();
+        BigDecimal delta = CalculoPlaneacion.deltaCosto(totalNuevo, totalAnterior.map(TotalLineaDto::getTotalInsumo).orElse(null));
+        if (totalAnterior.isPresent() && !totalAnterior.get().getPlaneacionId().equals(planeacionId)) {
+            // La línea cambió de planeación: se descuenta completa de la anterior y se suma completa a la nueva
+            planeacionCultivoRepository.sumarEstimacionCosto(totalAnterior.get().getPlaneacionId(),
+                    totalAnterior.get().getTotalInsumo().negate(), ahora);
+            planeacionCultivoRepository.sumarEstimacionCosto(planeacionId, totalNuevo, ahora);
+        } else if (delta.signum() != 0) {
+            planeacionCultivoRepository.sumarEstimacionCosto(planeacionId, delta, ahora);
         }
-        
-        // Actualizar el campo 'estimacionCosto' de la PlaneacionCultivo y guardarla
-        updatedPlaneacion.setEstimacionCosto(totalEstimacionCosto.setScale(2, RoundingMode.HALF_UP));
-        planeacionCultivoRepository.save(updatedPlaneacion);
+        // Ambas planeaciones son del mismo usuario: para su resumen solo cuenta la diferencia neta
+        resumenUsuarioService.lineaGuardada(usuarioId, delta);
     }
-}
\ No newline at end of file
+}
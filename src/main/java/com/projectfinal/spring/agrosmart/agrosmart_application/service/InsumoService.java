@@ -2,9 +2,18 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.service;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoPlaneacionRepository;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.ConversionUnidades;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.CursorKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,15 +22,32 @@ import java.util.Optional;
 public class InsumoService {
 
     private final InsumoRepository insumoRepository;
-
-    public InsumoService(InsumoRepository insumoRepository) {
+    private final InsumoPlaneacionRepository insumoPlaneacionRepository;
+    private final PlaneacionCultivoRepository planeacionCultivoRepository;
+    private final ActualizacionPreciosService actualizacionPreciosService;
+    private final ResumenUsuarioService resumenUsuarioService;
+
+    public InsumoService(InsumoRepository insumoRepository, InsumoPlaneacionRepository insumoPlaneacionRepository,
+                         PlaneacionCultivoRepository planeacionCultivoRepository,
+                         ActualizacionPreciosService actualizacionPreciosService, ResumenUsuarioService resumenUsuarioService) {
         this.insumoRepository = insumoRepository;
+        this.insumoPlaneacionRepository = insumoPlaneacionRepository;
+        this.planeacionCultivoRepository = planeacionCultivoRepository;
+        this.actualizacionPreciosService = actualizacionPreciosService;
+        this.resumenUsuarioService = resumenUsuarioService;
     }
 
+    @Timed("agrosmart.servicio")
     public Insumo saveInsumo(Insumo insumo) {
-        // Este método save() de JpaRepository maneja tanto la creación (id nulo)
-        // como la actualización (id existente).
-        return insumoRepository.save(insumo);
+        // En una edición se copian los campos sobre el insumo guardado (ver updateInsumo): hacer merge del
+        // objeto del formulario vaciaría su lista insumosPlaneacion y orphanRemoval borraría sus líneas.
+        if (insumo.getId() != null) {
+            return updateInsumo(insumo.getId(), insumo);
+        }
+        Insumo guardado = insumoRepository.save(insumo);
+        // Los insumos no guardan updatedAt: su cambio se refleja en la versión de datos del usuario
+        resumenUsuarioService.datosCambiados(guardado.getUsuario().getId());
+        return guardado;
     }
 
     @Transactional(readOnly = true)
@@ -46,9 +72,14 @@ public class InsumoService {
     }
 
     public Insumo updateInsumo(Long id, Insumo insumoDetails) {
-        // Se recomienda usar findByIdAndUsuario aquí también para asegurar el permiso
-        Insumo insumo = insumoRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Insumo no encontrado con ID: " + id));
+        // Con usuario se busca con el predicado de propiedad en la misma consulta
+        Insumo insumo = (insumoDetails.getUsuario() != null
+                ? insumoRepository.findByIdAndUsuario(id, insumoDetails.getUsuario())
+                : insumoRepository.findById(id))
+                .orElseThrow(() -> new IllegalArgumentException("Insumo no encontrado o no autorizado con ID: " + id));
+        boolean cambioPrecio = insumoDetails.getPrecioUnitario() != null
+                && insumo.getPrecioUnitario().compareTo(insumoDetails.getPrecioUnitario()) != 0;
+        UnidadMedida unidadAnterior = insumo.getUnidadCodigo();
 
         // Actualizar todos los campos necesarios.
         // Asegúrate de que el usuario no se sobrescriba si no lo envías en insumoDetails
@@ -59,8 +90,27 @@ public class InsumoService {
         insumo.setUnidadMedida(insumoDetails.getUnidadMedida());
         insumo.setPrecioUnitario(insumoDetails.getPrecioUnitario());
         insumo.setDescripcion(insumoDetails.getDescripcion());
-
-        return insumoRepository.save(insumo);
+        insumo.normalizarUnidad();
+
+        Insumo guardado = insumoRepository.save(insumo);
+        // Las cantidades base de sus líneas dependen de la unidad del insumo
+        UnidadMedida unidad = guardado.getUnidadCodigo();
+        if (unidad != unidadAnterior) {
+            if (unidad != null) {
+                insumoPlaneacionRepository.normalizarCantidadesByInsumoId(guardado.getId(),
+                        ConversionUnidades.aBase(BigDecimal.ONE, unidad), ConversionUnidades.base(unidad));
+            } else {
+                insumoPlaneacionRepository.limpiarCantidadesByInsumoId(guardado.getId());
+            }
+        }
+        // Los totales de las líneas y planeaciones que usan el insumo dependen de su precio
+        if (cambioPrecio) {
+            actualizacionPreciosService.propagarPrecio(guardado.getId());
+            resumenUsuarioService.recalcular(guardado.getUsuario().getId());
+        } else {
+            resumenUsuarioService.datosCambiados(guardado.getUsuario().getId());
+        }
+        return guardado;
     }
 
     // Método para encontrar todos los insumos de un usuario específico
@@ -70,6 +120,30 @@ public class InsumoService {
         return insumoRepository.findByUsuario(usuario);
     }
 
+    /**
+     * Obtiene una página de insumos del usuario ordenada por (nombre, id), usando paginación keyset.
+     * @param filtro Texto a buscar en el nombre (opcional).
+     * @param despues Cursor de la última fila de la página previa (opcional).
+     * @param antes Cursor de la primera fila de la página siguiente (opcional).
+     * @param tamano Número de filas por página.
+     */
+    @Transactional(readOnly = true)
+    public PaginaKeyset<Insumo> findPaginaByUsuario(Usuario usuario, String filtro, String despues, String antes, int tamano) {
+        String patron = PaginaKeyset.patronFiltro(filtro);
+        if (despues != null && !despues.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(despues);
+            return PaginaKeyset.haciaAdelante(insumoRepository.findPaginaDespues(usuario, patron, cursor.getClave(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), despues, i -> CursorKeyset.de(i.getNombre(), i.getId()));
+        }
+        if (antes != null && !antes.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(antes);
+            return PaginaKeyset.haciaAtras(insumoRepository.findPaginaAntes(usuario, patron, cursor.getClave(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), antes, i -> CursorKeyset.de(i.getNombre(), i.getId()));
+        }
+        return PaginaKeyset.haciaAdelante(insumoRepository.findPrimeraPagina(usuario, patron, PaginaKeyset.limite(tamano)),
+                null, i -> CursorKeyset.de(i.getNombre(), i.getId()));
+    }
+
     // Método para encontrar un insumo por su ID (retorna Optional<Insumo>)
     // Duplicado con getInsumoById, puedes elegir cual usar
     @Transactional(readOnly = true) // Añadir readOnly = true
@@ -84,16 +158,16 @@ public class InsumoService {
         return insumoRepository.findByIdAndUsuario(id, usuario);
     }
 
-    // Nuevo método: Eliminar insumo por ID y usuario (para seguridad)
+    // Eliminar insumo por ID y usuario: primero se descuentan sus líneas del costo de las planeaciones que lo usan
+    // y luego un único DELETE con el predicado del usuario (las líneas se borran por ON DELETE CASCADE).
+    // Ambas sentencias filtran por el usuario, así que con un insumo ajeno ninguna modifica nada.
     @Transactional
     public void deleteInsumoByIdAndUsuario(Long id, Usuario usuario) {
-        Insumo insumo = insumoRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Insumo no encontrado con ID: " + id));
-        
-        if (!insumo.getUsuario().getId().equals(usuario.getId())) {
-            throw new SecurityException("No tiene permiso para eliminar este insumo.");
+        planeacionCultivoRepository.recalcularEstimacionCostoSinInsumo(id, usuario.getId(), LocalDateTime.now());
+        if (insumoRepository.deleteByIdAndUsuarioId(id, usuario.getId()) == 0) {
+            throw new IllegalArgumentException("Insumo no encontrado o no autorizado con ID: " + id);
         }
-        insumoRepository.delete(insumo);
+        resumenUsuarioService.recalcular(usuario.getId());
     }
 
     public void deleteInsumo(Long id) {
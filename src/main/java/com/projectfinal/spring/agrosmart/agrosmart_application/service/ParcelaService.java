@@ -1,10 +1,16 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.service;
 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.RecalculoSemillas;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario; // ¡Importa Usuario!
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.ParcelaRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.CursorKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,13 +19,33 @@ import java.util.Optional;
 public class ParcelaService {
 
     private final ParcelaRepository parcelaRepository;
+    private final ResumenUsuarioService resumenUsuarioService;
+    private final RecalculoSemillasService recalculoSemillasService;
 
-    public ParcelaService(ParcelaRepository parcelaRepository) {
+    public ParcelaService(ParcelaRepository parcelaRepository, ResumenUsuarioService resumenUsuarioService,
+                          RecalculoSemillasService recalculoSemillasService) {
         this.parcelaRepository = parcelaRepository;
+        this.resumenUsuarioService = resumenUsuarioService;
+        this.recalculoSemillasService = recalculoSemillasService;
     }
 
+    @Timed("agrosmart.servicio")
     public Parcela saveParcela(Parcela parcela) {
-        return parcelaRepository.save(parcela);
+        // El resumen del dashboard necesita el área nueva antes del flush que la normalizaría
+        parcela.normalizarArea();
+        if (parcela.getId() == null) {
+            Parcela guardada = parcelaRepository.save(parcela);
+            resumenUsuarioService.parcelaCreada(guardada.getUsuario().getId(), guardada);
+            return guardada;
+        }
+        // Edición: el área anterior se lee de la parcela guardada, que el merge reutiliza (no hay otra consulta)
+        BigDecimal areaAnterior = parcelaRepository.findById(parcela.getId())
+                .map(ResumenUsuarioService::areaEnM2)
+                .orElse(BigDecimal.ZERO);
+        Parcela guardada = parcelaRepository.save(parcela);
+        resumenUsuarioService.parcelaModificada(guardada.getUsuario().getId(), areaAnterior, guardada);
+        programarRecalculoSiCambioArea(areaAnterior, guardada);
+        return guardada;
     }
 
     @Transactional(readOnly = true)
@@ -42,6 +68,36 @@ public class ParcelaService {
         return parcelaRepository.findByUsuario(usuario);
     }
 
+    /**
+     * Obtiene una página de parcelas del usuario ordenada por (createdAt, id), más recientes primero, usando paginación keyset.
+     * @param filtro Texto a buscar en el nombre (opcional).
+     * @param despues Cursor de la última fila de la página previa (opcional).
+     * @param antes Cursor de la primera fila de la página siguiente (opcional).
+     * @param tamano Número de filas por página.
+     */
+    @Transactional(readOnly = true)
+    public PaginaKeyset<Parcela> findPaginaByUsuario(Usuario usuario, String filtro, String despues, String antes, int tamano) {
+        String patron = PaginaKeyset.patronFiltro(filtro);
+        if (despues != null && !despues.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(despues);
+            return PaginaKeyset.haciaAdelante(parcelaRepository.findPaginaDespues(usuario, patron, cursor.getClaveComoFecha(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), despues, p -> CursorKeyset.de(p.getCreatedAt(), p.getId()));
+        }
+        if (antes != null && !antes.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(antes);
+            return PaginaKeyset.haciaAtras(parcelaRepository.findPaginaAntes(usuario, patron, cursor.getClaveComoFecha(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), antes, p -> CursorKeyset.de(p.getCreatedAt(), p.getId()));
+        }
+        return PaginaKeyset.haciaAdelante(parcelaRepository.findPrimeraPagina(usuario, patron, PaginaKeyset.limite(tamano)),
+                null, p -> CursorKeyset.de(p.getCreatedAt(), p.getId()));
+    }
+
+    // Versión del listado y los formularios de parcelas del usuario, para responder 304 sin consultarlos
+    @Transactional(readOnly = true)
+    public VersionRecursoDto findVersionListado(Usuario usuario) {
+        return parcelaRepository.findVersionListado(usuario.getId());
+    }
+
     /**
      * Obtiene una parcela por su ID y el usuario al que pertenece.
      * Es crucial para la seguridad, asegurando que un usuario solo acceda a sus parcelas.
@@ -54,36 +110,57 @@ public class ParcelaService {
         return parcelaRepository.findByIdAndUsuario(id, usuario);
     }
 
+    @Timed("agrosmart.servicio")
     public Parcela updateParcela(Long id, Parcela parcelaDetails) {
         // En una refactorización previa, sugerí consolidar save/update.
         // Si mantienes un update separado, asegúrate de que el usuario se setee.
         Parcela parcela = parcelaRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Parcela no encontrada con ID: " + id));
+        BigDecimal areaAnterior = ResumenUsuarioService.areaEnM2(parcela);
 
         parcela.setNombre(parcelaDetails.getNombre());
         parcela.setUbicacion(parcelaDetails.getUbicacion());
         parcela.setTamano(parcelaDetails.getTamano());
         parcela.setUnidadMedida(parcelaDetails.getUnidadMedida());
         parcela.setDescripcion(parcelaDetails.getDescripcion());
+        parcela.normalizarArea();
         // El usuario ya debería estar seteado en 'parcela' y no debería cambiarse aquí.
 
-        return parcelaRepository.save(parcela);
+        Parcela guardada = parcelaRepository.save(parcela);
+        resumenUsuarioService.parcelaModificada(guardada.getUsuario().getId(), areaAnterior, guardada);
+        programarRecalculoSiCambioArea(areaAnterior, guardada);
+        return guardada;
+    }
+
+    // El número de semillas de sus planeaciones depende del área: se recalcula en segundo plano tras el commit
+    private void programarRecalculoSiCambioArea(BigDecimal areaAnterior, Parcela guardada) {
+        if (areaAnterior.compareTo(ResumenUsuarioService.areaEnM2(guardada)) != 0) {
+            recalculoSemillasService.programar(guardada.getUsuario().getId(), RecalculoSemillas.Origen.PARCELA, guardada.getId());
+        }
     }
 
     /**
-     * Elimina una parcela por su ID, verificando que pertenece al usuario.
+     * Indica si la parcela existe y pertenece al usuario, sin cargarla.
+     * @param id El ID de la parcela.
+     * @param usuario El usuario al que debe pertenecer la parcela.
+     */
+    @Transactional(readOnly = true)
+    public boolean existsByIdAndUsuario(Long id, Usuario usuario) {
+        return parcelaRepository.existsByIdAndUsuarioId(id, usuario.getId());
+    }
+
+    /**
+     * Elimina una parcela por su ID con un único DELETE que incluye el predicado del usuario.
+     * Sus planeaciones y las líneas de insumo de estas se eliminan en cascada en la base de datos.
      * @param id El ID de la parcela a eliminar.
      * @param currentUser El usuario que intenta eliminar la parcela.
-     * @throws IllegalArgumentException si la parcela no es encontrada.
-     * @throws SecurityException si el usuario no tiene permiso para eliminar la parcela.
+     * @throws IllegalArgumentException si la parcela no existe o no pertenece al usuario.
      */
     public void deleteParcela(Long id, Usuario currentUser) {
-        Parcela parcela = parcelaRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Parcela no encontrada con ID: " + id));
-
-        if (!parcela.getUsuario().getId().equals(currentUser.getId())) {
-            throw new SecurityException("No tiene permiso para eliminar esta parcela.");
+        if (parcelaRepository.deleteByIdAndUsuarioId(id, currentUser.getId()) == 0) {
+            throw new IllegalArgumentException("Parcela no encontrada o no autorizada con ID: " + id);
         }
-        parcelaRepository.deleteById(id);
+        // El borrado arrastra planeaciones en cascada en la base: se recalcula el resumen completo
+        resumenUsuarioService.recalcular(currentUser.getId());
     }
 }
\ No newline at end of file
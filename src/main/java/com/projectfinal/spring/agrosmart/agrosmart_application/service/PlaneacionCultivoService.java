@@ -10,10 +10,17 @@ import com.projectfinal.spring.agrosmart.agrosmart_application.repository.Parcel
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository; 
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.CalculoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ConteoEstadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionCultivoListadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.VersionRecursoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.CursorKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -26,39 +33,45 @@ public class PlaneacionCultivoService {
     private final ParcelaRepository parcelaRepository;
     private final TipoCultivoRepository tipoCultivoRepository;
     private final EtapaCultivoRepository etapaCultivoRepository; 
+    private final ResumenUsuarioService resumenUsuarioService;
 
     public PlaneacionCultivoService(PlaneacionCultivoRepository planeacionCultivoRepository,
                                     ParcelaRepository parcelaRepository,
                                     TipoCultivoRepository tipoCultivoRepository,
-                                    EtapaCultivoRepository etapaCultivoRepository) { 
+                                    EtapaCultivoRepository etapaCultivoRepository,
+                                    ResumenUsuarioService resumenUsuarioService) { 
         this.planeacionCultivoRepository = planeacionCultivoRepository;
         this.parcelaRepository = parcelaRepository;
         this.tipoCultivoRepository = tipoCultivoRepository;
         this.etapaCultivoRepository = etapaCultivoRepository; 
+        this.resumenUsuarioService = resumenUsuarioService;
     }
 
     /**
      * Guarda una nueva planeación de cultivo o actualiza una existente.
+     * La parcela, el tipo, la etapa y (en una edición) la planeación guardada se buscan con el usuario
+     * de la planeación en la misma consulta, así que no puede referenciar registros de otro usuario.
      * @param planeacionCultivo El objeto PlaneacionCultivo a guardar (con Parcela, TipoCultivo y EtapaCultivo asociados, y Usuario).
      * @return La planeación de cultivo guardada.
      */
+    @Timed("agrosmart.servicio")
     public PlaneacionCultivo savePlaneacionCultivo(PlaneacionCultivo planeacionCultivo) {
         if (planeacionCultivo.getParcela() != null && planeacionCultivo.getParcela().getId() != null) {
-            Parcela parcela = parcelaRepository.findById(planeacionCultivo.getParcela().getId())
-                                            .orElseThrow(() -> new RuntimeException("Parcela no encontrada con ID: " + planeacionCultivo.getParcela().getId()));
+            Parcela parcela = parcelaRepository.findByIdAndUsuario(planeacionCultivo.getParcela().getId(), planeacionCultivo.getUsuario())
+                                            .orElseThrow(() -> new IllegalArgumentException("Parcela no encontrada o no autorizada con ID: " + planeacionCultivo.getParcela().getId()));
             planeacionCultivo.setParcela(parcela);
         }
 
         if (planeacionCultivo.getTipoCultivo() != null && planeacionCultivo.getTipoCultivo().getId() != null) {
-            TipoCultivo tipoCultivo = tipoCultivoRepository.findById(planeacionCultivo.getTipoCultivo().getId())
-                                                        .orElseThrow(() -> new RuntimeException("Tipo de cultivo no encontrado con ID: " + planeacionCultivo.getTipoCultivo().getId()));
+            TipoCultivo tipoCultivo = tipoCultivoRepository.findByIdAndUsuario(planeacionCultivo.getTipoCultivo().getId(), planeacionCultivo.getUsuario())
+                                                        .orElseThrow(() -> new IllegalArgumentException("Tipo de cultivo no encontrado o no autorizado con ID: " + planeacionCultivo.getTipoCultivo().getId()));
             planeacionCultivo.setTipoCultivo(tipoCultivo);
         }
 
         // Manejo de la etapa de cultivo
         if (planeacionCultivo.getEtapaCultivo() != null && planeacionCultivo.getEtapaCultivo().getId() != null) {
-            EtapaCultivo etapaCultivo = etapaCultivoRepository.findById(planeacionCultivo.getEtapaCultivo().getId())
-                                                            .orElseThrow(() -> new RuntimeException("Etapa de cultivo no encontrada con ID: " + planeacionCultivo.getEtapaCultivo().getId()));
+            EtapaCultivo etapaCultivo = etapaCultivoRepository.findByIdAndUsuario(planeacionCultivo.getEtapaCultivo().getId(), planeacionCultivo.getUsuario())
+                                                            .orElseThrow(() -> new IllegalArgumentException("Etapa de cultivo no encontrada o no autorizada con ID: " + planeacionCultivo.getEtapaCultivo().getId()));
             planeacionCultivo.setEtapaCultivo(etapaCultivo);
         } else {
              throw new IllegalArgumentException("Debe seleccionar una etapa de cultivo.");
@@ -66,7 +79,11 @@ public class PlaneacionCultivoService {
 
 
         if (planeacionCultivo.getParcela() != null && planeacionCultivo.getTipoCultivo() != null) {
-            BigDecimal areaEnM2 = convertAreaToM2(planeacionCultivo.getParcela().getTamano(), planeacionCultivo.getParcela().getUnidadMedida());
+            // El área ya está en m² (Parcela.normalizarArea); es null si la parcela no tiene una unidad de área
+            BigDecimal areaEnM2 = planeacionCultivo.getParcela().getAreaM2();
+            if (areaEnM2 == null) {
+                throw new IllegalArgumentException("Unidad de medida de parcela no soportada: " + planeacionCultivo.getParcela().getUnidadMedida());
+            }
             BigDecimal distanciaSurco = planeacionCultivo.getTipoCultivo().getDistanciaSurco();
             BigDecimal distanciaPlanta = planeacionCultivo.getTipoCultivo().getDistanciaPlanta();
 
@@ -76,12 +93,33 @@ public class PlaneacionCultivoService {
                 throw new IllegalArgumentException("Las distancias de surco y planta deben estar definidas y ser mayores que cero para el tipo de cultivo seleccionado: " + planeacionCultivo.getTipoCultivo().getNombre());
             }
 
-            BigDecimal espacioPorPlanta = distanciaSurco.multiply(distanciaPlanta);
-            BigDecimal numeroSemillasCalculado = areaEnM2.divide(espacioPorPlanta, 0, RoundingMode.HALF_UP);
-            planeacionCultivo.setNumeroSemillas(numeroSemillasCalculado); // Convertir a Double
+            planeacionCultivo.setNumeroSemillas(CalculoPlaneacion.numeroSemillas(areaEnM2, distanciaSurco, distanciaPlanta));
+        }
+
+        // Edición: el formulario no envía estimacionCosto ni las líneas de insumo, así que fusionar el objeto
+        // del formulario dejaría el costo en null y borraría las líneas (orphanRemoval). Se copian los campos
+        // editables sobre la planeación guardada.
+        if (planeacionCultivo.getId() != null) {
+            PlaneacionCultivo existente = planeacionCultivoRepository.findByIdAndUsuario(planeacionCultivo.getId(), planeacionCultivo.getUsuario())
+                    .orElseThrow(() -> new IllegalArgumentException("Planeación de cultivo no encontrada o no autorizada."));
+            EstadoPlaneacion estadoAnterior = existente.getEstado();
+            existente.setNombre(planeacionCultivo.getNombre());
+            existente.setDescripcion(planeacionCultivo.getDescripcion());
+            existente.setParcela(planeacionCultivo.getParcela());
+            existente.setTipoCultivo(planeacionCultivo.getTipoCultivo());
+            existente.setEtapaCultivo(planeacionCultivo.getEtapaCultivo());
+            existente.setFechaInicio(planeacionCultivo.getFechaInicio());
+            existente.setFechaFinEstimada(planeacionCultivo.getFechaFinEstimada());
+            existente.setEstado(planeacionCultivo.getEstado());
+            existente.setNumeroSemillas(planeacionCultivo.getNumeroSemillas());
+            PlaneacionCultivo guardada = planeacionCultivoRepository.save(existente);
+            resumenUsuarioService.estadoCambiado(guardada.getUsuario().getId(), estadoAnterior, guardada.getEstado());
+            return guardada;
         }
 
-        return planeacionCultivoRepository.save(planeacionCultivo);
+        PlaneacionCultivo guardada = planeacionCultivoRepository.save(planeacionCultivo);
+        resumenUsuarioService.planeacionCreada(guardada.getUsuario().getId(), guardada.getEstado(), guardada.getEstimacionCosto());
+        return guardada;
     }
 
     @Transactional(readOnly = true)
@@ -90,14 +128,15 @@ public class PlaneacionCultivoService {
     }
 
     /**
-     * Obtiene una planeación de cultivo por su ID y el usuario al que pertenece.
+     * Obtiene una planeación de cultivo por su ID y el usuario al que pertenece, con su parcela, tipo y etapa
+     * ya cargados (las vistas se renderizan fuera de la transacción).
      * @param id El ID de la planeación.
      * @param usuario El usuario al que debe pertenecer la planeación.
      * @return Un Optional que contiene la planeación si se encuentra y pertenece al usuario, o vacío si no.
      */
     @Transactional(readOnly = true)
     public Optional<PlaneacionCultivo> getPlaneacionCultivoByIdAndUsuario(Long id, Usuario usuario) {
-        return planeacionCultivoRepository.findByIdAndUsuario(id, usuario);
+        return planeacionCultivoRepository.findConRelacionesByIdAndUsuario(id, usuario);
     }
 
     @Transactional(readOnly = true)
@@ -115,30 +154,49 @@ public class PlaneacionCultivoService {
         return planeacionCultivoRepository.findByUsuario(usuario);
     }
 
+    // Versión del listado y los formularios de planeaciones del usuario, para responder 304 sin consultarlos
+    @Transactional(readOnly = true)
+    public VersionRecursoDto findVersionListado(Usuario usuario) {
+        return planeacionCultivoRepository.findVersionListado(usuario.getId());
+    }
+
+    /**
+     * Obtiene una página de filas del listado de planeaciones del usuario ordenada por (createdAt, id), más recientes primero, usando paginación keyset.
+     * @param filtro Texto a buscar en el nombre (opcional).
+     * @param despues Cursor de la última fila de la página previa (opcional).
+     * @param antes Cursor de la primera fila de la página siguiente (opcional).
+     * @param tamano Número de filas por página.
+     */
+    @Transactional(readOnly = true)
+    public PaginaKeyset<PlaneacionCultivoListadoDto> findListadoPaginaByUsuario(Usuario usuario, String filtro, String despues, String antes, int tamano) {
+        String patron = PaginaKeyset.patronFiltro(filtro);
+        if (despues != null && !despues.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(despues);
+            return PaginaKeyset.haciaAdelante(planeacionCultivoRepository.findListadoPaginaDespues(usuario, patron, cursor.getClaveComoFecha(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), despues, p -> CursorKeyset.de(p.getCreatedAt(), p.getId()));
+        }
+        if (antes != null && !antes.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(antes);
+            return PaginaKeyset.haciaAtras(planeacionCultivoRepository.findListadoPaginaAntes(usuario, patron, cursor.getClaveComoFecha(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), antes, p -> CursorKeyset.de(p.getCreatedAt(), p.getId()));
+        }
+        return PaginaKeyset.haciaAdelante(planeacionCultivoRepository.findListadoPrimeraPagina(usuario, patron, PaginaKeyset.limite(tamano)),
+                null, p -> CursorKeyset.de(p.getCreatedAt(), p.getId()));
+    }
+
     /**
      * Elimina una planeación de cultivo por su ID, verificando que pertenece al usuario.
      * @param id El ID de la planeación a eliminar.
      * @param currentUser El usuario que intenta eliminar la planeación.
-     * @throws IllegalArgumentException si la planeación no es encontrada.
-     * @throws SecurityException si el usuario no tiene permiso para eliminar la planeación.
+     * @throws IllegalArgumentException si la planeación no existe o no pertenece al usuario.
      */
+    @Timed("agrosmart.servicio")
     public void deletePlaneacionCultivo(Long id, Usuario currentUser) { // ¡Cambiado! Ahora recibe un objeto Usuario
-        PlaneacionCultivo planeacion = planeacionCultivoRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Planeación de cultivo no encontrada con ID: " + id));
-
-        if (!planeacion.getUsuario().getId().equals(currentUser.getId())) {
-            throw new SecurityException("No tiene permiso para eliminar esta planeación de cultivo.");
-        }
-        planeacionCultivoRepository.deleteById(id);
-    }
-
-    private BigDecimal convertAreaToM2(BigDecimal tamano, String unidadMedida) {
-        if ("hectareas".equalsIgnoreCase(unidadMedida)) {
-            return tamano.multiply(new BigDecimal("10000")); // 1 hectárea = 10,000 m2
-        } else if ("m2".equalsIgnoreCase(unidadMedida)) {
-            return tamano;
-        } else {
-            throw new IllegalArgumentException("Unidad de medida de parcela no soportada: " + unidadMedida);
-        }
+        // Estado y costo, leídos con el predicado del usuario, para descontarlos del resumen del dashboard
+        ConteoEstadoDto eliminada = planeacionCultivoRepository.findEstadoYCostoByIdAndUsuarioId(id, currentUser.getId())
+                .orElseThrow(() -> new IllegalArgumentException("Planeación de cultivo no encontrada o no autorizada con ID: " + id));
+        // Un único DELETE con el predicado del usuario; las líneas de insumo se borran por ON DELETE CASCADE
+        planeacionCultivoRepository.deleteByIdAndUsuarioId(id, currentUser.getId());
+        resumenUsuarioService.planeacionEliminada(currentUser.getId(), eliminada.getEstado(), eliminada.getCosto());
     }
 }
\ No newline at end of file
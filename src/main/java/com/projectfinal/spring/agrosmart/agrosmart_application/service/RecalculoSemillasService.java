@@ -0,0 +1,155 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.RecalculoSemillas;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.RecalculoSemillasRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mantiene PlaneacionCultivo.numeroSemillas cuando cambian sus dependencias: el área de la parcela o las
+ * distancias de siembra del tipo de cultivo.
+ *
+ * La edición solo registra un RecalculoSemillas en su propia transacción; tras el commit, el recálculo corre
+ * en el ejecutor de @Async (TareasConfig) recorriendo las planeaciones afectadas por id en lotes de
+ * {@link #TAMANO_LOTE}, cada uno con un UPDATE por conjuntos en una transacción propia que también suma el
+ * avance. Así la edición responde enseguida aunque afecte a miles de planeaciones, y el dashboard muestra
+ * cuántas van. Como cada lote calcula con los valores vigentes, repetir un recálculo es inofensivo: los que
+ * quedan sin terminar por un reinicio se vuelven a lanzar al arrancar y cada intervalo de reanudación.
+ *
+ * Con varias instancias todas ven los mismos recálculos, así que cada uno se reclama con un UPDATE condicionado
+ * al estado (RecalculoSemillasRepository.iniciar) y solo lo ejecuta la instancia que lo consigue. Uno en curso
+ * se da por abandonado cuando su último lote tiene más de {@link #ABANDONO}; mientras tanto nadie lo toca.
+ */
+@Service
+public class RecalculoSemillasService {
+
+    /** Planeaciones por transacción (y por lista IN del UPDATE). */
+    public static final int TAMANO_LOTE = 500;
+
+    /** Tiempo sin avanzar tras el cual un recálculo en curso se considera abandonado por su instancia. */
+    public static final Duration ABANDONO = Duration.ofMinutes(5);
+
+    private static final int LONGITUD_ERROR = 255;
+
+    private final RecalculoSemillasRepository recalculoSemillasRepository;
+    private final PlaneacionCultivoRepository planeacionCultivoRepository;
+    private final ResumenUsuarioService resumenUsuarioService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    public RecalculoSemillasService(RecalculoSemillasRepository recalculoSemillasRepository,
+                                    PlaneacionCultivoRepository planeacionCultivoRepository,
+                                    ResumenUsuarioService resumenUsuarioService,
+                                    ApplicationEventPublisher eventPublisher,
+                                    PlatformTransactionManager transactionManager) {
+        this.recalculoSemillasRepository = recalculoSemillasRepository;
+        this.planeacionCultivoRepository = planeacionCultivoRepository;
+        this.resumenUsuarioService = resumenUsuarioService;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Registra el recálculo de las planeaciones de una parcela o un tipo de cultivo, dentro de la transacción
+     * de la edición: si esta se revierte no queda registro ni se lanza nada.
+     */
+    @Transactional
+    public RecalculoSemillas programar(Long usuarioId, RecalculoSemillas.Origen origen, Long origenId) {
+        RecalculoSemillas recalculo = recalculoSemillasRepository.save(new RecalculoSemillas(usuarioId, origen, origenId));
+        eventPublisher.publishEvent(recalculo);
+        return recalculo;
+    }
+
+    @Transactional(readOnly = true)
+    public List<RecalculoSemillas> getRecientes(Long usuarioId) {
+        return recalculoSemillasRepository.findTop5ByUsuarioIdOrderByIdDesc(usuarioId);
+    }
+
+    // Se lanza después del commit de la edición (las planeaciones ya ven los valores nuevos), en otro hilo
+    @Async
+    @TransactionalEventListener
+    @Timed("agrosmart.servicio")
+    public void alConfirmarEdicion(RecalculoSemillas recalculo) {
+        ejecutar(recalculo);
+    }
+
+    // Al arrancar y luego periódicamente, para recoger también los que abandone otra instancia
+    @Async
+    @Scheduled(fixedDelayString = "${agrosmart.recalculos.intervalo-reanudacion:1m}")
+    @Timed("agrosmart.servicio")
+    public void reanudarPendientes() {
+        for (RecalculoSemillas recalculo : recalculoSemillasRepository.findByEstadoIn(
+                List.of(RecalculoSemillas.Estado.PENDIENTE, RecalculoSemillas.Estado.EN_CURSO))) {
+            ejecutar(recalculo);
+        }
+    }
+
+    private void ejecutar(RecalculoSemillas recalculo) {
+        Long id = recalculo.getId();
+        try {
+            Integer reclamado = transactionTemplate.execute(status -> {
+                LocalDateTime ahora = LocalDateTime.now();
+                return recalculoSemillasRepository.iniciar(id, RecalculoSemillas.Estado.PENDIENTE,
+                        RecalculoSemillas.Estado.EN_CURSO, contarAfectadas(recalculo), ahora, ahora.minus(ABANDONO));
+            });
+            if (reclamado == null || reclamado == 0) {
+                // Lo está ejecutando otra instancia (u otro hilo de esta) o ya terminó
+                return;
+            }
+            Long ultimoId = 0L;
+            List<Long> lote;
+            do {
+                Long despuesDe = ultimoId;
+                lote = transactionTemplate.execute(status -> {
+                    List<Long> ids = siguienteLote(recalculo, despuesDe);
+                    if (!ids.isEmpty()) {
+                        LocalDateTime ahora = LocalDateTime.now();
+                        planeacionCultivoRepository.recalcularNumeroSemillas(ids, ahora);
+                        recalculoSemillasRepository.sumarProcesadas(id, ids.size(), ahora);
+                    }
+                    return ids;
+                });
+                if (!lote.isEmpty()) {
+                    ultimoId = lote.get(lote.size() - 1);
+                }
+            } while (lote.size() == TAMANO_LOTE);
+            transactionTemplate.executeWithoutResult(status -> {
+                recalculoSemillasRepository.finalizar(id, RecalculoSemillas.Estado.COMPLETADO, null, LocalDateTime.now());
+                // Las planeaciones ya cambiaron su updatedAt; la versión de datos cubre las páginas que las muestran
+                resumenUsuarioService.datosCambiados(recalculo.getUsuarioId());
+            });
+        } catch (RuntimeException e) {
+            // Los lotes confirmados se quedan; el registro indica hasta dónde llegó y por qué se detuvo
+            String error = String.valueOf(e.getMessage());
+            String recortado = error.length() > LONGITUD_ERROR ? error.substring(0, LONGITUD_ERROR) : error;
+            transactionTemplate.executeWithoutResult(status -> recalculoSemillasRepository.finalizar(id,
+                    RecalculoSemillas.Estado.FALLIDO, recortado, LocalDateTime.now()));
+        }
+    }
+
+    private long contarAfectadas(RecalculoSemillas recalculo) {
+        return recalculo.getOrigen() == RecalculoSemillas.Origen.PARCELA
+                ? planeacionCultivoRepository.countByParcelaId(recalculo.getOrigenId())
+                : planeacionCultivoRepository.countByTipoCultivoId(recalculo.getOrigenId());
+    }
+
+    private List<Long> siguienteLote(RecalculoSemillas recalculo, Long despuesDe) {
+        PageRequest limite = PageRequest.ofSize(TAMANO_LOTE);
+        return recalculo.getOrigen() == RecalculoSemillas.Origen.PARCELA
+                ? planeacionCultivoRepository.findIdsByParcelaIdDespuesDe(recalculo.getOrigenId(), despuesDe, limite)
+                : planeacionCultivoRepository.findIdsByTipoCultivoIdDespuesDe(recalculo.getOrigenId(), despuesDe, limite);
+    }
+}
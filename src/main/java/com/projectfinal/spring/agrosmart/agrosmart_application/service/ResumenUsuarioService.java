@@ -0,0 +1,156 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.service;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.ResumenUsuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.ResumenUsuarioRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ConteoEstadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ProximaCosechaDto;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Mantiene el resumen del dashboard de cada usuario. Los servicios de escritura informan cada cambio
+ * como un delta que se aplica con un único UPDATE; los cambios masivos o en cascada (borrar una parcela
+ * o un tipo con sus planeaciones, ajustes de precios, importaciones) recalculan el resumen completo.
+ * Cada cambio aumenta además la versión de datos del usuario, que usan las ETag de sus páginas.
+ */
+@Service
+@Transactional
+public class ResumenUsuarioService {
+
+    public static final int PROXIMAS_COSECHAS = 5;
+
+    private final ResumenUsuarioRepository resumenUsuarioRepository;
+    private final PlaneacionCultivoRepository planeacionCultivoRepository;
+
+    public ResumenUsuarioService(ResumenUsuarioRepository resumenUsuarioRepository,
+                                 PlaneacionCultivoRepository planeacionCultivoRepository) {
+        this.resumenUsuarioRepository = resumenUsuarioRepository;
+        this.planeacionCultivoRepository = planeacionCultivoRepository;
+    }
+
+    /**
+     * Obtiene el resumen del usuario con una búsqueda por clave primaria. Un usuario sin fila no ha
+     * registrado nada desde que existe el resumen (la migración crea las filas de los usuarios anteriores).
+     */
+    @Transactional(readOnly = true)
+    public ResumenUsuario getResumen(Long usuarioId) {
+        return resumenUsuarioRepository.findById(usuarioId).orElseGet(() -> new ResumenUsuario(usuarioId));
+    }
+
+    /**
+     * Próximas cosechas estimadas (desde hoy) de planeaciones no completadas, por el índice (usuario_id, fecha_fin_estimada).
+     */
+    @Transactional(readOnly = true)
+    public List<ProximaCosechaDto> getProximasCosechas(Usuario usuario) {
+        return planeacionCultivoRepository.findProximasCosechas(usuario, LocalDate.now(), EstadoPlaneacion.COMPLETADO,
+                PageRequest.ofSize(PROXIMAS_COSECHAS));
+    }
+
+    // --- Deltas informados por los servicios de escritura ---
+
+    public void parcelaCreada(Long usuarioId, Parcela parcela) {
+        sumar(usuarioId, 1, areaEnM2(parcela), 0, 0, 0, BigDecimal.ZERO);
+    }
+
+    // Aunque el área no cambie: el nombre de la parcela aparece en el listado de planeaciones
+    public void parcelaModificada(Long usuarioId, BigDecimal areaAnteriorM2, Parcela parcela) {
+        sumar(usuarioId, 0, areaEnM2(parcela).subtract(areaAnteriorM2), 0, 0, 0, BigDecimal.ZERO);
+    }
+
+    public void planeacionCreada(Long usuarioId, EstadoPlaneacion estado, BigDecimal costo) {
+        sumarPlaneacion(usuarioId, estado, 1, costo);
+    }
+
+    public void planeacionEliminada(Long usuarioId, EstadoPlaneacion estado, BigDecimal costo) {
+        sumarPlaneacion(usuarioId, estado, -1, costo == null ? null : costo.negate());
+    }
+
+    public void estadoCambiado(Long usuarioId, EstadoPlaneacion anterior, EstadoPlaneacion nuevo) {
+        if (anterior != nuevo) {
+            sumarPlaneacion(usuarioId, anterior, -1, null);
+            sumarPlaneacion(usuarioId, nuevo, 1, null);
+        }
+    }
+
+    // Una línea de insumo guardada: aplica el delta de costo (quizá cero) y cambia la versión
+    public void lineaGuardada(Long usuarioId, BigDecimal deltaCosto) {
+        sumar(usuarioId, 0, BigDecimal.ZERO, 0, 0, 0, deltaCosto);
+    }
+
+    // Cambios en datos sin updatedAt que no mueven ningún total (tipos, etapas, insumos): solo cambia la versión
+    public void datosCambiados(Long usuarioId) {
+        sumar(usuarioId, 0, BigDecimal.ZERO, 0, 0, 0, BigDecimal.ZERO);
+    }
+
+    // Línea de insumo borrada: deltaCosto es su total en negativo, leído con la línea bloqueada
+    public void lineaEliminada(Long usuarioId, BigDecimal deltaCosto) {
+        sumar(usuarioId, 0, BigDecimal.ZERO, 0, 0, 0, deltaCosto);
+    }
+
+    // Antes de recalcular el costo de una planeación desde sus líneas (el resumen absorbe la diferencia)
+    public void antesDeRecalcularCosto(Long planeacionId) {
+        resumenUsuarioRepository.ajustarCostoAntesDeRecalcular(planeacionId, LocalDateTime.now());
+    }
+
+    /**
+     * Recalcula el resumen completo del usuario con consultas agregadas y lo crea si no existía.
+     * Recorre las parcelas y planeaciones del usuario, así que se reserva para cambios masivos o en cascada.
+     */
+    @Timed("agrosmart.servicio")
+    public ResumenUsuario recalcular(Long usuarioId) {
+        ResumenUsuario resumen = resumenUsuarioRepository.findById(usuarioId).orElseGet(() -> new ResumenUsuario(usuarioId));
+        resumen.setNumeroParcelas(resumenUsuarioRepository.contarParcelas(usuarioId));
+        resumen.setAreaTotalM2(resumenUsuarioRepository.sumarAreaM2(usuarioId));
+        resumen.setPlaneacionesPendientes(0);
+        resumen.setPlaneacionesEnCurso(0);
+        resumen.setPlaneacionesCompletadas(0);
+        BigDecimal costoTotal = BigDecimal.ZERO;
+        for (ConteoEstadoDto conteo : resumenUsuarioRepository.contarPlaneacionesPorEstado(usuarioId)) {
+            switch (conteo.getEstado()) {
+                case PENDIENTE -> resumen.setPlaneacionesPendientes(conteo.getCantidad());
+                case EN_CURSO -> resumen.setPlaneacionesEnCurso(conteo.getCantidad());
+                case COMPLETADO -> resumen.setPlaneacionesCompletadas(conteo.getCantidad());
+            }
+            costoTotal = costoTotal.add(conteo.getCosto());
+        }
+        resumen.setCostoTotal(costoTotal);
+        resumen.setVersionDatos(resumen.getVersionDatos() + 1);
+        resumen.setUpdatedAt(LocalDateTime.now());
+        return resumenUsuarioRepository.save(resumen);
+    }
+
+    private void sumarPlaneacion(Long usuarioId, EstadoPlaneacion estado, long cantidad, BigDecimal costo) {
+        EstadoPlaneacion efectivo = estado != null ? estado : EstadoPlaneacion.PENDIENTE; // igual que @PrePersist
+        sumar(usuarioId, 0, BigDecimal.ZERO,
+                efectivo == EstadoPlaneacion.PENDIENTE ? cantidad : 0,
+                efectivo == EstadoPlaneacion.EN_CURSO ? cantidad : 0,
+                efectivo == EstadoPlaneacion.COMPLETADO ? cantidad : 0,
+                costo != null ? costo : BigDecimal.ZERO);
+    }
+
+    private void sumar(Long usuarioId, long parcelas, BigDecimal areaM2, long pendientes, long enCurso, long completadas,
+                       BigDecimal costo) {
+        int filas = resumenUsuarioRepository.sumarDeltas(usuarioId, parcelas, areaM2, pendientes, enCurso, completadas,
+                costo, LocalDateTime.now());
+        if (filas == 0) {
+            // Primer cambio del usuario: se crea la fila con los agregados, que ya incluyen este cambio
+            recalcular(usuarioId);
+        }
+    }
+
+    // Misma regla que la consulta sumarAreaM2: el área normalizada de la parcela; sin unidad de área no suma
+    static BigDecimal areaEnM2(Parcela parcela) {
+        return parcela.getAreaM2() != null ? parcela.getAreaM2() : BigDecimal.ZERO;
+    }
+}
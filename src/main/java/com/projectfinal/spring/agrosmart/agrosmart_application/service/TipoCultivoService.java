@@ -1,11 +1,16 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.service;
 
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.RecalculoSemillas;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.CursorKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 
 @Service
@@ -13,13 +18,42 @@ import java.util.Optional;
 public class TipoCultivoService {
 
     private final TipoCultivoRepository tipoCultivoRepository;
+    private final ResumenUsuarioService resumenUsuarioService;
+    private final RecalculoSemillasService recalculoSemillasService;
 
-    public TipoCultivoService(TipoCultivoRepository tipoCultivoRepository) {
+    public TipoCultivoService(TipoCultivoRepository tipoCultivoRepository, ResumenUsuarioService resumenUsuarioService,
+                              RecalculoSemillasService recalculoSemillasService) {
         this.tipoCultivoRepository = tipoCultivoRepository;
+        this.resumenUsuarioService = resumenUsuarioService;
+        this.recalculoSemillasService = recalculoSemillasService;
     }
 
     public TipoCultivo saveTipoCultivo(TipoCultivo tipoCultivo) {
-        return tipoCultivoRepository.save(tipoCultivo);
+        if (tipoCultivo.getId() == null) {
+            return guardar(tipoCultivo, null, null);
+        }
+        // Edición: las distancias anteriores se leen del tipo guardado (caché de segundo nivel) antes del merge
+        TipoCultivo anterior = tipoCultivoRepository.findById(tipoCultivo.getId()).orElse(null);
+        return anterior == null
+                ? guardar(tipoCultivo, null, null)
+                : guardar(tipoCultivo, anterior.getDistanciaSurco(), anterior.getDistanciaPlanta());
+    }
+
+    private TipoCultivo guardar(TipoCultivo tipoCultivo, BigDecimal surcoAnterior, BigDecimal plantaAnterior) {
+        boolean existia = tipoCultivo.getId() != null;
+        TipoCultivo guardado = tipoCultivoRepository.save(tipoCultivo);
+        // Los tipos no guardan updatedAt: su cambio se refleja en la versión de datos del usuario
+        resumenUsuarioService.datosCambiados(guardado.getUsuario().getId());
+        // El número de semillas de sus planeaciones depende del marco de siembra: se recalcula en segundo plano
+        if (existia && (!mismoValor(surcoAnterior, guardado.getDistanciaSurco())
+                || !mismoValor(plantaAnterior, guardado.getDistanciaPlanta()))) {
+            recalculoSemillasService.programar(guardado.getUsuario().getId(), RecalculoSemillas.Origen.TIPO_CULTIVO, guardado.getId());
+        }
+        return guardado;
+    }
+
+    private static boolean mismoValor(BigDecimal a, BigDecimal b) {
+        return a == null || b == null ? Objects.equals(a, b) : a.compareTo(b) == 0;
     }
 
     @Transactional(readOnly = true)
@@ -32,6 +66,30 @@ public class TipoCultivoService {
         return tipoCultivoRepository.findByUsuario(usuario);
     }
 
+    /**
+     * Obtiene una página de tipos de cultivo del usuario ordenada por (nombre, id), usando paginación keyset.
+     * @param filtro Texto a buscar en el nombre (opcional).
+     * @param despues Cursor de la última fila de la página previa (opcional).
+     * @param antes Cursor de la primera fila de la página siguiente (opcional).
+     * @param tamano Número de filas por página.
+     */
+    @Transactional(readOnly = true)
+    public PaginaKeyset<TipoCultivo> findPaginaByUsuario(Usuario usuario, String filtro, String despues, String antes, int tamano) {
+        String patron = PaginaKeyset.patronFiltro(filtro);
+        if (despues != null && !despues.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(despues);
+            return PaginaKeyset.haciaAdelante(tipoCultivoRepository.findPaginaDespues(usuario, patron, cursor.getClave(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), despues, tc -> CursorKeyset.de(tc.getNombre(), tc.getId()));
+        }
+        if (antes != null && !antes.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(antes);
+            return PaginaKeyset.haciaAtras(tipoCultivoRepository.findPaginaAntes(usuario, patron, cursor.getClave(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), antes, tc -> CursorKeyset.de(tc.getNombre(), tc.getId()));
+        }
+        return PaginaKeyset.haciaAdelante(tipoCultivoRepository.findPrimeraPagina(usuario, patron, PaginaKeyset.limite(tamano)),
+                null, tc -> CursorKeyset.de(tc.getNombre(), tc.getId()));
+    }
+
     @Transactional(readOnly = true)
     public Optional<TipoCultivo> getTipoCultivoByIdAndUsuario(Long id, Usuario usuario) {
         return tipoCultivoRepository.findByIdAndUsuario(id, usuario);
@@ -56,6 +114,9 @@ public class TipoCultivoService {
     public TipoCultivo updateTipoCultivo(Long id, TipoCultivo tipoCultivoDetails) {
         TipoCultivo tipoCultivo = tipoCultivoRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Tipo de cultivo no encontrado con ID: " + id));
+        // La entidad está cargada en esta transacción: las distancias anteriores se toman antes de modificarla
+        BigDecimal surcoAnterior = tipoCultivo.getDistanciaSurco();
+        BigDecimal plantaAnterior = tipoCultivo.getDistanciaPlanta();
 
         tipoCultivo.setNombre(tipoCultivoDetails.getNombre());
         tipoCultivo.setDescripcion(tipoCultivoDetails.getDescripcion());
@@ -64,10 +125,23 @@ public class TipoCultivoService {
         tipoCultivo.setDistanciaSurco(tipoCultivoDetails.getDistanciaSurco());
         tipoCultivo.setDistanciaPlanta(tipoCultivoDetails.getDistanciaPlanta());
 
-        return tipoCultivoRepository.save(tipoCultivo);
+        return guardar(tipoCultivo, surcoAnterior, plantaAnterior);
     }
 
     public void deleteTipoCultivo(Long id) {
         tipoCultivoRepository.deleteById(id);
     }
+
+    /**
+     * Elimina un tipo de cultivo con un único DELETE que incluye el predicado del usuario.
+     * Sus planeaciones se eliminan en cascada en la base de datos.
+     * @throws IllegalArgumentException si el tipo no existe o no pertenece al usuario.
+     */
+    public void deleteTipoCultivo(Long id, Usuario currentUser) {
+        if (tipoCultivoRepository.deleteByIdAndUsuarioId(id, currentUser.getId()) == 0) {
+            throw new IllegalArgumentException("Tipo de cultivo no encontrado o no autorizado con ID: " + id);
+        }
+        // Sus planeaciones se borraron en cascada: se recalcula el resumen del usuario
+        resumenUsuarioService.recalcular(currentUser.getId());
+    }
 }
\ No newline at end of file
@@ -3,7 +3,12 @@ package com.projectfinal.spring.agrosmart.agrosmart_application.service;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.EtapaCultivo; 
 import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;  
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
 import com.projectfinal.spring.agrosmart.agrosmart_application.repository.UsuarioRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.CursorKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import io.micrometer.core.annotation.Timed;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -17,19 +22,22 @@ public class UsuarioService {
 
     private final UsuarioRepository usuarioRepository;
     private final PasswordEncoder passwordEncoder;
-    private final EtapaCultivoService etapaCultivoService; 
-    private final TipoCultivoService tipoCultivoService;   
+    // Repositorios y no servicios: un usuario nuevo no tiene páginas guardadas, así que sus datos por defecto
+    // no cambian su versión de datos (ver ResumenUsuarioService) y se insertan en lote
+    private final EtapaCultivoRepository etapaCultivoRepository; 
+    private final TipoCultivoRepository tipoCultivoRepository;   
 
     public UsuarioService(UsuarioRepository usuarioRepository,
                           PasswordEncoder passwordEncoder,
-                          EtapaCultivoService etapaCultivoService,
-                          TipoCultivoService tipoCultivoService) {
+                          EtapaCultivoRepository etapaCultivoRepository,
+                          TipoCultivoRepository tipoCultivoRepository) {
         this.usuarioRepository = usuarioRepository;
         this.passwordEncoder = passwordEncoder;
-        this.etapaCultivoService = etapaCultivoService;
-        this.tipoCultivoService = tipoCultivoService;
+        this.etapaCultivoRepository = etapaCultivoRepository;
+        this.tipoCultivoRepository = tipoCultivoRepository;
     }
 
+    @Timed("agrosmart.servicio")
     public Usuario saveUsuario(Usuario usuario) {
 
         usuario.setPassword(passwordEncoder.encode(usuario.getPassword()));
@@ -38,13 +46,13 @@ public class UsuarioService {
 
         // --- crear Etapas de Cultivo por defecto para el nuevo usuario ---
         EtapaCultivo etapaSiembra = new EtapaCultivo("Siembra", "Inicio del ciclo de cultivo, preparación del terreno y plantación.", 30, savedUser);
-        etapaCultivoService.saveEtapaCultivo(etapaSiembra);
+        etapaCultivoRepository.save(etapaSiembra);
 
         EtapaCultivo etapaMantenimiento = new EtapaCultivo("Mantenimiento", "Cuidados continuos del cultivo: riego, fertilización, control de plagas.", 90, savedUser);
-        etapaCultivoService.saveEtapaCultivo(etapaMantenimiento);
+        etapaCultivoRepository.save(etapaMantenimiento);
 
         EtapaCultivo etapaCosecha = new EtapaCultivo("Cosecha", "Recolección de la producción agrícola.", 15, savedUser);
-        etapaCultivoService.saveEtapaCultivo(etapaCosecha);
+        etapaCultivoRepository.save(etapaCosecha);
 
 
         // --- crear Tipos de Cultivo por defecto para el nuevo usuario ---
@@ -57,7 +65,7 @@ public class UsuarioService {
             new BigDecimal("1.0"),
             savedUser
         );
-        tipoCultivoService.saveTipoCultivo(tipoCafe);
+        tipoCultivoRepository.save(tipoCafe);
 
         TipoCultivo tipoMaiz = new TipoCultivo(
             "Maíz",
@@ -68,7 +76,7 @@ public class UsuarioService {
             new BigDecimal("0.3"),
             savedUser
         );
-        tipoCultivoService.saveTipoCultivo(tipoMaiz);
+        tipoCultivoRepository.save(tipoMaiz);
 
         TipoCultivo tipoCacao = new TipoCultivo(
             "Cacao",
@@ -79,7 +87,7 @@ public class UsuarioService {
             new BigDecimal("3.0"),
             savedUser
         );
-        tipoCultivoService.saveTipoCultivo(tipoCacao);
+        tipoCultivoRepository.save(tipoCacao);
 
 
         return savedUser; 
@@ -112,6 +120,30 @@ public class UsuarioService {
         return usuarioRepository.findAll();
     }
 
+    /**
+     * Obtiene una página de usuarios ordenada por (createdAt, id), más recientes primero, usando paginación keyset.
+     * @param filtro Texto a buscar en el nombre o el email (opcional).
+     * @param despues Cursor de la última fila de la página previa (opcional).
+     * @param antes Cursor de la primera fila de la página siguiente (opcional).
+     * @param tamano Número de filas por página.
+     */
+    @Transactional(readOnly = true)
+    public PaginaKeyset<Usuario> getUsuariosPagina(String filtro, String despues, String antes, int tamano) {
+        String patron = PaginaKeyset.patronFiltro(filtro);
+        if (despues != null && !despues.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(despues);
+            return PaginaKeyset.haciaAdelante(usuarioRepository.findPaginaDespues(patron, cursor.getClaveComoFecha(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), despues, u -> CursorKeyset.de(u.getCreatedAt(), u.getId()));
+        }
+        if (antes != null && !antes.isBlank()) {
+            CursorKeyset cursor = CursorKeyset.decodificar(antes);
+            return PaginaKeyset.haciaAtras(usuarioRepository.findPaginaAntes(patron, cursor.getClaveComoFecha(), cursor.getId(),
+                    PaginaKeyset.limite(tamano)), antes, u -> CursorKeyset.de(u.getCreatedAt(), u.getId()));
+        }
+        return PaginaKeyset.haciaAdelante(usuarioRepository.findPrimeraPagina(patron, PaginaKeyset.limite(tamano)),
+                null, u -> CursorKeyset.de(u.getCreatedAt(), u.getId()));
+    }
+
     public void deleteUsuario(Long id) {
         usuarioRepository.deleteById(id);
     }
@@ -0,0 +1,19 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util;
+
+/**
+ * Nombres de las regiones de la caché de segundo nivel de los catálogos por usuario.
+ * Cada región se configura (tamaño y TTL) en ehcache.xml con el mismo nombre.
+ */
+public final class CatalogoCache {
+
+    public static final String TIPOS_CULTIVO = "catalogo.tipos-cultivo";
+    public static final String ETAPAS_CULTIVO = "catalogo.etapas-cultivo";
+    public static final String INSUMOS = "catalogo.insumos";
+    // Resultados de las consultas cacheables sobre los catálogos (se invalidan al modificar sus tablas)
+    public static final String CONSULTAS = "catalogo.consultas";
+
+    public static final String[] REGIONES_ENTIDAD = {TIPOS_CULTIVO, ETAPAS_CULTIVO, INSUMOS};
+
+    private CatalogoCache() {
+    }
+}
@@ -1,25 +1,86 @@
 package com.projectfinal.spring.agrosmart.agrosmart_application.util;
 
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Unidades de medida de insumos y parcelas. Cada unidad pertenece a una magnitud y declara su factor respecto
+ * a la unidad base de esa magnitud (KG, L, M2, UNIDAD); los empaques (saco, bulto...) no tienen un contenido
+ * fijo y solo equivalen a sí mismos. Las tablas de conversión por ordinal están en ConversionUnidades.
+ *
+ * Las constantes nuevas van al final: el orden no se persiste (se guarda el nombre), pero fija los ordinales.
+ */
 public enum UnidadMedida {
-    KG("Kilogramos"),
-    L("Litros"),
-    UNIDAD("Unidad(es)"),
-    M2("Metros Cuadrados"),
-    M3("Metros Cúbicos"),
-    GR("Gramos"),
-    ML("Mililitros"),
-    SACO("Saco(s)"),
-    BOTELLA("Botella(s)"),
-    CANECAS("Caneca(s)"),
-    BULTO("Bulto(s)");
+    KG("Kilogramos", Magnitud.MASA, "1", "kg", "kgs", "kilo", "kilos", "kilogramo"),
+    L("Litros", Magnitud.VOLUMEN, "1", "l", "lt", "lts", "litro"),
+    UNIDAD("Unidad(es)", Magnitud.CONTEO, "1", "unidad", "unidades", "und", "un"),
+    M2("Metros Cuadrados", Magnitud.AREA, "1", "m2", "m²", "metro cuadrado", "metros cuadrados (m²)"),
+    M3("Metros Cúbicos", Magnitud.VOLUMEN, "1000", "m3", "m³", "metro cubico"),
+    GR("Gramos", Magnitud.MASA, "0.001", "g", "gr", "grs", "gramo"),
+    ML("Mililitros", Magnitud.VOLUMEN, "0.001", "ml", "mililitro", "cc"),
+    SACO("Saco(s)", Magnitud.EMPAQUE, "1", "saco", "sacos"),
+    BOTELLA("Botella(s)", Magnitud.EMPAQUE, "1", "botella", "botellas"),
+    CANECAS("Caneca(s)", Magnitud.EMPAQUE, "1", "caneca", "canecas"),
+    BULTO("Bulto(s)", Magnitud.EMPAQUE, "1", "bulto", "bultos"),
+    HECTAREA("Hectáreas", Magnitud.AREA, "10000", "ha", "hectarea", "hectareas");
+
+    public enum Magnitud {
+        MASA, VOLUMEN, AREA, CONTEO, EMPAQUE
+    }
+
+    private static final Map<String, UnidadMedida> POR_TEXTO = new HashMap<>();
+
+    static {
+        for (UnidadMedida unidad : values()) {
+            POR_TEXTO.put(normalizar(unidad.name()), unidad);
+            POR_TEXTO.put(normalizar(unidad.descripcion), unidad);
+            for (String alias : unidad.alias) {
+                POR_TEXTO.put(normalizar(alias), unidad);
+            }
+        }
+    }
 
     private final String descripcion;
+    private final Magnitud magnitud;
+    private final BigDecimal factorBase;
+    private final String[] alias;
 
-    UnidadMedida(String descripcion) {
+    UnidadMedida(String descripcion, Magnitud magnitud, String factorBase, String... alias) {
         this.descripcion = descripcion;
+        this.magnitud = magnitud;
+        this.factorBase = new BigDecimal(factorBase);
+        this.alias = alias;
     }
 
     public String getDescripcion() {
         return descripcion;
     }
+
+    public Magnitud getMagnitud() {
+        return magnitud;
+    }
+
+    /** Cuántas unidades base de su magnitud equivale una de esta unidad (1 GR = 0.001 KG). */
+    public BigDecimal getFactorBase() {
+        return factorBase;
+    }
+
+    /**
+     * Reconoce el texto guardado en unidadMedida: el código (KG), la descripción (Kilogramos) o una abreviatura
+     * habitual (kg, ha, m²), sin distinguir mayúsculas, tildes ni espacios sobrantes. Se usa al escribir, para
+     * guardar la unidad ya tipada; las conversiones posteriores no comparan textos.
+     * @return La unidad, o null si el texto no corresponde a ninguna (unidades libres de la opción "Otro").
+     */
+    public static UnidadMedida desdeTexto(String texto) {
+        return texto == null ? null : POR_TEXTO.get(normalizar(texto));
+    }
+
+    private static String normalizar(String texto) {
+        String sinTildes = Normalizer.normalize(texto.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "");
+        return sinTildes.replace('²', '2').replace('³', '3').replaceAll("\\s+", " ");
+    }
 }
@@ -0,0 +1,136 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Recursos de /api/v1 y los campos que el cliente puede pedir con fields=. Cada campo es una expresión JPQL sobre
+ * el alias x de la entidad; los que necesitan otra tabla declaran su join, que solo entra en la consulta si se pide
+ * el campo. Los ids de las relaciones (x.parcela.id) salen de la clave foránea, sin join.
+ *
+ * El propietario es el usuario para los recursos de primer nivel y la planeación para sus líneas de insumo.
+ */
+@Getter
+public enum RecursoApi {
+
+    PARCELAS("Parcela", "x.usuario.id = :propietario", Orden.RECIENTES, campos()
+            .campo("nombre", "x.nombre")
+            .campo("ubicacion", "x.ubicacion")
+            .campo("tamano", "x.tamano")
+            .campo("unidadMedida", "x.unidadMedida")
+            .campo("areaM2", "x.areaM2")
+            .campo("descripcion", "x.descripcion")
+            .campo("createdAt", "x.createdAt")
+            .campo("updatedAt", "x.updatedAt")),
+
+    INSUMOS("Insumo", "x.usuario.id = :propietario", Orden.NOMBRE, campos()
+            .campo("nombre", "x.nombre")
+            .campo("tipo", "x.tipo")
+            .campo("proveedor", "x.proveedor")
+            .campo("unidadMedida", "x.unidadMedida")
+            .campo("unidadCodigo", "x.unidadCodigo")
+            .campo("precioUnitario", "x.precioUnitario")
+            .campo("descripcion", "x.descripcion")),
+
+    TIPOS_CULTIVO("TipoCultivo", "x.usuario.id = :propietario", Orden.NOMBRE, campos()
+            .campo("nombre", "x.nombre")
+            .campo("descripcion", "x.descripcion")
+            .campo("densidadSiembraRecomendadaPorHa", "x.densidadSiembraRecomendadaPorHa")
+            .campo("duracionDiasEstimada", "x.duracionDiasEstimada")
+            .campo("distanciaSurco", "x.distanciaSurco")
+            .campo("distanciaPlanta", "x.distanciaPlanta")),
+
+    ETAPAS("EtapaCultivo", "x.usuario.id = :propietario", Orden.NOMBRE, campos()
+            .campo("nombre", "x.nombre")
+            .campo("descripcion", "x.descripcion")
+            .campo("duracionDias", "x.duracionDias")),
+
+    PLANEACIONES("PlaneacionCultivo", "x.usuario.id = :propietario", Orden.RECIENTES, campos()
+            .campo("nombre", "x.nombre")
+            .campo("parcelaId", "x.parcela.id")
+            .campo("parcelaNombre", "pa.nombre", "JOIN x.parcela pa")
+            .campo("tipoCultivoId", "x.tipoCultivo.id")
+            .campo("tipoCultivoNombre", "tc.nombre", "JOIN x.tipoCultivo tc")
+            .campo("etapaCultivoId", "x.etapaCultivo.id")
+            .campo("etapaCultivoNombre", "ec.nombre", "LEFT JOIN x.etapaCultivo ec")
+            .campo("fechaInicio", "x.fechaInicio")
+            .campo("fechaFinEstimada", "x.fechaFinEstimada")
+            .campo("numeroSemillas", "x.numeroSemillas")
+            .campo("estimacionCosto", "x.estimacionCosto")
+            .campo("estado", "x.estado")
+            .campo("descripcion", "x.descripcion")
+            .campo("createdAt", "x.createdAt")
+            .campo("updatedAt", "x.updatedAt")),
+
+    // Se filtran por el nombre del insumo, así que q= también agrega su join
+    INSUMOS_PLANEACION("InsumoPlaneacion", "x.planeacion.id = :propietario", Orden.ID, campos()
+            .campo("insumoId", "x.insumo.id")
+            .campo("insumoNombre", "i.nombre", "JOIN x.insumo i")
+            .campo("insumoUnidadMedida", "i.unidadMedida", "JOIN x.insumo i")
+            .campo("insumoPrecioUnitario", "i.precioUnitario", "JOIN x.insumo i")
+            .campo("cantidad", "x.cantidad")
+            .campo("cantidadBase", "x.cantidadBase")
+            .campo("unidadBase", "x.unidadBase")
+            .campo("totalInsumo", "x.totalInsumo")
+            .campo("fechaRegistro", "x.fechaRegistro")
+            .campo("observaciones", "x.observaciones"));
+
+    /** Orden estable de cada listado; es el mismo que usan las páginas web del recurso. */
+    public enum Orden {
+        /** (createdAt DESC, id DESC): lo último creado primero. */
+        RECIENTES,
+        /** (nombre ASC, id ASC). */
+        NOMBRE,
+        /** id ASC: orden de registro. */
+        ID
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Campo {
+        private final String expresion;
+        // null si la expresión solo usa columnas de x
+        private final String join;
+    }
+
+    private final String entidad;
+    private final String propiedad;
+    private final Orden orden;
+    private final Map<String, Campo> campos;
+
+    RecursoApi(String entidad, String propiedad, Orden orden, Campos campos) {
+        this.entidad = entidad;
+        this.propiedad = propiedad;
+        this.orden = orden;
+        this.campos = Collections.unmodifiableMap(campos.porNombre);
+    }
+
+    /** Campo por el que filtra q=. */
+    public Campo getFiltro() {
+        return switch (this) {
+            case INSUMOS_PLANEACION -> campos.get("insumoNombre");
+            default -> new Campo("x.nombre", null);
+        };
+    }
+
+    private static Campos campos() {
+        return new Campos();
+    }
+
+    private static class Campos {
+        private final Map<String, Campo> porNombre = new LinkedHashMap<>();
+
+        Campos campo(String nombre, String expresion) {
+            return campo(nombre, expresion, null);
+        }
+
+        Campos campo(String nombre, String expresion, String join) {
+            porNombre.put(nombre, new Campo(expresion, join));
+            return this;
+        }
+    }
+}
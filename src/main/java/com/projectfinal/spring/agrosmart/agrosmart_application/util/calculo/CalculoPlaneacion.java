@@ -0,0 +1,53 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Cálculos puros de la planeación: área de la parcela, número de semillas y costo de las líneas de insumo.
+ *
+ * Los servicios validan y persisten; aquí solo está la aritmética, sin dependencias de Spring ni de las
+ * entidades (solo UnidadMedida), para que el módulo benchmarks (JMH) compile estas mismas fuentes y las mida
+ * aisladas.
+ */
+public final class CalculoPlaneacion {
+
+    private CalculoPlaneacion() {
+    }
+
+    /**
+     * Convierte el tamaño de una parcela a metros cuadrados con la tabla de ConversionUnidades.
+     * @throws IllegalArgumentException si la unidad no es de área.
+     */
+    public static BigDecimal areaEnM2(BigDecimal tamano, UnidadMedida unidadMedida) {
+        if (unidadMedida == null || unidadMedida.getMagnitud() != UnidadMedida.Magnitud.AREA) {
+            throw new IllegalArgumentException("Unidad de medida de parcela no soportada: "
+                    + (unidadMedida == null ? null : unidadMedida.getDescripcion()));
+        }
+        return ConversionUnidades.convertir(tamano, unidadMedida, UnidadMedida.M2);
+    }
+
+    /**
+     * Semillas que caben en el área con el marco de siembra (surco x planta, en metros), redondeado a entero.
+     * Las distancias deben ser mayores que cero (lo comprueba el servicio, que conoce el tipo de cultivo).
+     */
+    public static BigDecimal numeroSemillas(BigDecimal areaEnM2, BigDecimal distanciaSurco, BigDecimal distanciaPlanta) {
+        BigDecimal espacioPorPlanta = distanciaSurco.multiply(distanciaPlanta);
+        return areaEnM2.divide(espacioPorPlanta, 0, RoundingMode.HALF_UP);
+    }
+
+    /** Total de una línea de insumo: cantidad x precio unitario, redondeado a 2 decimales para moneda. */
+    public static BigDecimal totalLinea(BigDecimal cantidad, BigDecimal precioUnitario) {
+        return cantidad.multiply(precioUnitario).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Diferencia que una línea guardada aplica al estimacionCosto de su planeación.
+     * @param totalAnterior El total guardado de la línea, o null si es nueva.
+     */
+    public static BigDecimal deltaCosto(BigDecimal totalNuevo, BigDecimal totalAnterior) {
+        return totalAnterior == null ? totalNuevo : totalNuevo.subtract(totalAnterior);
+    }
+}
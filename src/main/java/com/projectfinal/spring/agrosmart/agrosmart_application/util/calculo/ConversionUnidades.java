@@ -0,0 +1,70 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+
+/**
+ * Conversión entre unidades de medida con tablas precalculadas por ordinal de UnidadMedida: cada conversión es
+ * una búsqueda en un arreglo y una multiplicación, sin comparar textos ni recorrer las unidades.
+ *
+ * Lo que se guarda en la base ya viene convertido a la unidad base de su magnitud (parcelas.area_m2,
+ * insumos_planeacion.cantidad_base), así que los agregados entre parcelas o insumos son sumas numéricas.
+ */
+public final class ConversionUnidades {
+
+    private static final UnidadMedida[] UNIDADES = UnidadMedida.values();
+    // FACTORES[de][a]: factor por el que se multiplica una cantidad en 'de' para expresarla en 'a'; null si no se puede
+    private static final BigDecimal[][] FACTORES = new BigDecimal[UNIDADES.length][UNIDADES.length];
+    private static final UnidadMedida[] BASE = new UnidadMedida[UNIDADES.length];
+
+    static {
+        for (UnidadMedida de : UNIDADES) {
+            for (UnidadMedida a : UNIDADES) {
+                if (convertibles(de, a)) {
+                    BigDecimal factor = de.getFactorBase().divide(a.getFactorBase(), MathContext.DECIMAL64);
+                    // 1 / 0.001 da 1E+3: escala no negativa para que los productos se guarden sin exponente
+                    FACTORES[de.ordinal()][a.ordinal()] = factor.scale() < 0 ? factor.setScale(0) : factor;
+                }
+            }
+            BASE[de.ordinal()] = de;
+            for (UnidadMedida candidata : UNIDADES) {
+                if (convertibles(de, candidata) && candidata.getFactorBase().compareTo(BigDecimal.ONE) == 0) {
+                    BASE[de.ordinal()] = candidata;
+                    break;
+                }
+            }
+        }
+    }
+
+    private ConversionUnidades() {
+    }
+
+    // Misma magnitud; un empaque solo equivale a sí mismo (un saco y un bulto no tienen contenido fijo)
+    private static boolean convertibles(UnidadMedida de, UnidadMedida a) {
+        return de.getMagnitud() == a.getMagnitud() && (de.getMagnitud() != UnidadMedida.Magnitud.EMPAQUE || de == a);
+    }
+
+    /** Unidad base de la magnitud de la unidad: KG, L, M2 o UNIDAD; un empaque es su propia base. */
+    public static UnidadMedida base(UnidadMedida unidad) {
+        return BASE[unidad.ordinal()];
+    }
+
+    /**
+     * Convierte una cantidad entre dos unidades de la misma magnitud.
+     * @throws IllegalArgumentException si las unidades no son convertibles entre sí.
+     */
+    public static BigDecimal convertir(BigDecimal cantidad, UnidadMedida de, UnidadMedida a) {
+        BigDecimal factor = FACTORES[de.ordinal()][a.ordinal()];
+        if (factor == null) {
+            throw new IllegalArgumentException("No se puede convertir " + de.getDescripcion() + " a " + a.getDescripcion() + ".");
+        }
+        return cantidad.multiply(factor);
+    }
+
+    /** Expresa una cantidad en la unidad base de su magnitud (1500 GR = 1.5 KG). */
+    public static BigDecimal aBase(BigDecimal cantidad, UnidadMedida unidad) {
+        return cantidad.multiply(FACTORES[unidad.ordinal()][BASE[unidad.ordinal()].ordinal()]);
+    }
+}
@@ -0,0 +1,79 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.csv;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Una fila leída por {@link LectorCsv}, con acceso a los valores por nombre de columna.
+ */
+public class FilaCsv {
+
+    private final int linea;
+    private final List<String> valores;
+    private final Map<String, Integer> columnas;
+
+    FilaCsv(int linea, List<String> valores, Map<String, Integer> columnas) {
+        this.linea = linea;
+        this.valores = valores;
+        this.columnas = columnas;
+    }
+
+    /** Número de línea del archivo donde empieza la fila (la cabecera es la línea 1). */
+    public int getLinea() {
+        return linea;
+    }
+
+    /**
+     * Valor de la columna sin espacios alrededor, o null si la columna no existe o la celda está vacía.
+     */
+    public String texto(String columna) {
+        Integer indice = columnas.get(LectorCsv.normalizar(columna));
+        if (indice == null || indice >= valores.size()) {
+            return null;
+        }
+        String valor = valores.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    /**
+     * Valor decimal de la columna, en formato español o inglés: "12,50", "1.234,56", "1234.56" y "1,234.56".
+     * Si aparecen punto y coma, el último es el separador decimal y el otro agrupa miles; si solo aparece uno de
+     * los dos, es decimal cuando sale una vez ("12,5") y de miles cuando se repite ("1.234.567").
+     * @throws IllegalArgumentException si el valor no es un número.
+     */
+    public BigDecimal decimal(String columna) {
+        String valor = texto(columna);
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(normalizarDecimal(valor));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El valor '" + valor + "' de la columna '" + columna + "' no es un número válido.");
+        }
+    }
+
+    static String normalizarDecimal(String valor) {
+        int ultimoPunto = valor.lastIndexOf('.');
+        int ultimaComa = valor.lastIndexOf(',');
+        if (ultimoPunto < 0 && ultimaComa < 0) {
+            return valor;
+        }
+        char decimal = ultimoPunto > ultimaComa ? '.' : ',';
+        char miles = decimal == '.' ? ',' : '.';
+        // Los miles van antes del separador decimal: "1.234,56" sí, "1,23.4" no
+        if (valor.indexOf(miles) > valor.lastIndexOf(decimal)) {
+            throw new NumberFormatException(valor);
+        }
+        String sinMiles = valor.replace(String.valueOf(miles), "");
+        if (sinMiles.indexOf(decimal) != sinMiles.lastIndexOf(decimal)) {
+            // Un solo signo repetido: agrupa miles ("1.234.567")
+            if (valor.indexOf(miles) >= 0) {
+                throw new NumberFormatException(valor);
+            }
+            return sinMiles.replace(String.valueOf(decimal), "");
+        }
+        return sinMiles.replace(decimal, '.');
+    }
+}
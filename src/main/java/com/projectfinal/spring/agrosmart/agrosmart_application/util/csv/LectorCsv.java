@@ -0,0 +1,183 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.csv;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lector CSV en streaming: devuelve una fila cada vez, sin cargar el archivo en memoria.
+ * Admite campos entre comillas (con comillas dobles escapadas y saltos de línea dentro del campo),
+ * BOM UTF-8 y separador ',' o ';' (este último es el que usa Excel en español), detectado en la cabecera.
+ */
+public class LectorCsv implements Closeable {
+
+    private static final Set<String> CONECTORES = Set.of("de", "del", "la", "el");
+
+    private final Reader reader;
+    private final Map<String, Integer> columnas = new HashMap<>();
+    private char separador = ',';
+    private int lineaActual = 1;
+    private int lineaFila;
+    private int siguiente = -2;
+
+    public LectorCsv(InputStream inputStream) throws IOException {
+        this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        leerCabecera();
+    }
+
+    private void leerCabecera() throws IOException {
+        if (peek() == '\uFEFF') {
+            leer();
+        }
+        StringBuilder primeraLinea = new StringBuilder();
+        // Se lee la cabecera completa para detectar el separador y luego se trocea
+        int c;
+        while ((c = leer()) != -1 && c != '\n') {
+            if (c != '\r') {
+                primeraLinea.append((char) c);
+            }
+        }
+        if (primeraLinea.length() == 0) {
+            throw new IllegalArgumentException("El archivo está vacío o no tiene cabecera.");
+        }
+        String cabecera = primeraLinea.toString();
+        if (cabecera.indexOf(';') >= 0 && cabecera.indexOf(',') < 0) {
+            separador = ';';
+        }
+        List<String> nombres = trocear(cabecera);
+        for (int i = 0; i < nombres.size(); i++) {
+            columnas.putIfAbsent(normalizar(nombres.get(i)), i);
+        }
+    }
+
+    /**
+     * Normaliza un nombre de columna para que "Unidad de Medida", "unidad_medida" y "unidadMedida" coincidan:
+     * separa las palabras, quita tildes y descarta los conectores ("de", "del", "la", "el").
+     */
+    public static String normalizar(String nombre) {
+        String sinTildes = Normalizer.normalize(nombre, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        StringBuilder normalizado = new StringBuilder();
+        for (String palabra : sinTildes.replaceAll("([a-z0-9])([A-Z])", "$1 $2").toLowerCase().split("[^a-z0-9]+")) {
+            if (!CONECTORES.contains(palabra)) {
+                normalizado.append(palabra);
+            }
+        }
+        return normalizado.toString();
+    }
+
+    /** Indica si la cabecera contiene la columna (nombre sin normalizar). */
+    public boolean tieneColumna(String nombre) {
+        return columnas.containsKey(normalizar(nombre));
+    }
+
+    /** Lanza IllegalArgumentException si falta alguna de las columnas indicadas. */
+    public void exigirColumnas(String... nombres) {
+        for (String nombre : nombres) {
+            if (!tieneColumna(nombre)) {
+                throw new IllegalArgumentException("Falta la columna obligatoria '" + nombre + "' en la cabecera del archivo.");
+            }
+        }
+    }
+
+    /**
+     * Lee la siguiente fila.
+     * @return La fila, o null al llegar al final del archivo. Las líneas vacías se saltan.
+     */
+    public FilaCsv siguienteFila() throws IOException {
+        while (peek() != -1) {
+            lineaFila = lineaActual;
+            List<String> valores = leerRegistro();
+            if (valores.size() == 1 && valores.get(0).isEmpty()) {
+                continue;
+            }
+            return new FilaCsv(lineaFila, valores, columnas);
+        }
+        return null;
+    }
+
+    private List<String> leerRegistro() throws IOException {
+        List<String> valores = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        int c;
+        while ((c = leer()) != -1) {
+            if (entreComillas) {
+                if (c == '"') {
+                    if (peek() == '"') {
+                        campo.append((char) leer());
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    campo.append((char) c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == separador) {
+                valores.add(campo.toString());
+                campo.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                campo.append((char) c);
+            }
+        }
+        valores.add(campo.toString());
+        return valores;
+    }
+
+    private List<String> trocear(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder campo = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (c == '"') {
+                entreComillas = !entreComillas;
+            } else if (c == separador && !entreComillas) {
+                valores.add(campo.toString());
+                campo.setLength(0);
+            } else {
+                campo.append(c);
+            }
+        }
+        valores.add(campo.toString());
+        return valores;
+    }
+
+    private int leer() throws IOException {
+        int c;
+        if (siguiente != -2) {
+            c = siguiente;
+            siguiente = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            lineaActual++;
+        }
+        return c;
+    }
+
+    private int peek() throws IOException {
+        if (siguiente == -2) {
+            siguiente = reader.read();
+        }
+        return siguiente;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
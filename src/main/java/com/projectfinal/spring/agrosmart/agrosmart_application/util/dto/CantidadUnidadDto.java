@@ -0,0 +1,19 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Suma de las cantidades de varias líneas de insumo expresadas en una misma unidad base (KG, L, M2, UNIDAD o un empaque).
+ */
+@Getter
+@AllArgsConstructor
+public class CantidadUnidadDto {
+
+    private UnidadMedida unidad;
+    private BigDecimal cantidad;
+
+}
@@ -0,0 +1,20 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Número de planeaciones y costo estimado acumulado de un usuario en un estado, para recalcular su resumen.
+ */
+@Getter
+@AllArgsConstructor
+public class ConteoEstadoDto {
+
+    private EstadoPlaneacion estado;
+    private Long cantidad;
+    private BigDecimal costo;
+
+}
@@ -0,0 +1,23 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Contadores acumulados de una región de la caché de segundo nivel desde el arranque.
+ */
+@Getter
+@AllArgsConstructor
+public class EstadisticaCache {
+
+    private String region;
+    private long aciertos;
+    private long fallos;
+    private long escrituras;
+
+    // Porcentaje de lecturas servidas por la caché (0 si aún no hubo lecturas)
+    public double getTasaAciertos() {
+        long lecturas = aciertos + fallos;
+        return lecturas == 0 ? 0 : aciertos * 100.0 / lecturas;
+    }
+}
@@ -0,0 +1,27 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila plana para el listado de insumos de una planeación, con los datos del insumo
+ * ya resueltos en la misma consulta.
+ */
+@Getter
+@AllArgsConstructor
+public class InsumoPlaneacionListadoDto {
+
+    private Long id;
+    private Long insumoId;
+    private String insumoNombre;
+    private String insumoUnidadMedida;
+    private BigDecimal insumoPrecioUnitario;
+    private BigDecimal cantidad;
+    private BigDecimal totalInsumo;
+    private LocalDate fechaRegistro;
+    private String observaciones;
+
+}
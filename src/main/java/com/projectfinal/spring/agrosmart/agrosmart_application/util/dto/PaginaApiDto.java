@@ -0,0 +1,19 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Página de un listado de /api/v1: las filas con los campos pedidos y el cursor para pedir la siguiente
+ * (despues=), null en la última.
+ */
+@Getter
+@AllArgsConstructor
+public class PaginaApiDto {
+
+    private List<Map<String, Object>> datos;
+    private String siguiente;
+}
@@ -0,0 +1,26 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Volumen de datos sintéticos que crea GeneradorDatosService. Los valores "por" son medias: cada usuario,
+ * parcela o planeación toma su cantidad de una distribución log-normal, así que unos pocos usuarios concentran
+ * muchas más filas que la mayoría, como en producción.
+ */
+@Getter
+@Setter
+public class ParametrosGeneracion {
+
+    /** Usuarios carga-0@agrosmart.test ... carga-(n-1)@agrosmart.test; los que ya existen no se vuelven a crear. */
+    private int usuarios = 1000;
+    private double parcelasPorUsuario = 4;
+    /** Tipos de cultivo además de los tres que crea el registro (Café, Maíz, Cacao). */
+    private double tiposExtraPorUsuario = 2;
+    private double insumosPorUsuario = 25;
+    private double planeacionesPorParcela = 3;
+    private double lineasPorPlaneacion = 6;
+    /** Misma semilla, mismos datos: cada usuario usa su propio generador derivado de la semilla y su número. */
+    private long semilla = 42;
+    private String password = "carga-secreta";
+}
@@ -0,0 +1,31 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Fila plana para el listado de planeaciones. Se construye directamente en la consulta JPQL
+ * (join con parcela, tipo y etapa), de modo que la vista no navega relaciones LAZY.
+ */
+@Getter
+@AllArgsConstructor
+public class PlaneacionCultivoListadoDto {
+
+    private Long id;
+    private String nombre;
+    private String parcelaNombre;
+    private String tipoCultivoNombre;
+    private String etapaCultivoNombre;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFinEstimada;
+    private BigDecimal numeroSemillas;
+    private BigDecimal estimacionCosto;
+    private EstadoPlaneacion estado;
+    private LocalDateTime createdAt;
+
+}
@@ -0,0 +1,35 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Fila de la exportación contable: una planeación combinada con una de sus líneas de insumo.
+ * Las planeaciones sin insumos salen en una sola fila con los campos del insumo vacíos.
+ */
+@Getter
+@AllArgsConstructor
+public class PlaneacionExportacionFila {
+
+    private Long planeacionId;
+    private String planeacionNombre;
+    private String parcelaNombre;
+    private String tipoCultivoNombre;
+    private String etapaCultivoNombre;
+    private LocalDate fechaInicio;
+    private LocalDate fechaFinEstimada;
+    private EstadoPlaneacion estado;
+    private BigDecimal estimacionCosto;
+    private String insumoNombre;
+    private String insumoUnidadMedida;
+    private BigDecimal insumoPrecioUnitario;
+    private BigDecimal cantidad;
+    private BigDecimal totalInsumo;
+    private LocalDate fechaRegistro;
+    private String observaciones;
+
+}
@@ -0,0 +1,34 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Réplicas de lectura (agrosmart.replicas.*, ver ReplicasConfig). Sin urls toda la aplicación usa el
+ * spring.datasource.url de siempre.
+ */
+@Getter
+@Setter
+public class PropiedadesReplicas {
+
+    /** URL JDBC de cada réplica; cada una tiene su propio pool. */
+    private List<String> urls = new ArrayList<>();
+    /** Credenciales de las réplicas; vacías, las de spring.datasource. */
+    private String username;
+    private String password;
+    private int tamanoPool = 10;
+    /**
+     * Retraso de replicación tolerado. Una réplica más atrasada deja de recibir lecturas hasta que se pone al día,
+     * y un usuario lee de la primaria durante este tiempo después de cada escritura suya (leer lo que escribió).
+     */
+    private Duration retrasoMaximo = Duration.ofSeconds(5);
+    /** Cada cuánto se mide el retraso de las réplicas. */
+    private Duration intervaloVerificacion = Duration.ofSeconds(10);
+    /** Consulta que devuelve el retraso de la réplica en segundos (0 si está al día). */
+    private String consultaRetraso = "SELECT CASE WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+}
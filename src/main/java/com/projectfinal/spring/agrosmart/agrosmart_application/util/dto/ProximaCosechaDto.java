@@ -0,0 +1,22 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDate;
+
+/**
+ * Planeación con cosecha estimada próxima, para el dashboard.
+ */
+@Getter
+@AllArgsConstructor
+public class ProximaCosechaDto {
+
+    private Long id;
+    private String nombre;
+    private String parcelaNombre;
+    private LocalDate fechaFinEstimada;
+    private EstadoPlaneacion estado;
+
+}
@@ -0,0 +1,45 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.Getter;
+
+/**
+ * Resumen de una actualización masiva de precios: filas tocadas en cada tabla, lotes procesados
+ * y tiempo total. Una planeación que usa insumos de varios lotes se cuenta una vez por lote.
+ * Si la actualización se detuvo, error tiene el motivo y los contadores lo ya confirmado.
+ */
+@Getter
+public class ResultadoActualizacionPrecios {
+
+    private int insumosActualizados;
+    private int lineasActualizadas;
+    private int planeacionesActualizadas;
+    private int lotes;
+    private long milisegundos;
+    private String error;
+
+    public void preciosAjustados(int insumos) {
+        insumosActualizados = insumos;
+    }
+
+    public void sumarLote(int lineas, int planeaciones) {
+        lineasActualizadas += lineas;
+        planeacionesActualizadas += planeaciones;
+        lotes++;
+    }
+
+    public void error(String error) {
+        this.error = error;
+    }
+
+    public void finalizar(long milisegundos) {
+        this.milisegundos = milisegundos;
+    }
+
+    public boolean isCompleta() {
+        return error == null;
+    }
+
+    public int getFilasActualizadas() {
+        return insumosActualizados + lineasActualizadas + planeacionesActualizadas;
+    }
+}
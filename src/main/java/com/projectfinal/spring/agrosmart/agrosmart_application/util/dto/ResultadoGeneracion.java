@@ -0,0 +1,45 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.Getter;
+
+/**
+ * Filas creadas por GeneradorDatosService y tiempo total.
+ */
+@Getter
+public class ResultadoGeneracion {
+
+    private int usuariosExistentes;
+    private int usuarios;
+    private int parcelas;
+    private int tiposCultivo;
+    private int etapasCultivo;
+    private int insumos;
+    private int planeaciones;
+    private int lineas;
+    private long milisegundos;
+
+    public void usuariosExistentes(int usuariosExistentes) {
+        this.usuariosExistentes = usuariosExistentes;
+    }
+
+    public void sumarUsuario(int parcelas, int tiposCultivo, int etapasCultivo, int insumos, int planeaciones, int lineas) {
+        this.usuarios++;
+        this.parcelas += parcelas;
+        this.tiposCultivo += tiposCultivo;
+        this.etapasCultivo += etapasCultivo;
+        this.insumos += insumos;
+        this.planeaciones += planeaciones;
+        this.lineas += lineas;
+    }
+
+    public void finalizar(long milisegundos) {
+        this.milisegundos = milisegundos;
+    }
+
+    @Override
+    public String toString() {
+        return usuarios + " usuarios nuevos (" + usuariosExistentes + " ya existían), " + parcelas + " parcelas, "
+                + tiposCultivo + " tipos de cultivo, " + etapasCultivo + " etapas, " + insumos + " insumos, "
+                + planeaciones + " planeaciones y " + lineas + " líneas de insumo en " + milisegundos + " ms";
+    }
+}
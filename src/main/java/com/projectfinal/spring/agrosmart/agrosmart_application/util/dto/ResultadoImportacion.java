@@ -0,0 +1,60 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Resumen de una importación masiva desde CSV: filas leídas, filas guardadas y errores por fila.
+ * Solo se conservan los primeros {@link #MAXIMO_ERRORES} errores para que un archivo
+ * completamente inválido no llene la memoria; el resto solo se cuenta.
+ */
+@Getter
+public class ResultadoImportacion {
+
+    public static final int MAXIMO_ERRORES = 500;
+
+    private int filasLeidas;
+    private int filasImportadas;
+    private int erroresOmitidos;
+    private long milisegundos;
+    private final List<ErrorFila> errores = new ArrayList<>();
+
+    public void filaLeida() {
+        filasLeidas++;
+    }
+
+    public void filasImportadas(int cantidad) {
+        filasImportadas += cantidad;
+    }
+
+    public void error(int linea, String mensaje) {
+        if (errores.size() < MAXIMO_ERRORES) {
+            errores.add(new ErrorFila(linea, mensaje));
+        } else {
+            erroresOmitidos++;
+        }
+    }
+
+    public void finalizar(long milisegundos) {
+        this.milisegundos = milisegundos;
+    }
+
+    public int getFilasConError() {
+        return errores.size() + erroresOmitidos;
+    }
+
+    /** Filas importadas por segundo (0 si la importación fue instantánea). */
+    public long getFilasPorSegundo() {
+        return milisegundos > 0 ? filasImportadas * 1000L / milisegundos : 0;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class ErrorFila {
+        private final int linea;
+        private final String mensaje;
+    }
+}
@@ -0,0 +1,18 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+
+/**
+ * Planeación y total guardados de una línea de insumo, para aplicar el delta de costo al modificarla.
+ */
+@Getter
+@AllArgsConstructor
+public class TotalLineaDto {
+
+    private Long planeacionId;
+    private BigDecimal totalInsumo;
+
+}
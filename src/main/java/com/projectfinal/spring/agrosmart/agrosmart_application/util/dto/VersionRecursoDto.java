@@ -0,0 +1,34 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Versión de lo que muestra una página, leída con una sola consulta: cuántos registros hay, la última
+ * modificación entre los que guardan updatedAt y el contador de cambios del usuario para los que no
+ * (tipos, etapas, insumos y líneas de insumo). Cambia si cambia cualquiera de los datos de la página.
+ */
+@Getter
+@AllArgsConstructor
+public class VersionRecursoDto {
+
+    private Long cantidad;
+    private LocalDateTime ultimaModificacion;
+    private Long versionDatos;
+    // Último cambio registrado en el resumen del usuario: también avanza con los borrados
+    private LocalDateTime ultimoCambioUsuario;
+
+    public String getEtiqueta() {
+        return cantidad + ":" + ultimaModificacion + ":" + versionDatos;
+    }
+
+    // Para Last-Modified: la fecha más reciente de las dos (un borrado no cambia ultimaModificacion)
+    public LocalDateTime getUltimaModificacionPagina() {
+        if (ultimaModificacion == null || ultimoCambioUsuario == null) {
+            return ultimaModificacion != null ? ultimaModificacion : ultimoCambioUsuario;
+        }
+        return ultimaModificacion.isAfter(ultimoCambioUsuario) ? ultimaModificacion : ultimoCambioUsuario;
+    }
+}
@@ -0,0 +1,17 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Escribe una tabla fila a fila directamente sobre un OutputStream, sin acumular filas en memoria.
+ * Los valores admitidos son String, Number (se escriben como número), LocalDate, enums y null (celda vacía).
+ * close() termina el documento pero no cierra el stream de salida.
+ */
+public interface EscritorTabla extends Closeable {
+
+    void fila(Object... valores) throws IOException;
+
+    /** Envía al cliente lo escrito hasta ahora. */
+    void flush() throws IOException;
+}
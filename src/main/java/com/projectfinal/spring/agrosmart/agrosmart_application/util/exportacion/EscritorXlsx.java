@@ -0,0 +1,117 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Libro XLSX mínimo (una hoja) escrito en streaming: el paquete zip se genera a medida que
+ * llegan las filas, con las cadenas en línea (inlineStr) para no necesitar una tabla de cadenas
+ * compartidas que obligaría a tener todo el contenido en memoria.
+ * Las fechas se escriben como texto ISO (aaaa-mm-dd).
+ */
+public class EscritorXlsx implements EscritorTabla {
+
+    private final ZipOutputStream zip;
+    private final Writer hoja;
+    private int numeroFila = 0;
+
+    public EscritorXlsx(OutputStream salida, String nombreHoja) throws IOException {
+        this.zip = new ZipOutputStream(salida, StandardCharsets.UTF_8);
+        Writer writer = new OutputStreamWriter(zip, StandardCharsets.UTF_8);
+
+        entrada("[Content_Types].xml", writer,
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">"
+                + "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>"
+                + "<Default Extension=\"xml\" ContentType=\"application/xml\"/>"
+                + "<Override PartName=\"/xl/workbook.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>"
+                + "<Override PartName=\"/xl/worksheets/sheet1.xml\" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>"
+                + "</Types>");
+        entrada("_rels/.rels", writer,
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\" Target=\"xl/workbook.xml\"/>"
+                + "</Relationships>");
+        entrada("xl/workbook.xml", writer,
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\" "
+                + "xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">"
+                + "<sheets><sheet name=\"" + escapar(nombreHoja) + "\" sheetId=\"1\" r:id=\"rId1\"/></sheets>"
+                + "</workbook>");
+        entrada("xl/_rels/workbook.xml.rels", writer,
+                "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">"
+                + "<Relationship Id=\"rId1\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\" Target=\"worksheets/sheet1.xml\"/>"
+                + "</Relationships>");
+
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet1.xml"));
+        this.hoja = new BufferedWriter(writer);
+        hoja.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    }
+
+    private void entrada(String nombre, Writer writer, String contenido) throws IOException {
+        zip.putNextEntry(new ZipEntry(nombre));
+        writer.write(contenido);
+        writer.flush();
+        zip.closeEntry();
+    }
+
+    @Override
+    public void fila(Object... valores) throws IOException {
+        numeroFila++;
+        hoja.write("<row r=\"" + numeroFila + "\">");
+        for (Object valor : valores) {
+            if (valor == null) {
+                hoja.write("<c/>");
+            } else if (valor instanceof Number numero) {
+                String texto = numero instanceof BigDecimal decimal ? decimal.toPlainString() : numero.toString();
+                hoja.write("<c><v>" + texto + "</v></c>");
+            } else {
+                hoja.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">" + escapar(valor.toString()) + "</t></is></c>");
+            }
+        }
+        hoja.write("</row>");
+    }
+
+    private static String escapar(String texto) {
+        StringBuilder sb = new StringBuilder(texto.length());
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '&' -> sb.append("&amp;");
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '"' -> sb.append("&quot;");
+                default -> {
+                    // Caracteres de control no permitidos en XML 1.0 (salvo tabulador y saltos de línea)
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        hoja.flush();
+        zip.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        hoja.write("</sheetData></worksheet>");
+        hoja.flush();
+        zip.closeEntry();
+        zip.finish();
+    }
+}
@@ -0,0 +1,29 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+public enum FormatoExportacion {
+    CSV("text/csv;charset=UTF-8", "csv"),
+    XLSX("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", "xlsx");
+
+    private final String contentType;
+    private final String extension;
+
+    FormatoExportacion(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public EscritorTabla crearEscritor(OutputStream salida, String nombreHoja) throws IOException {
+        return this == XLSX ? new EscritorXlsx(salida, nombreHoja) : new EscritorCsv(salida);
+    }
+}
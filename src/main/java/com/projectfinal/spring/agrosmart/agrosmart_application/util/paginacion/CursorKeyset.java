@@ -0,0 +1,62 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Posición de una fila dentro de un orden estable (clave de orden, id).
+ * Se viaja en la URL como texto opaco en Base64 URL-safe.
+ */
+@Getter
+@AllArgsConstructor
+public class CursorKeyset {
+
+    private static final char SEPARADOR = '|';
+
+    private final String clave;
+    private final Long id;
+
+    public static CursorKeyset de(String clave, Long id) {
+        return new CursorKeyset(clave, id);
+    }
+
+    public static CursorKeyset de(LocalDateTime fecha, Long id) {
+        return new CursorKeyset(fecha.toString(), id);
+    }
+
+    /**
+     * Clave del cursor leída como fecha (listados ordenados por createdAt).
+     * @throws IllegalArgumentException si la clave no es una fecha (cursor alterado).
+     */
+    public LocalDateTime getClaveComoFecha() {
+        try {
+            return LocalDateTime.parse(clave);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Cursor de paginación no válido.", e);
+        }
+    }
+
+    public String codificar() {
+        String plano = clave + SEPARADOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodifica un cursor recibido como parámetro de la URL.
+     * @throws IllegalArgumentException si el texto no es un cursor válido.
+     */
+    public static CursorKeyset decodificar(String cursor) {
+        try {
+            String plano = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int posicion = plano.lastIndexOf(SEPARADOR);
+            return new CursorKeyset(plano.substring(0, posicion), Long.valueOf(plano.substring(posicion + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Cursor de paginación no válido.", e);
+        }
+    }
+}
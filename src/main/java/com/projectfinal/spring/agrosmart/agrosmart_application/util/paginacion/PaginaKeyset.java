@@ -0,0 +1,98 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion;
+
+import lombok.Getter;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+/**
+ * Página de resultados obtenida por paginación keyset (cursor), con los cursores
+ * para navegar a la página siguiente y a la anterior.
+ * Las consultas nunca usan OFFSET: el costo por página no depende del tamaño de la tabla.
+ */
+@Getter
+public class PaginaKeyset<T> {
+
+    public static final int TAMANO_POR_DEFECTO = 20;
+    public static final int TAMANO_MAXIMO = 100;
+
+    private final List<T> contenido;
+    private final String cursorSiguiente;
+    private final String cursorAnterior;
+
+    private PaginaKeyset(List<T> contenido, String cursorSiguiente, String cursorAnterior) {
+        this.contenido = contenido;
+        this.cursorSiguiente = cursorSiguiente;
+        this.cursorAnterior = cursorAnterior;
+    }
+
+    public boolean hasSiguiente() {
+        return cursorSiguiente != null;
+    }
+
+    public boolean hasAnterior() {
+        return cursorAnterior != null;
+    }
+
+    /**
+     * Construye la página a partir de un Slice leído en el orden natural del listado
+     * (primera página o página posterior a un cursor).
+     * @param cursor Cursor del que partió la consulta, o null en la primera página (sin página anterior).
+     *               Si no hay filas después de él, se conserva como cursor anterior para poder volver.
+     */
+    public static <T> PaginaKeyset<T> haciaAdelante(Slice<T> slice, String cursor, Function<T, CursorKeyset> cursorDe) {
+        List<T> filas = slice.getContent();
+        if (filas.isEmpty()) {
+            return new PaginaKeyset<>(filas, null, cursor);
+        }
+        String siguiente = slice.hasNext() ? cursorDe.apply(filas.get(filas.size() - 1)).codificar() : null;
+        String anterior = cursor != null ? cursorDe.apply(filas.get(0)).codificar() : null;
+        return new PaginaKeyset<>(filas, siguiente, anterior);
+    }
+
+    /**
+     * Construye la página a partir de un Slice leído en orden inverso (página anterior a un cursor);
+     * las filas se devuelven de nuevo en el orden natural del listado.
+     * @param cursor Cursor del que partió la consulta. Si no hay filas antes de él, se conserva como
+     *               cursor siguiente para poder volver.
+     */
+    public static <T> PaginaKeyset<T> haciaAtras(Slice<T> slice, String cursor, Function<T, CursorKeyset> cursorDe) {
+        List<T> filas = new ArrayList<>(slice.getContent());
+        if (filas.isEmpty()) {
+            return new PaginaKeyset<>(filas, cursor, null);
+        }
+        Collections.reverse(filas);
+        String siguiente = cursorDe.apply(filas.get(filas.size() - 1)).codificar();
+        String anterior = slice.hasNext() ? cursorDe.apply(filas.get(0)).codificar() : null;
+        return new PaginaKeyset<>(filas, siguiente, anterior);
+    }
+
+    /**
+     * Pageable sin orden (el orden lo fija cada consulta) acotado a TAMANO_MAXIMO.
+     */
+    public static Pageable limite(int tamano) {
+        int acotado = tamano <= 0 ? TAMANO_POR_DEFECTO : Math.min(tamano, TAMANO_MAXIMO);
+        return PageRequest.ofSize(acotado);
+    }
+
+    /**
+     * Convierte el texto de filtro del usuario en un patrón LIKE (en minúsculas, con
+     * los comodines escapados con '!'). Un filtro vacío coincide con todo.
+     */
+    public static String patronFiltro(String filtro) {
+        if (filtro == null || filtro.isBlank()) {
+            return "%";
+        }
+        String escapado = filtro.trim().toLowerCase(Locale.ROOT)
+                .replace("!", "!!")
+                .replace("%", "!%")
+                .replace("_", "!_");
+        return "%" + escapado + "%";
+    }
+}
@@ -0,0 +1,62 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Sentencias SQL ejecutadas en una unidad de trabajo (una petición HTTP o un tramo de un test), agrupadas por
+ * forma: el texto con literales y listas IN colapsados, de modo que la misma consulta con otros parámetros cuenta
+ * como una repetición. Una misma forma repetida muchas veces es la huella de un N+1. Un lote JDBC cuenta como una
+ * sola ejecución. No es seguro entre hilos: cada hilo tiene el suyo (ver {@link RegistroSentencias}).
+ */
+public class ConteoSentencias {
+
+    private static final Pattern TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMERO = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTA = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ESPACIOS = Pattern.compile("\\s+");
+
+    private final Map<String, Integer> porForma = new LinkedHashMap<>();
+    private int total;
+
+    /** Forma de una sentencia: minúsculas, espacios normalizados y literales e IN (?, ?, ...) como un solo ?. */
+    public static String forma(String sql) {
+        String forma = TEXTO.matcher(sql).replaceAll("?");
+        forma = NUMERO.matcher(forma).replaceAll("?");
+        forma = LISTA.matcher(forma).replaceAll("(?)");
+        return ESPACIOS.matcher(forma).replaceAll(" ").trim().toLowerCase(Locale.ROOT);
+    }
+
+    public void registrar(String sql) {
+        total++;
+        porForma.merge(forma(sql), 1, Integer::sum);
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    /** Veces que se ejecutó cada forma, en el orden en que aparecieron. */
+    public Map<String, Integer> getPorForma() {
+        return Collections.unmodifiableMap(porForma);
+    }
+
+    /** Formas ejecutadas más de {@code maximo} veces. */
+    public Map<String, Integer> repetidas(int maximo) {
+        Map<String, Integer> repetidas = new LinkedHashMap<>();
+        porForma.forEach((forma, veces) -> {
+            if (veces > maximo) {
+                repetidas.put(forma, veces);
+            }
+        });
+        return repetidas;
+    }
+
+    @Override
+    public String toString() {
+        return total + " sentencias, " + porForma.size() + " formas distintas";
+    }
+}
@@ -0,0 +1,66 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias;
+
+import javax.sql.DataSource;
+
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Conteo de sentencias del hilo actual. El DataSource envuelto con {@link #envolver} (ver SentenciasConfig)
+ * registra cada ejecución; solo se cuentan las del hilo que abrió un conteo con {@link #iniciar()} (el filtro de
+ * presupuesto por petición, o un test), así que las tareas @Async y los procesos de arranque no suman.
+ *
+ * <pre>
+ * ConteoSentencias conteo = RegistroSentencias.iniciar();
+ * try { ... } finally { RegistroSentencias.terminar(); }
+ * </pre>
+ */
+public final class RegistroSentencias {
+
+    private static final ThreadLocal<ConteoSentencias> ACTUAL = new ThreadLocal<>();
+
+    private RegistroSentencias() {
+    }
+
+    /** Abre un conteo nuevo en el hilo actual, reemplazando el que hubiera. */
+    public static ConteoSentencias iniciar() {
+        ConteoSentencias conteo = new ConteoSentencias();
+        ACTUAL.set(conteo);
+        return conteo;
+    }
+
+    /** Cierra el conteo del hilo actual y lo devuelve (null si no había uno abierto). */
+    public static ConteoSentencias terminar() {
+        ConteoSentencias conteo = ACTUAL.get();
+        ACTUAL.remove();
+        return conteo;
+    }
+
+    /** Vuelve a abrir en el hilo actual un conteo devuelto antes por {@link #terminar()}. */
+    public static void reanudar(ConteoSentencias conteo) {
+        ACTUAL.set(conteo);
+    }
+
+    public static boolean activo() {
+        return ACTUAL.get() != null;
+    }
+
+    /** Envuelve el DataSource con datasource-proxy para que las ejecuciones se cuenten en el hilo que las hace. */
+    public static DataSource envolver(DataSource dataSource) {
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name("agrosmart")
+                .afterQuery((ejecucion, consultas) -> {
+                    for (QueryInfo consulta : consultas) {
+                        registrar(consulta.getQuery());
+                    }
+                })
+                .build();
+    }
+
+    private static void registrar(String sql) {
+        ConteoSentencias conteo = ACTUAL.get();
+        if (conteo != null) {
+            conteo.registrar(sql);
+        }
+    }
+}
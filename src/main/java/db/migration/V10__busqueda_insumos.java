@@ -0,0 +1,37 @@
+package db.migration;
+
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Índices de trigramas (pg_trgm) para buscar insumos por subcadena y con errores de escritura sin recorrer la tabla:
+ *
+ *   - idx_insumos_busqueda_trgm: nombre, proveedor y descripción juntos, para BusquedaInsumosService.
+ *   - idx_insumos_nombre_trgm: LOWER(nombre), para el filtro q= de las páginas y de la API.
+ *
+ * btree_gin permite poner usuario_id y tipo en el mismo índice GIN, así que el filtro por usuario y por tipo no
+ * necesita combinar otro índice. Ambas extensiones vienen con PostgreSQL y desde la versión 13 las puede crear el
+ * dueño de la base sin ser superusuario.
+ *
+ * Está en Java porque solo aplica en PostgreSQL: en la base embebida de los tests no hay trigramas y la búsqueda
+ * usa LIKE sin índice.
+ */
+public class V10__busqueda_insumos extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        if (!"PostgreSQL".equals(context.getConnection().getMetaData().getDatabaseProductName())) {
+            return;
+        }
+        try (Statement statement = context.getConnection().createStatement()) {
+            statement.execute("CREATE EXTENSION IF NOT EXISTS pg_trgm");
+            statement.execute("CREATE EXTENSION IF NOT EXISTS btree_gin");
+            // La expresión debe coincidir con BusquedaInsumosService.TEXTO para que el planificador use el índice
+            statement.execute("CREATE INDEX idx_insumos_busqueda_trgm ON insumos USING gin (usuario_id, tipo, "
+                    + "(lower(nombre || ' ' || coalesce(proveedor, '') || ' ' || coalesce(descripcion, ''))) gin_trgm_ops)");
+            statement.execute("CREATE INDEX idx_insumos_nombre_trgm ON insumos USING gin (usuario_id, (lower(nombre)) gin_trgm_ops)");
+        }
+    }
+}
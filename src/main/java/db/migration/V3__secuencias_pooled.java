@@ -0,0 +1,49 @@
+package db.migration;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Cambia la generación de IDs de columnas IDENTITY a secuencias con incremento 50
+ * (optimizador pooled de Hibernate), lo que permite agrupar los INSERT en lotes JDBC.
+ *
+ * Está en Java porque cada secuencia debe arrancar por encima del mayor ID ya existente
+ * y PostgreSQL no admite expresiones en START WITH; así el mismo script sirve también
+ * para la base embebida de los tests.
+ */
+public class V3__secuencias_pooled extends BaseJavaMigration {
+
+    /** Debe coincidir con el allocationSize de los @SequenceGenerator de las entidades. */
+    private static final int INCREMENTO = 50;
+
+    private static final List<String> TABLAS = List.of(
+            "usuarios",
+            "parcelas",
+            "insumos",
+            "tipos_cultivo",
+            "etapas_cultivo",
+            "planeaciones_cultivo",
+            "insumos_planeacion");
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            for (String tabla : TABLAS) {
+                long maximoId;
+                try (ResultSet rs = statement.executeQuery("SELECT COALESCE(MAX(id), 0) FROM " + tabla)) {
+                    rs.next();
+                    maximoId = rs.getLong(1);
+                }
+                // Hibernate reserva el bloque (valor - INCREMENTO, valor], así que el primer
+                // valor de la secuencia debe dejar libre todo ID ya usado.
+                statement.execute("CREATE SEQUENCE " + tabla + "_seq START WITH " + (maximoId + INCREMENTO)
+                        + " INCREMENT BY " + INCREMENTO);
+                statement.execute("ALTER TABLE " + tabla + " ALTER COLUMN id DROP IDENTITY");
+            }
+        }
+    }
+}
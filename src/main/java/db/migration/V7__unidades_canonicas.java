@@ -0,0 +1,138 @@
+package db.migration;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+/**
+ * Unidades normalizadas al escribir: parcelas.area_m2, insumos.unidad_codigo y, en las líneas de insumo,
+ * cantidad_base y unidad_base (cantidad en la unidad base de la magnitud del insumo). Recalcula además
+ * resumen_usuario.area_total_m2 desde area_m2.
+ *
+ * Está en Java para reconocer los textos libres de unidad_medida con las mismas reglas que la aplicación
+ * (UnidadMedida.desdeTexto). Se convierte con un UPDATE por cada texto distinto, no fila a fila.
+ *
+ * Los alias, factores y unidades base son una copia de UnidadMedida y ConversionUnidades tal como estaban al
+ * escribir esta migración: si la aplicación cambia después, una base que migre desde cero obtiene los mismos
+ * valores que las que ya aplicaron V7. No se debe editar.
+ */
+public class V7__unidades_canonicas extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        try (Statement statement = context.getConnection().createStatement()) {
+            statement.execute("ALTER TABLE parcelas ADD COLUMN area_m2 NUMERIC(16, 2)");
+            statement.execute("ALTER TABLE insumos ADD COLUMN unidad_codigo VARCHAR(16)");
+            statement.execute("ALTER TABLE insumos_planeacion ADD COLUMN cantidad_base NUMERIC(19, 6)");
+            statement.execute("ALTER TABLE insumos_planeacion ADD COLUMN unidad_base VARCHAR(16)");
+
+            for (String texto : distintos(statement, "SELECT DISTINCT unidad_medida FROM parcelas WHERE unidad_medida IS NOT NULL")) {
+                Unidad unidad = Unidad.desdeTexto(texto);
+                if (unidad != null && unidad.base.equals("M2")) {
+                    actualizar(context, "UPDATE parcelas SET area_m2 = tamano * ? WHERE unidad_medida = ?", unidad.factorBase, texto);
+                }
+            }
+            for (String texto : distintos(statement, "SELECT DISTINCT unidad_medida FROM insumos WHERE unidad_medida IS NOT NULL")) {
+                Unidad unidad = Unidad.desdeTexto(texto);
+                if (unidad != null) {
+                    actualizar(context, "UPDATE insumos SET unidad_codigo = ? WHERE unidad_medida = ?", unidad.name(), texto);
+                }
+            }
+            for (Unidad unidad : Unidad.values()) {
+                try (PreparedStatement update = context.getConnection().prepareStatement(
+                        "UPDATE insumos_planeacion SET cantidad_base = cantidad * ?, unidad_base = ? "
+                                + "WHERE insumo_id IN (SELECT id FROM insumos WHERE unidad_codigo = ?)")) {
+                    update.setBigDecimal(1, unidad.factorBase);
+                    update.setString(2, unidad.base);
+                    update.setString(3, unidad.name());
+                    update.executeUpdate();
+                }
+            }
+
+            // V5 cargó area_total_m2 con la regla anterior (solo 'hectareas' en minúsculas se multiplicaba); el
+            // resumen ahora suma y resta area_m2, así que se recalcula con la misma columna para que no se desvíe
+            statement.executeUpdate("UPDATE resumen_usuario r SET area_total_m2 = "
+                    + "(SELECT COALESCE(SUM(p.area_m2), 0) FROM parcelas p WHERE p.usuario_id = r.usuario_id)");
+
+            // Sumas por planeación y unidad (y el área por usuario) desde el índice, sin leer las filas
+            statement.execute("CREATE INDEX idx_insumos_planeacion_planeacion_unidad "
+                    + "ON insumos_planeacion (planeacion_id, unidad_base, cantidad_base)");
+            statement.execute("CREATE INDEX idx_parcelas_usuario_area ON parcelas (usuario_id, area_m2)");
+        }
+    }
+
+    private static List<String> distintos(Statement statement, String consulta) throws Exception {
+        List<String> valores = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery(consulta)) {
+            while (rs.next()) {
+                valores.add(rs.getString(1));
+            }
+        }
+        return valores;
+    }
+
+    // Código, unidad base de su magnitud (un empaque es su propia base), factor a esa base, descripción y alias
+    private enum Unidad {
+        KG("KG", "1", "Kilogramos", "kg", "kgs", "kilo", "kilos", "kilogramo"),
+        L("L", "1", "Litros", "l", "lt", "lts", "litro"),
+        UNIDAD("UNIDAD", "1", "Unidad(es)", "unidad", "unidades", "und", "un"),
+        M2("M2", "1", "Metros Cuadrados", "m2", "m²", "metro cuadrado", "metros cuadrados (m²)"),
+        M3("L", "1000", "Metros Cúbicos", "m3", "m³", "metro cubico"),
+        GR("KG", "0.001", "Gramos", "g", "gr", "grs", "gramo"),
+        ML("L", "0.001", "Mililitros", "ml", "mililitro", "cc"),
+        SACO("SACO", "1", "Saco(s)", "saco", "sacos"),
+        BOTELLA("BOTELLA", "1", "Botella(s)", "botella", "botellas"),
+        CANECAS("CANECAS", "1", "Caneca(s)", "caneca", "canecas"),
+        BULTO("BULTO", "1", "Bulto(s)", "bulto", "bultos"),
+        HECTAREA("M2", "10000", "Hectáreas", "ha", "hectarea", "hectareas");
+
+        private static final Map<String, Unidad> POR_TEXTO = new HashMap<>();
+
+        static {
+            for (Unidad unidad : values()) {
+                POR_TEXTO.put(normalizar(unidad.name()), unidad);
+                for (String texto : unidad.textos) {
+                    POR_TEXTO.put(normalizar(texto), unidad);
+                }
+            }
+        }
+
+        private final String base;
+        private final BigDecimal factorBase;
+        private final String[] textos;
+
+        Unidad(String base, String factorBase, String... textos) {
+            this.base = base;
+            this.factorBase = new BigDecimal(factorBase);
+            this.textos = textos;
+        }
+
+        static Unidad desdeTexto(String texto) {
+            return POR_TEXTO.get(normalizar(texto));
+        }
+
+        private static String normalizar(String texto) {
+            String sinTildes = Normalizer.normalize(texto.trim().toLowerCase(Locale.ROOT), Normalizer.Form.NFD)
+                    .replaceAll("\\p{M}", "");
+            return sinTildes.replace('²', '2').replace('³', '3').replaceAll("\\s+", " ");
+        }
+    }
+
+    private static void actualizar(Context context, String sql, Object valor, String texto) throws Exception {
+        try (PreparedStatement update = context.getConnection().prepareStatement(sql)) {
+            update.setObject(1, valor);
+            update.setString(2, texto);
+            update.executeUpdate();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+-- Esquema inicial de AgroSmart.
+-- Reproduce el esquema que Hibernate creaba con ddl-auto=update, de modo que las
+-- bases existentes se marcan como baseline (versión 1) y solo aplican lo posterior.
+
+create table etapas_cultivo (
+    duracion_dias integer,
+    id bigint generated by default as identity,
+    usuario_id bigint not null,
+    nombre varchar(100) not null,
+    descripcion TEXT,
+    primary key (id)
+);
+
+create table insumos (
+    precio_unitario numeric(10,2) not null,
+    id bigint generated by default as identity,
+    usuario_id bigint not null,
+    unidad_medida varchar(50),
+    descripcion TEXT,
+    nombre varchar(255) not null,
+    proveedor varchar(255),
+    tipo varchar(255) not null check (tipo in ('SEMILLAS','FERTILIZANTES','PESTICIDAS','HERBICIDAS')),
+    primary key (id)
+);
+
+create table insumos_planeacion (
+    cantidad numeric(10,3) not null,
+    fecha_registro date,
+    total_insumo numeric(10,2) not null,
+    id bigint generated by default as identity,
+    insumo_id bigint not null,
+    planeacion_id bigint not null,
+    observaciones TEXT,
+    primary key (id)
+);
+
+create table parcelas (
+    tamano numeric(10,2) not null,
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    updated_at timestamp(6),
+    usuario_id bigint not null,
+    unidad_medida varchar(50),
+    descripcion TEXT,
+    nombre varchar(255) not null,
+    ubicacion varchar(255),
+    primary key (id)
+);
+
+create table planeaciones_cultivo (
+    estimacion_costo numeric(10,2),
+    fecha_fin_estimada date,
+    fecha_inicio date not null,
+    numero_semillas numeric(15,2),
+    created_at timestamp(6) not null,
+    etapa_cultivo_id bigint not null,
+    id bigint generated by default as identity,
+    parcela_id bigint not null,
+    tipo_cultivo_id bigint not null,
+    updated_at timestamp(6),
+    usuario_id bigint not null,
+    descripcion TEXT,
+    estado varchar(255) not null check (estado in ('PENDIENTE','EN_CURSO','COMPLETADO')),
+    nombre varchar(255) not null,
+    primary key (id)
+);
+
+create table tipos_cultivo (
+    densidad_siembra_recomendada_por_ha numeric(10,2),
+    distancia_planta numeric(5,2),
+    distancia_surco numeric(5,2),
+    duracion_dias_estimada integer,
+    id bigint generated by default as identity,
+    usuario_id bigint not null,
+    nombre varchar(100) not null,
+    descripcion TEXT,
+    primary key (id),
+    unique (nombre, usuario_id)
+);
+
+create table usuarios (
+    created_at timestamp(6) not null,
+    id bigint generated by default as identity,
+    email varchar(255) not null unique,
+    nombre varchar(255) not null,
+    password varchar(255) not null,
+    primary key (id)
+);
+
+alter table if exists etapas_cultivo
+   add constraint FKs66b0kgq7qn4yw4w89bojl5rl
+   foreign key (usuario_id)
+   references usuarios;
+
+alter table if exists insumos
+   add constraint FKsbgnr4lu0u4utsp21wg7lrf2n
+   foreign key (usuario_id)
+   references usuarios;
+
+alter table if exists insumos_planeacion
+   add constraint FK1knmjbf77087fy9vwaf36tpya
+   foreign key (insumo_id)
+   references insumos;
+
+alter table if exists insumos_planeacion
+   add constraint FKjm038qmtyb2d7ydslxpxdbp40
+   foreign key (planeacion_id)
+   references planeaciones_cultivo;
+
+alter table if exists parcelas
+   add constraint FKsoyn4n5r56q6dggyfdgu4e28
+   foreign key (usuario_id)
+   references usuarios;
+
+alter table if exists planeaciones_cultivo
+   add constraint FKneovex7n47h54tw4fdanbsd7o
+   foreign key (etapa_cultivo_id)
+   references etapas_cultivo;
+
+alter table if exists planeaciones_cultivo
+   add constraint FK5q2x6qhclo3m8tbekjxcd6h8m
+   foreign key (parcela_id)
+   references parcelas;
+
+alter table if exists planeaciones_cultivo
+   add constraint FKtb31jb681g4j4mewb11g2sn5s
+   foreign key (tipo_cultivo_id)
+   references tipos_cultivo;
+
+alter table if exists planeaciones_cultivo
+   add constraint FK9l60rlytaoph1v0o9r7w49w2n
+   foreign key (usuario_id)
+   references usuarios;
+
+alter table if exists tipos_cultivo
+   add constraint FKm7soi0kuwnnv9w3u7mhelm7j7
+   foreign key (usuario_id)
+   references usuarios;
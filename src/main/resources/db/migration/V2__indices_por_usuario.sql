@@ -0,0 +1,19 @@
+-- Índices para las consultas por usuario (tenant) y los listados paginados.
+-- Donde el índice compuesto empieza por usuario_id no se crea otro solo por usuario_id:
+-- el prefijo ya cubre los filtros "WHERE usuario_id = ?".
+
+CREATE INDEX idx_parcelas_usuario_created ON parcelas (usuario_id, created_at);
+
+CREATE INDEX idx_insumos_usuario_nombre ON insumos (usuario_id, nombre);
+
+CREATE INDEX idx_tipos_cultivo_usuario_nombre ON tipos_cultivo (usuario_id, nombre);
+
+CREATE INDEX idx_etapas_cultivo_usuario_nombre ON etapas_cultivo (usuario_id, nombre);
+
+CREATE INDEX idx_planeaciones_usuario_created ON planeaciones_cultivo (usuario_id, created_at);
+
+CREATE INDEX idx_planeaciones_parcela_fecha_inicio ON planeaciones_cultivo (parcela_id, fecha_inicio);
+
+CREATE INDEX idx_insumos_planeacion_planeacion ON insumos_planeacion (planeacion_id);
+
+CREATE INDEX idx_insumos_planeacion_insumo ON insumos_planeacion (insumo_id);
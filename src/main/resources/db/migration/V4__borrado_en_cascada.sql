@@ -0,0 +1,20 @@
+-- Borrado en cascada en la base de datos para las relaciones que JPA ya borraba en cascada
+-- (cascade = ALL en Parcela, TipoCultivo, PlaneacionCultivo e Insumo). Así un
+-- "DELETE ... WHERE id = ? AND usuario_id = ?" elimina también los hijos en la misma sentencia,
+-- sin cargar las entidades. etapas_cultivo sigue sin cascada: no se puede borrar una etapa en uso.
+
+ALTER TABLE insumos_planeacion DROP CONSTRAINT IF EXISTS FK1knmjbf77087fy9vwaf36tpya;
+ALTER TABLE insumos_planeacion ADD CONSTRAINT FK1knmjbf77087fy9vwaf36tpya
+    FOREIGN KEY (insumo_id) REFERENCES insumos ON DELETE CASCADE;
+
+ALTER TABLE insumos_planeacion DROP CONSTRAINT IF EXISTS FKjm038qmtyb2d7ydslxpxdbp40;
+ALTER TABLE insumos_planeacion ADD CONSTRAINT FKjm038qmtyb2d7ydslxpxdbp40
+    FOREIGN KEY (planeacion_id) REFERENCES planeaciones_cultivo ON DELETE CASCADE;
+
+ALTER TABLE planeaciones_cultivo DROP CONSTRAINT IF EXISTS FK5q2x6qhclo3m8tbekjxcd6h8m;
+ALTER TABLE planeaciones_cultivo ADD CONSTRAINT FK5q2x6qhclo3m8tbekjxcd6h8m
+    FOREIGN KEY (parcela_id) REFERENCES parcelas ON DELETE CASCADE;
+
+ALTER TABLE planeaciones_cultivo DROP CONSTRAINT IF EXISTS FKtb31jb681g4j4mewb11g2sn5s;
+ALTER TABLE planeaciones_cultivo ADD CONSTRAINT FKtb31jb681g4j4mewb11g2sn5s
+    FOREIGN KEY (tipo_cultivo_id) REFERENCES tipos_cultivo ON DELETE CASCADE;
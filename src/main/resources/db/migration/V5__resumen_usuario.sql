@@ -0,0 +1,31 @@
+-- Resumen del dashboard por usuario, mantenido de forma incremental desde los servicios
+-- (ResumenUsuarioService): el dashboard lo lee con una búsqueda por clave primaria.
+create table resumen_usuario (
+    usuario_id bigint not null,
+    numero_parcelas bigint not null default 0,
+    area_total_m2 numeric(19,2) not null default 0,
+    planeaciones_pendientes bigint not null default 0,
+    planeaciones_en_curso bigint not null default 0,
+    planeaciones_completadas bigint not null default 0,
+    costo_total numeric(19,2) not null default 0,
+    updated_at timestamp(6),
+    primary key (usuario_id),
+    constraint fk_resumen_usuario_usuario foreign key (usuario_id) references usuarios on delete cascade
+);
+
+-- Carga inicial para los usuarios existentes (mismas reglas que ResumenUsuarioService.recalcular)
+insert into resumen_usuario (usuario_id, numero_parcelas, area_total_m2, planeaciones_pendientes,
+                             planeaciones_en_curso, planeaciones_completadas, costo_total, updated_at)
+select u.id,
+       (select count(*) from parcelas p where p.usuario_id = u.id),
+       (select coalesce(sum(case when lower(p.unidad_medida) = 'hectareas' then p.tamano * 10000 else p.tamano end), 0)
+          from parcelas p where p.usuario_id = u.id),
+       (select count(*) from planeaciones_cultivo pc where pc.usuario_id = u.id and pc.estado = 'PENDIENTE'),
+       (select count(*) from planeaciones_cultivo pc where pc.usuario_id = u.id and pc.estado = 'EN_CURSO'),
+       (select count(*) from planeaciones_cultivo pc where pc.usuario_id = u.id and pc.estado = 'COMPLETADO'),
+       (select coalesce(sum(pc.estimacion_costo), 0) from planeaciones_cultivo pc where pc.usuario_id = u.id),
+       current_timestamp
+from usuarios u;
+
+-- Próximas cosechas del dashboard: "WHERE usuario_id = ? AND fecha_fin_estimada >= ? ORDER BY fecha_fin_estimada LIMIT n"
+CREATE INDEX idx_planeaciones_usuario_fecha_fin ON planeaciones_cultivo (usuario_id, fecha_fin_estimada);
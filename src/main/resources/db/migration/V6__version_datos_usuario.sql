@@ -0,0 +1,4 @@
+-- Contador de cambios por usuario para las etiquetas de versión (ETag) de las páginas: aumenta con cada
+-- escritura que informa ResumenUsuarioService, incluidas las de tipos, etapas, insumos y líneas de insumo,
+-- que no guardan updated_at.
+alter table resumen_usuario add column version_datos bigint not null default 0;
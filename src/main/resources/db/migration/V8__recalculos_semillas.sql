@@ -0,0 +1,24 @@
+-- Recálculos de numero_semillas en segundo plano (RecalculoSemillasService): se registra uno por cada edición de
+-- una parcela o de un tipo de cultivo que cambia el área o las distancias de siembra, y el dashboard muestra su avance.
+create sequence recalculos_semillas_seq start with 1 increment by 50;
+
+create table recalculos_semillas (
+    id bigint not null,
+    usuario_id bigint not null,
+    origen varchar(16) not null,
+    origen_id bigint not null,
+    estado varchar(16) not null,
+    total bigint not null default 0,
+    procesadas bigint not null default 0,
+    error varchar(255),
+    created_at timestamp(6) not null,
+    updated_at timestamp(6),
+    primary key (id),
+    constraint fk_recalculos_semillas_usuario foreign key (usuario_id) references usuarios on delete cascade
+);
+
+-- Últimos recálculos del usuario en el dashboard: "WHERE usuario_id = ? ORDER BY id DESC LIMIT n"
+CREATE INDEX idx_recalculos_semillas_usuario ON recalculos_semillas (usuario_id, id);
+
+-- Lotes de planeaciones de un tipo de cultivo recorridos por id (las de una parcela usan idx_planeaciones_parcela_fecha_inicio)
+CREATE INDEX idx_planeaciones_tipo_cultivo ON planeaciones_cultivo (tipo_cultivo_id, id);
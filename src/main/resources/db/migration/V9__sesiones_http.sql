@@ -0,0 +1,27 @@
+-- Sesiones HTTP compartidas entre instancias (Spring Session JDBC, ver SesionesConfig): el esquema de Spring Session
+-- para PostgreSQL, creado aquí en lugar de con spring.session.jdbc.initialize-schema.
+create table spring_session (
+    primary_id char(36) not null,
+    session_id char(36) not null,
+    creation_time bigint not null,
+    last_access_time bigint not null,
+    max_inactive_interval int not null,
+    expiry_time bigint not null,
+    principal_name varchar(100),
+    constraint spring_session_pk primary key (primary_id)
+);
+
+create table spring_session_attributes (
+    session_primary_id char(36) not null,
+    attribute_name varchar(200) not null,
+    attribute_bytes bytea not null,
+    constraint spring_session_attributes_pk primary key (session_primary_id, attribute_name),
+    constraint spring_session_attributes_fk foreign key (session_primary_id) references spring_session (primary_id) on delete cascade
+);
+
+-- Cada petición busca su sesión por el id de la cookie
+CREATE UNIQUE INDEX spring_session_ix1 ON spring_session (session_id);
+-- Limpieza periódica de sesiones vencidas: "DELETE ... WHERE expiry_time < ?" recorre solo las vencidas
+CREATE INDEX spring_session_ix2 ON spring_session (expiry_time);
+-- Sesiones de un usuario (FindByIndexNameSessionRepository)
+CREATE INDEX spring_session_ix3 ON spring_session (principal_name);
@@ -0,0 +1,226 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoPlaneacionRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.ParcelaRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ActualizacionPreciosService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoActualizacionPrecios;
+
+/**
+ * Comprueba que los cambios de precio de los insumos llegan a los totales guardados de las líneas
+ * y de las planeaciones, tanto en el ajuste masivo por proveedor como al editar un insumo.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ActualizacionPreciosTests {
+
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private ActualizacionPreciosService actualizacionPreciosService;
+	@Autowired
+	private InsumoRepository insumoRepository;
+	@Autowired
+	private InsumoPlaneacionRepository insumoPlaneacionRepository;
+	@Autowired
+	private ParcelaRepository parcelaRepository;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+	@Autowired
+	private PlaneacionCultivoRepository planeacionCultivoRepository;
+
+	@Test
+	void ajustePorProveedorActualizaLineasYPlaneaciones() {
+		Usuario usuario = crearUsuario("precios-proveedor@agrosmart.test");
+		Insumo urea = crearInsumo(usuario, "Urea", "Agroquímicos del Norte", "10.00");
+		Insumo semilla = crearInsumo(usuario, "Semilla", "Semillas del Sur", "4.00");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		agregarLinea(usuario, planeacion, urea, "3");    // 30.00
+		agregarLinea(usuario, planeacion, semilla, "5"); // 20.00
+
+		ResultadoActualizacionPrecios resultado = actualizacionPreciosService
+				.ajustarPreciosPorProveedor(usuario, "Agroquímicos del Norte", new BigDecimal("10"));
+
+		assertThat(resultado.getInsumosActualizados()).isEqualTo(1);
+		assertThat(resultado.getLineasActualizadas()).isEqualTo(1);
+		assertThat(resultado.getPlaneacionesActualizadas()).isEqualTo(1);
+		assertThat(insumoRepository.findById(urea.getId()).orElseThrow().getPrecioUnitario()).isEqualByComparingTo("11.00");
+		assertThat(insumoRepository.findById(semilla.getId()).orElseThrow().getPrecioUnitario()).isEqualByComparingTo("4.00");
+		assertThat(estimacionCosto(planeacion)).isEqualByComparingTo("53.00");
+	}
+
+	@Test
+	void ajusteMasivoSeProcesaPorLotes() {
+		Usuario usuario = crearUsuario("precios-lotes@agrosmart.test");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		int total = ActualizacionPreciosService.TAMANO_LOTE + 100;
+		List<Insumo> insumos = new ArrayList<>(total);
+		for (int i = 0; i < total; i++) {
+			insumos.add(nuevoInsumo(usuario, "Insumo " + i, "Mayorista", "2.00"));
+		}
+		insumoRepository.saveAll(insumos);
+		List<InsumoPlaneacion> lineas = new ArrayList<>(total);
+		for (Insumo insumo : insumos) {
+			InsumoPlaneacion ip = new InsumoPlaneacion();
+			ip.setPlaneacion(planeacion);
+			ip.setInsumo(insumo);
+			ip.setCantidad(BigDecimal.ONE);
+			ip.setTotalInsumo(insumo.getPrecioUnitario());
+			lineas.add(ip);
+		}
+		insumoPlaneacionRepository.saveAll(lineas);
+
+		ResultadoActualizacionPrecios resultado = actualizacionPreciosService
+				.ajustarPreciosPorProveedor(usuario, "Mayorista", new BigDecimal("-50"));
+
+		assertThat(resultado.getLotes()).isEqualTo(2);
+		assertThat(resultado.getInsumosActualizados()).isEqualTo(total);
+		assertThat(resultado.getLineasActualizadas()).isEqualTo(total);
+		// La planeación usa insumos de los dos lotes y se recalcula en cada uno
+		assertThat(resultado.getPlaneacionesActualizadas()).isEqualTo(2);
+		assertThat(estimacionCosto(planeacion)).isEqualByComparingTo(new BigDecimal(total));
+	}
+
+	@Test
+	void fallaDelAjusteNoDejaPreciosAMedias() {
+		Usuario usuario = crearUsuario("precios-desborde@agrosmart.test");
+		List<Insumo> insumos = new ArrayList<>();
+		for (int i = 0; i < ActualizacionPreciosService.TAMANO_LOTE; i++) {
+			insumos.add(nuevoInsumo(usuario, "Insumo " + i, "Mayorista", "2.00"));
+		}
+		// En el segundo lote: con +1000% no cabe en numeric(10,2)
+		insumos.add(nuevoInsumo(usuario, "Maquinaria", "Mayorista", "10000000.00"));
+		insumoRepository.saveAll(insumos);
+
+		ResultadoActualizacionPrecios resultado = actualizacionPreciosService
+				.ajustarPreciosPorProveedor(usuario, "Mayorista", new BigDecimal("1000"));
+
+		assertThat(resultado.isCompleta()).isFalse();
+		assertThat(resultado.getInsumosActualizados()).isZero();
+		assertThat(insumoRepository.findById(insumos.get(0).getId()).orElseThrow().getPrecioUnitario())
+				.isEqualByComparingTo("2.00");
+	}
+
+	@Test
+	void fallaDelRecalculoInformaLosPreciosYaAjustados() {
+		Usuario usuario = crearUsuario("precios-recalculo@agrosmart.test");
+		Insumo tractor = crearInsumo(usuario, "Tractor", "Maquinaria SA", "9000000.00");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		// 99,000,000.00 cabe en numeric(10,2); con +10% el total de la línea ya no
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(tractor);
+		ip.setCantidad(new BigDecimal("11"));
+		ip.setTotalInsumo(new BigDecimal("99000000.00"));
+		insumoPlaneacionRepository.save(ip);
+
+		ResultadoActualizacionPrecios resultado = actualizacionPreciosService
+				.ajustarPreciosPorProveedor(usuario, "Maquinaria SA", new BigDecimal("10"));
+
+		assertThat(resultado.isCompleta()).isFalse();
+		assertThat(resultado.getInsumosActualizados()).isEqualTo(1);
+		assertThat(resultado.getLineasActualizadas()).isZero();
+		assertThat(insumoRepository.findById(tractor.getId()).orElseThrow().getPrecioUnitario())
+				.isEqualByComparingTo("9900000.00");
+	}
+
+	@Test
+	void editarPrecioDeUnInsumoPropagaYConservaLasLineas() {
+		Usuario usuario = crearUsuario("precios-edicion@agrosmart.test");
+		Insumo urea = crearInsumo(usuario, "Urea", null, "10.00");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		agregarLinea(usuario, planeacion, urea, "2");
+
+		// Como llega del formulario: objeto nuevo con el id y sin líneas cargadas
+		Insumo formulario = nuevoInsumo(usuario, "Urea granulada", null, "12.50");
+		formulario.setId(urea.getId());
+		insumoService.saveInsumo(formulario);
+
+		List<InsumoPlaneacion> lineas = insumoPlaneacionRepository.findByPlaneacionId(planeacion.getId());
+		assertThat(lineas).hasSize(1);
+		assertThat(lineas.get(0).getTotalInsumo()).isEqualByComparingTo("25.00");
+		assertThat(estimacionCosto(planeacion)).isEqualByComparingTo("25.00");
+	}
+
+	private BigDecimal estimacionCosto(PlaneacionCultivo planeacion) {
+		return planeacionCultivoRepository.findById(planeacion.getId()).orElseThrow().getEstimacionCosto();
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Precios");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Insumo nuevoInsumo(Usuario usuario, String nombre, String proveedor, String precio) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre(nombre);
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setProveedor(proveedor);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal(precio));
+		insumo.setUsuario(usuario);
+		return insumo;
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String nombre, String proveedor, String precio) {
+		return insumoRepository.save(nuevoInsumo(usuario, nombre, proveedor, precio));
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela precios");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUsuario(usuario);
+		parcelaRepository.save(parcela);
+
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación precios");
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoRepository.save(planeacion);
+	}
+
+	private void agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo, String cantidad) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal(cantidad));
+		insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
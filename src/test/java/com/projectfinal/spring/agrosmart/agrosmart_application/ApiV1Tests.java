@@ -0,0 +1,272 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentenciasFilter;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.ConteoSentencias;
+
+/**
+ * API JSON /api/v1: fields= recorta las columnas consultadas y la respuesta, el cursor recorre el listado completo
+ * sin repetir filas, los datos de otro usuario no se ven, la búsqueda de insumos abarca nombre, proveedor y
+ * descripción, y las respuestas grandes viajan con gzip.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ApiV1Tests {
+
+	@LocalServerPort
+	private int puerto;
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ObjectMapper objectMapper;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+
+	@Test
+	void fieldsLimitaLasColumnasYElCursorRecorreElListado() throws Exception {
+		Usuario usuario = crearUsuario("api-cursor@agrosmart.test");
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+		for (int i = 1; i <= 5; i++) {
+			crearParcela(usuario, "Parcela API " + i);
+		}
+
+		List<String> nombres = new ArrayList<>();
+		String siguiente = null;
+		int paginas = 0;
+		do {
+			MvcResult resultado = mockMvc.perform(get("/api/v1/parcelas").with(user(principal))
+							.param("fields", "nombre").param("tamano", "2")
+							.param("despues", siguiente != null ? siguiente : ""))
+					.andExpect(status().isOk())
+					.andReturn();
+			JsonNode pagina = objectMapper.readTree(resultado.getResponse().getContentAsString());
+			for (JsonNode fila : pagina.get("datos")) {
+				assertThat(fila.fieldNames()).toIterable().containsExactly("id", "nombre");
+				nombres.add(fila.get("nombre").asText());
+			}
+			// Solo se leen de la base el id, la clave de orden y los campos pedidos
+			ConteoSentencias conteo = (ConteoSentencias) resultado.getRequest().getAttribute(PresupuestoSentenciasFilter.ATRIBUTO);
+			assertThat(conteo.getTotal()).isEqualTo(1);
+			assertThat(conteo.getPorForma().keySet()).allSatisfy(sql -> assertThat(sql)
+					.contains("nombre").doesNotContain("ubicacion", "descripcion", "area_m2"));
+			siguiente = pagina.get("siguiente").isNull() ? null : pagina.get("siguiente").asText();
+			paginas++;
+		} while (siguiente != null);
+
+		assertThat(paginas).isEqualTo(3);
+		assertThat(nombres).containsExactly("Parcela API 5", "Parcela API 4", "Parcela API 3", "Parcela API 2", "Parcela API 1");
+	}
+
+	@Test
+	void planeacionesConCamposDeOtrasTablasYLineasPorPlaneacion() throws Exception {
+		Usuario usuario = crearUsuario("api-planeaciones@agrosmart.test");
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario, crearParcela(usuario, "Parcela del maíz"));
+		Insumo urea = crearInsumo(usuario, "Urea");
+		agregarLinea(usuario, planeacion, urea);
+		agregarLinea(usuario, planeacion, crearInsumo(usuario, "Cal"));
+
+		mockMvc.perform(get("/api/v1/planeaciones/{id}", planeacion.getId()).with(user(principal))
+						.param("fields", "parcelaNombre,estado"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.id").value(planeacion.getId()))
+				.andExpect(jsonPath("$.parcelaNombre").value("Parcela del maíz"))
+				.andExpect(jsonPath("$.estado").value("PENDIENTE"))
+				.andExpect(jsonPath("$.nombre").doesNotExist());
+
+		mockMvc.perform(get("/api/v1/planeaciones/{id}/insumos", planeacion.getId()).with(user(principal))
+						.param("fields", "insumoNombre,cantidad").param("q", "ure"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.datos.length()").value(1))
+				.andExpect(jsonPath("$.datos[0].insumoNombre").value("Urea"))
+				.andExpect(jsonPath("$.datos[0].cantidad").value(2))
+				.andExpect(jsonPath("$.siguiente").isEmpty());
+
+		// Otro usuario no ve la planeación ni sus líneas; sin sesión, 401 en lugar de la página de login
+		UsuarioAutenticado otro = new UsuarioAutenticado(crearUsuario("api-planeaciones-otro@agrosmart.test"));
+		mockMvc.perform(get("/api/v1/planeaciones/{id}", planeacion.getId()).with(user(otro)))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/v1/planeaciones/{id}/insumos", planeacion.getId()).with(user(otro)))
+				.andExpect(status().isNotFound());
+		mockMvc.perform(get("/api/v1/planeaciones"))
+				.andExpect(status().isUnauthorized());
+
+		mockMvc.perform(get("/api/v1/planeaciones").with(user(principal)).param("fields", "nombre,contrasena"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("Campo no disponible: contrasena."));
+		mockMvc.perform(get("/api/v1/insumos").with(user(principal)).param("despues", "no-es-un-cursor"))
+				.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void laBusquedaDeInsumosCubreNombreProveedorYDescripcion() throws Exception {
+		Usuario usuario = crearUsuario("api-busqueda@agrosmart.test");
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+		Insumo mezcla = crearInsumo(usuario, "Mezcla foliar", TipoInsumo.FERTILIZANTES, "Agroquímicos del Sur", "Lleva urea y boro");
+		Insumo urea = crearInsumo(usuario, "Urea granulada", TipoInsumo.FERTILIZANTES, "Fertilizantes del Norte", null);
+		Insumo glifosato = crearInsumo(usuario, "Glifosato", TipoInsumo.HERBICIDAS, "Distribuidora Norte", null);
+		crearInsumo(crearUsuario("api-busqueda-otro@agrosmart.test"), "Urea de otro usuario", TipoInsumo.FERTILIZANTES, "Norte", null);
+
+		// Las coincidencias en el nombre van antes que las de la descripción
+		mockMvc.perform(get("/api/v1/insumos/buscar").with(user(principal)).param("q", "UREA"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.datos[*].id").value(contains(
+						urea.getId().intValue(), mezcla.getId().intValue())))
+				.andExpect(jsonPath("$.datos[0].tipo").value("FERTILIZANTES"))
+				.andExpect(jsonPath("$.siguiente").isEmpty());
+
+		mockMvc.perform(get("/api/v1/insumos/buscar").with(user(principal)).param("q", "norte"))
+				.andExpect(jsonPath("$.datos[*].nombre").value(contains("Glifosato", "Urea granulada")));
+		mockMvc.perform(get("/api/v1/insumos/buscar").with(user(principal)).param("q", "norte").param("tipo", "HERBICIDAS"))
+				.andExpect(jsonPath("$.datos[*].id").value(contains(glifosato.getId().intValue())));
+
+		mockMvc.perform(get("/api/v1/insumos/buscar").with(user(principal)).param("q", "ur"))
+				.andExpect(status().isBadRequest())
+				.andExpect(jsonPath("$.error").value("La búsqueda necesita al menos 3 caracteres."));
+	}
+
+	@Test
+	void lasRespuestasGrandesViajanComprimidas() throws Exception {
+		Usuario usuario = crearUsuario("api-gzip@agrosmart.test");
+		for (int i = 1; i <= 30; i++) {
+			crearInsumo(usuario, "Insumo comprimido " + i);
+		}
+		HttpClient cliente = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+		String formulario = "username=" + URLEncoder.encode("api-gzip@agrosmart.test", StandardCharsets.UTF_8) + "&password=secreta";
+		cliente.send(HttpRequest.newBuilder(url("/auth/login"))
+				.header("Content-Type", "application/x-www-form-urlencoded")
+				.POST(HttpRequest.BodyPublishers.ofString(formulario)).build(), HttpResponse.BodyHandlers.discarding());
+
+		HttpResponse<InputStream> comprimida = cliente.send(HttpRequest.newBuilder(url("/api/v1/insumos?tamano=30"))
+				.header("Accept-Encoding", "gzip").build(), HttpResponse.BodyHandlers.ofInputStream());
+		assertThat(comprimida.statusCode()).isEqualTo(200);
+		assertThat(comprimida.headers().firstValue("Content-Encoding")).hasValue("gzip");
+		Map<?, ?> pagina;
+		try (InputStream cuerpo = new GZIPInputStream(comprimida.body())) {
+			pagina = objectMapper.readValue(cuerpo, Map.class);
+		}
+		assertThat((List<?>) pagina.get("datos")).hasSize(30);
+
+		HttpResponse<String> sinGzip = cliente.send(HttpRequest.newBuilder(url("/api/v1/insumos?tamano=30")).build(),
+				HttpResponse.BodyHandlers.ofString());
+		assertThat(sinGzip.headers().firstValue("Content-Encoding")).isEmpty();
+		assertThat(sinGzip.body()).contains("Insumo comprimido 30");
+	}
+
+	private URI url(String ruta) {
+		return URI.create("http://localhost:" + puerto + ruta);
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("API");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario, String nombre) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre(nombre);
+		parcela.setUbicacion("Lote norte");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUnidadMedida("Hectareas");
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String nombre) {
+		return crearInsumo(usuario, nombre, TipoInsumo.FERTILIZANTES, "Agroinsumos",
+				"Insumo de prueba para la API con una descripción larga que engorda la respuesta");
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String nombre, TipoInsumo tipo, String proveedor, String descripcion) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre(nombre);
+		insumo.setTipo(tipo);
+		insumo.setProveedor(proveedor);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal("10.00"));
+		insumo.setDescripcion(descripcion);
+		insumo.setUsuario(usuario);
+		return insumoService.saveInsumo(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, Parcela parcela) {
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Maíz de temporal");
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoService.savePlaneacionCultivo(planeacion);
+	}
+
+	private InsumoPlaneacion agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal("2"));
+		return insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
@@ -0,0 +1,86 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.EstadisticasCacheService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.TipoCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.EstadisticaCache;
+
+/**
+ * Comprueba que los catálogos por usuario se sirven desde la caché de segundo nivel sin ir a la base,
+ * que guardar o borrar invalida los resultados cacheados y que se cuentan los aciertos.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class CacheCatalogosTests {
+
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private TipoCultivoService tipoCultivoService;
+	@Autowired
+	private EstadisticasCacheService estadisticasCacheService;
+
+	@Test
+	void segundaLecturaNoConsultaLaBase() {
+		Usuario usuario = crearUsuario("cache-lectura@agrosmart.test");
+		List<TipoCultivo> tipos = tipoCultivoService.findByUsuario(usuario);
+		long aciertosAntes = aciertos(CatalogoCache.CONSULTAS);
+
+		ContadorSentenciasConfiguracion.limpiar();
+		assertThat(tipoCultivoService.findByUsuario(usuario)).hasSameSizeAs(tipos);
+		assertThat(tipoCultivoService.getTipoCultivoByIdAndUsuario(tipos.get(0).getId(), usuario)).isPresent();
+		assertThat(tipoCultivoService.getTipoCultivoByIdAndUsuario(tipos.get(0).getId(), usuario)).isPresent();
+
+		// Solo la primera búsqueda por id va a la base; las demás lecturas salen de la caché
+		assertThat(ContadorSentenciasConfiguracion.sentencias()).hasSize(1);
+		assertThat(aciertos(CatalogoCache.CONSULTAS)).isGreaterThanOrEqualTo(aciertosAntes + 2);
+	}
+
+	@Test
+	void guardarYBorrarInvalidanLosResultados() {
+		Usuario usuario = crearUsuario("cache-invalidacion@agrosmart.test");
+		int iniciales = tipoCultivoService.findByUsuario(usuario).size();
+
+		TipoCultivo nuevo = new TipoCultivo();
+		nuevo.setNombre("Quinua");
+		nuevo.setDistanciaSurco(new BigDecimal("0.60"));
+		nuevo.setDistanciaPlanta(new BigDecimal("0.20"));
+		nuevo.setUsuario(usuario);
+		tipoCultivoService.saveTipoCultivo(nuevo);
+		assertThat(tipoCultivoService.findByUsuario(usuario)).hasSize(iniciales + 1);
+
+		tipoCultivoService.deleteTipoCultivo(nuevo.getId(), usuario);
+		assertThat(tipoCultivoService.findByUsuario(usuario)).hasSize(iniciales);
+		assertThat(tipoCultivoService.getTipoCultivoByIdAndUsuario(nuevo.getId(), usuario)).isEmpty();
+	}
+
+	private long aciertos(String region) {
+		return estadisticasCacheService.getEstadisticas().stream()
+				.filter(e -> e.getRegion().equals(region))
+				.mapToLong(EstadisticaCache::getAciertos)
+				.sum();
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Caché");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+}
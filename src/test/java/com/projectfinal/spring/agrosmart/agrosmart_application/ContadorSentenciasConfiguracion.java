@@ -0,0 +1,77 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Envuelve el DataSource con datasource-proxy para contar las sentencias JDBC ejecutadas
+ * (consultar con QueryCountHolder; un lote JDBC cuenta como una sola ejecución).
+ * También guarda el texto de cada sentencia, consultable con {@link #sentencias()}, y el fetch size con el
+ * que se ejecutó ({@link #tamanosFetch()}).
+ */
+@TestConfiguration
+public class ContadorSentenciasConfiguracion {
+
+	private static final List<String> SENTENCIAS = Collections.synchronizedList(new ArrayList<>());
+	private static final Map<String, Integer> TAMANOS_FETCH = new ConcurrentHashMap<>();
+
+	/** Sentencias SQL ejecutadas desde la última llamada a {@link #limpiar()}. */
+	public static List<String> sentencias() {
+		synchronized (SENTENCIAS) {
+			return List.copyOf(SENTENCIAS);
+		}
+	}
+
+	/** Fetch size de cada sentencia ejecutada desde la última llamada a {@link #limpiar()} (0 si no se fijó). */
+	public static Map<String, Integer> tamanosFetch() {
+		return Map.copyOf(TAMANOS_FETCH);
+	}
+
+	public static void limpiar() {
+		SENTENCIAS.clear();
+		TAMANOS_FETCH.clear();
+	}
+
+	@Bean
+	static BeanPostProcessor dataSourceConContador() {
+		return new BeanPostProcessor() {
+			@Override
+			public Object postProcessAfterInitialization(Object bean, String beanName) {
+				if (bean instanceof DataSource dataSource) {
+					return ProxyDataSourceBuilder.create(dataSource)
+							.countQuery()
+							.afterQuery((ejecucion, consultas) -> {
+								for (QueryInfo consulta : consultas) {
+									SENTENCIAS.add(consulta.getQuery());
+									TAMANOS_FETCH.put(consulta.getQuery(), tamanoFetch(ejecucion.getStatement()));
+								}
+							})
+							.build();
+				}
+				return bean;
+			}
+		};
+	}
+
+	private static int tamanoFetch(Statement statement) {
+		try {
+			return statement.getFetchSize();
+		} catch (SQLException e) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,250 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoPlaneacionRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.ParcelaRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Mantenimiento de estimacionCosto en una planeación con muchas líneas de insumo: a diferencia de la suma en
+ * Java de todas las líneas (implementación anterior), el delta incremental no carga las demás líneas, su
+ * resultado coincide con el SUM en la base y dos ediciones (o una edición y un borrado) simultáneos de una
+ * línea no pierden ningún delta.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class EstimacionCostoTests {
+
+	private static final int LINEAS = 2000;
+
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private ParcelaRepository parcelaRepository;
+	@Autowired
+	private InsumoRepository insumoRepository;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+	@Autowired
+	private PlaneacionCultivoRepository planeacionCultivoRepository;
+	@Autowired
+	private InsumoPlaneacionRepository insumoPlaneacionRepository;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void deltaNoCargaLasDemasLineas() {
+		Usuario usuario = crearUsuario("benchmark-costo@agrosmart.test");
+		Insumo insumo = crearInsumo(usuario);
+		PlaneacionCultivo planeacion = crearPlaneacionConLineas(usuario, insumo, LINEAS);
+		InsumoPlaneacion linea = insumoPlaneacionRepository.findByPlaneacionId(planeacion.getId()).get(0);
+
+		// Las estadísticas son de la SessionFactory compartida por todos los tests: se dejan como estaban
+		Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		boolean habilitadas = estadisticas.isStatisticsEnabled();
+		estadisticas.setStatisticsEnabled(true);
+		long cargasAnterior;
+		long cargasDelta;
+		try {
+			// Implementación anterior: cargar todas las líneas, sumarlas en Java y guardar la planeación
+			estadisticas.clear();
+			transactionTemplate.executeWithoutResult(status -> sumarEnJava(planeacion.getId()));
+			cargasAnterior = estadisticas.getEntityLoadCount();
+
+			// Delta incremental: editar una línea aplica solo la diferencia de su total
+			estadisticas.clear();
+			insumoPlaneacionService.saveInsumoPlaneacion(edicion(linea.getId(), planeacion, insumo, "3"), usuario);
+			cargasDelta = estadisticas.getEntityLoadCount();
+		} finally {
+			estadisticas.setStatisticsEnabled(habilitadas);
+		}
+		assertThat(cargasAnterior).isGreaterThanOrEqualTo(LINEAS);
+		assertThat(cargasDelta).isLessThan(10);
+
+		// El delta y el SUM completo deben coincidir
+		BigDecimal porDelta = planeacionCultivoRepository.findById(planeacion.getId()).orElseThrow().getEstimacionCosto();
+		insumoPlaneacionService.recalcularEstimacionCosto(planeacion.getId());
+		BigDecimal porSuma = planeacionCultivoRepository.findById(planeacion.getId()).orElseThrow().getEstimacionCosto();
+		assertThat(porDelta).isEqualByComparingTo(porSuma);
+	}
+
+	@Test
+	void edicionesSimultaneasDeUnaLineaNoPierdenSuDelta() throws Exception {
+		Usuario usuario = crearUsuario("concurrencia-costo@agrosmart.test");
+		Insumo insumo = crearInsumo(usuario);
+		PlaneacionCultivo planeacion = crearPlaneacionConLineas(usuario, insumo, 2);
+		Long lineaId = insumoPlaneacionRepository.findByPlaneacionId(planeacion.getId()).get(0).getId();
+
+		// La primera edición queda sin confirmar mientras la segunda lee el total de la misma línea
+		CountDownLatch aplicada = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		ExecutorService hilos = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> primera = hilos.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+				insumoPlaneacionService.saveInsumoPlaneacion(edicion(lineaId, planeacion, insumo, "3"), usuario);
+				aplicada.countDown();
+				esperar(confirmar);
+			}));
+			assertThat(aplicada.await(10, TimeUnit.SECONDS)).isTrue();
+			Future<?> segunda = hilos.submit(() ->
+					insumoPlaneacionService.saveInsumoPlaneacion(edicion(lineaId, planeacion, insumo, "5"), usuario));
+			Thread.sleep(200);
+			confirmar.countDown();
+			primera.get(10, TimeUnit.SECONDS);
+			segunda.get(10, TimeUnit.SECONDS);
+		} finally {
+			hilos.shutdownNow();
+		}
+
+		// Otra línea de 12.50 más la editada con cantidad 5 (62.50)
+		assertThat(planeacionCultivoRepository.findById(planeacion.getId()).orElseThrow().getEstimacionCosto())
+				.isEqualByComparingTo("75.00");
+	}
+
+	@Test
+	void edicionYBorradoSimultaneosDeUnaLineaNoPierdenSuDelta() throws Exception {
+		Usuario usuario = crearUsuario("concurrencia-borrado-costo@agrosmart.test");
+		Insumo insumo = crearInsumo(usuario);
+		PlaneacionCultivo planeacion = crearPlaneacionConLineas(usuario, insumo, 2);
+		Long lineaId = insumoPlaneacionRepository.findByPlaneacionId(planeacion.getId()).get(0).getId();
+
+		// La edición queda sin confirmar mientras el borrado lee el total de la misma línea
+		CountDownLatch aplicada = new CountDownLatch(1);
+		CountDownLatch confirmar = new CountDownLatch(1);
+		ExecutorService hilos = Executors.newFixedThreadPool(2);
+		try {
+			Future<?> editada = hilos.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+				insumoPlaneacionService.saveInsumoPlaneacion(edicion(lineaId, planeacion, insumo, "3"), usuario);
+				aplicada.countDown();
+				esperar(confirmar);
+			}));
+			assertThat(aplicada.await(10, TimeUnit.SECONDS)).isTrue();
+			Future<?> borrado = hilos.submit(() -> insumoPlaneacionService.deleteInsumoPlaneacion(lineaId, usuario));
+			Thread.sleep(200);
+			confirmar.countDown();
+			editada.get(10, TimeUnit.SECONDS);
+			borrado.get(10, TimeUnit.SECONDS);
+		} finally {
+			hilos.shutdownNow();
+		}
+
+		// Solo queda la otra línea de 12.50: el borrado restó los 37.50 que confirmó la edición
+		assertThat(insumoPlaneacionRepository.findById(lineaId)).isEmpty();
+		assertThat(planeacionCultivoRepository.findById(planeacion.getId()).orElseThrow().getEstimacionCosto())
+				.isEqualByComparingTo("12.50");
+	}
+
+	private static InsumoPlaneacion edicion(Long lineaId, PlaneacionCultivo planeacion, Insumo insumo, String cantidad) {
+		InsumoPlaneacion edicion = new InsumoPlaneacion();
+		edicion.setId(lineaId);
+		edicion.setPlaneacion(planeacion);
+		edicion.setInsumo(insumo);
+		edicion.setCantidad(new BigDecimal(cantidad));
+		return edicion;
+	}
+
+	private static void esperar(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void sumarEnJava(Long planeacionId) {
+		PlaneacionCultivo planeacion = planeacionCultivoRepository.findById(planeacionId).orElseThrow();
+		BigDecimal total = BigDecimal.ZERO;
+		for (InsumoPlaneacion ip : insumoPlaneacionRepository.findByPlaneacion(planeacion)) {
+			total = total.add(ip.getTotalInsumo());
+		}
+		planeacion.setEstimacionCosto(total.setScale(2, RoundingMode.HALF_UP));
+		planeacionCultivoRepository.save(planeacion);
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Benchmark");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Insumo crearInsumo(Usuario usuario) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre("Urea");
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal("12.50"));
+		insumo.setUsuario(usuario);
+		return insumoRepository.save(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacionConLineas(Usuario usuario, Insumo insumo, int lineas) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela benchmark");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUsuario(usuario);
+		parcelaRepository.save(parcela);
+
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación benchmark");
+		planeacion.setFechaInicio(LocalDate.now());
+		planeacionCultivoRepository.save(planeacion);
+
+		List<InsumoPlaneacion> nuevas = new ArrayList<>(lineas);
+		for (int i = 0; i < lineas; i++) {
+			InsumoPlaneacion ip = new InsumoPlaneacion();
+			ip.setPlaneacion(planeacion);
+			ip.setInsumo(insumo);
+			ip.setCantidad(BigDecimal.ONE);
+			ip.setTotalInsumo(insumo.getPrecioUnitario());
+			nuevas.add(ip);
+		}
+		insumoPlaneacionRepository.saveAll(nuevas);
+		insumoPlaneacionService.recalcularEstimacionCosto(planeacion.getId());
+		return planeacion;
+	}
+}
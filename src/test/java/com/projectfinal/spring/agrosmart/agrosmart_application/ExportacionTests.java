@@ -0,0 +1,256 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.ParcelaRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ExportacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion.EscritorCsv;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.exportacion.FormatoExportacion;
+
+/**
+ * Exportación de planeaciones con sus líneas de insumo (ExportacionService): comillas del CSV, filas del XLSX
+ * (una por línea y una por planeación sin líneas), solo los datos del usuario y lectura en streaming con fetch size.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class ExportacionTests {
+
+	private static final String NOMBRE = "Maíz \"criollo\", <norte> & sur";
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ExportacionService exportacionService;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private ParcelaRepository parcelaRepository;
+	@Autowired
+	private InsumoRepository insumoRepository;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+	@Autowired
+	private PlaneacionCultivoRepository planeacionCultivoRepository;
+
+	@Test
+	void csvEntrecomillaSoloLosCamposQueLoNecesitan() throws IOException {
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		try (EscritorCsv escritor = new EscritorCsv(salida)) {
+			escritor.fila("simple", "con, coma", "con \"comillas\"", "dos\nlíneas", "retorno\r", null,
+					new BigDecimal("1E+3"), LocalDate.of(2026, 3, 1), EstadoPlaneacion.EN_CURSO);
+		}
+
+		assertThat(salida.toString(StandardCharsets.UTF_8)).isEqualTo("\uFEFFsimple,\"con, coma\",\"con \"\"comillas\"\"\","
+				+ "\"dos\nlíneas\",\"retorno\r\",,1000,2026-03-01,EN_CURSO\r\n");
+	}
+
+	@Test
+	void xlsxTieneUnaFilaPorLineaYUnaPorPlaneacionSinLineas() throws Exception {
+		Usuario usuario = crearUsuario("exportacion-xlsx@agrosmart.test");
+		Insumo urea = crearInsumo(usuario, "Urea", "12.50");
+		Insumo glifosato = crearInsumo(usuario, "Glifosato", "8.00");
+		PlaneacionCultivo conLineas = crearPlaneacion(usuario, NOMBRE);
+		agregarLinea(usuario, conLineas, urea, "2", null);
+		agregarLinea(usuario, conLineas, glifosato, "1.5", null);
+		PlaneacionCultivo sinLineas = crearPlaneacion(usuario, "Sin insumos");
+		crearPlaneacion(crearUsuario("exportacion-xlsx-otro@agrosmart.test"), "Planeación ajena");
+
+		ByteArrayOutputStream salida = new ByteArrayOutputStream();
+		exportacionService.exportarPlaneaciones(usuario, FormatoExportacion.XLSX, salida);
+
+		List<List<String>> filas = filasXlsx(salida.toByteArray());
+		assertThat(filas).hasSize(4);
+		assertThat(filas.get(0)).hasSize(16).startsWith("ID planeación", "Planeación");
+		assertThat(filas.subList(1, 4)).extracting(fila -> fila.get(0), fila -> fila.get(1), fila -> fila.get(9), fila -> fila.get(13))
+				.containsExactly(
+						tuple(conLineas.getId().toString(), NOMBRE, "Urea", "25.00"),
+						tuple(conLineas.getId().toString(), NOMBRE, "Glifosato", "12.00"),
+						tuple(sinLineas.getId().toString(), "Sin insumos", "", ""));
+		assertThat(filas.get(1).get(8)).isEqualTo("37.00");
+	}
+
+	@Test
+	void csvDesdeLaPaginaSoloIncluyeLasPlaneacionesDelUsuario() throws Exception {
+		Usuario usuario = crearUsuario("exportacion-csv@agrosmart.test");
+		Insumo urea = crearInsumo(usuario, "Urea", "12.50");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario, NOMBRE);
+		agregarLinea(usuario, planeacion, urea, "2", "Aplicar\nen la mañana");
+		Usuario otro = crearUsuario("exportacion-csv-otro@agrosmart.test");
+		crearPlaneacion(otro, "Planeación ajena");
+
+		String archivo = "planeaciones-" + LocalDate.now() + ".csv";
+		String csv = mockMvc.perform(get("/planeaciones/exportar").param("formato", "CSV").with(user(new UsuarioAutenticado(usuario))))
+				.andExpect(status().isOk())
+				.andExpect(header().string("Content-Type", "text/csv;charset=UTF-8"))
+				.andExpect(header().string("Content-Disposition", "attachment; filename=\"" + archivo + "\""))
+				.andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+		List<String> filas = Arrays.asList(csv.split("\r\n"));
+		assertThat(filas).hasSize(2);
+		assertThat(filas.get(0)).startsWith("\uFEFFID planeación,Planeación,Parcela,");
+		assertThat(filas.get(1)).startsWith(planeacion.getId() + ",\"Maíz \"\"criollo\"\", <norte> & sur\",Parcela exportación,")
+				.contains(",Urea,Kilogramos,12.50,2.000,25.00,")
+				.endsWith(",\"Aplicar\nen la mañana\"");
+		assertThat(csv).doesNotContain("Planeación ajena");
+	}
+
+	@Test
+	void lasFilasSeLeenEnStreamingDespuesDeEnviarLaCabecera() throws Exception {
+		Usuario usuario = crearUsuario("exportacion-streaming@agrosmart.test");
+		crearPlaneacion(usuario, "Planeación streaming");
+
+		// En el primer flush (la cabecera) todavía no se ha consultado ninguna planeación
+		List<Integer> sentenciasEnCadaFlush = new ArrayList<>();
+		ByteArrayOutputStream salida = new ByteArrayOutputStream() {
+			@Override
+			public void flush() {
+				sentenciasEnCadaFlush.add(consultasDeExportacion().size());
+			}
+		};
+		ContadorSentenciasConfiguracion.limpiar();
+		exportacionService.exportarPlaneaciones(usuario, FormatoExportacion.CSV, salida);
+
+		assertThat(sentenciasEnCadaFlush.get(0)).isZero();
+		assertThat(salida.toString(StandardCharsets.UTF_8)).contains("Planeación streaming");
+		assertThat(consultasDeExportacion()).singleElement()
+				.isEqualTo(PlaneacionCultivoRepository.FETCH_SIZE_EXPORTACION);
+	}
+
+	// Fetch size de las consultas de la exportación (la única que une planeaciones con sus líneas ordenando por ambos ids)
+	private static List<Integer> consultasDeExportacion() {
+		List<Integer> tamanos = new ArrayList<>();
+		for (Map.Entry<String, Integer> sentencia : ContadorSentenciasConfiguracion.tamanosFetch().entrySet()) {
+			String sql = sentencia.getKey().toLowerCase();
+			if (sql.contains("from planeaciones_cultivo") && sql.contains("left join insumos_planeacion")) {
+				tamanos.add(sentencia.getValue());
+			}
+		}
+		return tamanos;
+	}
+
+	// Celdas de cada fila de la hoja, como texto (número o cadena en línea; vacío si no tiene valor)
+	private static List<List<String>> filasXlsx(byte[] xlsx) throws Exception {
+		List<String> entradas = new ArrayList<>();
+		byte[] hoja = null;
+		try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(xlsx))) {
+			for (ZipEntry entrada = zip.getNextEntry(); entrada != null; entrada = zip.getNextEntry()) {
+				entradas.add(entrada.getName());
+				if (entrada.getName().equals("xl/worksheets/sheet1.xml")) {
+					hoja = zip.readAllBytes();
+				}
+			}
+		}
+		assertThat(entradas).contains("[Content_Types].xml", "_rels/.rels", "xl/workbook.xml", "xl/_rels/workbook.xml.rels");
+		assertThat(hoja).isNotNull();
+
+		Document documento = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(new ByteArrayInputStream(hoja));
+		List<List<String>> filas = new ArrayList<>();
+		NodeList rows = documento.getElementsByTagName("row");
+		for (int i = 0; i < rows.getLength(); i++) {
+			Element row = (Element) rows.item(i);
+			assertThat(row.getAttribute("r")).isEqualTo(String.valueOf(i + 1));
+			List<String> celdas = new ArrayList<>();
+			NodeList cells = row.getElementsByTagName("c");
+			for (int j = 0; j < cells.getLength(); j++) {
+				celdas.add(cells.item(j).getTextContent());
+			}
+			filas.add(celdas);
+		}
+		return filas;
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Exportación");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String nombre, String precio) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre(nombre);
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal(precio));
+		insumo.setUsuario(usuario);
+		return insumoRepository.save(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, String nombre) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela exportación");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUsuario(usuario);
+		parcelaRepository.save(parcela);
+
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre(nombre);
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoRepository.save(planeacion);
+	}
+
+	private void agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo, String cantidad, String observaciones) {
+		InsumoPlaneacion linea = new InsumoPlaneacion();
+		linea.setPlaneacion(planeacion);
+		linea.setInsumo(insumo);
+		linea.setCantidad(new BigDecimal(cantidad));
+		linea.setObservaciones(observaciones);
+		insumoPlaneacionService.saveInsumoPlaneacion(linea, usuario);
+	}
+}
@@ -0,0 +1,76 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.ResumenUsuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.GeneradorDatosService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ResumenUsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ParametrosGeneracion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoGeneracion;
+
+/**
+ * Comprueba que los datos sintéticos son coherentes con los que crean los servicios (costos, resumen,
+ * contraseña) y que volver a generar no duplica usuarios.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class GeneradorDatosTests {
+
+	@Autowired
+	private GeneradorDatosService generadorDatosService;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ResumenUsuarioService resumenUsuarioService;
+	@Autowired
+	private PasswordEncoder passwordEncoder;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void generaDatosCoherentesSinDuplicar() {
+		ParametrosGeneracion parametros = new ParametrosGeneracion();
+		parametros.setUsuarios(GeneradorDatosService.USUARIOS_POR_LOTE + 5);
+
+		ResultadoGeneracion resultado = generadorDatosService.generar(parametros);
+		assertThat(resultado.getUsuarios()).isEqualTo(parametros.getUsuarios());
+		assertThat(resultado.getParcelas()).isGreaterThanOrEqualTo(parametros.getUsuarios());
+		assertThat(resultado.getPlaneaciones()).isPositive();
+		assertThat(resultado.getLineas()).isPositive();
+
+		Usuario usuario = usuarioService.findByEmail(GeneradorDatosService.email(0)).orElseThrow();
+		assertThat(passwordEncoder.matches("carga-secreta", usuario.getPassword())).isTrue();
+
+		// El costo guardado de cada planeación es la suma de sus líneas, como al guardarlas desde la web
+		Integer descuadradas = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM planeaciones_cultivo p JOIN usuarios u ON u.id = p.usuario_id "
+						+ "WHERE u.email LIKE 'carga-%' AND p.estimacion_costo <> "
+						+ "(SELECT COALESCE(SUM(ip.total_insumo), 0) FROM insumos_planeacion ip WHERE ip.planeacion_id = p.id)",
+				Integer.class);
+		assertThat(descuadradas).isZero();
+		Integer sinSemillas = jdbcTemplate.queryForObject(
+				"SELECT COUNT(*) FROM planeaciones_cultivo p JOIN usuarios u ON u.id = p.usuario_id "
+						+ "WHERE u.email LIKE 'carga-%' AND p.numero_semillas IS NULL", Integer.class);
+		assertThat(sinSemillas).isZero();
+
+		ResumenUsuario resumen = resumenUsuarioService.getResumen(usuario.getId());
+		BigDecimal costoAntes = resumen.getCostoTotal();
+		assertThat(resumen.getNumeroParcelas()).isPositive();
+		assertThat(resumenUsuarioService.recalcular(usuario.getId()).getCostoTotal()).isEqualByComparingTo(costoAntes);
+
+		ResultadoGeneracion otraVez = generadorDatosService.generar(parametros);
+		assertThat(otraVez.getUsuarios()).isZero();
+		assertThat(otraVez.getUsuariosExistentes()).isEqualTo(parametros.getUsuarios());
+	}
+}
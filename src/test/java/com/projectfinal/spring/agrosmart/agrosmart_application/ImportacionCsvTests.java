@@ -0,0 +1,177 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ImportacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.csv.FilaCsv;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.csv.LectorCsv;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoImportacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.ResultadoImportacion.ErrorFila;
+
+/**
+ * Comprueba la lectura de CSV (separador, comillas, cabeceras y números en formato español o inglés) y la
+ * importación de insumos: errores por fila con su número de línea y el lote que falla al guardarse.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ImportacionCsvTests {
+
+	@Autowired
+	private ImportacionService importacionService;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private InsumoRepository insumoRepository;
+
+	@Test
+	void lectorDetectaSeparadorYRespetaComillas() throws IOException {
+		String csv = "\uFEFFNombre;Unidad de Medida;Descripción\r\n"
+				+ "\"Urea; granulada\";kg;\"Dice \"\"46%\"\"\ny sigue\"\r\n"
+				+ "\r\n"
+				+ "Glifosato;L;\r\n";
+		try (LectorCsv lector = new LectorCsv(flujo(csv))) {
+			assertThat(lector.tieneColumna("unidadMedida")).isTrue();
+			assertThat(lector.tieneColumna("descripcion")).isTrue();
+			assertThatThrownBy(() -> lector.exigirColumnas("nombre", "precioUnitario"))
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessageContaining("precioUnitario");
+
+			FilaCsv primera = lector.siguienteFila();
+			assertThat(primera.getLinea()).isEqualTo(2);
+			assertThat(primera.texto("nombre")).isEqualTo("Urea; granulada");
+			assertThat(primera.texto("unidad_medida")).isEqualTo("kg");
+			assertThat(primera.texto("descripcion")).isEqualTo("Dice \"46%\"\ny sigue");
+
+			// La descripción anterior ocupa dos líneas y la línea vacía se salta
+			FilaCsv segunda = lector.siguienteFila();
+			assertThat(segunda.getLinea()).isEqualTo(5);
+			assertThat(segunda.texto("nombre")).isEqualTo("Glifosato");
+			assertThat(segunda.texto("descripcion")).isNull();
+			assertThat(segunda.texto("proveedor")).isNull();
+
+			assertThat(lector.siguienteFila()).isNull();
+		}
+	}
+
+	@Test
+	void lectorRechazaArchivoVacio() {
+		assertThatThrownBy(() -> new LectorCsv(flujo("")))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("vacío");
+	}
+
+	@Test
+	void decimalesEnFormatoEspanolEIngles() throws IOException {
+		// Con ; como separador la coma queda dentro del valor
+		String csv = "valor;nota\n12,50\n12.50\n1.234,56\n1,234.56\n1.234.567\n1.234.567,89\n-1.234,5\n7\n";
+		try (LectorCsv lector = new LectorCsv(flujo(csv))) {
+			assertThat(decimales(lector)).containsExactly(new BigDecimal("12.50"), new BigDecimal("12.50"),
+					new BigDecimal("1234.56"), new BigDecimal("1234.56"), new BigDecimal("1234567"),
+					new BigDecimal("1234567.89"), new BigDecimal("-1234.5"), new BigDecimal("7"));
+		}
+	}
+
+	@Test
+	void decimalMalFormadoEsUnError() throws IOException {
+		try (LectorCsv lector = new LectorCsv(flujo("valor;nota\n1.234,5.6\n1,2.3,4\ndoce\n"))) {
+			List<FilaCsv> filas = new ArrayList<>();
+			for (FilaCsv fila = lector.siguienteFila(); fila != null; fila = lector.siguienteFila()) {
+				filas.add(fila);
+			}
+			assertThat(filas).hasSize(3).allSatisfy(fila -> assertThatThrownBy(() -> fila.decimal("valor"))
+					.isInstanceOf(IllegalArgumentException.class)
+					.hasMessageContaining("no es un número válido"));
+		}
+	}
+
+	@Test
+	void importacionInformaErroresPorFila() throws IOException {
+		Usuario usuario = crearUsuario("importacion-errores@agrosmart.test");
+		String csv = "nombre;tipo;proveedor;unidadMedida;precioUnitario\n"
+				+ "Urea;Fertilizantes;Agroquímicos;kg;1.234,56\n"
+				+ "Glifosato;HERBICIDAS;;L;12,5\n"
+				+ "Semilla;Frutales;;kg;3\n"
+				+ ";Pesticidas;;L;8\n"
+				+ "Abono;Fertilizantes;;kg;doce\n"
+				+ "Cal;Fertilizantes;;kg;0\n";
+
+		ResultadoImportacion resultado = importacionService.importarInsumos(flujo(csv), usuario);
+
+		assertThat(resultado.getFilasLeidas()).isEqualTo(6);
+		assertThat(resultado.getFilasImportadas()).isEqualTo(2);
+		assertThat(resultado.getFilasConError()).isEqualTo(4);
+		assertThat(resultado.getErrores()).extracting(ErrorFila::getLinea).containsExactly(4, 5, 6, 7);
+		assertThat(resultado.getErrores()).extracting(ErrorFila::getMensaje).satisfiesExactly(
+				mensaje -> assertThat(mensaje).contains("'Frutales'"),
+				mensaje -> assertThat(mensaje).contains("nombre del insumo es requerido"),
+				mensaje -> assertThat(mensaje).contains("'doce'"),
+				mensaje -> assertThat(mensaje).contains("mayor que cero"));
+		assertThat(insumoRepository.findByUsuario(usuario).stream()
+						.sorted(Comparator.comparing(Insumo::getNombre)).toList())
+				.extracting(Insumo::getNombre, Insumo::getTipo, Insumo::getUnidadMedida,
+						insumo -> insumo.getPrecioUnitario().setScale(2))
+				.containsExactly(
+						tuple("Glifosato", TipoInsumo.HERBICIDAS, "Litros", new BigDecimal("12.50")),
+						tuple("Urea", TipoInsumo.FERTILIZANTES, "Kilogramos", new BigDecimal("1234.56")));
+	}
+
+	@Test
+	void loteQueFallaAlGuardarseMarcaTodasSusFilas() throws IOException {
+		Usuario usuario = crearUsuario("importacion-lote@agrosmart.test");
+		// El último precio pasa la validación pero no cabe en NUMERIC(10, 2): falla el lote entero al hacer flush
+		String csv = "nombre,tipo,unidadMedida,precioUnitario\n"
+				+ "Urea,Fertilizantes,kg,\"1,234.56\"\n"
+				+ "Glifosato,Herbicidas,L,12.5\n"
+				+ "Oro líquido,Fertilizantes,L,\"123,456,789.00\"\n";
+
+		ResultadoImportacion resultado = importacionService.importarInsumos(flujo(csv), usuario);
+
+		assertThat(resultado.getFilasLeidas()).isEqualTo(3);
+		assertThat(resultado.getFilasImportadas()).isZero();
+		assertThat(resultado.getErrores()).extracting(ErrorFila::getLinea).containsExactly(2, 3, 4);
+		assertThat(resultado.getErrores()).extracting(ErrorFila::getMensaje)
+				.allSatisfy(mensaje -> assertThat(mensaje).startsWith("No se pudo guardar el lote de esta fila"));
+		assertThat(insumoRepository.findByUsuario(usuario)).isEmpty();
+	}
+
+	private static List<BigDecimal> decimales(LectorCsv lector) throws IOException {
+		List<BigDecimal> valores = new ArrayList<>();
+		for (FilaCsv fila = lector.siguienteFila(); fila != null; fila = lector.siguienteFila()) {
+			valores.add(fila.decimal("valor"));
+		}
+		return valores;
+	}
+
+	private static InputStream flujo(String csv) {
+		return new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Importación");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+}
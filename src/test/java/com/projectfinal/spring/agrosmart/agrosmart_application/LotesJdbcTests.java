@@ -0,0 +1,92 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+
+/**
+ * Cuenta las sentencias JDBC ejecutadas para comprobar que los INSERT/UPDATE
+ * se agrupan en lotes (un lote cuenta como una sola ejecución).
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class LotesJdbcTests {
+
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Autowired
+	private InsumoRepository insumoRepository;
+
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void limpiarContador() {
+		QueryCountHolder.clear();
+	}
+
+	@Test
+	void registroAgrupaLosDatosPorDefecto() {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Lotes");
+		usuario.setEmail("lotes-registro@agrosmart.test");
+		usuario.setPassword("secreta");
+
+		usuarioService.saveUsuario(usuario);
+
+		// usuarios + lote de 3 etapas + lote de 3 tipos de cultivo
+		assertThat(QueryCountHolder.getGrandTotal().getInsert()).isEqualTo(3);
+	}
+
+	@Test
+	void escriturasMultiplesSeEnvianEnLotes() {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Lotes");
+		usuario.setEmail("lotes-insumos@agrosmart.test");
+		usuario.setPassword("secreta");
+		Usuario guardado = usuarioService.saveUsuario(usuario);
+
+		List<Insumo> insumos = new ArrayList<>();
+		for (int i = 0; i < 120; i++) {
+			Insumo insumo = new Insumo();
+			insumo.setNombre("Insumo " + i);
+			insumo.setTipo(TipoInsumo.FERTILIZANTES);
+			insumo.setPrecioUnitario(new BigDecimal("10.00"));
+			insumo.setUsuario(guardado);
+			insumos.add(insumo);
+		}
+
+		QueryCountHolder.clear();
+		List<Insumo> guardados = insumoRepository.saveAll(insumos);
+		QueryCount inserts = QueryCountHolder.getGrandTotal();
+		// 120 filas con batch_size = 50 -> 3 lotes
+		assertThat(inserts.getInsert()).isEqualTo(3);
+
+		QueryCountHolder.clear();
+		transactionTemplate.executeWithoutResult(status -> insumoRepository.findAllById(
+				guardados.stream().map(Insumo::getId).toList())
+				.forEach(insumo -> insumo.setPrecioUnitario(new BigDecimal("12.50"))));
+		assertThat(QueryCountHolder.getGrandTotal().getUpdate()).isEqualTo(3);
+	}
+}
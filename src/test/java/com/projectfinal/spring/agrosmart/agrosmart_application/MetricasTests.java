@@ -0,0 +1,88 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.CatalogoCache;
+
+/**
+ * El endpoint de raspado publica sin sesión los timers por ruta y por servicio, el hash de contraseñas, el pool
+ * de conexiones y las estadísticas de Hibernate; el resto de endpoints de Actuator (también las estadísticas de la
+ * caché de catálogos) exige iniciar sesión.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability // Los tests desactivan por defecto la exportación de métricas (Prometheus incluido)
+@ActiveProfiles("test")
+class MetricasTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UsuarioService usuarioService;
+
+	@Test
+	void prometheusPublicaLasMetricasDeRutasServiciosYRecursos() throws Exception {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Métricas");
+		usuario.setEmail("metricas@agrosmart.test");
+		usuario.setPassword("secreta");
+		usuario = usuarioService.saveUsuario(usuario);
+
+		mockMvc.perform(formLogin("/auth/login").user("metricas@agrosmart.test").password("secreta"));
+		mockMvc.perform(formLogin("/auth/login").user("metricas@agrosmart.test").password("incorrecta"));
+		mockMvc.perform(get("/tipos-cultivo").with(user(new UsuarioAutenticado(usuario)))).andExpect(status().isOk());
+
+		String metricas = mockMvc.perform(get("/actuator/prometheus"))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(metricas)
+				.contains("http_server_requests_seconds_bucket{")
+				.containsPattern("http_server_requests_seconds_count\\{[^}]*uri=\"/tipos-cultivo\"")
+				.containsPattern("agrosmart_servicio_seconds_count\\{[^}]*method=\"saveUsuario\"")
+				.containsPattern("agrosmart_password_seconds_count\\{[^}]*operacion=\"encode\"")
+				.containsPattern("agrosmart_password_seconds_count\\{[^}]*operacion=\"matches\"")
+				.containsPattern("agrosmart_login_total\\{[^}]*resultado=\"correcto\"")
+				.containsPattern("agrosmart_login_total\\{[^}]*resultado=\"fallido\"")
+				.contains("hikaricp_connections_pending", "hikaricp_connections_active", "hikaricp_connections_timeout_total")
+				.contains("hibernate_query_executions_total", "hibernate_entities_loads_total",
+						"hibernate_second_level_cache_requests_total");
+
+		mockMvc.perform(get("/actuator/metrics")).andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	void estadisticasDeLaCacheSoloEnActuator() throws Exception {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Métricas");
+		usuario.setEmail("metricas-cache@agrosmart.test");
+		usuario.setPassword("secreta");
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuarioService.saveUsuario(usuario));
+
+		// Son contadores de todos los usuarios: la aplicación ya no tiene una página que los muestre
+		mockMvc.perform(get("/cache").with(user(principal))).andExpect(status().isNotFound());
+
+		mockMvc.perform(get("/actuator/cachecatalogos")).andExpect(status().is3xxRedirection());
+		mockMvc.perform(get("/actuator/cachecatalogos").with(user(principal)))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[*].region", hasItem(CatalogoCache.CONSULTAS)))
+				.andExpect(jsonPath("$[0].aciertos").isNumber());
+	}
+}
@@ -0,0 +1,124 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Ejecuta las migraciones de Flyway sobre la base embebida y comprueba que el
+ * contexto arranca con ddl-auto=validate (los mapeos JPA coinciden con el esquema).
+ * Las migraciones en Java que convierten datos se prueban sobre una base aparte con filas anteriores a ellas.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class MigracionesEsquemaTests {
+
+	@Autowired
+	private Flyway flyway;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Test
+	void todasLasMigracionesAplicadas() {
+		assertThat(flyway.info().pending()).isEmpty();
+		assertThat(flyway.info().applied())
+				.extracting(MigrationInfo::getVersion)
+				.extracting(Object::toString)
+				.contains("1", "2", "3", "4", "5", "6", "7", "8", "9", "10");
+	}
+
+	@Test
+	void indicesPorUsuarioCreados() {
+		List<String> indices = jdbcTemplate.queryForList(
+				"SELECT LOWER(index_name) FROM information_schema.indexes", String.class);
+
+		assertThat(indices).contains(
+				"idx_parcelas_usuario_created",
+				"idx_insumos_usuario_nombre",
+				"idx_tipos_cultivo_usuario_nombre",
+				"idx_etapas_cultivo_usuario_nombre",
+				"idx_planeaciones_usuario_created",
+				"idx_planeaciones_parcela_fecha_inicio",
+				"idx_insumos_planeacion_planeacion",
+				"idx_insumos_planeacion_planeacion_unidad",
+				"idx_insumos_planeacion_insumo",
+				"idx_parcelas_usuario_area",
+				"idx_recalculos_semillas_usuario",
+				"idx_planeaciones_tipo_cultivo",
+				"spring_session_ix2");
+	}
+
+	@Test
+	void unidadesCanonicasSeCalculanDesdeLosTextosAnteriores() {
+		DriverManagerDataSource base = new DriverManagerDataSource(
+				"jdbc:h2:mem:migracion_v7;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(base).target("6").load().migrate();
+		JdbcTemplate jdbc = new JdbcTemplate(base);
+		jdbc.update("INSERT INTO usuarios (id, nombre, email, password, created_at) VALUES (1, 'V7', 'v7@agrosmart.test', 'x', CURRENT_TIMESTAMP)");
+		jdbc.update("INSERT INTO parcelas (id, usuario_id, nombre, tamano, unidad_medida, created_at) VALUES "
+				+ "(1, 1, 'Hectáreas', 2.5, 'Hectáreas', CURRENT_TIMESTAMP), (2, 1, 'Abreviada', 300, ' M² ', CURRENT_TIMESTAMP), "
+				+ "(3, 1, 'Libre', 4, 'Fanegadas', CURRENT_TIMESTAMP)");
+		jdbc.update("INSERT INTO insumos (id, usuario_id, nombre, tipo, unidad_medida, precio_unitario) VALUES "
+				+ "(1, 1, 'Urea', 'FERTILIZANTES', 'Gramos', 1), (2, 1, 'Glifosato', 'HERBICIDAS', 'cc', 1), "
+				+ "(3, 1, 'Semilla', 'SEMILLAS', 'Bultos', 1), (4, 1, 'Otro', 'SEMILLAS', 'Arrobas', 1)");
+		jdbc.update("INSERT INTO etapas_cultivo (id, usuario_id, nombre) VALUES (1, 1, 'Siembra')");
+		jdbc.update("INSERT INTO tipos_cultivo (id, usuario_id, nombre) VALUES (1, 1, 'Maíz')");
+		jdbc.update("INSERT INTO planeaciones_cultivo (id, usuario_id, parcela_id, tipo_cultivo_id, etapa_cultivo_id, nombre, "
+				+ "fecha_inicio, estado, created_at) VALUES (1, 1, 1, 1, 1, 'Planeación', CURRENT_DATE, 'PENDIENTE', CURRENT_TIMESTAMP)");
+		jdbc.update("INSERT INTO insumos_planeacion (id, planeacion_id, insumo_id, cantidad, total_insumo) VALUES "
+				+ "(1, 1, 1, 1500, 1), (2, 1, 2, 250, 1), (3, 1, 3, 2, 1), (4, 1, 4, 3, 1)");
+
+		Flyway.configure().dataSource(base).target("7").load().migrate();
+
+		assertThat(jdbc.queryForList("SELECT area_m2 FROM parcelas ORDER BY id", BigDecimal.class))
+				.containsExactly(new BigDecimal("25000.00"), new BigDecimal("300.00"), null);
+		assertThat(jdbc.queryForList("SELECT unidad_codigo FROM insumos ORDER BY id", String.class))
+				.containsExactly("GR", "ML", "BULTO", null);
+		List<Map<String, Object>> lineas = jdbc.queryForList(
+				"SELECT cantidad_base, unidad_base FROM insumos_planeacion ORDER BY id");
+		assertThat(lineas).extracting(fila -> fila.get("cantidad_base") == null ? null
+						: ((BigDecimal) fila.get("cantidad_base")).stripTrailingZeros())
+				.containsExactly(new BigDecimal("1.5"), new BigDecimal("0.25"), new BigDecimal("2"), null);
+		assertThat(lineas).extracting(fila -> fila.get("unidad_base")).containsExactly("KG", "L", "BULTO", null);
+		jdbc.execute("SHUTDOWN");
+	}
+
+	@Test
+	void areaDelResumenSeRecalculaDesdeLasUnidadesCanonicas() {
+		DriverManagerDataSource base = new DriverManagerDataSource(
+				"jdbc:h2:mem:migracion_v7_resumen;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1", "sa", "");
+		Flyway.configure().dataSource(base).target("4").load().migrate();
+		JdbcTemplate jdbc = new JdbcTemplate(base);
+		jdbc.update("INSERT INTO usuarios (id, nombre, email, password, created_at) VALUES (1, 'V7', 'v7@agrosmart.test', 'x', CURRENT_TIMESTAMP)");
+		jdbc.update("INSERT INTO usuarios (id, nombre, email, password, created_at) VALUES (2, 'Sin parcelas', 'v7-vacio@agrosmart.test', 'x', CURRENT_TIMESTAMP)");
+		jdbc.update("INSERT INTO parcelas (id, usuario_id, nombre, tamano, unidad_medida, created_at) VALUES "
+				+ "(1, 1, 'Con tilde', 2.5, 'Hectáreas', CURRENT_TIMESTAMP), (2, 1, 'Abreviada', 1, 'ha', CURRENT_TIMESTAMP), "
+				+ "(3, 1, 'Anterior', 1, 'Hectareas', CURRENT_TIMESTAMP), (4, 1, 'Metros', 300, ' M² ', CURRENT_TIMESTAMP), "
+				+ "(5, 1, 'Libre', 4, 'Fanegadas', CURRENT_TIMESTAMP)");
+
+		// V5 carga el resumen con la regla anterior: solo 'Hectareas' se multiplica, el resto se toma como m²
+		Flyway.configure().dataSource(base).target("6").load().migrate();
+		assertThat(jdbc.queryForObject("SELECT area_total_m2 FROM resumen_usuario WHERE usuario_id = 1", BigDecimal.class))
+				.isEqualByComparingTo("10307.5");
+
+		Flyway.configure().dataSource(base).target("7").load().migrate();
+
+		// 25000 + 10000 + 10000 + 300; la unidad libre no tiene área
+		assertThat(jdbc.queryForList("SELECT area_total_m2 FROM resumen_usuario ORDER BY usuario_id", BigDecimal.class))
+				.usingElementComparator(BigDecimal::compareTo)
+				.containsExactly(new BigDecimal("45300"), BigDecimal.ZERO);
+		jdbc.execute("SHUTDOWN");
+	}
+}
@@ -0,0 +1,297 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.redirectedUrl;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.InsumoPlaneacionListadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.PlaneacionCultivoListadoDto;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.paginacion.PaginaKeyset;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.ConteoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.RegistroSentencias;
+
+/**
+ * Comprueba la paginación keyset de los listados: recorrido hacia adelante y hacia atrás con empates en createdAt,
+ * comodines del filtro tratados como texto, cursores alterados y las filas planas de planeaciones e insumos de una
+ * planeación leídas en una sola consulta.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class PaginacionKeysetTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+
+	@Test
+	void recorreHaciaAdelanteYHaciaAtrasConEmpatesEnCreatedAt() {
+		Usuario usuario = crearUsuario("keyset-empates@agrosmart.test");
+		List<Long> ids = new ArrayList<>();
+		for (int i = 1; i <= 5; i++) {
+			ids.add(crearParcela(usuario, "Parcela " + i).getId());
+		}
+		// Todas con la misma fecha: el orden y los cursores dependen solo del id
+		jdbcTemplate.update("UPDATE parcelas SET created_at = ? WHERE usuario_id = ?",
+				LocalDateTime.of(2024, 3, 1, 8, 0), usuario.getId());
+
+		List<List<Long>> adelante = new ArrayList<>();
+		PaginaKeyset<Parcela> pagina = parcelaService.findPaginaByUsuario(usuario, null, null, null, 2);
+		assertThat(pagina.hasAnterior()).isFalse();
+		adelante.add(idsDe(pagina));
+		while (pagina.hasSiguiente()) {
+			pagina = parcelaService.findPaginaByUsuario(usuario, null, pagina.getCursorSiguiente(), null, 2);
+			assertThat(pagina.hasAnterior()).isTrue();
+			adelante.add(idsDe(pagina));
+		}
+		assertThat(adelante).containsExactly(
+				List.of(ids.get(4), ids.get(3)), List.of(ids.get(2), ids.get(1)), List.of(ids.get(0)));
+
+		// Desde la última página se vuelve a la primera por los cursores "antes"
+		List<List<Long>> atras = new ArrayList<>();
+		while (pagina.hasAnterior()) {
+			pagina = parcelaService.findPaginaByUsuario(usuario, null, null, pagina.getCursorAnterior(), 2);
+			assertThat(pagina.hasSiguiente()).isTrue();
+			atras.add(0, idsDe(pagina));
+		}
+		assertThat(atras).containsExactlyElementsOf(adelante.subList(0, 2));
+	}
+
+	@Test
+	void paginaVaciaDesdeUnCursorConservaElEnlaceDeVuelta() {
+		Usuario usuario = crearUsuario("keyset-vacia@agrosmart.test");
+		List<Long> ids = new ArrayList<>();
+		for (int i = 1; i <= 3; i++) {
+			ids.add(crearParcela(usuario, "Parcela " + i).getId());
+		}
+		PaginaKeyset<Parcela> primera = parcelaService.findPaginaByUsuario(usuario, null, null, null, 2);
+		assertThat(idsDe(primera)).containsExactly(ids.get(2), ids.get(1));
+
+		// La última fila se borra antes de pedir la página siguiente: queda vacía pero con enlace a la anterior
+		jdbcTemplate.update("DELETE FROM parcelas WHERE id = ?", ids.get(0));
+		PaginaKeyset<Parcela> vacia = parcelaService.findPaginaByUsuario(usuario, null, primera.getCursorSiguiente(), null, 2);
+		assertThat(vacia.getContenido()).isEmpty();
+		assertThat(vacia.hasSiguiente()).isFalse();
+		assertThat(vacia.getCursorAnterior()).isEqualTo(primera.getCursorSiguiente());
+		PaginaKeyset<Parcela> anterior = parcelaService.findPaginaByUsuario(usuario, null, null, vacia.getCursorAnterior(), 2);
+		assertThat(idsDe(anterior)).containsExactly(ids.get(2));
+
+		// Lo mismo hacia atrás: sin filas antes del cursor se conserva como enlace a la siguiente
+		PaginaKeyset<Parcela> sinAnteriores = parcelaService.findPaginaByUsuario(usuario, null, null, anterior.getCursorSiguiente(), 2);
+		assertThat(sinAnteriores.getContenido()).isEmpty();
+		assertThat(sinAnteriores.hasAnterior()).isFalse();
+		assertThat(sinAnteriores.getCursorSiguiente()).isEqualTo(anterior.getCursorSiguiente());
+	}
+
+	@Test
+	void losComodinesDelFiltroSeBuscanComoTexto() {
+		Usuario usuario = crearUsuario("keyset-filtro@agrosmart.test");
+		for (String nombre : List.of("Riego 100%", "Riego 1000", "Lote_A", "LoteXA", "Norte!B", "NorteB")) {
+			crearParcela(usuario, nombre);
+		}
+
+		assertThat(nombres(usuario, "100%")).containsExactly("Riego 100%");
+		assertThat(nombres(usuario, "LOTE_a")).containsExactly("Lote_A");
+		assertThat(nombres(usuario, "e!b")).containsExactly("Norte!B");
+		assertThat(nombres(usuario, "  ")).hasSize(6);
+	}
+
+	@Test
+	void cursorAlteradoNoEsUnErrorDelServidor() throws Exception {
+		Usuario usuario = crearUsuario("keyset-cursor@agrosmart.test");
+		crearParcela(usuario, "Parcela única");
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+
+		List<String> cursores = List.of("no es base64 *", cursor("sin separador"), cursor("2024-03-01T08:00|abc"),
+				cursor("no-es-fecha|5"));
+		for (String alterado : cursores) {
+			assertThatThrownBy(() -> parcelaService.findPaginaByUsuario(usuario, null, alterado, null, 2))
+					.as(alterado).isInstanceOf(IllegalArgumentException.class)
+					.hasMessage("Cursor de paginación no válido.");
+			assertThatThrownBy(() -> planeacionCultivoService.findListadoPaginaByUsuario(usuario, null, null, alterado, 2))
+					.as(alterado).isInstanceOf(IllegalArgumentException.class);
+
+			mockMvc.perform(get("/parcelas").with(user(principal)).param("despues", alterado))
+					.andExpect(status().is3xxRedirection())
+					.andExpect(redirectedUrl("/parcelas"))
+					.andExpect(flash().attribute("errorMessage", "Cursor de paginación no válido."));
+			mockMvc.perform(get("/api/v1/parcelas").with(user(principal)).param("despues", alterado))
+					.andExpect(status().isBadRequest())
+					.andExpect(jsonPath("$.error").value("Cursor de paginación no válido."));
+		}
+	}
+
+	@Test
+	void listadoDePlaneacionesEnUnaSolaConsulta() {
+		Usuario usuario = crearUsuario("keyset-planeaciones@agrosmart.test");
+		PlaneacionCultivo primera = crearPlaneacion(usuario, crearParcela(usuario, "Parcela del frijol"), "Frijol");
+		PlaneacionCultivo segunda = crearPlaneacion(usuario, crearParcela(usuario, "Parcela del maíz"), "Maíz");
+		agregarLinea(usuario, segunda, crearInsumo(usuario, "Urea"));
+		crearPlaneacion(crearUsuario("keyset-planeaciones-otro@agrosmart.test"), null, "Ajena");
+		String tipo = tipoCultivoRepository.findByUsuario(usuario).get(0).getNombre();
+		String etapa = etapaCultivoRepository.findByUsuario(usuario).get(0).getNombre();
+
+		PaginaKeyset<PlaneacionCultivoListadoDto> todas = enUnaConsulta(
+				() -> planeacionCultivoService.findListadoPaginaByUsuario(usuario, null, null, null, 10));
+		assertThat(todas.getContenido())
+				.extracting(PlaneacionCultivoListadoDto::getId, PlaneacionCultivoListadoDto::getNombre,
+						PlaneacionCultivoListadoDto::getParcelaNombre, PlaneacionCultivoListadoDto::getTipoCultivoNombre,
+						PlaneacionCultivoListadoDto::getEtapaCultivoNombre, PlaneacionCultivoListadoDto::getEstado,
+						fila -> fila.getEstimacionCosto() != null ? fila.getEstimacionCosto().setScale(2) : null)
+				.containsExactly(
+						tuple(segunda.getId(), "Maíz", "Parcela del maíz", tipo, etapa, EstadoPlaneacion.PENDIENTE, new BigDecimal("20.00")),
+						tuple(primera.getId(), "Frijol", "Parcela del frijol", tipo, etapa, EstadoPlaneacion.PENDIENTE, null));
+
+		PaginaKeyset<PlaneacionCultivoListadoDto> pagina = enUnaConsulta(
+				() -> planeacionCultivoService.findListadoPaginaByUsuario(usuario, "frij", null, null, 10));
+		assertThat(pagina.getContenido()).extracting(PlaneacionCultivoListadoDto::getId).containsExactly(primera.getId());
+		assertThat(pagina.getContenido().get(0).getFechaInicio()).isEqualTo(primera.getFechaInicio());
+		assertThat(pagina.getContenido().get(0).getCreatedAt()).isNotNull();
+	}
+
+	@Test
+	void listadoDeInsumosDeUnaPlaneacionEnUnaSolaConsulta() {
+		Usuario usuario = crearUsuario("keyset-insumos@agrosmart.test");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario, crearParcela(usuario, "Parcela del sorgo"), "Sorgo");
+		Insumo urea = crearInsumo(usuario, "Urea");
+		InsumoPlaneacion linea = agregarLinea(usuario, planeacion, urea);
+		agregarLinea(usuario, crearPlaneacion(usuario, crearParcela(usuario, "Otra parcela"), "Otra"), urea);
+
+		List<InsumoPlaneacionListadoDto> filas = enUnaConsulta(() -> insumoPlaneacionService.getListadoByPlaneacion(planeacion));
+		assertThat(filas)
+				.extracting(InsumoPlaneacionListadoDto::getId, InsumoPlaneacionListadoDto::getInsumoId,
+						InsumoPlaneacionListadoDto::getInsumoNombre, InsumoPlaneacionListadoDto::getInsumoUnidadMedida,
+						fila -> fila.getInsumoPrecioUnitario().setScale(2), fila -> fila.getCantidad().stripTrailingZeros(),
+						fila -> fila.getTotalInsumo().setScale(2), InsumoPlaneacionListadoDto::getObservaciones)
+				.containsExactly(tuple(linea.getId(), urea.getId(), "Urea", "Kilogramos", new BigDecimal("10.00"),
+						new BigDecimal("2"), new BigDecimal("20.00"), "Aplicar al voleo"));
+	}
+
+	private <T> T enUnaConsulta(Supplier<T> consulta) {
+		ConteoSentencias conteo = RegistroSentencias.iniciar();
+		T resultado;
+		try {
+			resultado = consulta.get();
+		} finally {
+			RegistroSentencias.terminar();
+		}
+		assertThat(conteo.getTotal()).as(conteo.toString()).isEqualTo(1);
+		return resultado;
+	}
+
+	private List<String> nombres(Usuario usuario, String filtro) {
+		return parcelaService.findPaginaByUsuario(usuario, filtro, null, null, 20).getContenido().stream()
+				.map(Parcela::getNombre).toList();
+	}
+
+	private static List<Long> idsDe(PaginaKeyset<Parcela> pagina) {
+		return pagina.getContenido().stream().map(Parcela::getId).toList();
+	}
+
+	private static String cursor(String plano) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(plano.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Keyset");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario, String nombre) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre(nombre);
+		parcela.setUbicacion("Lote norte");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUnidadMedida("Hectareas");
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String nombre) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre(nombre);
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal("10.00"));
+		insumo.setUsuario(usuario);
+		return insumoService.saveInsumo(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, Parcela parcela, String nombre) {
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela != null ? parcela : crearParcela(usuario, "Parcela de " + nombre));
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre(nombre);
+		planeacion.setFechaInicio(LocalDate.of(2024, 3, 1));
+		return planeacionCultivoService.savePlaneacionCultivo(planeacion);
+	}
+
+	private InsumoPlaneacion agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal("2"));
+		ip.setObservaciones("Aplicar al voleo");
+		return insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
@@ -0,0 +1,170 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+
+/**
+ * Comprueba el GET condicional de listados y formularios: una página sin cambios responde 304 con una sola
+ * consulta y sin cuerpo, y cualquier cambio de lo que muestra (aunque no tenga updatedAt) cambia su ETag.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class PaginasCondicionalesTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+
+	@Test
+	void paginaSinCambiosRespondeNotModifiedSinConsultarElListado() throws Exception {
+		Usuario usuario = crearUsuario("condicional-parcelas@agrosmart.test");
+		Parcela parcela = crearParcela(usuario);
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+		MockHttpSession sesion = new MockHttpSession();
+
+		String etag = etag("/parcelas", principal, sesion);
+
+		ContadorSentenciasConfiguracion.limpiar();
+		mockMvc.perform(get("/parcelas").with(user(principal)).session(sesion).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isNotModified())
+				.andExpect(content().string(""));
+		assertThat(ContadorSentenciasConfiguracion.sentencias()).hasSize(1);
+
+		// Otra sesión (otro token CSRF en los formularios) no reutiliza la página guardada
+		mockMvc.perform(get("/parcelas").with(user(principal)).session(new MockHttpSession())
+						.header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+
+		parcela.setNombre("Parcela renombrada");
+		parcelaService.saveParcela(parcela);
+		mockMvc.perform(get("/parcelas").with(user(principal)).session(sesion).header(HttpHeaders.IF_NONE_MATCH, etag))
+				.andExpect(status().isOk());
+	}
+
+	@Test
+	void cambiosSinUpdatedAtCambianLaEtag() throws Exception {
+		Usuario usuario = crearUsuario("condicional-insumos@agrosmart.test");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario, crearParcela(usuario));
+		Insumo urea = crearInsumo(usuario);
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+		MockHttpSession sesion = new MockHttpSession();
+		String ruta = "/planeaciones/" + planeacion.getId() + "/insumos";
+
+		String inicial = etag(ruta, principal, sesion);
+		agregarLinea(usuario, planeacion, urea);
+		String conLinea = etag(ruta, principal, sesion);
+		assertThat(conLinea).isNotEqualTo(inicial);
+
+		// Renombrar el insumo no toca la planeación, pero su nombre aparece en las líneas
+		urea.setNombre("Urea granulada");
+		insumoService.saveInsumo(urea);
+		assertThat(etag(ruta, principal, sesion)).isNotEqualTo(conLinea);
+
+		String listado = etag("/planeaciones", principal, sesion);
+		mockMvc.perform(get("/planeaciones").with(user(principal)).session(sesion).header(HttpHeaders.IF_NONE_MATCH, listado))
+				.andExpect(status().isNotModified());
+		planeacionCultivoService.deletePlaneacionCultivo(planeacion.getId(), usuario);
+		mockMvc.perform(get("/planeaciones").with(user(principal)).session(sesion).header(HttpHeaders.IF_NONE_MATCH, listado))
+				.andExpect(status().isOk());
+	}
+
+	private String etag(String ruta, UsuarioAutenticado principal, MockHttpSession sesion) throws Exception {
+		return mockMvc.perform(get(ruta).with(user(principal)).session(sesion))
+				.andExpect(status().isOk())
+				.andExpect(header().string(HttpHeaders.CACHE_CONTROL, "private, no-cache"))
+				.andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Condicional");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela condicional");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUnidadMedida("Hectareas");
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+
+	private Insumo crearInsumo(Usuario usuario) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre("Urea");
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal("10.00"));
+		insumo.setUsuario(usuario);
+		return insumoService.saveInsumo(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, Parcela parcela) {
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación condicional");
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoService.savePlaneacionCultivo(planeacion);
+	}
+
+	private void agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal("2"));
+		insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
@@ -0,0 +1,354 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.PresupuestoSentenciasFilter;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.EtapaCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.EtapaCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.TipoCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.ConteoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.RegistroSentencias;
+
+/**
+ * Recorre todas las rutas de los controladores y comprueba que cada una ejecuta el mismo número de sentencias SQL
+ * con pocos datos que con muchos: ningún listado, formulario o borrado crece con el volumen del usuario (cargas
+ * perezosas por fila, N+1). El presupuesto y la detección de formas repetidas los aplica PresupuestoSentenciasFilter,
+ * que en el perfil de tests hace fallar la petición.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PresupuestoSentenciasTests {
+
+	private static final String PAQUETE_CONTROLADORES = "com.projectfinal.spring.agrosmart.agrosmart_application.controller";
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	@Qualifier("requestMappingHandlerMapping")
+	private RequestMappingHandlerMapping handlerMapping;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private TipoCultivoService tipoCultivoService;
+	@Autowired
+	private EtapaCultivoService etapaCultivoService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+
+	private final AtomicInteger secuencia = new AtomicInteger();
+
+	@FunctionalInterface
+	private interface Peticion {
+		MockHttpServletRequestBuilder crear() throws Exception;
+	}
+
+	@Test
+	void todasLasRutasTienenPresupuesto() {
+		handlerMapping.getHandlerMethods().values().stream()
+				.filter(this::esControlador)
+				.forEach(handler -> assertThat(
+						AnnotatedElementUtils.hasAnnotation(handler.getMethod(), PresupuestoSentencias.class)
+								|| AnnotatedElementUtils.hasAnnotation(handler.getBeanType(), PresupuestoSentencias.class))
+						.as("@PresupuestoSentencias en %s", handler.getShortLogMessage())
+						.isTrue());
+	}
+
+	@Test
+	void sentenciasFijasPorRutaSinImportarElVolumen() throws Exception {
+		Usuario usuario = crearUsuario("presupuesto-sentencias@agrosmart.test");
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario, crearParcela(usuario));
+		Insumo insumo = crearInsumo(usuario);
+		InsumoPlaneacion linea = agregarLinea(usuario, planeacion, insumo);
+		TipoCultivo tipo = tipoCultivoRepository.findByUsuario(usuario).get(0);
+		EtapaCultivo etapa = etapaCultivoRepository.findByUsuario(usuario).get(0);
+		Long p = planeacion.getId();
+
+		Map<String, Peticion> rutas = new LinkedHashMap<>();
+		rutas.put("GET /", () -> get("/"));
+		rutas.put("GET /index", () -> get("/index"));
+		rutas.put("GET /auth/login", () -> get("/auth/login"));
+		rutas.put("GET /auth/register", () -> get("/auth/register"));
+		rutas.put("POST /auth/register", () -> {
+			String email = "presupuesto-registro-" + secuencia.incrementAndGet() + "@agrosmart.test";
+			return post("/auth/register").param("nombre", "Registro").param("email", email)
+					.param("password", "secreta").param("confirmPassword", "secreta");
+		});
+		rutas.put("GET /dashboard", () -> get("/dashboard").with(user(principal)));
+
+		rutas.put("GET /parcelas", () -> get("/parcelas").with(user(principal)));
+		rutas.put("GET /parcelas/new", () -> get("/parcelas/new").with(user(principal)));
+		rutas.put("GET /parcelas/edit/{id}", () -> get("/parcelas/edit/{id}", planeacion.getParcela().getId()).with(user(principal)));
+		rutas.put("GET /parcelas/importar", () -> get("/parcelas/importar").with(user(principal)));
+		rutas.put("POST /parcelas/importar", () -> multipart("/parcelas/importar")
+				.file(archivo("nombre,tamano,unidadMedida\nImportada A,2,Hectareas\nImportada B,3,Hectareas\n"))
+				.with(user(principal)));
+		rutas.put("POST /parcelas", () -> post("/parcelas").with(user(principal))
+				.param("nombre", "Parcela " + secuencia.incrementAndGet()).param("ubicacion", "Lote")
+				.param("tamano", "4").param("unidadMedida", "Hectareas"));
+		rutas.put("POST /parcelas/delete/{id}", () -> post("/parcelas/delete/{id}", crearParcela(usuario).getId()).with(user(principal)));
+
+		rutas.put("GET /tipos-cultivo", () -> get("/tipos-cultivo").with(user(principal)));
+		rutas.put("GET /tipos-cultivo/new", () -> get("/tipos-cultivo/new").with(user(principal)));
+		rutas.put("GET /tipos-cultivo/edit/{id}", () -> get("/tipos-cultivo/edit/{id}", tipo.getId()).with(user(principal)));
+		rutas.put("POST /tipos-cultivo", () -> post("/tipos-cultivo").with(user(principal))
+				.param("nombre", "Tipo " + secuencia.incrementAndGet()).param("distanciaSurco", "1.5").param("distanciaPlanta", "1"));
+		rutas.put("POST /tipos-cultivo/update/{id}", () -> post("/tipos-cultivo/update/{id}", tipo.getId()).with(user(principal))
+				.param("nombre", tipo.getNombre()).param("distanciaSurco", tipo.getDistanciaSurco().toPlainString())
+				.param("distanciaPlanta", tipo.getDistanciaPlanta().toPlainString())
+				.param("descripcion", "Revisado " + secuencia.incrementAndGet()));
+		rutas.put("POST /tipos-cultivo/delete/{id}", () -> post("/tipos-cultivo/delete/{id}", crearTipo(usuario).getId()).with(user(principal)));
+
+		rutas.put("GET /etapas", () -> get("/etapas").with(user(principal)));
+		rutas.put("GET /etapas/new", () -> get("/etapas/new").with(user(principal)));
+		rutas.put("GET /etapas/edit/{id}", () -> get("/etapas/edit/{id}", etapa.getId()).with(user(principal)));
+		rutas.put("POST /etapas", () -> post("/etapas").with(user(principal))
+				.param("nombre", "Etapa " + secuencia.incrementAndGet()).param("duracionDias", "10"));
+		rutas.put("POST /etapas/delete/{id}", () -> post("/etapas/delete/{id}", crearEtapa(usuario).getId()).with(user(principal)));
+
+		rutas.put("GET /insumos", () -> get("/insumos").with(user(principal)));
+		rutas.put("GET /insumos/new", () -> get("/insumos/new").with(user(principal)));
+		rutas.put("GET /insumos/edit/{id}", () -> get("/insumos/edit/{id}", insumo.getId()).with(user(principal)));
+		rutas.put("GET /insumos/importar", () -> get("/insumos/importar").with(user(principal)));
+		rutas.put("POST /insumos/importar", () -> multipart("/insumos/importar")
+				.file(archivo("nombre,tipo,unidadMedida,precioUnitario\nCal,FERTILIZANTES,Kilogramos,3\nAzufre,FERTILIZANTES,Kilogramos,4\n"))
+				.with(user(principal)));
+		rutas.put("GET /insumos/precios", () -> get("/insumos/precios").with(user(principal)));
+		rutas.put("POST /insumos/precios", () -> post("/insumos/precios").with(user(principal))
+				.param("proveedor", "Agroinsumos").param("porcentaje", "1"));
+		rutas.put("POST /insumos/precios/recalcular", () -> post("/insumos/precios/recalcular").with(user(principal)));
+		rutas.put("POST /insumos", () -> post("/insumos").with(user(principal))
+				.param("nombre", "Insumo " + secuencia.incrementAndGet()).param("tipo", "FERTILIZANTES")
+				.param("unidadMedidaSelect", "KG").param("precioUnitario", "5"));
+		rutas.put("POST /insumos/delete/{id}", () -> post("/insumos/delete/{id}", crearInsumo(usuario).getId()).with(user(principal)));
+
+		rutas.put("GET /planeaciones", () -> get("/planeaciones").with(user(principal)));
+		rutas.put("GET /planeaciones/exportar", () -> get("/planeaciones/exportar").with(user(principal)));
+		rutas.put("GET /planeaciones/new", () -> get("/planeaciones/new").with(user(principal)));
+		rutas.put("GET /planeaciones/edit/{id}", () -> get("/planeaciones/edit/{id}", p).with(user(principal)));
+		rutas.put("POST /planeaciones", () -> post("/planeaciones").with(user(principal))
+				.param("nombre", "Planeación " + secuencia.incrementAndGet())
+				.param("parcela.id", planeacion.getParcela().getId().toString())
+				.param("tipoCultivo.id", tipo.getId().toString()).param("etapaCultivo.id", etapa.getId().toString())
+				.param("fechaInicio", LocalDate.now().toString()).param("estado", "PENDIENTE"));
+		rutas.put("POST /planeaciones/delete/{id}", () -> post("/planeaciones/delete/{id}",
+				crearPlaneacion(usuario, planeacion.getParcela()).getId()).with(user(principal)));
+
+		rutas.put("GET /planeaciones/{planeacionId}/insumos", () -> get("/planeaciones/{p}/insumos", p).with(user(principal)));
+		rutas.put("GET /planeaciones/{planeacionId}/insumos/new", () -> get("/planeaciones/{p}/insumos/new", p).with(user(principal)));
+		rutas.put("GET /planeaciones/{planeacionId}/insumos/edit/{insumoPlaneacionId}",
+				() -> get("/planeaciones/{p}/insumos/edit/{i}", p, linea.getId()).with(user(principal)));
+		rutas.put("POST /planeaciones/{planeacionId}/insumos", () -> post("/planeaciones/{p}/insumos", p).with(user(principal))
+				.param("insumo.id", insumo.getId().toString()).param("cantidad", "2"));
+		rutas.put("POST /planeaciones/{planeacionId}/insumos/edit/{insumoPlaneacionId}",
+				() -> post("/planeaciones/{p}/insumos/edit/{i}", p, linea.getId()).with(user(principal))
+						.param("id", linea.getId().toString()).param("insumo.id", insumo.getId().toString())
+						.param("cantidad", String.valueOf(secuencia.incrementAndGet())));
+		rutas.put("POST /planeaciones/{planeacionId}/insumos/delete/{insumoPlaneacionId}",
+				() -> post("/planeaciones/{p}/insumos/delete/{i}", p, agregarLinea(usuario, planeacion, insumo).getId())
+						.with(user(principal)));
+
+		rutas.put("GET /api/v1/parcelas", () -> get("/api/v1/parcelas").with(user(principal)));
+		rutas.put("GET /api/v1/parcelas/{id}", () -> get("/api/v1/parcelas/{id}", planeacion.getParcela().getId()).with(user(principal)));
+		rutas.put("GET /api/v1/insumos", () -> get("/api/v1/insumos").with(user(principal)));
+		rutas.put("GET /api/v1/insumos/buscar", () -> get("/api/v1/insumos/buscar").param("q", "insumo").with(user(principal)));
+		rutas.put("GET /api/v1/insumos/{id}", () -> get("/api/v1/insumos/{id}", insumo.getId()).with(user(principal)));
+		rutas.put("GET /api/v1/tipos-cultivo", () -> get("/api/v1/tipos-cultivo").with(user(principal)));
+		rutas.put("GET /api/v1/tipos-cultivo/{id}", () -> get("/api/v1/tipos-cultivo/{id}", tipo.getId()).with(user(principal)));
+		rutas.put("GET /api/v1/etapas", () -> get("/api/v1/etapas").with(user(principal)));
+		rutas.put("GET /api/v1/etapas/{id}", () -> get("/api/v1/etapas/{id}", etapa.getId()).with(user(principal)));
+		rutas.put("GET /api/v1/planeaciones", () -> get("/api/v1/planeaciones").with(user(principal)));
+		rutas.put("GET /api/v1/planeaciones/{id}", () -> get("/api/v1/planeaciones/{id}", p).with(user(principal)));
+		rutas.put("GET /api/v1/planeaciones/{planeacionId}/insumos", () -> get("/api/v1/planeaciones/{p}/insumos", p).with(user(principal)));
+		rutas.put("GET /api/v1/planeaciones/{planeacionId}/insumos/{id}",
+				() -> get("/api/v1/planeaciones/{p}/insumos/{i}", p, linea.getId()).with(user(principal)));
+
+		assertThat(rutas.keySet()).as("rutas de los controladores").containsExactlyInAnyOrderElementsOf(rutasControladores());
+
+		Map<String, Integer> conPocosDatos = medir(rutas);
+		crecer(usuario, planeacion, 15);
+		Map<String, Integer> conMuchosDatos = medir(rutas);
+
+		assertThat(conMuchosDatos).as("sentencias por ruta con 15 veces más datos").isEqualTo(conPocosDatos);
+	}
+
+	@Test
+	void formasRepetidasSeDetectan() {
+		ConteoSentencias conteo = RegistroSentencias.iniciar();
+		try {
+			conteo.registrar("select p.nombre from parcelas p where p.id = 7");
+			conteo.registrar("SELECT p.nombre\n  FROM parcelas p WHERE p.id = 8");
+			conteo.registrar("select p.nombre from parcelas p where p.id = ?");
+			conteo.registrar("select * from insumos where id in (?, ?, ?) and nombre = 'Urea'");
+			conteo.registrar("select * from insumos where id in (?, ?) and nombre = 'Cal'");
+		} finally {
+			RegistroSentencias.terminar();
+		}
+		assertThat(conteo.getTotal()).isEqualTo(5);
+		assertThat(conteo.repetidas(2)).containsOnlyKeys("select p.nombre from parcelas p where p.id = ?");
+		assertThat(conteo.getPorForma()).containsEntry("select * from insumos where id in (?) and nombre = ?", 2);
+		assertThat(RegistroSentencias.activo()).isFalse();
+	}
+
+	// Cada ruta se pide dos veces y se cuenta la segunda: la primera llena las cachés de catálogos
+	private Map<String, Integer> medir(Map<String, Peticion> rutas) throws Exception {
+		Map<String, Integer> sentencias = new LinkedHashMap<>();
+		for (Map.Entry<String, Peticion> ruta : rutas.entrySet()) {
+			mockMvc.perform(ruta.getValue().crear());
+			MvcResult resultado = mockMvc.perform(ruta.getValue().crear()).andReturn();
+			assertThat(resultado.getResponse().getStatus()).as(ruta.getKey()).isLessThan(400);
+			ConteoSentencias conteo = (ConteoSentencias) resultado.getRequest().getAttribute(PresupuestoSentenciasFilter.ATRIBUTO);
+			sentencias.put(ruta.getKey(), conteo.getTotal());
+		}
+		return sentencias;
+	}
+
+	private List<String> rutasControladores() {
+		List<String> rutas = new ArrayList<>();
+		handlerMapping.getHandlerMethods().forEach((info, handler) -> {
+			if (esControlador(handler)) {
+				info.getMethodsCondition().getMethods().forEach(metodo ->
+						info.getPatternValues().forEach(patron -> rutas.add(metodo + " " + patron)));
+			}
+		});
+		return new ArrayList<>(new TreeSet<>(rutas));
+	}
+
+	private boolean esControlador(HandlerMethod handler) {
+		return handler.getBeanType().getPackageName().equals(PAQUETE_CONTROLADORES);
+	}
+
+	private void crecer(Usuario usuario, PlaneacionCultivo planeacion, int veces) {
+		for (int i = 0; i < veces; i++) {
+			Parcela parcela = crearParcela(usuario);
+			PlaneacionCultivo otra = crearPlaneacion(usuario, parcela);
+			Insumo insumo = crearInsumo(usuario);
+			agregarLinea(usuario, planeacion, insumo);
+			agregarLinea(usuario, otra, insumo);
+			crearTipo(usuario);
+			crearEtapa(usuario);
+		}
+	}
+
+	private static MockMultipartFile archivo(String contenido) {
+		return new MockMultipartFile("archivo", "datos.csv", "text/csv", contenido.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Presupuesto");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela " + secuencia.incrementAndGet());
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUnidadMedida("Hectareas");
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+
+	private TipoCultivo crearTipo(Usuario usuario) {
+		TipoCultivo tipo = new TipoCultivo();
+		tipo.setNombre("Tipo " + secuencia.incrementAndGet());
+		tipo.setDistanciaSurco(new BigDecimal("1.5"));
+		tipo.setDistanciaPlanta(BigDecimal.ONE);
+		tipo.setUsuario(usuario);
+		return tipoCultivoService.saveTipoCultivo(tipo);
+	}
+
+	private EtapaCultivo crearEtapa(Usuario usuario) {
+		EtapaCultivo etapa = new EtapaCultivo();
+		etapa.setNombre("Etapa " + secuencia.incrementAndGet());
+		etapa.setUsuario(usuario);
+		return etapaCultivoService.saveEtapaCultivo(etapa);
+	}
+
+	private Insumo crearInsumo(Usuario usuario) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre("Insumo " + secuencia.incrementAndGet());
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setProveedor("Agroinsumos");
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal("10.00"));
+		insumo.setUsuario(usuario);
+		return insumoService.saveInsumo(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, Parcela parcela) {
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación " + secuencia.incrementAndGet());
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoService.savePlaneacionCultivo(planeacion);
+	}
+
+	private InsumoPlaneacion agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal("2"));
+		return insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
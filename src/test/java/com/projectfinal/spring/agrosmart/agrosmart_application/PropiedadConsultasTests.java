@@ -0,0 +1,189 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoPlaneacionRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.ParcelaRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+
+/**
+ * Comprueba que las lecturas y borrados autorizados llevan el predicado del usuario en la propia sentencia:
+ * un registro ajeno no se modifica, el borrado del dueño es una sola sentencia y los hijos se borran en cascada.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class PropiedadConsultasTests {
+
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private InsumoRepository insumoRepository;
+	@Autowired
+	private InsumoPlaneacionRepository insumoPlaneacionRepository;
+	@Autowired
+	private ParcelaRepository parcelaRepository;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+	@Autowired
+	private PlaneacionCultivoRepository planeacionCultivoRepository;
+
+	@Test
+	void otroUsuarioNoPuedeLeerNiBorrar() {
+		Usuario duena = crearUsuario("propiedad-duena@agrosmart.test");
+		Usuario ajeno = crearUsuario("propiedad-ajeno@agrosmart.test");
+		Insumo urea = crearInsumo(duena, "Urea", "10.00");
+		PlaneacionCultivo planeacion = crearPlaneacion(duena);
+		InsumoPlaneacion linea = agregarLinea(duena, planeacion, urea, "3");
+
+		assertThat(insumoPlaneacionService.findByIdAndPlaneacionOwnedByUser(linea.getId(), ajeno)).isEmpty();
+		assertThatThrownBy(() -> insumoPlaneacionService.deleteInsumoPlaneacion(linea.getId(), ajeno))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> insumoService.deleteInsumoByIdAndUsuario(urea.getId(), ajeno))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> planeacionCultivoService.deletePlaneacionCultivo(planeacion.getId(), ajeno))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> parcelaService.deleteParcela(planeacion.getParcela().getId(), ajeno))
+				.isInstanceOf(IllegalArgumentException.class);
+
+		assertThat(insumoPlaneacionRepository.existsById(linea.getId())).isTrue();
+		assertThat(insumoRepository.existsById(urea.getId())).isTrue();
+		assertThat(parcelaRepository.existsById(planeacion.getParcela().getId())).isTrue();
+		assertThat(estimacionCosto(planeacion)).isEqualByComparingTo("30.00");
+	}
+
+	@Test
+	void borrarParcelaEsUnaSentenciaYBorraEnCascada() {
+		Usuario usuario = crearUsuario("propiedad-parcela@agrosmart.test");
+		Insumo urea = crearInsumo(usuario, "Urea", "10.00");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		InsumoPlaneacion linea = agregarLinea(usuario, planeacion, urea, "2");
+
+		ContadorSentenciasConfiguracion.limpiar();
+		parcelaService.deleteParcela(planeacion.getParcela().getId(), usuario);
+
+		// Un único DELETE; el resto son las consultas agregadas que recalculan el resumen del dashboard
+		assertThat(ContadorSentenciasConfiguracion.sentencias())
+				.filteredOn(sql -> sql.trim().toLowerCase().startsWith("delete")).hasSize(1);
+		assertThat(planeacionCultivoRepository.existsById(planeacion.getId())).isFalse();
+		assertThat(insumoPlaneacionRepository.existsById(linea.getId())).isFalse();
+		assertThat(insumoRepository.existsById(urea.getId())).isTrue();
+	}
+
+	@Test
+	void borrarInsumoDescuentaSusLineasDelCosto() {
+		Usuario usuario = crearUsuario("propiedad-insumo@agrosmart.test");
+		Insumo urea = crearInsumo(usuario, "Urea", "10.00");
+		Insumo semilla = crearInsumo(usuario, "Semilla", "4.00");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		agregarLinea(usuario, planeacion, urea, "3");    // 30.00
+		agregarLinea(usuario, planeacion, semilla, "5"); // 20.00
+
+		insumoService.deleteInsumoByIdAndUsuario(urea.getId(), usuario);
+
+		assertThat(insumoRepository.existsById(urea.getId())).isFalse();
+		assertThat(insumoPlaneacionRepository.findByPlaneacionId(planeacion.getId())).hasSize(1);
+		assertThat(estimacionCosto(planeacion)).isEqualByComparingTo("20.00");
+	}
+
+	@Test
+	void borrarLineaDescuentaSuTotalSinCargarla() {
+		Usuario usuario = crearUsuario("propiedad-linea@agrosmart.test");
+		Insumo urea = crearInsumo(usuario, "Urea", "10.00");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		InsumoPlaneacion linea = agregarLinea(usuario, planeacion, urea, "3");
+		agregarLinea(usuario, planeacion, urea, "1");
+
+		ContadorSentenciasConfiguracion.limpiar();
+		insumoPlaneacionService.deleteInsumoPlaneacion(linea.getId(), usuario);
+
+		// La lectura bloqueante de solo el total, dos UPDATE que lo descuentan (planeación y resumen del dashboard)
+		// y un DELETE, todos con el predicado del usuario
+		assertThat(ContadorSentenciasConfiguracion.sentencias()).hasSize(4)
+				.filteredOn(sql -> sql.trim().toLowerCase().startsWith("select"))
+				.singleElement().asString().endsWith("for update");
+		assertThat(insumoPlaneacionRepository.existsById(linea.getId())).isFalse();
+		assertThat(estimacionCosto(planeacion)).isEqualByComparingTo("10.00");
+	}
+
+	private BigDecimal estimacionCosto(PlaneacionCultivo planeacion) {
+		return planeacionCultivoRepository.findById(planeacion.getId()).orElseThrow().getEstimacionCosto();
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Propiedad");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String nombre, String precio) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre(nombre);
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal(precio));
+		insumo.setUsuario(usuario);
+		return insumoRepository.save(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela propiedad");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUsuario(usuario);
+		parcelaRepository.save(parcela);
+
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación propiedad");
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoRepository.save(planeacion);
+	}
+
+	private InsumoPlaneacion agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo, String cantidad) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal(cantidad));
+		return insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
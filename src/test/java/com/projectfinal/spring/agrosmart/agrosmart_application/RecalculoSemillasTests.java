@@ -0,0 +1,207 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.RecalculoSemillas;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.TipoCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.RecalculoSemillasRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.RecalculoSemillasService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.TipoCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+
+/**
+ * Comprueba que editar el área de una parcela o el marco de siembra de un tipo de cultivo deja registrado un
+ * recálculo que, tras el commit y en otro hilo, actualiza numeroSemillas de todas sus planeaciones por lotes, y
+ * que un recálculo en curso solo lo retoma otra instancia cuando lleva más de ABANDONO sin avanzar.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class RecalculoSemillasTests {
+
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private TipoCultivoService tipoCultivoService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private RecalculoSemillasService recalculoSemillasService;
+	@Autowired
+	private RecalculoSemillasRepository recalculoSemillasRepository;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private TransactionTemplate transactionTemplate;
+
+	@Test
+	void cambiarAreaYMarcoRecalculaEnSegundoPlano() throws Exception {
+		Usuario usuario = crearUsuario("recalculo@agrosmart.test");
+		Parcela parcela = crearParcela(usuario, "1");
+		TipoCultivo cafe = tipoCultivoRepository.findByUsuario(usuario).stream()
+				.filter(t -> t.getNombre().equals("Café")).findFirst().orElseThrow();
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario, parcela, cafe);
+		// Café: 1.5 m x 1.0 m por planta
+		assertThat(planeacion.getNumeroSemillas()).isEqualByComparingTo("6667");
+		// Más planeaciones que un lote, insertadas directamente para no pasar por el cálculo del servicio
+		insertarPlaneaciones(usuario, parcela, cafe, planeacion.getEtapaCultivo().getId(), RecalculoSemillasService.TAMANO_LOTE + 20);
+
+		// Cambiar solo el nombre no programa nada
+		Parcela editada = parcelaService.getParcelaById(parcela.getId()).orElseThrow();
+		editada.setNombre("Parcela renombrada");
+		parcelaService.saveParcela(editada);
+		assertThat(recalculoSemillasService.getRecientes(usuario.getId())).isEmpty();
+
+		editada = parcelaService.getParcelaById(parcela.getId()).orElseThrow();
+		editada.setTamano(new BigDecimal("2"));
+		parcelaService.saveParcela(editada);
+		RecalculoSemillas recalculo = esperarFin(usuario);
+		assertThat(recalculo.getOrigen()).isEqualTo(RecalculoSemillas.Origen.PARCELA);
+		assertThat(recalculo.getEstado()).isEqualTo(RecalculoSemillas.Estado.COMPLETADO);
+		assertThat(recalculo.getTotal()).isEqualTo(RecalculoSemillasService.TAMANO_LOTE + 21);
+		assertThat(recalculo.getProcesadas()).isEqualTo(recalculo.getTotal());
+		assertThat(semillasDistintas(parcela)).containsExactly(new BigDecimal("13333.00"));
+
+		TipoCultivo detalles = tipoCultivoService.getTipoCultivoById(cafe.getId()).orElseThrow();
+		detalles.setDistanciaPlanta(new BigDecimal("2.00"));
+		tipoCultivoService.updateTipoCultivo(cafe.getId(), detalles);
+		recalculo = esperarFin(usuario);
+		assertThat(recalculo.getOrigen()).isEqualTo(RecalculoSemillas.Origen.TIPO_CULTIVO);
+		assertThat(recalculo.getEstado()).isEqualTo(RecalculoSemillas.Estado.COMPLETADO);
+		assertThat(semillasDistintas(parcela)).containsExactly(new BigDecimal("6667.00"));
+		assertThat(recalculoSemillasService.getRecientes(usuario.getId())).hasSize(2);
+	}
+
+	@Test
+	void soloSeReclamaUnRecalculoPendienteOAbandonado() {
+		Usuario usuario = crearUsuario("recalculo-reclamo@agrosmart.test");
+		Parcela parcela = crearParcela(usuario, "1");
+		// En curso en otra instancia, con un lote confirmado hace un momento
+		Long id = insertarRecalculo(usuario, parcela, RecalculoSemillas.Estado.EN_CURSO, 7, LocalDateTime.now());
+
+		assertThat(reclamar(id, LocalDateTime.now().minus(RecalculoSemillasService.ABANDONO))).isZero();
+		assertThat(recalculoSemillasRepository.findById(id).orElseThrow().getProcesadas()).isEqualTo(7);
+
+		// Pasado el plazo sin avanzar se reclama y el avance vuelve a empezar
+		assertThat(reclamar(id, LocalDateTime.now().plusSeconds(1))).isEqualTo(1);
+		RecalculoSemillas reclamado = recalculoSemillasRepository.findById(id).orElseThrow();
+		assertThat(reclamado.getEstado()).isEqualTo(RecalculoSemillas.Estado.EN_CURSO);
+		assertThat(reclamado.getProcesadas()).isZero();
+		assertThat(reclamado.getTotal()).isEqualTo(3);
+
+		// Recién reclamado, nadie más lo toma
+		assertThat(reclamar(id, LocalDateTime.now().minus(RecalculoSemillasService.ABANDONO))).isZero();
+	}
+
+	@Test
+	void reanudarRecalculoAbandonadoEmpiezaDeCero() throws Exception {
+		Usuario usuario = crearUsuario("recalculo-abandonado@agrosmart.test");
+		Parcela parcela = crearParcela(usuario, "1");
+		TipoCultivo cafe = tipoCultivoRepository.findByUsuario(usuario).stream()
+				.filter(t -> t.getNombre().equals("Café")).findFirst().orElseThrow();
+		crearPlaneacion(usuario, parcela, cafe);
+		insertarRecalculo(usuario, parcela, RecalculoSemillas.Estado.EN_CURSO, 999,
+				LocalDateTime.now().minus(RecalculoSemillasService.ABANDONO).minusMinutes(1));
+
+		recalculoSemillasService.reanudarPendientes();
+
+		RecalculoSemillas recalculo = esperarFin(usuario);
+		assertThat(recalculo.getEstado()).isEqualTo(RecalculoSemillas.Estado.COMPLETADO);
+		assertThat(recalculo.getTotal()).isEqualTo(1);
+		assertThat(recalculo.getProcesadas()).isEqualTo(1);
+	}
+
+	private int reclamar(Long id, LocalDateTime vencido) {
+		return transactionTemplate.execute(status -> recalculoSemillasRepository.iniciar(id,
+				RecalculoSemillas.Estado.PENDIENTE, RecalculoSemillas.Estado.EN_CURSO, 3, LocalDateTime.now(), vencido));
+	}
+
+	// Directo en la tabla, como lo dejaría otra instancia, y sin publicar el evento que lo lanza
+	private Long insertarRecalculo(Usuario usuario, Parcela parcela, RecalculoSemillas.Estado estado, long procesadas,
+			LocalDateTime actualizado) {
+		Long id = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1000 FROM recalculos_semillas", Long.class);
+		jdbcTemplate.update("INSERT INTO recalculos_semillas (id, usuario_id, origen, origen_id, estado, total, procesadas, "
+				+ "created_at, updated_at) VALUES (?, ?, 'PARCELA', ?, ?, 0, ?, ?, ?)", id, usuario.getId(), parcela.getId(),
+				estado.name(), procesadas, actualizado, actualizado);
+		return id;
+	}
+
+	private RecalculoSemillas esperarFin(Usuario usuario) throws InterruptedException {
+		for (int intento = 0; intento < 100; intento++) {
+			RecalculoSemillas ultimo = recalculoSemillasRepository.findTop5ByUsuarioIdOrderByIdDesc(usuario.getId()).get(0);
+			if (ultimo.isTerminado()) {
+				return ultimo;
+			}
+			Thread.sleep(100);
+		}
+		throw new AssertionError("El recálculo no terminó a tiempo");
+	}
+
+	private List<BigDecimal> semillasDistintas(Parcela parcela) {
+		return jdbcTemplate.queryForList("SELECT DISTINCT numero_semillas FROM planeaciones_cultivo WHERE parcela_id = ?",
+				BigDecimal.class, parcela.getId());
+	}
+
+	private void insertarPlaneaciones(Usuario usuario, Parcela parcela, TipoCultivo tipo, Long etapaId, int cantidad) {
+		Long siguienteId = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) + 1000 FROM planeaciones_cultivo", Long.class);
+		List<Object[]> filas = new ArrayList<>();
+		for (int i = 0; i < cantidad; i++) {
+			filas.add(new Object[] { siguienteId + i, usuario.getId(), parcela.getId(), tipo.getId(), etapaId, "Planeación " + i });
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO planeaciones_cultivo (id, usuario_id, parcela_id, tipo_cultivo_id, etapa_cultivo_id, "
+				+ "nombre, fecha_inicio, estado, created_at) VALUES (?, ?, ?, ?, ?, ?, CURRENT_DATE, 'PENDIENTE', CURRENT_TIMESTAMP)", filas);
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Recálculo");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario, String hectareas) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela recálculo");
+		parcela.setTamano(new BigDecimal(hectareas));
+		parcela.setUnidadMedida("Hectáreas");
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, Parcela parcela, TipoCultivo tipo) {
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipo);
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación recálculo");
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoService.savePlaneacionCultivo(planeacion);
+	}
+}
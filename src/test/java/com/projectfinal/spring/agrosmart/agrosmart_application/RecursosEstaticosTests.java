@@ -0,0 +1,66 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+/**
+ * Comprueba que las plantillas enlazan los recursos por su nombre con huella de contenido y que estos se
+ * sirven precomprimidos, con caché inmutable y sin pasar por la cadena de filtros de seguridad.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RecursosEstaticosTests {
+
+	private static final Pattern HOJA_ESTILOS = Pattern.compile("/css/style-[0-9a-f]{32}\\.css");
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@Test
+	void lasPlantillasEnlazanElNombreVersionado() throws Exception {
+		String pagina = mockMvc.perform(get("/auth/login")).andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+
+		assertThat(pagina).containsPattern(HOJA_ESTILOS).doesNotContain("/css/style.css");
+	}
+
+	@Test
+	void elRecursoVersionadoSeSirveComprimidoEInmutable() throws Exception {
+		String ruta = hojaDeEstilos();
+
+		for (String codificacion : new String[] {"br", "gzip"}) {
+			MvcResult resultado = mockMvc.perform(get(ruta).header(HttpHeaders.ACCEPT_ENCODING, codificacion))
+					.andExpect(status().isOk())
+					.andExpect(header().string(HttpHeaders.CONTENT_ENCODING, codificacion))
+					.andExpect(header().string(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING))
+					// Fuera de la cadena de seguridad: ni sus cabeceras ni sesión
+					.andExpect(header().doesNotExist("X-Frame-Options"))
+					.andReturn();
+			assertThat(resultado.getResponse().getHeader(HttpHeaders.CACHE_CONTROL))
+					.contains("max-age=31536000", "public", "immutable");
+			assertThat(resultado.getRequest().getSession(false)).isNull();
+		}
+	}
+
+	private String hojaDeEstilos() throws Exception {
+		String pagina = mockMvc.perform(get("/auth/login")).andReturn().getResponse().getContentAsString();
+		Matcher matcher = HOJA_ESTILOS.matcher(pagina);
+		assertThat(matcher.find()).isTrue();
+		return matcher.group();
+	}
+}
@@ -0,0 +1,218 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.flash;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.ReplicasLectura;
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ActualizacionPreciosService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+
+/**
+ * Comprueba el enrutado de lecturas a réplicas. La réplica de prueba es otra base H2 con el mismo esquema que nunca
+ * recibe las escrituras de la primaria, como una réplica infinitamente atrasada: lo que se lee de ella no ve lo
+ * escrito, así que se nota qué base atendió cada lectura.
+ */
+@SpringBootTest(properties = {
+		"agrosmart.replicas.urls=" + ReplicasLecturaTests.URL_REPLICA,
+		"agrosmart.replicas.consulta-retraso=SELECT segundos FROM retraso_replica",
+		"agrosmart.replicas.intervalo-verificacion=1h"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReplicasLecturaTests {
+
+	static final String URL_REPLICA = "jdbc:h2:mem:agrosmart_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;"
+			+ "DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1";
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private ReplicasLectura replicasLectura;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private ActualizacionPreciosService actualizacionPreciosService;
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@BeforeAll
+	static void crearReplica() throws SQLException {
+		Flyway.configure().dataSource(URL_REPLICA, "sa", "").load().migrate();
+		ejecutarEnReplica("CREATE TABLE retraso_replica (segundos NUMERIC(10, 3))");
+		ejecutarEnReplica("INSERT INTO retraso_replica VALUES (0)");
+	}
+
+	// El listener de tests de Spring deja una petición simulada en el hilo del test; sin quitarla, las escrituras
+	// de los servicios llamados aquí contarían como escrituras de una sesión y sus lecturas irían a la primaria
+	@BeforeEach
+	void sinPeticionEnElHilo() {
+		RequestContextHolder.resetRequestAttributes();
+	}
+
+	@Test
+	void lecturasVanALaReplicaSalvoDespuesDeEscribir() throws Exception {
+		replicasLectura.verificar();
+		assertThat(replicasLectura.getDisponibles()).containsExactly("agrosmart-replica-1");
+
+		Usuario usuario = crearUsuario("replicas-lectura@agrosmart.test");
+		crearParcela(usuario, "Parcela en la primaria");
+		// Lectura readOnly fuera de una petición: réplica
+		assertThat(parcelaService.findByUsuario(usuario)).isEmpty();
+
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+		MockHttpSession sesion = new MockHttpSession();
+		assertThat(listado(principal, sesion)).doesNotContain("Parcela en la primaria");
+
+		mockMvc.perform(post("/parcelas").with(user(principal)).session(sesion)
+						.param("nombre", "Parcela del formulario").param("ubicacion", "Lote")
+						.param("tamano", "2").param("unidadMedida", "Hectareas"))
+				.andExpect(status().is3xxRedirection());
+
+		// La sesión que escribió lee de la primaria mientras dure el retraso tolerado; otra sesión sigue en la réplica
+		assertThat(listado(principal, sesion)).contains("Parcela en la primaria", "Parcela del formulario");
+		assertThat(listado(principal, new MockHttpSession())).doesNotContain("Parcela del formulario");
+	}
+
+	@Test
+	void edicionConLecturaPreviaEscribeEnLaPrimaria() throws Exception {
+		replicasLectura.verificar();
+		Usuario usuario = crearUsuario("replicas-edicion@agrosmart.test");
+		Parcela parcela = crearParcela(usuario, "Parcela a editar");
+		// La réplica tiene la parcela, así que la comprobación de propiedad (readOnly) la encuentra allí
+		ejecutarEnReplica("INSERT INTO usuarios (id, created_at, email, nombre, password) VALUES ("
+				+ usuario.getId() + ", CURRENT_TIMESTAMP, 'replicas-edicion@agrosmart.test', 'Réplicas', 'secreta')");
+		ejecutarEnReplica("INSERT INTO parcelas (id, usuario_id, nombre, tamano, unidad_medida, area_m2, created_at) VALUES ("
+				+ parcela.getId() + ", " + usuario.getId() + ", 'Parcela a editar', 10, 'Hectareas', 100000, CURRENT_TIMESTAMP)");
+
+		mockMvc.perform(post("/parcelas").with(user(new UsuarioAutenticado(usuario))).session(new MockHttpSession())
+						.param("id", parcela.getId().toString()).param("nombre", "Parcela editada")
+						.param("ubicacion", "Lote").param("tamano", "10").param("unidadMedida", "Hectareas"))
+				.andExpect(status().is3xxRedirection())
+				.andExpect(flash().attributeExists("successMessage"));
+
+		JdbcTemplate primaria = new JdbcTemplate(replicasLectura.getPrimaria());
+		assertThat(primaria.queryForObject("SELECT nombre FROM parcelas WHERE id = ?", String.class, parcela.getId()))
+				.isEqualTo("Parcela editada");
+	}
+
+	@Test
+	void replicaAtrasadaDejaDeRecibirLecturas() throws Exception {
+		Usuario usuario = crearUsuario("replicas-atrasada@agrosmart.test");
+		crearParcela(usuario, "Parcela con réplica atrasada");
+		try {
+			ejecutarEnReplica("UPDATE retraso_replica SET segundos = 60");
+			replicasLectura.verificar();
+			assertThat(replicasLectura.getDisponibles()).isEmpty();
+			assertThat(parcelaService.findByUsuario(usuario)).extracting(Parcela::getNombre)
+					.containsExactly("Parcela con réplica atrasada");
+		} finally {
+			ejecutarEnReplica("UPDATE retraso_replica SET segundos = 0");
+			replicasLectura.verificar();
+		}
+		assertThat(parcelaService.findByUsuario(usuario)).isEmpty();
+	}
+
+	@Test
+	void lecturaEnReplicaNoLlenaLaCacheDeSegundoNivel() throws Exception {
+		replicasLectura.verificar();
+		Usuario usuario = crearUsuario("replicas-cache@agrosmart.test");
+		Insumo insumo = new Insumo();
+		insumo.setNombre("Urea");
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setProveedor("Agroquímicos del Valle");
+		insumo.setPrecioUnitario(new BigDecimal("10.00"));
+		insumo.setUsuario(usuario);
+		Long id = insumoService.saveInsumo(insumo).getId();
+		// La réplica tiene el insumo con el precio de antes del ajuste
+		ejecutarEnReplica("INSERT INTO usuarios (id, created_at, email, nombre, password) VALUES ("
+				+ usuario.getId() + ", CURRENT_TIMESTAMP, 'replicas-cache@agrosmart.test', 'Réplicas', 'secreta')");
+		ejecutarEnReplica("INSERT INTO insumos (id, usuario_id, nombre, tipo, proveedor, precio_unitario) VALUES ("
+				+ id + ", " + usuario.getId() + ", 'Urea', 'FERTILIZANTES', 'Agroquímicos del Valle', 10.00)");
+
+		// El UPDATE masivo de precios vacía la región de insumos
+		actualizacionPreciosService.ajustarPreciosPorProveedor(usuario, "Agroquímicos del Valle", new BigDecimal("100"));
+		assertThat(entityManagerFactory.getCache().contains(Insumo.class, id)).isFalse();
+
+		// La lectura readOnly va a la réplica y ve el precio viejo, pero no lo guarda en la caché
+		assertThat(insumoService.findByIdAndUsuario(id, usuario)).get()
+				.extracting(Insumo::getPrecioUnitario).isEqualTo(new BigDecimal("10.00"));
+		assertThat(entityManagerFactory.getCache().contains(Insumo.class, id)).isFalse();
+
+		// Las lecturas en la primaria (aquí, con la réplica fuera del turno) ven el precio nuevo, y esas sí se cachean
+		try {
+			ejecutarEnReplica("UPDATE retraso_replica SET segundos = 60");
+			replicasLectura.verificar();
+			assertThat(insumoService.findByIdAndUsuario(id, usuario)).get()
+					.extracting(Insumo::getPrecioUnitario).isEqualTo(new BigDecimal("20.00"));
+			assertThat(entityManagerFactory.getCache().contains(Insumo.class, id)).isTrue();
+		} finally {
+			ejecutarEnReplica("UPDATE retraso_replica SET segundos = 0");
+			replicasLectura.verificar();
+		}
+	}
+
+	private String listado(UsuarioAutenticado principal, MockHttpSession sesion) throws Exception {
+		return mockMvc.perform(get("/parcelas").with(user(principal)).session(sesion))
+				.andExpect(status().isOk())
+				.andReturn().getResponse().getContentAsString();
+	}
+
+	private static void ejecutarEnReplica(String sql) throws SQLException {
+		try (Connection conexion = DriverManager.getConnection(URL_REPLICA, "sa", "");
+			 Statement statement = conexion.createStatement()) {
+			statement.execute(sql);
+		}
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Réplicas");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario, String nombre) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre(nombre);
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUnidadMedida("Hectareas");
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+}
@@ -0,0 +1,164 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.ResumenUsuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.InsumoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ResumenUsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.EstadoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+
+/**
+ * Comprueba que el resumen del dashboard, mantenido con deltas desde los servicios de escritura,
+ * coincide con el recálculo completo y que leerlo no depende de cuántos registros tenga el usuario.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class ResumenUsuarioTests {
+
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private ResumenUsuarioService resumenUsuarioService;
+	@Autowired
+	private InsumoRepository insumoRepository;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+
+	@Test
+	void losDeltasCoincidenConElRecalculo() {
+		Usuario usuario = crearUsuario("resumen-deltas@agrosmart.test");
+		Parcela norte = crearParcela(usuario, "Norte", "2", "Hectareas");
+		crearParcela(usuario, "Huerto", "500", "m2");
+		Insumo urea = crearInsumo(usuario, "10.00");
+
+		PlaneacionCultivo maiz = crearPlaneacion(usuario, norte, "Maíz", LocalDate.now().plusDays(30));
+		PlaneacionCultivo frijol = crearPlaneacion(usuario, norte, "Frijol", LocalDate.now().plusDays(10));
+		InsumoPlaneacion linea = agregarLinea(usuario, maiz, urea, "3"); // 30.00
+		agregarLinea(usuario, frijol, urea, "2");                         // 20.00
+
+		// Editar: cambia el área de la parcela, el estado de una planeación y el total de una línea
+		norte.setTamano(new BigDecimal("3"));
+		parcelaService.saveParcela(norte);
+		frijol.setEstado(EstadoPlaneacion.EN_CURSO);
+		planeacionCultivoService.savePlaneacionCultivo(frijol);
+		linea.setCantidad(new BigDecimal("5"));                          // 50.00
+		insumoPlaneacionService.saveInsumoPlaneacion(linea, usuario);
+
+		ResumenUsuario resumen = resumenUsuarioService.getResumen(usuario.getId());
+		assertThat(resumen.getNumeroParcelas()).isEqualTo(2);
+		assertThat(resumen.getAreaTotalM2()).isEqualByComparingTo("30500");
+		assertThat(resumen.getPlaneacionesPendientes()).isEqualTo(1);
+		assertThat(resumen.getPlaneacionesEnCurso()).isEqualTo(1);
+		assertThat(resumen.getCostoTotal()).isEqualByComparingTo("70.00");
+
+		insumoPlaneacionService.deleteInsumoPlaneacion(linea.getId(), usuario);
+		planeacionCultivoService.deletePlaneacionCultivo(frijol.getId(), usuario);
+		resumen = resumenUsuarioService.getResumen(usuario.getId());
+		assertThat(resumen.getTotalPlaneaciones()).isEqualTo(1);
+		assertThat(resumen.getCostoTotal()).isEqualByComparingTo("0.00");
+
+		ResumenUsuario recalculado = resumenUsuarioService.recalcular(usuario.getId());
+		assertThat(recalculado.getNumeroParcelas()).isEqualTo(resumen.getNumeroParcelas());
+		assertThat(recalculado.getAreaTotalM2()).isEqualByComparingTo(resumen.getAreaTotalM2());
+		assertThat(recalculado.getPlaneacionesPendientes()).isEqualTo(resumen.getPlaneacionesPendientes());
+		assertThat(recalculado.getPlaneacionesEnCurso()).isEqualTo(resumen.getPlaneacionesEnCurso());
+		assertThat(recalculado.getCostoTotal()).isEqualByComparingTo(resumen.getCostoTotal());
+	}
+
+	@Test
+	void leerElDashboardSonDosConsultas() {
+		Usuario usuario = crearUsuario("resumen-lectura@agrosmart.test");
+		Parcela parcela = crearParcela(usuario, "Sur", "1", "Hectareas");
+		for (int i = 1; i <= 8; i++) {
+			crearPlaneacion(usuario, parcela, "Cultivo " + i, LocalDate.now().plusDays(i));
+		}
+		crearPlaneacion(usuario, parcela, "Cosechado", LocalDate.now().minusDays(1));
+
+		ContadorSentenciasConfiguracion.limpiar();
+		ResumenUsuario resumen = resumenUsuarioService.getResumen(usuario.getId());
+		var proximas = resumenUsuarioService.getProximasCosechas(usuario);
+
+		assertThat(ContadorSentenciasConfiguracion.sentencias()).hasSize(2);
+		assertThat(resumen.getPlaneacionesPendientes()).isEqualTo(9);
+		assertThat(proximas).hasSize(ResumenUsuarioService.PROXIMAS_COSECHAS);
+		assertThat(proximas.get(0).getNombre()).isEqualTo("Cultivo 1");
+		assertThat(proximas.get(0).getParcelaNombre()).isEqualTo("Sur");
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Resumen");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario, String nombre, String tamano, String unidadMedida) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre(nombre);
+		parcela.setTamano(new BigDecimal(tamano));
+		parcela.setUnidadMedida(unidadMedida);
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String precio) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre("Urea");
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setUnidadMedida("Kilogramos");
+		insumo.setPrecioUnitario(new BigDecimal(precio));
+		insumo.setUsuario(usuario);
+		return insumoRepository.save(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, Parcela parcela, String nombre, LocalDate fechaFin) {
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre(nombre);
+		planeacion.setFechaInicio(LocalDate.now().minusDays(60));
+		planeacion.setFechaFinEstimada(fechaFin);
+		return planeacionCultivoService.savePlaneacionCultivo(planeacion);
+	}
+
+	private InsumoPlaneacion agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo, String cantidad) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal(cantidad));
+		return insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
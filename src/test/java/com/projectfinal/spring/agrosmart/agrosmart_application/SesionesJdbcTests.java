@@ -0,0 +1,188 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.Instant;
+import java.util.Base64;
+
+import jakarta.servlet.http.Cookie;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.springframework.session.jdbc.JdbcIndexedSessionRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.util.SerializationUtils;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.ConteoSentencias;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.sentencias.RegistroSentencias;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Sesiones en la base de datos (SesionesConfig): el perfil de tests usa la sesión del contenedor, aquí se activa el
+ * almacén JDBC. Cada petición viaja solo con la cookie SESSION, como si la atendiera otra instancia; por eso corre
+ * también sin la caché de segundo nivel, como un despliegue de varias instancias.
+ */
+@SpringBootTest(properties = {"spring.autoconfigure.exclude=", "agrosmart.cache.local=false"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SesionesJdbcTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+	@Autowired
+	private JdbcIndexedSessionRepository sessionRepository;
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Test
+	void laSesionSeGuardaCompactaYSeLeeDesdeLaBase() throws Exception {
+		Usuario usuario = crearUsuario("sesiones-login@agrosmart.test");
+		Cookie cookie = iniciarSesion("sesiones-login@agrosmart.test");
+		String sessionId = idDeSesion(cookie);
+
+		assertThat(jdbcTemplate.queryForObject("SELECT principal_name FROM spring_session WHERE session_id = ?",
+				String.class, sessionId)).isEqualTo("sesiones-login@agrosmart.test");
+		byte[] contexto = atributo(sessionId, HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+		SecurityContext leido = (SecurityContext) leerAtributo(sessionId,
+				HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+		assertThat(contexto[0]).isEqualTo((byte) 0x01);
+		assertThat(contexto.length).isLessThan(SerializationUtils.serialize(leido).length / 5);
+		UsuarioAutenticado principal = (UsuarioAutenticado) leido.getAuthentication().getPrincipal();
+		assertThat(principal.getId()).isEqualTo(usuario.getId());
+		assertThat(principal.getNombre()).isEqualTo("Sesiones");
+		assertThat(principal.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_USER");
+
+		// Sin la sesión del contenedor: la autenticación llega solo desde la fila de spring_session
+		mockMvc.perform(get("/dashboard").cookie(cookie)).andExpect(status().isOk());
+	}
+
+	@Test
+	void losAtributosGrandesSeComprimen() throws Exception {
+		// Sin autenticar, Spring Security guarda la petición para volver a ella después del login
+		Cookie cookie = mockMvc.perform(get("/parcelas").header("User-Agent", "Agrosmart test"))
+				.andExpect(status().is3xxRedirection())
+				.andReturn().getResponse().getCookie("SESSION");
+		byte[] peticionGuardada = atributo(idDeSesion(cookie), "SPRING_SECURITY_SAVED_REQUEST");
+
+		assertThat(peticionGuardada[0]).isEqualTo((byte) 0x78);
+		Object leida = leerAtributo(idDeSesion(cookie), "SPRING_SECURITY_SAVED_REQUEST");
+		assertThat(peticionGuardada.length).isLessThan(SerializationUtils.serialize(leida).length * 2 / 3);
+	}
+
+	@Test
+	void lasSesionesVencidasSeBorran() throws Exception {
+		crearUsuario("sesiones-vencidas@agrosmart.test");
+		Cookie cookie = iniciarSesion("sesiones-vencidas@agrosmart.test");
+		String sessionId = idDeSesion(cookie);
+
+		jdbcTemplate.update("UPDATE spring_session SET expiry_time = 0 WHERE session_id = ?", sessionId);
+		sessionRepository.cleanUpExpiredSessions();
+
+		assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM spring_session WHERE session_id = ?",
+				Integer.class, sessionId)).isZero();
+		mockMvc.perform(get("/dashboard").cookie(cookie)).andExpect(status().is3xxRedirection());
+	}
+
+	@Test
+	void cadaPeticionConSesionSeMide() throws Exception {
+		crearUsuario("sesiones-medidas@agrosmart.test");
+		Cookie cookie = iniciarSesion("sesiones-medidas@agrosmart.test");
+		mockMvc.perform(get("/dashboard").cookie(cookie)).andExpect(status().isOk());
+		long leidas = timer("leer").count();
+		long guardadas = timer("guardar").count();
+
+		int peticiones = 20;
+		for (int i = 0; i < peticiones; i++) {
+			mockMvc.perform(get("/dashboard").cookie(cookie)).andExpect(status().isOk());
+		}
+
+		// SessionRepositoryFilter vuelve a leer la sesión si la respuesta se confirmó antes de salir del filtro
+		assertThat(timer("leer").count() - leidas).isBetween((long) peticiones, 2L * peticiones);
+		assertThat(timer("guardar").count() - guardadas).isBetween((long) peticiones, 2L * peticiones);
+	}
+
+	@Test
+	void leerYGuardarLaSesionSonDosSentencias() throws Exception {
+		crearUsuario("sesiones-sentencias@agrosmart.test");
+		String sessionId = idDeSesion(iniciarSesion("sesiones-sentencias@agrosmart.test"));
+
+		// Lo que hace SessionRepositoryFilter en cada petición autenticada: leer la sesión con sus atributos y
+		// guardar solo la hora de último acceso. Sin la medición de SesionesConfig, que excluye estas sentencias
+		// del conteo de la petición. El tiempo se mide en carga (carga/escenario.sh), no aquí
+		SessionRepository<?> repositorio = AopTestUtils.getUltimateTargetObject(sessionRepository);
+		ConteoSentencias conteo = RegistroSentencias.iniciar();
+		try {
+			cicloDeSesion(repositorio, sessionId);
+		} finally {
+			RegistroSentencias.terminar();
+		}
+		assertThat(conteo.getTotal()).as(conteo.toString()).isEqualTo(2);
+		assertThat(conteo.getPorForma().keySet()).anySatisfy(sql -> assertThat(sql).startsWith("select"))
+				.anySatisfy(sql -> assertThat(sql).startsWith("update spring_session set"));
+	}
+
+	@SuppressWarnings({"rawtypes", "unchecked"})
+	private void cicloDeSesion(SessionRepository repositorio, String sessionId) {
+		Session sesion = repositorio.findById(sessionId);
+		assertThat((Object) sesion.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY)).isNotNull();
+		sesion.setLastAccessedTime(Instant.now());
+		repositorio.save(sesion);
+	}
+
+	private Object leerAtributo(String sessionId, String nombre) {
+		Session sesion = ((SessionRepository<?>) sessionRepository).findById(sessionId);
+		return sesion.getAttribute(nombre);
+	}
+
+	private Cookie iniciarSesion(String email) throws Exception {
+		Cookie cookie = mockMvc.perform(formLogin("/auth/login").user(email).password("secreta"))
+				.andExpect(status().is3xxRedirection())
+				.andReturn().getResponse().getCookie("SESSION");
+		assertThat(cookie).isNotNull();
+		return cookie;
+	}
+
+	private static String idDeSesion(Cookie cookie) {
+		return new String(Base64.getDecoder().decode(cookie.getValue()));
+	}
+
+	private byte[] atributo(String sessionId, String nombre) {
+		return jdbcTemplate.queryForObject("SELECT a.attribute_bytes FROM spring_session_attributes a "
+				+ "JOIN spring_session s ON s.primary_id = a.session_primary_id "
+				+ "WHERE s.session_id = ? AND a.attribute_name = ?", byte[].class, sessionId, nombre);
+	}
+
+	private Timer timer(String operacion) {
+		return meterRegistry.get("agrosmart.sesion").tag("operacion", operacion).timer();
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Sesiones");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+}
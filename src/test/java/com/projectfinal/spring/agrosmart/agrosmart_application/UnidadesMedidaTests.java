@@ -0,0 +1,159 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Insumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.InsumoPlaneacion;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoPlaneacionService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.InsumoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.ParcelaService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.PlaneacionCultivoService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.TipoInsumo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.UnidadMedida;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.calculo.ConversionUnidades;
+import com.projectfinal.spring.agrosmart.agrosmart_application.util.dto.CantidadUnidadDto;
+
+/**
+ * Comprueba las tablas de conversión y que áreas y cantidades se guardan ya normalizadas a la unidad base,
+ * de modo que las sumas entre parcelas e insumos distintos no convierten nada al leer.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class UnidadesMedidaTests {
+
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaService parcelaService;
+	@Autowired
+	private PlaneacionCultivoService planeacionCultivoService;
+	@Autowired
+	private InsumoService insumoService;
+	@Autowired
+	private InsumoPlaneacionService insumoPlaneacionService;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+
+	@Test
+	void conversionesPorTabla() {
+		assertThat(UnidadMedida.desdeTexto(" HECTÁREAS ")).isEqualTo(UnidadMedida.HECTAREA);
+		assertThat(UnidadMedida.desdeTexto("Kilogramos")).isEqualTo(UnidadMedida.KG);
+		assertThat(UnidadMedida.desdeTexto("m²")).isEqualTo(UnidadMedida.M2);
+		assertThat(UnidadMedida.desdeTexto("Tarros de 5 galones")).isNull();
+
+		assertThat(ConversionUnidades.convertir(new BigDecimal("1500"), UnidadMedida.GR, UnidadMedida.KG)).isEqualByComparingTo("1.5");
+		assertThat(ConversionUnidades.convertir(new BigDecimal("2"), UnidadMedida.M3, UnidadMedida.ML)).isEqualByComparingTo("2000000");
+		assertThat(ConversionUnidades.aBase(new BigDecimal("2.5"), UnidadMedida.HECTAREA)).isEqualByComparingTo("25000");
+		assertThat(ConversionUnidades.base(UnidadMedida.BULTO)).isEqualTo(UnidadMedida.BULTO);
+		assertThatThrownBy(() -> ConversionUnidades.convertir(BigDecimal.ONE, UnidadMedida.SACO, UnidadMedida.BULTO))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ConversionUnidades.convertir(BigDecimal.ONE, UnidadMedida.KG, UnidadMedida.L))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void cantidadesNormalizadasAlEscribir() {
+		Usuario usuario = crearUsuario("unidades@agrosmart.test");
+		Parcela parcela = crearParcela(usuario, "2.5", "Hectáreas");
+		assertThat(parcela.getAreaM2()).isEqualByComparingTo("25000");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario, parcela);
+		// Café: 1.5 m x 1.0 m por planta
+		assertThat(planeacion.getNumeroSemillas()).isEqualByComparingTo("16667");
+
+		Insumo urea = crearInsumo(usuario, "Urea", "Kilogramos");
+		Insumo micro = crearInsumo(usuario, "Micronutrientes", "gr");
+		Insumo abono = crearInsumo(usuario, "Abono", "Tarros");
+		agregarLinea(usuario, planeacion, urea, "2");
+		agregarLinea(usuario, planeacion, micro, "1500");
+		agregarLinea(usuario, planeacion, abono, "3");
+
+		List<CantidadUnidadDto> cantidades = insumoPlaneacionService.getCantidadesBaseByPlaneacion(planeacion);
+		assertThat(cantidades).hasSize(1);
+		assertThat(cantidades.get(0).getUnidad()).isEqualTo(UnidadMedida.KG);
+		assertThat(cantidades.get(0).getCantidad()).isEqualByComparingTo("3.5");
+
+		// Cambiar la unidad del insumo vuelve a expresar sus líneas ya guardadas
+		micro.setUnidadMedida("Mililitros");
+		insumoService.saveInsumo(micro);
+		cantidades = insumoPlaneacionService.getCantidadesBaseByPlaneacion(planeacion);
+		assertThat(cantidades).extracting(CantidadUnidadDto::getUnidad).containsExactly(UnidadMedida.KG, UnidadMedida.L);
+		assertThat(cantidades).extracting(CantidadUnidadDto::getCantidad)
+				.usingElementComparator(BigDecimal::compareTo)
+				.containsExactly(new BigDecimal("2"), new BigDecimal("1.5"));
+	}
+
+	@Test
+	void parcelaSinUnidadDeAreaNoSePlanea() {
+		Usuario usuario = crearUsuario("unidades-parcela@agrosmart.test");
+		Parcela parcela = crearParcela(usuario, "3", "Kilogramos");
+		assertThat(parcela.getAreaM2()).isNull();
+		assertThatThrownBy(() -> crearPlaneacion(usuario, parcela))
+				.isInstanceOf(IllegalArgumentException.class)
+				.hasMessageContaining("no soportada");
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Unidades");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private Parcela crearParcela(Usuario usuario, String tamano, String unidadMedida) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela unidades");
+		parcela.setTamano(new BigDecimal(tamano));
+		parcela.setUnidadMedida(unidadMedida);
+		parcela.setUsuario(usuario);
+		return parcelaService.saveParcela(parcela);
+	}
+
+	private Insumo crearInsumo(Usuario usuario, String nombre, String unidadMedida) {
+		Insumo insumo = new Insumo();
+		insumo.setNombre(nombre);
+		insumo.setTipo(TipoInsumo.FERTILIZANTES);
+		insumo.setUnidadMedida(unidadMedida);
+		insumo.setPrecioUnitario(new BigDecimal("10.00"));
+		insumo.setUsuario(usuario);
+		return insumoService.saveInsumo(insumo);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario, Parcela parcela) {
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).stream()
+				.filter(t -> t.getNombre().equals("Café")).findFirst().orElseThrow());
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación unidades");
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoService.savePlaneacionCultivo(planeacion);
+	}
+
+	private void agregarLinea(Usuario usuario, PlaneacionCultivo planeacion, Insumo insumo, String cantidad) {
+		InsumoPlaneacion ip = new InsumoPlaneacion();
+		ip.setPlaneacion(planeacion);
+		ip.setInsumo(insumo);
+		ip.setCantidad(new BigDecimal(cantidad));
+		insumoPlaneacionService.saveInsumoPlaneacion(ip, usuario);
+	}
+}
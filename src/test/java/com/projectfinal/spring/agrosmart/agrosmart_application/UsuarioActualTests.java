@@ -0,0 +1,108 @@
+package com.projectfinal.spring.agrosmart.agrosmart_application;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestBuilders.formLogin;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.security.test.web.servlet.response.SecurityMockMvcResultMatchers.authenticated;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.projectfinal.spring.agrosmart.agrosmart_application.config.UsuarioAutenticado;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Parcela;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.PlaneacionCultivo;
+import com.projectfinal.spring.agrosmart.agrosmart_application.model.Usuario;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.EtapaCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.ParcelaRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.PlaneacionCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.repository.TipoCultivoRepository;
+import com.projectfinal.spring.agrosmart.agrosmart_application.service.UsuarioService;
+
+/**
+ * El usuario autenticado se resuelve una vez al iniciar sesión: las páginas no deben volver a
+ * consultar la tabla de usuarios en cada petición.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@Import(ContadorSentenciasConfiguracion.class)
+class UsuarioActualTests {
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private UsuarioService usuarioService;
+	@Autowired
+	private ParcelaRepository parcelaRepository;
+	@Autowired
+	private TipoCultivoRepository tipoCultivoRepository;
+	@Autowired
+	private EtapaCultivoRepository etapaCultivoRepository;
+	@Autowired
+	private PlaneacionCultivoRepository planeacionCultivoRepository;
+
+	@Test
+	void elInicioDeSesionGuardaElPrincipalConElIdYSinContrasena() throws Exception {
+		Usuario usuario = crearUsuario("principal-login@agrosmart.test");
+
+		mockMvc.perform(formLogin("/auth/login").user("principal-login@agrosmart.test").password("secreta"))
+				.andExpect(authenticated().withAuthentication(autenticacion -> {
+					assertThat(autenticacion.getPrincipal()).isInstanceOf(UsuarioAutenticado.class);
+					UsuarioAutenticado principal = (UsuarioAutenticado) autenticacion.getPrincipal();
+					assertThat(principal.getId()).isEqualTo(usuario.getId());
+					assertThat(principal.getNombre()).isEqualTo("Principal");
+					assertThat(principal.getPassword()).isNull();
+				}));
+	}
+
+	@Test
+	void lasPaginasNoConsultanLaTablaDeUsuarios() throws Exception {
+		Usuario usuario = crearUsuario("principal-paginas@agrosmart.test");
+		PlaneacionCultivo planeacion = crearPlaneacion(usuario);
+		UsuarioAutenticado principal = new UsuarioAutenticado(usuario);
+
+		for (String ruta : new String[] {"/parcelas", "/insumos", "/tipos-cultivo", "/etapas", "/planeaciones",
+				"/planeaciones/" + planeacion.getId() + "/insumos", "/planeaciones/" + planeacion.getId() + "/insumos/new"}) {
+			ContadorSentenciasConfiguracion.limpiar();
+			mockMvc.perform(get(ruta).with(user(principal))).andExpect(status().isOk());
+			assertThat(ContadorSentenciasConfiguracion.sentencias())
+					.as("sentencias de %s", ruta)
+					.noneMatch(sql -> sql.toLowerCase().contains("from usuarios"));
+		}
+	}
+
+	private Usuario crearUsuario(String email) {
+		Usuario usuario = new Usuario();
+		usuario.setNombre("Principal");
+		usuario.setEmail(email);
+		usuario.setPassword("secreta");
+		return usuarioService.saveUsuario(usuario);
+	}
+
+	private PlaneacionCultivo crearPlaneacion(Usuario usuario) {
+		Parcela parcela = new Parcela();
+		parcela.setNombre("Parcela principal");
+		parcela.setTamano(BigDecimal.TEN);
+		parcela.setUsuario(usuario);
+		parcelaRepository.save(parcela);
+
+		PlaneacionCultivo planeacion = new PlaneacionCultivo();
+		planeacion.setUsuario(usuario);
+		planeacion.setParcela(parcela);
+		planeacion.setTipoCultivo(tipoCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setEtapaCultivo(etapaCultivoRepository.findByUsuario(usuario).get(0));
+		planeacion.setNombre("Planeación principal");
+		planeacion.setFechaInicio(LocalDate.now());
+		return planeacionCultivoRepository.save(planeacion);
+	}
+}